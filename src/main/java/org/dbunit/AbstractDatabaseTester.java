@@ -21,9 +21,15 @@
 
 package org.dbunit;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
 import org.dbunit.assertion.SimpleAssert;
 import org.dbunit.assertion.DefaultFailureHandler;
+import org.dbunit.database.DatabaseConfig;
 import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.statement.IBatchSizeListener;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.operation.DatabaseOperation;
 import org.slf4j.Logger;
@@ -32,6 +38,12 @@ import org.slf4j.LoggerFactory;
 /**
  * Basic implementation of IDatabaseTester.<br>
  * Implementations of IDatabaseTester may use this class as a starting point.
+ * <p>
+ * If {@link #setRollbackIsolation(boolean) rollback isolation} is enabled, the
+ * set up operation is executed and committed by the first {@link #onSetup()} only
+ * and every test runs in a transaction on the same connection which is rolled back
+ * by {@link #onTearDown()} instead of executing the tear down operation.
+ * </p>
  *
  * @author Andres Almiray (aalmiray@users.sourceforge.net)
  * @author Last changed by: $Author$
@@ -68,6 +80,11 @@ public abstract class AbstractDatabaseTester extends SimpleAssert implements IDa
 	private DatabaseOperation tearDownOperation = DatabaseOperation.NONE;
 	private IOperationListener operationListener;
 
+	private boolean rollbackIsolation = false;
+	private IDatabaseConnection isolatedConnection;
+	private boolean isolatedAutoCommit;
+	private Savepoint savepoint;
+
 	public AbstractDatabaseTester()
 	{
 		this(null);
@@ -100,15 +117,207 @@ public abstract class AbstractDatabaseTester extends SimpleAssert implements IDa
 	public void onSetup() throws Exception
 	{
 		logger.debug("onSetup() - start");
+
+		if( rollbackIsolation ){
+		    beginIsolatedTest();
+		    return;
+		}
 		executeOperation( getSetUpOperation(), OperationType.SET_UP );
 	}
 
 	public void onTearDown() throws Exception
 	{
 		logger.debug("onTearDown() - start");
+
+		if( rollbackIsolation ){
+		    endIsolatedTest();
+		    return;
+		}
 		executeOperation( getTearDownOperation(), OperationType.TEAR_DOWN );
 	}
 
+	/**
+	 * Enables or disables the rollback isolation. If enabled, the set up operation is
+	 * executed once and committed, then the connection is kept open and switched to
+	 * manual commit. Every test runs in a transaction started by {@link #onSetup()}
+	 * and rolled back by {@link #onTearDown()}, the tear down operation is not
+	 * executed.
+	 * <p>
+	 * The tests must use the connection returned by {@link #getIsolatedConnection()}.
+	 * If a test breaks the isolation by closing the connection, by switching it to
+	 * auto-commit or by executing a statement which commits implicitly, like DDL
+	 * statements on some databases, the isolation is ended and the next
+	 * {@link #onSetup()} executes the set up operation again. Implicit commits are
+	 * detected using savepoints, thus only if the driver supports them.
+	 * </p>
+	 * <p>
+	 * {@link #endIsolation()} must be invoked once all tests have run, for example
+	 * at the end of the test suite, to release the connection.
+	 * </p>
+	 * @param rollbackIsolation <code>true</code> to roll back every test
+	 * @since 2.4.10
+	 */
+	public void setRollbackIsolation( boolean rollbackIsolation )
+	{
+		logger.debug("setRollbackIsolation(rollbackIsolation={}) - start", String.valueOf(rollbackIsolation));
+
+		this.rollbackIsolation = rollbackIsolation;
+	}
+
+	/**
+	 * @return <code>true</code> if every test is rolled back
+	 * @since 2.4.10
+	 */
+	public boolean isRollbackIsolation()
+	{
+		return rollbackIsolation;
+	}
+
+	/**
+	 * Returns the connection on which the current test runs if the rollback isolation
+	 * is enabled.
+	 * @return The connection or <code>null</code> if no isolated test is running
+	 * @since 2.4.10
+	 */
+	public IDatabaseConnection getIsolatedConnection()
+	{
+		return isolatedConnection;
+	}
+
+	/**
+	 * Rolls back the current transaction of the isolated connection, restores its
+	 * auto-commit mode and hands it over to the operation listener which usually
+	 * closes it. The next {@link #onSetup()} executes the set up operation again.
+	 * @throws Exception
+	 * @since 2.4.10
+	 */
+	public void endIsolation() throws Exception
+	{
+		logger.debug("endIsolation() - start");
+
+		IDatabaseConnection connection = isolatedConnection;
+		if( connection == null ){
+		    return;
+		}
+		isolatedConnection = null;
+		savepoint = null;
+
+		try{
+		    Connection jdbcConnection = connection.getConnection();
+		    if( !jdbcConnection.isClosed() ){
+		        if( !jdbcConnection.getAutoCommit() ){
+		            jdbcConnection.rollback();
+		        }
+		        jdbcConnection.setAutoCommit(isolatedAutoCommit);
+		    }
+		}
+		finally{
+		    getOperationListener().operationTearDownFinished(connection);
+		}
+	}
+
+	/**
+	 * Seeds the database unless already done and starts the transaction of a test.
+	 */
+	private void beginIsolatedTest() throws Exception
+	{
+		logger.debug("beginIsolatedTest() - start");
+
+		if( isolatedConnection == null ){
+		    isolatedConnection = seedIsolatedConnection();
+		}
+
+		Connection jdbcConnection = isolatedConnection.getConnection();
+		if( jdbcConnection.getMetaData().supportsSavepoints() ){
+		    savepoint = jdbcConnection.setSavepoint();
+		}
+		else{
+		    savepoint = null;
+		}
+	}
+
+	/**
+	 * Executes the set up operation, commits it and returns the connection switched
+	 * to manual commit.
+	 */
+	private IDatabaseConnection seedIsolatedConnection() throws Exception
+	{
+		logger.debug("seedIsolatedConnection() - start");
+
+		IDatabaseConnection connection = getConnection();
+		getOperationListener().connectionRetrieved(connection);
+		registerBatchSizeListener(connection);
+		try{
+		    DatabaseOperation operation = getSetUpOperation();
+		    if( operation != DatabaseOperation.NONE ){
+		        operation.execute( connection, getDataSet() );
+		    }
+
+		    if( connection.getConnection().isClosed() ){
+		        // For example closed by a CloseConnectionOperation
+		        logger.debug("Connection closed by the set up operation, retrieving a new one");
+		        connection = getConnection();
+		        getOperationListener().connectionRetrieved(connection);
+		        registerBatchSizeListener(connection);
+		    }
+
+		    Connection jdbcConnection = connection.getConnection();
+		    isolatedAutoCommit = jdbcConnection.getAutoCommit();
+		    if( isolatedAutoCommit ){
+		        jdbcConnection.setAutoCommit(false);
+		    }
+		    else{
+		        jdbcConnection.commit();
+		    }
+		    return connection;
+		}
+		catch( Exception e ){
+		    getOperationListener().operationSetUpFinished(connection);
+		    throw e;
+		}
+	}
+
+	/**
+	 * Rolls back the transaction of the current test. Ends the isolation if it has
+	 * been broken by the test.
+	 */
+	private void endIsolatedTest() throws Exception
+	{
+		logger.debug("endIsolatedTest() - start");
+
+		if( isolatedConnection == null ){
+		    return;
+		}
+
+		Connection jdbcConnection = isolatedConnection.getConnection();
+		String brokenReason = null;
+		if( jdbcConnection.isClosed() ){
+		    brokenReason = "the connection has been closed";
+		}
+		else if( jdbcConnection.getAutoCommit() ){
+		    brokenReason = "the connection has been switched to auto-commit";
+		}
+		else{
+		    if( savepoint != null ){
+		        try{
+		            // Fails if the savepoint has been released by an implicit commit
+		            jdbcConnection.rollback(savepoint);
+		        }
+		        catch( SQLException e ){
+		            brokenReason = "the savepoint could not be rolled back: " + e.getMessage();
+		        }
+		        savepoint = null;
+		    }
+		    jdbcConnection.rollback();
+		}
+
+		if( brokenReason != null ){
+		    logger.warn("Test isolation broken because " + brokenReason
+		            + ". The set up operation is executed again for the next test.");
+		    endIsolation();
+		}
+	}
+
 	public void setDataSet( IDataSet dataSet )
 	{
 		logger.debug("setDataSet(dataSet={}) - start", dataSet);
@@ -177,14 +386,11 @@ public abstract class AbstractDatabaseTester extends SimpleAssert implements IDa
 		logger.debug("executeOperation(operation={}) - start", operation);
 
 		if( operation != DatabaseOperation.NONE ){
-		    // Ensure that the operationListener is set
-		    if(operationListener == null){
-		        logger.debug("OperationListener is null and will be defaulted.");
-		        operationListener = new DefaultOperationListener();
-		    }
+		    IOperationListener operationListener = getOperationListener();
 		    
 			IDatabaseConnection connection = getConnection();
 		    operationListener.connectionRetrieved(connection);
+		    registerBatchSizeListener(connection);
 
 			try{
 				operation.execute( connection, getDataSet() );
@@ -204,6 +410,33 @@ public abstract class AbstractDatabaseTester extends SimpleAssert implements IDa
 		}
 	}
 
+	/**
+	 * Returns the operation listener, a {@link DefaultOperationListener} if none has been set.
+	 */
+	private IOperationListener getOperationListener()
+	{
+	    // Ensure that the operationListener is set
+	    if(operationListener == null){
+	        logger.debug("OperationListener is null and will be defaulted.");
+	        operationListener = new DefaultOperationListener();
+	    }
+	    return operationListener;
+	}
+
+	/**
+	 * Registers the operation listener as {@link IBatchSizeListener} of the given
+	 * connection unless another listener has been configured.
+	 */
+	private void registerBatchSizeListener(IDatabaseConnection connection)
+	{
+	    DatabaseConfig config = connection.getConfig();
+	    if (operationListener instanceof IBatchSizeListener
+	            && config.getProperty(DatabaseConfig.PROPERTY_BATCH_SIZE_LISTENER) == null)
+	    {
+	        config.setProperty(DatabaseConfig.PROPERTY_BATCH_SIZE_LISTENER, operationListener);
+	    }
+	}
+
     public void setOperationListener(IOperationListener operationListener) 
     {
         logger.debug("setOperationListener(operationListener={}) - start", operationListener);
@@ -219,6 +452,7 @@ public abstract class AbstractDatabaseTester extends SimpleAssert implements IDa
     	sb.append(", setUpOperation=").append(setUpOperation);
     	sb.append(", tearDownOperation=").append(tearDownOperation);
     	sb.append(", operationListener=").append(operationListener);
+    	sb.append(", rollbackIsolation=").append(rollbackIsolation);
     	sb.append("]");
     	return sb.toString();
     }
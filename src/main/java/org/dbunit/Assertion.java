@@ -25,6 +25,7 @@ import java.sql.SQLException;
 
 import org.dbunit.assertion.DbUnitAssert;
 import org.dbunit.assertion.FailureHandler;
+import org.dbunit.assertion.SampleResult;
 import org.dbunit.database.IDatabaseConnection;
 import org.dbunit.dataset.Column;
 import org.dbunit.dataset.IDataSet;
@@ -114,6 +115,27 @@ public class Assertion {
         INSTANCE.assertEquals(expectedDataSet, actualDataSet, failureHandler);
     }
 
+    /**
+     * @see DbUnitAssert#assertEqualsParallel(IDataSet, IDatabaseConnection)
+     * @since 2.4.10
+     */
+    public static void assertEqualsParallel(IDataSet expectedDataSet,
+            IDatabaseConnection connection)
+    throws DatabaseUnitException, SQLException {
+        INSTANCE.assertEqualsParallel(expectedDataSet, connection);
+    }
+
+    /**
+     * @see DbUnitAssert#assertEqualsParallel(IDataSet, IDatabaseConnection, Column[])
+     * @since 2.4.10
+     */
+    public static void assertEqualsParallel(IDataSet expectedDataSet,
+            IDatabaseConnection connection, Column[] additionalColumnInfo)
+    throws DatabaseUnitException, SQLException {
+        INSTANCE.assertEqualsParallel(expectedDataSet, connection,
+                additionalColumnInfo);
+    }
+
     /**
      * @see DbUnitAssert#assertEquals(ITable, ITable)
      */
@@ -139,4 +161,111 @@ public class Assertion {
         INSTANCE.assertEquals(expectedTable, actualTable, failureHandler);
     }
 
+    /**
+     * @see DbUnitAssert#assertEqualsUnordered(ITable, ITable)
+     * @since 2.4.10
+     */
+    public static void assertEqualsUnordered(ITable expectedTable,
+            ITable actualTable) throws DatabaseUnitException {
+        INSTANCE.assertEqualsUnordered(expectedTable, actualTable);
+    }
+
+    /**
+     * @see DbUnitAssert#assertEqualsUnordered(ITable, ITable, String[])
+     * @since 2.4.10
+     */
+    public static void assertEqualsUnordered(ITable expectedTable,
+            ITable actualTable, String[] keyColumnNames)
+    throws DatabaseUnitException {
+        INSTANCE.assertEqualsUnordered(expectedTable, actualTable, keyColumnNames);
+    }
+
+    /**
+     * @see DbUnitAssert#assertEqualsUnordered(ITable, ITable, String[], FailureHandler)
+     * @since 2.4.10
+     */
+    public static void assertEqualsUnordered(ITable expectedTable,
+            ITable actualTable, String[] keyColumnNames,
+            FailureHandler failureHandler) throws DatabaseUnitException {
+        INSTANCE.assertEqualsUnordered(expectedTable, actualTable,
+                keyColumnNames, failureHandler);
+    }
+
+    /**
+     * @see DbUnitAssert#assertEqualsStreaming(ITable, ITable)
+     * @since 2.4.10
+     */
+    public static void assertEqualsStreaming(ITable expectedTable,
+            ITable actualTable) throws DatabaseUnitException {
+        INSTANCE.assertEqualsStreaming(expectedTable, actualTable);
+    }
+
+    /**
+     * @see DbUnitAssert#assertEqualsStreaming(ITable, IDatabaseConnection, String, FailureHandler)
+     * @since 2.4.10
+     */
+    public static void assertEqualsStreaming(ITable expectedTable,
+            IDatabaseConnection connection, String tableName,
+            FailureHandler failureHandler)
+    throws DatabaseUnitException, SQLException {
+        INSTANCE.assertEqualsStreaming(expectedTable, connection, tableName,
+                failureHandler);
+    }
+
+    /**
+     * @see DbUnitAssert#assertEqualsStreaming(ITable, ITable, String[], FailureHandler)
+     * @since 2.4.10
+     */
+    public static void assertEqualsStreaming(ITable expectedTable,
+            ITable actualTable, String[] keyColumnNames,
+            FailureHandler failureHandler) throws DatabaseUnitException {
+        INSTANCE.assertEqualsStreaming(expectedTable, actualTable,
+                keyColumnNames, failureHandler);
+    }
+
+    /**
+     * @see DbUnitAssert#assertEqualsInDatabase(ITable, IDatabaseConnection, String)
+     * @since 2.4.10
+     */
+    public static void assertEqualsInDatabase(ITable expectedTable,
+            IDatabaseConnection connection, String tableName)
+    throws DatabaseUnitException, SQLException {
+        INSTANCE.assertEqualsInDatabase(expectedTable, connection, tableName);
+    }
+
+    /**
+     * @see DbUnitAssert#assertEqualsInDatabase(ITable, IDatabaseConnection, String, FailureHandler)
+     * @since 2.4.10
+     */
+    public static void assertEqualsInDatabase(ITable expectedTable,
+            IDatabaseConnection connection, String tableName,
+            FailureHandler failureHandler)
+    throws DatabaseUnitException, SQLException {
+        INSTANCE.assertEqualsInDatabase(expectedTable, connection, tableName,
+                failureHandler);
+    }
+
+    /**
+     * @see DbUnitAssert#assertEqualsSampled(ITable, ITable, double, long, FailureHandler)
+     * @since 2.4.10
+     */
+    public static SampleResult assertEqualsSampled(ITable expectedTable,
+            ITable actualTable, double sampleRate, long seed,
+            FailureHandler failureHandler) throws DatabaseUnitException {
+        return INSTANCE.assertEqualsSampled(expectedTable, actualTable,
+                sampleRate, seed, failureHandler);
+    }
+
+    /**
+     * @see DbUnitAssert#assertEqualsSampled(ITable, IDatabaseConnection, String, double, long, FailureHandler)
+     * @since 2.4.10
+     */
+    public static SampleResult assertEqualsSampled(ITable expectedTable,
+            IDatabaseConnection connection, String tableName,
+            double sampleRate, long seed, FailureHandler failureHandler)
+    throws DatabaseUnitException, SQLException {
+        return INSTANCE.assertEqualsSampled(expectedTable, connection,
+                tableName, sampleRate, seed, failureHandler);
+    }
+
 }
@@ -23,18 +23,20 @@ package org.dbunit;
 import java.sql.SQLException;
 
 import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.statement.IBatchSizeListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Default implementation of the {@link IOperationListener}.
+ * Also logs the batch sizes chosen by statements in adaptive batch size mode.
  * 
  * @author gommma (gommma AT users.sourceforge.net)
  * @author Last changed by: $Author$
  * @version $Revision$ $Date$
  * @since 2.4.4
  */
-public class DefaultOperationListener implements IOperationListener{
+public class DefaultOperationListener implements IOperationListener, IBatchSizeListener{
     
     /**
      * Logger for this class
@@ -57,6 +59,13 @@ public class DefaultOperationListener implements IOperationListener{
         closeConnection(connection);
     }
 
+    public void batchSizeChosen(String sql, int batchSize, int rowCount, int bytesPerRow,
+            long executionMillis) {
+        logger.debug("Adaptive batch size {} for {} rows of ~{} bytes in {} ms: {}", new Object[] {
+                String.valueOf(batchSize), String.valueOf(rowCount), String.valueOf(bytesPerRow),
+                String.valueOf(executionMillis), sql});
+    }
+
     private void closeConnection(IDatabaseConnection connection)
     {
         logger.debug("closeConnection(connection={}) - start",connection);
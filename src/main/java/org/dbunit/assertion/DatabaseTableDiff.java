@@ -0,0 +1,329 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import org.dbunit.database.CachedResultSetTable;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.ForwardOnlyResultSetTable;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.diff.DefaultTableDiffSqlBuilder;
+import org.dbunit.database.diff.ITableDiffSqlBuilder;
+import org.dbunit.database.statement.IPreparedBatchStatement;
+import org.dbunit.database.statement.IStatementFactory;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.util.QualifiedTableName;
+import org.dbunit.util.SQLHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Computes the difference between expected rows and a database table inside
+ * of the database. The expected rows are inserted into a temporary table and
+ * only the rows which are not contained in both tables are fetched, using the
+ * SQL built by the configured {@link ITableDiffSqlBuilder}. If the database
+ * computes fingerprints and they are the same for both tables no row is
+ * fetched at all.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see DbUnitAssert#assertEqualsInDatabase(ITable, IDatabaseConnection, String, FailureHandler)
+ */
+class DatabaseTableDiff
+{
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseTableDiff.class);
+
+    private final IDatabaseConnection _connection;
+    private final String _tableName;
+    private final Column[] _columns;
+
+    private int _expectedRowCount;
+    private boolean _fingerprintMatch;
+    private ITable _missingRows;
+    private ITable _unexpectedRows;
+
+    /**
+     * @param connection The connection to the database holding the table
+     * @param tableName The name of the database table
+     * @param columns The database columns to be compared
+     */
+    DatabaseTableDiff(IDatabaseConnection connection, String tableName, Column[] columns)
+    {
+        _connection = connection;
+        _tableName = tableName;
+        _columns = columns;
+    }
+
+    /**
+     * Compares the given rows with the database table.
+     * @param expectedTable The expected rows
+     * @throws DataSetException
+     * @throws SQLException
+     */
+    void execute(ITable expectedTable) throws DataSetException, SQLException
+    {
+        logger.debug("execute(expectedTable={}) - start", expectedTable);
+
+        DatabaseConfig config = _connection.getConfig();
+        ITableDiffSqlBuilder sqlBuilder = (ITableDiffSqlBuilder)config.getProperty(
+                DatabaseConfig.PROPERTY_TABLE_DIFF_SQL_BUILDER);
+        if (sqlBuilder == null)
+        {
+            sqlBuilder = new DefaultTableDiffSqlBuilder();
+        }
+
+        String escapePattern = (String)config.getProperty(DatabaseConfig.PROPERTY_ESCAPE_PATTERN);
+        String qualifiedTableName = new QualifiedTableName(_tableName,
+                _connection.getSchema(), escapePattern).getQualifiedName();
+        String[] columnNames = new String[_columns.length];
+        for (int i = 0; i < _columns.length; i++)
+        {
+            columnNames[i] = new QualifiedTableName(_columns[i].getColumnName(),
+                    null, escapePattern).getQualifiedName();
+        }
+        String temporaryTableName = sqlBuilder.getTemporaryTableName(_tableName);
+
+        execute(sqlBuilder.buildCreateTemporaryTableSql(temporaryTableName,
+                qualifiedTableName, columnNames));
+        boolean success = false;
+        try
+        {
+            compare(expectedTable, sqlBuilder, temporaryTableName,
+                    qualifiedTableName, columnNames);
+            success = true;
+        }
+        finally
+        {
+            String[] dropSql = sqlBuilder.buildDropTemporaryTableSql(temporaryTableName);
+            if (success)
+            {
+                execute(dropSql);
+            }
+            else
+            {
+                drop(dropSql);
+            }
+        }
+    }
+
+    private void compare(ITable expectedTable, ITableDiffSqlBuilder sqlBuilder,
+            String temporaryTableName, String qualifiedTableName, String[] columnNames)
+            throws DataSetException, SQLException
+    {
+        _expectedRowCount = insert(expectedTable, temporaryTableName, columnNames);
+
+        String fingerprintSql = sqlBuilder.buildFingerprintSql(
+                temporaryTableName, columnNames, _columns);
+        if (fingerprintSql != null)
+        {
+            _fingerprintMatch = fingerprint(fingerprintSql).equals(fingerprint(
+                    sqlBuilder.buildFingerprintSql(qualifiedTableName, columnNames, _columns)));
+            if (_fingerprintMatch)
+            {
+                logger.debug("Fingerprints of table '{}' match, hence equals.", _tableName);
+                _missingRows = new DefaultTable(_tableName, _columns);
+                _unexpectedRows = _missingRows;
+                return;
+            }
+        }
+
+        _missingRows = select(sqlBuilder.buildDifferenceSql(
+                temporaryTableName, qualifiedTableName, columnNames));
+        _unexpectedRows = select(sqlBuilder.buildDifferenceSql(
+                qualifiedTableName, temporaryTableName, columnNames));
+    }
+
+    /**
+     * @return The number of expected rows
+     */
+    int getExpectedRowCount()
+    {
+        return _expectedRowCount;
+    }
+
+    /**
+     * @return <code>true</code> if the database computed the same fingerprint
+     * for the expected rows and the database table, in which case neither
+     * missing nor unexpected rows have been selected
+     */
+    boolean isFingerprintMatch()
+    {
+        return _fingerprintMatch;
+    }
+
+    /**
+     * @return The distinct expected rows which do not exist in the database table
+     */
+    ITable getMissingRows()
+    {
+        return _missingRows;
+    }
+
+    /**
+     * @return The distinct rows of the database table which are not expected
+     */
+    ITable getUnexpectedRows()
+    {
+        return _unexpectedRows;
+    }
+
+    private int insert(ITable table, String temporaryTableName, String[] columnNames)
+            throws DataSetException, SQLException
+    {
+        StringBuffer sql = new StringBuffer(128);
+        sql.append("insert into ").append(temporaryTableName).append(" (");
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            if (i > 0)
+            {
+                sql.append(", ");
+            }
+            sql.append(columnNames[i]);
+        }
+        sql.append(") values (");
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            sql.append(i > 0 ? ", ?" : "?");
+        }
+        sql.append(")");
+
+        DatabaseConfig config = _connection.getConfig();
+        IStatementFactory factory = (IStatementFactory)config.getProperty(
+                DatabaseConfig.PROPERTY_STATEMENT_FACTORY);
+        int batchSize = ((Integer)config.getProperty(
+                DatabaseConfig.PROPERTY_BATCH_SIZE)).intValue();
+
+        IPreparedBatchStatement statement =
+                factory.createPreparedBatchStatement(sql.toString(), _connection);
+        int row = 0;
+        try
+        {
+            try
+            {
+                while (true)
+                {
+                    for (int i = 0; i < _columns.length; i++)
+                    {
+                        Object value = table.getValue(row, _columns[i].getColumnName());
+                        statement.addValue(value, _columns[i].getDataType());
+                    }
+                    statement.addBatch();
+                    row++;
+
+                    if (row % batchSize == 0)
+                    {
+                        statement.executeBatch();
+                        statement.clearBatch();
+                    }
+                }
+            }
+            catch (RowOutOfBoundsException e)
+            {
+                // end of table
+            }
+
+            if (row % batchSize != 0)
+            {
+                statement.executeBatch();
+                statement.clearBatch();
+            }
+        }
+        finally
+        {
+            statement.close();
+        }
+        return row;
+    }
+
+    /**
+     * @return The row count and the hash selected by the given fingerprint query
+     */
+    private List fingerprint(String sql) throws SQLException
+    {
+        logger.debug("fingerprint(sql={}) - start", sql);
+
+        Statement statement = _connection.getConnection().createStatement();
+        ResultSet resultSet = null;
+        try
+        {
+            resultSet = statement.executeQuery(sql);
+            resultSet.next();
+            return Arrays.asList(new String[] {
+                    resultSet.getString(1), resultSet.getString(2)});
+        }
+        finally
+        {
+            SQLHelper.close(resultSet, statement);
+        }
+    }
+
+    private ITable select(String sql) throws DataSetException, SQLException
+    {
+        logger.debug("select(sql={}) - start", sql);
+        return new CachedResultSetTable(new ForwardOnlyResultSetTable(_tableName, sql, _connection));
+    }
+
+    /**
+     * Drops the temporary table after a failed comparison. A failing drop is
+     * only logged so that it does not hide the failure of the comparison.
+     */
+    private void drop(String[] sql)
+    {
+        try
+        {
+            execute(sql);
+        }
+        catch (SQLException e)
+        {
+            logger.warn("Exception while dropping the temporary table: " + e, e);
+        }
+    }
+
+    private void execute(String[] sql) throws SQLException
+    {
+        Statement statement = _connection.getConnection().createStatement();
+        try
+        {
+            for (int i = 0; i < sql.length; i++)
+            {
+                logger.debug("execute(sql={}) - start", sql[i]);
+                statement.execute(sql[i]);
+            }
+        }
+        finally
+        {
+            SQLHelper.close(statement);
+        }
+    }
+}
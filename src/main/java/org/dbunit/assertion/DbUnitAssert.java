@@ -22,9 +22,16 @@ package org.dbunit.assertion;
 
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.dbunit.Assertion;
 import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.ForwardOnlyResultSetTable;
 import org.dbunit.database.IDatabaseConnection;
 import org.dbunit.dataset.Column;
 import org.dbunit.dataset.Columns;
@@ -32,7 +39,11 @@ import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.ITable;
 import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.NoPrimaryKeyException;
+import org.dbunit.dataset.NoSuchColumnException;
+import org.dbunit.dataset.RowKey;
 import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
 import org.dbunit.dataset.datatype.UnknownDataType;
 import org.dbunit.dataset.filter.DefaultColumnFilter;
 import org.slf4j.Logger;
@@ -249,12 +260,112 @@ public class DbUnitAssert
 
         // tables
         for (int i = 0; i < expectedNames.length; i++) {
+            if (isLimitReached(failureHandler)) {
+                logger.debug("Difference limit reached. Skipping the remaining tables.");
+                break;
+            }
             String name = expectedNames[i];
             assertEquals(expectedDataSet.getTable(name), actualDataSet.getTable(name), failureHandler);
         }
 
     }
 
+    /**
+     * Asserts that the tables of the specified dataset are equal to the
+     * database tables of the same name.
+     * 
+     * @param expectedDataSet
+     *            The expected tables
+     * @param connection
+     *            The connection to the database holding the actual tables
+     * @throws DatabaseUnitException
+     * @throws SQLException
+     * @see #assertEqualsParallel(IDataSet, IDatabaseConnection, Column[])
+     * @since 2.4.10
+     */
+    public void assertEqualsParallel(IDataSet expectedDataSet,
+            IDatabaseConnection connection)
+    throws DatabaseUnitException, SQLException
+    {
+        logger.debug("assertEqualsParallel(expectedDataSet={}, connection={}) - start",
+                expectedDataSet, connection);
+        assertEqualsParallel(expectedDataSet, connection, null);
+    }
+
+    /**
+     * Asserts that the tables of the specified dataset are equal to the
+     * database tables of the same name, comparing several tables at the same
+     * time. Only the columns of the expected tables are compared. The rows
+     * are matched by the primary key like by
+     * {@link #assertEqualsUnordered(ITable, ITable, String[], FailureHandler)},
+     * hence the expected rows may be in any order. Tables without primary key
+     * are sorted by all compared columns using a
+     * {@link org.dbunit.dataset.SortedTable} before being compared.
+     * <p>
+     * The tables are distributed over connections obtained from the
+     * {@link DatabaseConfig#PROPERTY_CONNECTION_FACTORY}, at most
+     * {@link DatabaseConfig#PROPERTY_PARALLEL_CONNECTIONS} of them. Without
+     * connection factory the tables are compared one after another on the
+     * given connection.
+     * </p>
+     * <p>
+     * Unlike {@link #assertEquals(IDataSet, IDataSet)} all tables are compared
+     * completely. The differences of all tables are collected and reported
+     * by a single failure which also lists the time needed to compare each
+     * table with differences.
+     * </p>
+     * 
+     * @param expectedDataSet
+     *            The expected tables
+     * @param connection
+     *            The connection to the database holding the actual tables
+     * @param additionalColumnInfo
+     *          The columns to be printed out for each difference. Can be
+     *          <code>null</code>
+     * @throws DatabaseUnitException
+     * @throws SQLException
+     * @since 2.4.10
+     */
+    public void assertEqualsParallel(IDataSet expectedDataSet,
+            IDatabaseConnection connection, Column[] additionalColumnInfo)
+    throws DatabaseUnitException, SQLException
+    {
+        logger.debug("assertEqualsParallel(expectedDataSet={}, connection={}, "
+                + "additionalColumnInfo={}) - start",
+                new Object[] { expectedDataSet, connection, additionalColumnInfo });
+
+        long start = System.currentTimeMillis();
+        ParallelDataSetComparator.TableResult[] results =
+                new ParallelDataSetComparator(this, connection, additionalColumnInfo)
+                        .compare(expectedDataSet);
+        long time = System.currentTimeMillis() - start;
+
+        int failedTableCount = 0;
+        StringBuffer sb = new StringBuffer();
+        for (int i = 0; i < results.length; i++) {
+            List messages = results[i].getMessages();
+            if (messages.isEmpty()) {
+                continue;
+            }
+
+            failedTableCount++;
+            sb.append("\n").append(results[i].getTableName());
+            sb.append(" (").append(results[i].getTime()).append(" ms): ");
+            sb.append(messages.size()).append(" difference(s)");
+            for (int j = 0; j < messages.size(); j++) {
+                sb.append("\n    ").append(messages.get(j));
+            }
+        }
+
+        if (failedTableCount > 0) {
+            String msg = failedTableCount + " of " + results.length
+                    + " tables differ (compared in " + time + " ms):" + sb;
+            Error error = getDefaultFailureHandler().createFailure(msg);
+            logger.error(error.toString());
+            throw error;
+        }
+    }
+
     /**
      * Asserts that the two specified tables are equals. This method ignores the
      * table names, the columns order, the columns data type and which columns are
@@ -409,6 +520,486 @@ public class DbUnitAssert
         compareData(expectedTable, actualTable, comparisonCols, failureHandler);
     }
 
+    /**
+     * Asserts that the two specified tables contain the same rows regardless of
+     * the row order. The rows are matched by the primary key columns of the
+     * expected table, or of the actual table if the expected table does not
+     * define a primary key.
+     * 
+     * @param expectedTable
+     *            Table containing all expected results.
+     * @param actualTable
+     *            Table containing all actual results.
+     * @throws DatabaseUnitException
+     * @see #assertEqualsUnordered(ITable, ITable, String[], FailureHandler)
+     * @since 2.4.10
+     */
+    public void assertEqualsUnordered(ITable expectedTable, ITable actualTable)
+    throws DatabaseUnitException
+    {
+        logger.debug("assertEqualsUnordered(expectedTable={}, actualTable={}) - start",
+                expectedTable, actualTable);
+        assertEqualsUnordered(expectedTable, actualTable, null, null);
+    }
+
+    /**
+     * Asserts that the two specified tables contain the same rows regardless of
+     * the row order. The rows are matched by the given key columns.
+     * 
+     * @param expectedTable
+     *            Table containing all expected results.
+     * @param actualTable
+     *            Table containing all actual results.
+     * @param keyColumnNames
+     *            The names of the columns identifying a row. Can be
+     *            <code>null</code> to use the primary key columns.
+     * @throws DatabaseUnitException
+     * @see #assertEqualsUnordered(ITable, ITable, String[], FailureHandler)
+     * @since 2.4.10
+     */
+    public void assertEqualsUnordered(ITable expectedTable, ITable actualTable,
+            String[] keyColumnNames) throws DatabaseUnitException
+    {
+        logger.debug("assertEqualsUnordered(expectedTable={}, actualTable={}, "
+                + "keyColumnNames={}) - start",
+                new Object[] { expectedTable, actualTable, keyColumnNames });
+        assertEqualsUnordered(expectedTable, actualTable, keyColumnNames, null);
+    }
+
+    /**
+     * Asserts that the two specified tables contain the same rows regardless of
+     * the row order. Like {@link #assertEquals(ITable, ITable, FailureHandler)}
+     * this method ignores the table names, the columns order, the columns data
+     * type and which columns are composing the primary keys.
+     * <p>
+     * Instead of wrapping both tables into a {@link org.dbunit.dataset.SortedTable}
+     * the rows are matched with a hash join on the key columns, so the comparison
+     * runs in linear time. The key values are normalized using the column
+     * {@link DataType} (see {@link RowKey}), hence <code>1</code> matches
+     * <code>1.00</code>. The keys must be unique within each table.
+     * </p>
+     * <p>
+     * The differences are passed to the failure handler in the usual
+     * {@link Difference} format. The tables of a difference are views on the
+     * expected and actual table in which the matching rows have the same row
+     * index, so that the additional column info refers to the right rows. The
+     * expected rows come first in their original order; an expected row without
+     * matching actual row is reported with <code>null</code> actual values.
+     * The actual rows without matching expected row follow and are reported
+     * with <code>null</code> expected values.
+     * </p>
+     * 
+     * @param expectedTable
+     *            Table containing all expected results.
+     * @param actualTable
+     *            Table containing all actual results.
+     * @param keyColumnNames
+     *            The names of the columns identifying a row. Can be
+     *            <code>null</code> to use the primary key columns.
+     * @param failureHandler
+     *          The failure handler used if the assert fails because of a data
+     *          mismatch. Can be <code>null</code>
+     * @throws DatabaseUnitException
+     * @since 2.4.10
+     */
+    public void assertEqualsUnordered(ITable expectedTable, ITable actualTable,
+            String[] keyColumnNames, FailureHandler failureHandler)
+    throws DatabaseUnitException
+    {
+        logger.trace("assertEqualsUnordered(expectedTable, actualTable, keyColumnNames, failureHandler) - start");
+        logger.debug("assertEqualsUnordered: expectedTable={}", expectedTable);
+        logger.debug("assertEqualsUnordered: actualTable={}", actualTable);
+        logger.debug("assertEqualsUnordered: failureHandler={}", failureHandler);
+
+        // Do not continue if same instance
+        if (expectedTable == actualTable) {
+            logger.debug(
+                            "The given tables reference the same object. Will return immediately. (Table={})",
+                            expectedTable);
+            return;
+        }
+
+        if (failureHandler == null) {
+            logger.debug("FailureHandler is null. Using default implementation");
+            failureHandler = getDefaultFailureHandler();
+        }
+
+        ITableMetaData expectedMetaData = expectedTable.getTableMetaData();
+        ITableMetaData actualMetaData = actualTable.getTableMetaData();
+        String expectedTableName = expectedMetaData.getTableName();
+
+        // Missing and unexpected rows are reported as differences. Only if
+        // one of the tables is empty the row count is verified, since the
+        // column metadata of an empty table may be different
+        int expectedRowsCount = expectedTable.getRowCount();
+        int actualRowsCount = actualTable.getRowCount();
+        if (expectedRowsCount == 0 || actualRowsCount == 0) {
+            if (expectedRowsCount != actualRowsCount) {
+                String msg = "row count (table=" + expectedTableName + ")";
+                Error error =
+                        failureHandler.createFailure(msg, String
+                                .valueOf(expectedRowsCount), String
+                                .valueOf(actualRowsCount));
+                logger.error(error.toString());
+                throw error;
+            }
+            logger.debug("Tables are empty, hence equals.");
+            return;
+        }
+
+        // Put the columns into the same order
+        Column[] expectedColumns = Columns.getSortedColumns(expectedMetaData);
+        Column[] actualColumns = Columns.getSortedColumns(actualMetaData);
+
+        // Verify columns
+        Columns.ColumnDiff columnDiff =
+                Columns.getColumnDiff(expectedMetaData, actualMetaData);
+        if (columnDiff.hasDifference()) {
+            String message = columnDiff.getMessage();
+            Error error =
+                    failureHandler.createFailure(message, Columns
+                            .getColumnNamesAsString(expectedColumns), Columns
+                            .getColumnNamesAsString(actualColumns));
+            logger.error(error.toString());
+            throw error;
+        }
+
+        // Get the datatypes to be used for comparing the sorted columns
+        ComparisonColumn[] comparisonCols = getComparisonColumns(expectedTableName,
+                expectedColumns, actualColumns, failureHandler);
+
+        if (keyColumnNames == null) {
+            keyColumnNames = getPrimaryKeyNames(expectedMetaData, actualMetaData);
+        }
+        if (keyColumnNames.length == 0) {
+            throw new IllegalArgumentException(
+                    "At least one key column must be specified");
+        }
+        ComparisonColumn[] keyCols = getKeyColumns(expectedTableName,
+                keyColumnNames, comparisonCols);
+
+        // Finally compare the data
+        compareDataUnordered(expectedTable, actualTable, keyCols,
+                comparisonCols, failureHandler);
+    }
+
+    /**
+     * Asserts that the two specified tables are equals by reading both of them
+     * only once from the first to the last row. The rows are matched by the
+     * primary key columns of the expected table, or of the actual table if the
+     * expected table does not define a primary key.
+     * 
+     * @param expectedTable
+     *            Table containing all expected results.
+     * @param actualTable
+     *            Table containing all actual results.
+     * @throws DatabaseUnitException
+     * @see #assertEqualsStreaming(ITable, ITable, String[], FailureHandler)
+     * @since 2.4.10
+     */
+    public void assertEqualsStreaming(ITable expectedTable, ITable actualTable)
+    throws DatabaseUnitException
+    {
+        logger.debug("assertEqualsStreaming(expectedTable={}, actualTable={}) - start",
+                expectedTable, actualTable);
+        assertEqualsStreaming(expectedTable, actualTable, null, null);
+    }
+
+    /**
+     * Compares a table with the rows of a database table which are streamed
+     * from a {@link ForwardOnlyResultSetTable} ordered by the primary key of the
+     * database table. Only the rows of the expected table which are not in the
+     * order of the database, which depends on its collation, are kept in
+     * memory until their matching row has been read.
+     * 
+     * @param expectedTable
+     *            Table containing all expected results.
+     * @param connection
+     *            Connection to use for the SQL statement.
+     * @param tableName
+     *            The name of the table to query from the database
+     * @param failureHandler
+     *          The failure handler used if the assert fails because of a data
+     *          mismatch. Can be <code>null</code>
+     * @throws DatabaseUnitException
+     * @throws SQLException
+     * @see #assertEqualsStreaming(ITable, ITable, String[], FailureHandler)
+     * @since 2.4.10
+     */
+    public void assertEqualsStreaming(ITable expectedTable,
+            IDatabaseConnection connection, String tableName,
+            FailureHandler failureHandler)
+    throws DatabaseUnitException, SQLException
+    {
+        logger.debug("assertEqualsStreaming(expectedTable={}, connection={}, "
+                + "tableName={}, failureHandler={}) - start",
+                new Object[] { expectedTable, connection, tableName, failureHandler });
+
+        ITableMetaData metaData = connection.createDataSet().getTableMetaData(tableName);
+        // The select statement orders the rows by the primary key
+        ForwardOnlyResultSetTable actualTable =
+                new ForwardOnlyResultSetTable(metaData, connection);
+        try {
+            assertEqualsStreaming(expectedTable, actualTable, null, failureHandler);
+        }
+        finally {
+            actualTable.close();
+        }
+    }
+
+    /**
+     * Asserts that the two specified tables are equals by reading both of them
+     * only once from the first to the last row, for example a
+     * {@link ForwardOnlyResultSetTable} or a table of a
+     * {@link org.dbunit.dataset.stream.StreamingDataSet}. Neither
+     * {@link ITable#getRowCount()} is invoked nor is any row accessed again,
+     * so only the current row of each table and the differences kept by the
+     * failure handler are held in memory. Like
+     * {@link #assertEquals(ITable, ITable, FailureHandler)} this method
+     * ignores the table names, the columns order, the columns data type and
+     * which columns are composing the primary keys.
+     * <p>
+     * The rows are matched by the key columns. Rows of both tables having
+     * the same key at the same position are compared with each other
+     * directly. A row whose key differs is kept in memory until the row
+     * with the same key has been read from the other table, so the memory
+     * used only stays low if both tables are in the same order. Keys are
+     * only tested for equality, never ordered, so each table may be sorted by
+     * a different collation. The expected rows left without matching actual
+     * row are reported with <code>null</code> actual values and the actual
+     * rows left without matching expected row with <code>null</code>
+     * expected values, after all rows have been read. If no key columns are
+     * given and none of the tables defines a primary key the rows are
+     * compared by their position.
+     * </p>
+     * <p>
+     * The row index of a {@link Difference} is the index of the expected row,
+     * or of the actual row if no expected row matches. The tables of a
+     * difference only contain that single row. Different row counts are
+     * reported after all rows have been compared.
+     * </p>
+     * 
+     * @param expectedTable
+     *            Table containing all expected results.
+     * @param actualTable
+     *            Table containing all actual results.
+     * @param keyColumnNames
+     *            The names of the columns matching the rows.
+     *            Can be <code>null</code> to use the primary key columns.
+     * @param failureHandler
+     *          The failure handler used if the assert fails because of a data
+     *          mismatch. Can be <code>null</code>
+     * @throws DatabaseUnitException
+     * @since 2.4.10
+     */
+    public void assertEqualsStreaming(ITable expectedTable, ITable actualTable,
+            String[] keyColumnNames, FailureHandler failureHandler)
+    throws DatabaseUnitException
+    {
+        logger.trace("assertEqualsStreaming(expectedTable, actualTable, keyColumnNames, failureHandler) - start");
+        logger.debug("assertEqualsStreaming: expectedTable={}", expectedTable);
+        logger.debug("assertEqualsStreaming: actualTable={}", actualTable);
+        logger.debug("assertEqualsStreaming: failureHandler={}", failureHandler);
+
+        // Do not continue if same instance
+        if (expectedTable == actualTable) {
+            logger.debug(
+                            "The given tables reference the same object. Will return immediately. (Table={})",
+                            expectedTable);
+            return;
+        }
+
+        if (failureHandler == null) {
+            logger.debug("FailureHandler is null. Using default implementation");
+            failureHandler = getDefaultFailureHandler();
+        }
+
+        new StreamingTableComparator(this).compare(expectedTable, actualTable,
+                keyColumnNames, failureHandler);
+    }
+
+    /**
+     * Compares a table with a database table inside of the database.
+     * 
+     * @param expectedTable
+     *            Table containing all expected results.
+     * @param connection
+     *            Connection to the database holding the actual table.
+     * @param tableName
+     *            The name of the database table
+     * @throws DatabaseUnitException
+     * @throws SQLException
+     * @see #assertEqualsInDatabase(ITable, IDatabaseConnection, String, FailureHandler)
+     * @since 2.4.10
+     */
+    public void assertEqualsInDatabase(ITable expectedTable,
+            IDatabaseConnection connection, String tableName)
+    throws DatabaseUnitException, SQLException
+    {
+        logger.debug("assertEqualsInDatabase(expectedTable={}, connection={}, "
+                + "tableName={}) - start",
+                new Object[] { expectedTable, connection, tableName });
+        assertEqualsInDatabase(expectedTable, connection, tableName, null);
+    }
+
+    /**
+     * Compares a table with a database table inside of the database, without
+     * reading the whole database table. The expected rows are inserted into a
+     * temporary table and the database computes the rows which are missing
+     * or unexpected using set operations like <code>EXCEPT</code> or
+     * <code>MINUS</code>. Only these rows are fetched and compared with each
+     * other. The SQL is built by the
+     * {@link DatabaseConfig#PROPERTY_TABLE_DIFF_SQL_BUILDER}.
+     * <p>
+     * Only the columns of the expected table are compared, using the data
+     * types of the database columns. The missing and unexpected rows are
+     * matched by the primary key columns of the expected table, or of the
+     * database table if the expected table does not define a primary key,
+     * provided that all of them are compared; otherwise by all compared
+     * columns, and reported like by
+     * {@link #assertEqualsUnordered(ITable, ITable, String[], FailureHandler)}.
+     * Since the set operations ignore duplicate rows the row counts are
+     * verified at last.
+     * </p>
+     * <p>
+     * Where the SQL builder provides a fingerprint query the database first
+     * computes an order independent hash of the expected rows and of the
+     * database table. If both fingerprints match the tables are equal and
+     * the rows are neither selected nor compared.
+     * </p>
+     * <p>
+     * Depending on the database, creating the temporary table may be DDL
+     * which implicitly commits the current transaction, e.g. the global
+     * temporary table created by the
+     * {@link org.dbunit.ext.oracle.OracleTableDiffSqlBuilder}.
+     * </p>
+     * 
+     * @param expectedTable
+     *            Table containing all expected results.
+     * @param connection
+     *            Connection to the database holding the actual table.
+     * @param tableName
+     *            The name of the database table
+     * @param failureHandler
+     *          The failure handler used if the assert fails because of a data
+     *          mismatch. Can be <code>null</code>
+     * @throws DatabaseUnitException
+     * @throws SQLException
+     * @since 2.4.10
+     */
+    public void assertEqualsInDatabase(ITable expectedTable,
+            IDatabaseConnection connection, String tableName,
+            FailureHandler failureHandler)
+    throws DatabaseUnitException, SQLException
+    {
+        logger.debug("assertEqualsInDatabase(expectedTable={}, connection={}, "
+                + "tableName={}, failureHandler={}) - start",
+                new Object[] { expectedTable, connection, tableName, failureHandler });
+
+        if (failureHandler == null) {
+            logger.debug("FailureHandler is null. Using default implementation");
+            failureHandler = getDefaultFailureHandler();
+        }
+
+        new InDatabaseTableComparator(this, connection).compare(expectedTable,
+                tableName, failureHandler);
+    }
+
+    /**
+     * Compares a reproducible sample of the rows of two tables. Only the rows
+     * whose primary key hash falls within the given sample rate are compared,
+     * the others are skipped. The rows are matched by their key like by
+     * {@link #assertEqualsUnordered(ITable, ITable, String[], FailureHandler)}
+     * and the row counts of the whole tables are verified.
+     * <p>
+     * The sample depends on the normalized key values and the seed only, so
+     * the same rows are compared on every run. The returned result tells how
+     * confident one can be that the rows which were not compared are right.
+     * </p>
+     * 
+     * @param expectedTable
+     *            Table containing all expected results.
+     * @param actualTable
+     *            Table containing all actual results.
+     * @param sampleRate
+     *            The fraction of rows to be compared, for example
+     *            <code>0.05</code>
+     * @param seed
+     *            The seed selecting the sample
+     * @param failureHandler
+     *          The failure handler used if the assert fails because of a data
+     *          mismatch. Can be <code>null</code>
+     * @return The number of rows compared and the confidence achieved
+     * @throws DatabaseUnitException
+     * @since 2.4.10
+     */
+    public SampleResult assertEqualsSampled(ITable expectedTable,
+            ITable actualTable, double sampleRate, long seed,
+            FailureHandler failureHandler) throws DatabaseUnitException
+    {
+        logger.debug("assertEqualsSampled(expectedTable={}, actualTable={}, "
+                + "sampleRate={}, seed={}, failureHandler={}) - start",
+                new Object[] { expectedTable, actualTable, String.valueOf(sampleRate),
+                        String.valueOf(seed), failureHandler });
+
+        SampledTableComparator comparator = new SampledTableComparator(this,
+                sampleRate, seed);
+        if (failureHandler == null) {
+            logger.debug("FailureHandler is null. Using default implementation");
+            failureHandler = getDefaultFailureHandler();
+        }
+
+        return comparator.compare(expectedTable, actualTable, failureHandler);
+    }
+
+    /**
+     * Compares a reproducible sample of the rows of a table with the rows of
+     * a database table having the same primary key values. Only the sampled
+     * rows are read from the database, looked up by their primary key. The
+     * row count of the database table is verified using a
+     * <code>count(*)</code> query.
+     * 
+     * @param expectedTable
+     *            Table containing all expected results.
+     * @param connection
+     *            Connection to the database holding the actual table.
+     * @param tableName
+     *            The name of the database table
+     * @param sampleRate
+     *            The fraction of rows to be compared, for example
+     *            <code>0.05</code>
+     * @param seed
+     *            The seed selecting the sample
+     * @param failureHandler
+     *          The failure handler used if the assert fails because of a data
+     *          mismatch. Can be <code>null</code>
+     * @return The number of rows compared and the confidence achieved
+     * @throws DatabaseUnitException
+     * @throws SQLException
+     * @see #assertEqualsSampled(ITable, ITable, double, long, FailureHandler)
+     * @since 2.4.10
+     */
+    public SampleResult assertEqualsSampled(ITable expectedTable,
+            IDatabaseConnection connection, String tableName,
+            double sampleRate, long seed, FailureHandler failureHandler)
+    throws DatabaseUnitException, SQLException
+    {
+        logger.debug("assertEqualsSampled(expectedTable={}, connection={}, "
+                + "tableName={}, sampleRate={}, seed={}, failureHandler={}) - start",
+                new Object[] { expectedTable, connection, tableName,
+                        String.valueOf(sampleRate), String.valueOf(seed), failureHandler });
+
+        SampledTableComparator comparator = new SampledTableComparator(this,
+                sampleRate, seed);
+        if (failureHandler == null) {
+            logger.debug("FailureHandler is null. Using default implementation");
+            failureHandler = getDefaultFailureHandler();
+        }
+
+        return comparator.compare(expectedTable, connection, tableName,
+                failureHandler);
+    }
+
     /**
      * @return The default failure handler
      * @since 2.4
@@ -450,6 +1041,9 @@ public class DbUnitAssert
     }
 
     /**
+     * Compares the rows of the given tables cell by cell. The comparison
+     * stops as soon as the limit of a {@link LimitedFailureHandler} is reached.
+     * 
      * @param expectedTable
      *            Table containing all expected results.
      * @param actualTable
@@ -494,12 +1088,17 @@ public class DbUnitAssert
 
         // iterate over all rows
         for (int i = 0; i < expectedTable.getRowCount(); i++) {
+            if (isLimitReached(failureHandler)) {
+                logger.debug("Difference limit reached. Stopping the comparison at row {}",
+                        String.valueOf(i));
+                return;
+            }
+
             // iterate over all columns of the current row
             for (int j = 0; j < comparisonCols.length; j++) {
                 ComparisonColumn compareColumn = comparisonCols[j];
 
                 String columnName = compareColumn.getColumnName();
-                DataType dataType = compareColumn.getDataType();
 
                 Object expectedValue = expectedTable.getValue(i, columnName);
                 Object actualValue = actualTable.getValue(i, columnName);
@@ -513,7 +1112,7 @@ public class DbUnitAssert
                     continue;
                 }
 
-                if (dataType.compare(expectedValue, actualValue) != 0) {
+                if (compareColumn.compare(expectedValue, actualValue) != 0) {
 
                     Difference diff = new Difference(
                             expectedTable, actualTable, 
@@ -528,6 +1127,114 @@ public class DbUnitAssert
 
     }
 
+    /**
+     * Compares the rows of the given tables regardless of their order. The
+     * actual rows are put into a hash table by their key which is then probed
+     * with the key of every expected row. The matched rows are compared using
+     * {@link #compareData(ITable, ITable, ComparisonColumn[], FailureHandler)}
+     * on views of both tables in which the matching rows have the same index.
+     * 
+     * @param expectedTable
+     *            Table containing all expected results.
+     * @param actualTable
+     *            Table containing all actual results.
+     * @param keyCols
+     *            The columns identifying a row
+     * @param comparisonCols
+     *            The columns to be compared, also including the correct
+     *            {@link DataType}s for comparison
+     * @param failureHandler
+     *          The failure handler used if the assert fails because of a data
+     *          mismatch. Must not be <code>null</code> at this stage
+     * @throws DataSetException
+     * @since 2.4.10
+     */
+    protected void compareDataUnordered(ITable expectedTable, ITable actualTable,
+            ComparisonColumn[] keyCols, ComparisonColumn[] comparisonCols,
+            FailureHandler failureHandler) throws DataSetException
+    {
+        logger.debug("compareDataUnordered(expectedTable={}, actualTable={}, "
+                + "keyCols={}, comparisonCols={}, failureHandler={}) - start",
+                new Object[] {expectedTable, actualTable, keyCols,
+                        comparisonCols, failureHandler});
+
+        if (keyCols == null) {
+            throw new NullPointerException(
+                    "The parameter 'keyCols' must not be null");
+        }
+        if (failureHandler == null) {
+            throw new NullPointerException(
+                    "The parameter 'failureHandler' must not be null");
+        }
+
+        String tableName = expectedTable.getTableMetaData().getTableName();
+        int expectedRowCount = expectedTable.getRowCount();
+        int actualRowCount = actualTable.getRowCount();
+
+        // Build phase: hash the actual rows by their key
+        Map actualRows = new HashMap(actualRowCount * 4 / 3 + 1);
+        for (int i = 0; i < actualRowCount; i++) {
+            RowKey key = createKey(actualTable, i, keyCols);
+            if (actualRows.put(key, new Integer(i)) != null) {
+                throw failureHandler.createFailure("duplicate key (table="
+                        + tableName + ", actual row=" + i + ", key=" + key + ")");
+            }
+        }
+
+        // Probe phase: find the matching actual row of every expected row
+        Set expectedKeys = new HashSet(expectedRowCount * 4 / 3 + 1);
+        int[] matchingRows = new int[expectedRowCount];
+        boolean[] matched = new boolean[actualRowCount];
+        int matchCount = 0;
+        for (int i = 0; i < expectedRowCount; i++) {
+            RowKey key = createKey(expectedTable, i, keyCols);
+            if (!expectedKeys.add(key)) {
+                throw failureHandler.createFailure("duplicate key (table="
+                        + tableName + ", expected row=" + i + ", key=" + key + ")");
+            }
+
+            Integer actualRow = (Integer)actualRows.get(key);
+            if (actualRow == null) {
+                matchingRows[i] = -1;
+            }
+            else {
+                matchingRows[i] = actualRow.intValue();
+                matched[matchingRows[i]] = true;
+                matchCount++;
+            }
+        }
+
+        // Align the rows: the expected rows in their order followed by the
+        // actual rows without matching expected row
+        int rowCount = expectedRowCount + actualRowCount - matchCount;
+        int[] expectedIndexes = new int[rowCount];
+        int[] actualIndexes = new int[rowCount];
+        for (int i = 0; i < expectedRowCount; i++) {
+            expectedIndexes[i] = i;
+            actualIndexes[i] = matchingRows[i];
+        }
+        int row = expectedRowCount;
+        for (int i = 0; i < actualRowCount; i++) {
+            if (!matched[i]) {
+                expectedIndexes[row] = -1;
+                actualIndexes[row] = i;
+                row++;
+            }
+        }
+        logger.debug("Matched {} of {} expected rows", new Integer(matchCount),
+                new Integer(expectedRowCount));
+
+        compareData(new JoinedTable(expectedTable, expectedIndexes),
+                new JoinedTable(actualTable, actualIndexes), comparisonCols,
+                failureHandler);
+    }
+
+    static boolean isLimitReached(FailureHandler failureHandler)
+    {
+        return failureHandler instanceof LimitedFailureHandler
+                && ((LimitedFailureHandler)failureHandler).isLimitReached();
+    }
+
     /**
      * Method to last-minute intercept the comparison of a single 
      * expected and actual value. Designed to be overridden in order
@@ -570,6 +1277,75 @@ public class DbUnitAssert
         return result;
     }
 
+    /**
+     * @param expectedMetaData
+     * @param actualMetaData
+     * @return The names of the primary key columns of the expected table or, if
+     *         it does not define any, of the actual table
+     * @throws DataSetException If none of the tables defines a primary key
+     * @since 2.4.10
+     */
+    protected String[] getPrimaryKeyNames(ITableMetaData expectedMetaData,
+            ITableMetaData actualMetaData) throws DataSetException
+    {
+        Column[] primaryKeys = getPrimaryKeys(expectedMetaData, actualMetaData);
+        if (primaryKeys.length == 0) {
+            throw new NoPrimaryKeyException("No primary key defined for table '"
+                    + expectedMetaData.getTableName()
+                    + "'. Specify the key columns to match the rows.");
+        }
+        return Columns.getColumnNames(primaryKeys);
+    }
+
+    static Column[] getPrimaryKeys(ITableMetaData expectedMetaData,
+            ITableMetaData actualMetaData) throws DataSetException
+    {
+        Column[] primaryKeys = expectedMetaData.getPrimaryKeys();
+        if (primaryKeys == null || primaryKeys.length == 0) {
+            primaryKeys = actualMetaData.getPrimaryKeys();
+        }
+        return primaryKeys == null ? new Column[0] : primaryKeys;
+    }
+
+    /**
+     * @param expectedTableName
+     * @param keyColumnNames
+     * @param comparisonCols
+     * @return The comparison columns having the given names
+     * @throws NoSuchColumnException If one of the key columns does not exist
+     * @since 2.4.10
+     */
+    ComparisonColumn[] getKeyColumns(String expectedTableName,
+            String[] keyColumnNames, ComparisonColumn[] comparisonCols)
+            throws NoSuchColumnException
+    {
+        ComparisonColumn[] result = new ComparisonColumn[keyColumnNames.length];
+        for (int i = 0; i < keyColumnNames.length; i++) {
+            for (int j = 0; j < comparisonCols.length; j++) {
+                if (comparisonCols[j].getColumnName().equalsIgnoreCase(keyColumnNames[i])) {
+                    result[i] = comparisonCols[j];
+                    break;
+                }
+            }
+            if (result[i] == null) {
+                throw new NoSuchColumnException(expectedTableName, keyColumnNames[i]);
+            }
+        }
+        return result;
+    }
+
+    static RowKey createKey(ITable table, int row,
+            ComparisonColumn[] keyCols) throws DataSetException
+    {
+        Object[] values = new Object[keyCols.length];
+        DataType[] dataTypes = new DataType[keyCols.length];
+        for (int i = 0; i < keyCols.length; i++) {
+            values[i] = table.getValue(row, keyCols[i].getColumnName());
+            dataTypes[i] = keyCols[i].getDataType();
+        }
+        return RowKey.create(values, dataTypes);
+    }
+
     protected String[] getSortedUpperTableNames(IDataSet dataSet)
     throws DataSetException 
     {
@@ -604,6 +1380,7 @@ public class DbUnitAssert
 
         private String columnName;
         private DataType dataType;
+        private ValueComparator comparator;
 
         /**
          * @param tableName
@@ -624,6 +1401,7 @@ public class DbUnitAssert
             this.columnName = expectedColumn.getColumnName();
             this.dataType = getComparisonDataType(tableName, expectedColumn,
                             actualColumn, failureHandler);
+            this.comparator = ValueComparator.create(this.dataType);
         }
 
         /**
@@ -640,6 +1418,21 @@ public class DbUnitAssert
             return this.dataType;
         }
 
+        /**
+         * Compares two values of this column like the {@link DataType}
+         * returned by {@link #getDataType()}, using a comparator prepared
+         * for that data type.
+         * @param expectedValue The expected value
+         * @param actualValue The actual value
+         * @return <code>0</code> if the values are equal
+         * @throws TypeCastException If one of the values cannot be casted
+         * @since 2.4.10
+         */
+        public int compare(Object expectedValue, Object actualValue)
+        throws TypeCastException {
+            return this.comparator.compare(expectedValue, actualValue);
+        }
+
         /**
          * @param tableName
          *            The table name which is only needed for debugging output
@@ -40,6 +40,10 @@ import java.util.List;
  * Difference diff = (Difference)diffList.get(0);
  * ...
  * </pre></code>
+ * <p>
+ * If a maximum number of differences is given the comparison stops as soon
+ * as that many differences have been collected.
+ * </p>
  * 
  * @author gommma (gommma AT users.sourceforge.net)
  * @author Last changed by: $Author$
@@ -47,13 +51,52 @@ import java.util.List;
  * @since 2.4.0
  */
 public class DiffCollectingFailureHandler extends DefaultFailureHandler 
+        implements LimitedFailureHandler
 {
     private final List diffList = new ArrayList();
+    private final int maxDifferences;
+
+    /**
+     * Creates a handler collecting all differences
+     */
+    public DiffCollectingFailureHandler()
+    {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a handler which stops the comparison once the given number of
+     * differences has been collected
+     * @param maxDifferences The maximum number of differences to be collected
+     * @since 2.4.10
+     */
+    public DiffCollectingFailureHandler(int maxDifferences)
+    {
+        if (maxDifferences <= 0)
+        {
+            throw new IllegalArgumentException(
+                    "The maximum number of differences must be positive: " + maxDifferences);
+        }
+        this.maxDifferences = maxDifferences;
+    }
     
     public void handle(Difference diff) 
     {
         // Simply collect the difference without throwing an exception
-        this.diffList.add(diff);
+        if (!isLimitReached())
+        {
+            this.diffList.add(diff);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the maximum number of differences has
+     * been collected
+     * @since 2.4.10
+     */
+    public boolean isLimitReached()
+    {
+        return this.diffList.size() >= this.maxDifferences;
     }
 
     /**
@@ -70,6 +113,7 @@ public class DiffCollectingFailureHandler extends DefaultFailureHandler
         sb.append(super.toString());
         sb.append(DiffCollectingFailureHandler.class.getName()).append("[");
         sb.append("diffList=").append(diffList);
+        sb.append(", maxDifferences=").append(maxDifferences);
         sb.append("]");
         return sb.toString();
     }
@@ -0,0 +1,133 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.sql.SQLException;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.assertion.DbUnitAssert.ComparisonColumn;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.Columns;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares a table with a database table, leaving the computation of the
+ * differing rows to the database by means of a {@link DatabaseTableDiff}.
+ * Only the missing and unexpected rows are fetched and matched by their key.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see DbUnitAssert#assertEqualsInDatabase(ITable, IDatabaseConnection, String, FailureHandler)
+ */
+class InDatabaseTableComparator
+{
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(InDatabaseTableComparator.class);
+
+    private final DbUnitAssert _assert;
+    private final IDatabaseConnection _connection;
+
+    /**
+     * @param dbUnitAssert The assertion used to compare the differing rows
+     * @param connection The connection to the database holding the actual table
+     */
+    InDatabaseTableComparator(DbUnitAssert dbUnitAssert, IDatabaseConnection connection)
+    {
+        _assert = dbUnitAssert;
+        _connection = connection;
+    }
+
+    /**
+     * Compares the given table with the database table.
+     * @param expectedTable Table containing all expected results
+     * @param tableName The name of the database table
+     * @param failureHandler The failure handler used if the tables differ
+     * @throws DatabaseUnitException
+     * @throws SQLException
+     */
+    void compare(ITable expectedTable, String tableName, FailureHandler failureHandler)
+            throws DatabaseUnitException, SQLException
+    {
+        logger.debug("compare(expectedTable={}, tableName={}, failureHandler={}) - start",
+                new Object[] {expectedTable, tableName, failureHandler});
+
+        ITableMetaData actualMetaData = _connection.createDataSet().getTableMetaData(tableName);
+        ITableMetaData expectedMetaData = expectedTable.getTableMetaData();
+        Column[] expectedColumns = Columns.getSortedColumns(expectedMetaData);
+
+        int expectedRowsCount;
+        if (expectedColumns.length == 0)
+        {
+            // Nothing to compare but the number of rows
+            expectedRowsCount = expectedTable.getRowCount();
+        }
+        else
+        {
+            Column[] actualColumns = Columns.findColumnsByName(expectedColumns,
+                    actualMetaData);
+            ComparisonColumn[] comparisonCols = _assert.getComparisonColumns(tableName,
+                    expectedColumns, actualColumns, failureHandler);
+
+            DatabaseTableDiff diff = new DatabaseTableDiff(_connection, tableName,
+                    actualColumns);
+            diff.execute(expectedTable);
+            if (diff.isFingerprintMatch())
+            {
+                // Same rows and same row count
+                return;
+            }
+            expectedRowsCount = diff.getExpectedRowCount();
+
+            String[] keyColumnNames = Columns.getColumnNames(
+                    DbUnitAssert.getPrimaryKeys(expectedMetaData, actualMetaData));
+            if (keyColumnNames.length == 0
+                    || Columns.getColumns(keyColumnNames, expectedColumns).length
+                            != keyColumnNames.length)
+            {
+                keyColumnNames = Columns.getColumnNames(expectedColumns);
+            }
+            ComparisonColumn[] keyCols = _assert.getKeyColumns(tableName,
+                    keyColumnNames, comparisonCols);
+
+            _assert.compareDataUnordered(diff.getMissingRows(), diff.getUnexpectedRows(),
+                    keyCols, comparisonCols, failureHandler);
+        }
+
+        int actualRowsCount = _connection.getRowCount(tableName);
+        if (expectedRowsCount != actualRowsCount)
+        {
+            String msg = "row count (table=" + tableName + ")";
+            Error error =
+                    failureHandler.createFailure(msg, String
+                            .valueOf(expectedRowsCount), String
+                            .valueOf(actualRowsCount));
+            logger.error(error.toString());
+            throw error;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.RowOutOfBoundsException;
+
+/**
+ * View on a table used by the unordered and the sampled comparison. Each
+ * row of the view maps to a row of the wrapped table, or to no row at all in
+ * which case all values of the row are <code>null</code>.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+class JoinedTable implements ITable
+{
+    private final ITable _table;
+    private final int[] _rows;
+
+    /**
+     * @param table The wrapped table
+     * @param rows The row of the wrapped table for each row of this view,
+     *          or <code>-1</code> for no row
+     */
+    JoinedTable(ITable table, int[] rows)
+    {
+        _table = table;
+        _rows = rows;
+    }
+
+    public ITableMetaData getTableMetaData()
+    {
+        return _table.getTableMetaData();
+    }
+
+    public int getRowCount()
+    {
+        return _rows.length;
+    }
+
+    public Object getValue(int row, String column) throws DataSetException
+    {
+        if (row < 0 || row >= _rows.length)
+        {
+            throw new RowOutOfBoundsException(row + " > " + _rows.length);
+        }
+        int originalRow = _rows[row];
+        return originalRow < 0 ? null : _table.getValue(originalRow, column);
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("_table=").append(_table);
+        sb.append(", _rows.length=").append(_rows.length);
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+/**
+ * A {@link FailureHandler} which only accepts a limited number of
+ * {@link Difference}s. Once the limit is reached the assertion stops
+ * comparing the remaining rows, which saves reading and comparing the rest
+ * of large tables when enough evidence of a failure has been gathered.
+ * 
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see DiffCollectingFailureHandler#DiffCollectingFailureHandler(int)
+ */
+public interface LimitedFailureHandler extends FailureHandler
+{
+    /**
+     * @return <code>true</code> if no more differences are to be handled
+     * and the comparison should be stopped
+     */
+    public boolean isLimitReached();
+}
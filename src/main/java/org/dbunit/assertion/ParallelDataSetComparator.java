@@ -0,0 +1,454 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IDatabaseConnectionFactory;
+import org.dbunit.dataset.CachedTable;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.Columns;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.SortedTable;
+import org.dbunit.dataset.filter.DefaultColumnFilter;
+import org.dbunit.dataset.stream.StreamingIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the tables of an expected dataset with the database tables of the
+ * same name, several tables at the same time. Every table is compared
+ * completely using a {@link DiffCollectingFailureHandler} and the
+ * differences of all tables are reported together.
+ * <p>
+ * The rows do not need to be in the same order. They are matched by the
+ * primary key, see {@link DbUnitAssert#assertEqualsUnordered(ITable, ITable, String[], FailureHandler)}.
+ * Tables without primary key, or whose primary key columns are not all
+ * compared, are wrapped into a {@link SortedTable} sorting the rows by all
+ * compared columns.
+ * </p>
+ * <p>
+ * The tables are distributed over connections obtained from the
+ * {@link DatabaseConfig#PROPERTY_CONNECTION_FACTORY}, at most
+ * {@link DatabaseConfig#PROPERTY_PARALLEL_CONNECTIONS} of them. Without
+ * connection factory the tables are compared one after another on the given
+ * connection.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see DbUnitAssert#assertEqualsParallel(IDataSet, IDatabaseConnection, Column[])
+ */
+class ParallelDataSetComparator
+{
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ParallelDataSetComparator.class);
+
+    private final DbUnitAssert _assert;
+    private final IDatabaseConnection _connection;
+    private final Column[] _additionalColumnInfo;
+
+    /**
+     * @param dbUnitAssert The assertion used to compare a single table
+     * @param connection The connection to the database holding the actual tables
+     * @param additionalColumnInfo The columns to be printed out for a difference,
+     * can be <code>null</code>
+     */
+    ParallelDataSetComparator(DbUnitAssert dbUnitAssert, IDatabaseConnection connection,
+            Column[] additionalColumnInfo)
+    {
+        _assert = dbUnitAssert;
+        _connection = connection;
+        _additionalColumnInfo = additionalColumnInfo;
+    }
+
+    /**
+     * Compares all tables of the given dataset.
+     * @param expectedDataSet The expected tables
+     * @return The result of every table in the order of the dataset
+     * @throws DatabaseUnitException
+     * @throws SQLException
+     */
+    TableResult[] compare(IDataSet expectedDataSet) throws DatabaseUnitException, SQLException
+    {
+        logger.debug("compare(expectedDataSet={}) - start", expectedDataSet);
+
+        // The tables are read here since a dataset cannot be iterated concurrently
+        List tables = new ArrayList();
+        ITableIterator iterator = expectedDataSet.iterator();
+        boolean streamed = iterator instanceof StreamingIterator;
+        while (iterator.next())
+        {
+            ITable table = iterator.getTable();
+            tables.add(streamed ? new CachedTable(table) : table);
+        }
+
+        ITable[] expectedTables = (ITable[])tables.toArray(new ITable[0]);
+        TableResult[] results = new TableResult[expectedTables.length];
+        int workerCount = getWorkerCount(expectedTables.length);
+        if (workerCount < 2)
+        {
+            IDataSet actualDataSet = _connection.createDataSet();
+            for (int i = 0; i < expectedTables.length; i++)
+            {
+                results[i] = compareTable(expectedTables[i], actualDataSet);
+            }
+            return results;
+        }
+
+        List tasks = new LinkedList();
+        for (int i = 0; i < expectedTables.length; i++)
+        {
+            tasks.add(new Integer(i));
+        }
+
+        IDatabaseConnection[] connections = openConnections(workerCount);
+        try
+        {
+            TableWorker[] workers = new TableWorker[workerCount];
+            Thread[] threads = new Thread[workerCount];
+            for (int i = 0; i < workerCount; i++)
+            {
+                workers[i] = new TableWorker(connections[i], tasks, expectedTables, results);
+                threads[i] = new Thread(workers[i], "ParallelDataSetComparator-" + i);
+                threads[i].start();
+            }
+
+            try
+            {
+                for (int i = 0; i < workerCount; i++)
+                {
+                    threads[i].join();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                throw new DatabaseUnitException("Interrupted while comparing tables", e);
+            }
+
+            // Rethrow the failure of a worker thread on the calling thread
+            for (int i = 0; i < workerCount; i++)
+            {
+                Throwable failure = workers[i].getFailure();
+                if (failure instanceof DatabaseUnitException)
+                {
+                    throw (DatabaseUnitException)failure;
+                }
+                else if (failure instanceof SQLException)
+                {
+                    throw (SQLException)failure;
+                }
+                else if (failure instanceof RuntimeException)
+                {
+                    throw (RuntimeException)failure;
+                }
+                else if (failure instanceof Error)
+                {
+                    throw (Error)failure;
+                }
+                else if (failure != null)
+                {
+                    throw new DatabaseUnitException("Exception comparing tables", failure);
+                }
+            }
+        }
+        finally
+        {
+            closeConnections(connections);
+        }
+        return results;
+    }
+
+    /**
+     * Compares a single table with the table of the same name of the actual dataset.
+     */
+    private TableResult compareTable(ITable expectedTable, IDataSet actualDataSet)
+            throws DatabaseUnitException
+    {
+        String tableName = expectedTable.getTableMetaData().getTableName();
+        long start = System.currentTimeMillis();
+
+        // Only the columns of the expected table are compared
+        ITable actualTable = DefaultColumnFilter.includedColumnsTable(
+                actualDataSet.getTable(tableName),
+                expectedTable.getTableMetaData().getColumns());
+
+        DiffCollectingFailureHandler failureHandler = new DiffCollectingFailureHandler();
+        DefaultFailureHandler formatter = new DefaultFailureHandler(_additionalColumnInfo);
+        List messages = new ArrayList();
+        try
+        {
+            String[] keyColumnNames = getKeyColumnNames(
+                    expectedTable.getTableMetaData(), actualTable.getTableMetaData());
+            if (keyColumnNames.length > 0)
+            {
+                _assert.assertEqualsUnordered(expectedTable, actualTable,
+                        keyColumnNames, failureHandler);
+            }
+            else
+            {
+                // Without key both tables are put into the same order
+                _assert.assertEquals(new SortedTable(expectedTable),
+                        new SortedTable(actualTable, expectedTable.getTableMetaData()),
+                        failureHandler);
+            }
+        }
+        catch (DbComparisonFailure e)
+        {
+            // Row count or columns differ, no more differences to be found
+            messages.add(e.getMessage());
+        }
+        catch (DbAssertionFailedError e)
+        {
+            messages.add(e.getMessage());
+        }
+
+        List diffList = failureHandler.getDiffList();
+        for (int i = 0; i < diffList.size(); i++)
+        {
+            Difference diff = (Difference)diffList.get(i);
+            messages.add(DbComparisonFailure.buildMessage(formatter.buildMessage(diff),
+                    String.valueOf(diff.getExpectedValue()),
+                    String.valueOf(diff.getActualValue())));
+        }
+
+        long time = System.currentTimeMillis() - start;
+        logger.info("Processed table '{}': {} rows in {} ms", new Object[] {
+                tableName, String.valueOf(expectedTable.getRowCount()), String.valueOf(time)});
+        return new TableResult(tableName, time, messages);
+    }
+
+    /**
+     * Returns the primary key columns of the expected table, or of the actual
+     * table if the expected table does not define a primary key.
+     * @return The key column names or an empty array if there is no primary
+     * key or not all of its columns are compared
+     */
+    private String[] getKeyColumnNames(ITableMetaData expectedMetaData,
+            ITableMetaData actualMetaData) throws DataSetException
+    {
+        Column[] primaryKeys = expectedMetaData.getPrimaryKeys();
+        if (primaryKeys == null || primaryKeys.length == 0)
+        {
+            primaryKeys = actualMetaData.getPrimaryKeys();
+        }
+        if (primaryKeys == null)
+        {
+            return new String[0];
+        }
+
+        String[] keyColumnNames = Columns.getColumnNames(primaryKeys);
+        if (Columns.getColumns(keyColumnNames, expectedMetaData.getColumns()).length
+                != keyColumnNames.length)
+        {
+            return new String[0];
+        }
+        return keyColumnNames;
+    }
+
+    private int getWorkerCount(int tableCount)
+    {
+        DatabaseConfig config = _connection.getConfig();
+        if (config.getProperty(DatabaseConfig.PROPERTY_CONNECTION_FACTORY) == null)
+        {
+            return 1;
+        }
+        int parallelConnections = ((Integer)config.getProperty(
+                DatabaseConfig.PROPERTY_PARALLEL_CONNECTIONS)).intValue();
+        return Math.min(parallelConnections, tableCount);
+    }
+
+    private IDatabaseConnection[] openConnections(int count)
+            throws DatabaseUnitException, SQLException
+    {
+        logger.debug("openConnections(count={}) - start", String.valueOf(count));
+
+        DatabaseConfig config = _connection.getConfig();
+        IDatabaseConnectionFactory factory = (IDatabaseConnectionFactory)config.getProperty(
+                DatabaseConfig.PROPERTY_CONNECTION_FACTORY);
+
+        List connections = new ArrayList();
+        try
+        {
+            for (int i = 0; i < count; i++)
+            {
+                IDatabaseConnection connection = factory.createConnection();
+                connections.add(connection);
+                // Read the tables the same way as on the main connection
+                config.copyTo(connection.getConfig());
+            }
+        }
+        catch (DatabaseUnitException e)
+        {
+            closeConnections((IDatabaseConnection[])connections.toArray(new IDatabaseConnection[0]));
+            throw e;
+        }
+        catch (SQLException e)
+        {
+            closeConnections((IDatabaseConnection[])connections.toArray(new IDatabaseConnection[0]));
+            throw e;
+        }
+        return (IDatabaseConnection[])connections.toArray(new IDatabaseConnection[0]);
+    }
+
+    private void closeConnections(IDatabaseConnection[] connections)
+    {
+        for (int i = 0; i < connections.length; i++)
+        {
+            try
+            {
+                connections[i].close();
+            }
+            catch (SQLException e)
+            {
+                logger.warn("Exception while closing the connection: " + e, e);
+            }
+        }
+    }
+
+
+    /**
+     * The outcome of the comparison of a single table.
+     */
+    static class TableResult
+    {
+        private final String _tableName;
+        private final long _time;
+        private final List _messages;
+
+        TableResult(String tableName, long time, List messages)
+        {
+            _tableName = tableName;
+            _time = time;
+            _messages = messages;
+        }
+
+        String getTableName()
+        {
+            return _tableName;
+        }
+
+        /**
+         * @return The time needed to compare the table in milliseconds
+         */
+        long getTime()
+        {
+            return _time;
+        }
+
+        /**
+         * @return The messages describing the differences, empty if the
+         * table matches
+         */
+        List getMessages()
+        {
+            return _messages;
+        }
+    }
+
+    /**
+     * Compares tables taken from a shared queue until the queue is empty or
+     * a failure occurs. Any failure, including errors, is recorded so that it
+     * can be rethrown on the calling thread.
+     */
+    private class TableWorker implements Runnable
+    {
+        private final IDatabaseConnection _workerConnection;
+        private final List _tasks;
+        private final ITable[] _expectedTables;
+        private final TableResult[] _results;
+        private Throwable _failure;
+
+        public TableWorker(IDatabaseConnection workerConnection, List tasks,
+                ITable[] expectedTables, TableResult[] results)
+        {
+            _workerConnection = workerConnection;
+            _tasks = tasks;
+            _expectedTables = expectedTables;
+            _results = results;
+        }
+
+        public void run()
+        {
+            try
+            {
+                IDataSet actualDataSet = _workerConnection.createDataSet();
+                Integer index;
+                while ((index = nextTask()) != null)
+                {
+                    TableResult result = compareTable(
+                            _expectedTables[index.intValue()], actualDataSet);
+                    synchronized (_results)
+                    {
+                        _results[index.intValue()] = result;
+                    }
+                }
+            }
+            catch (Throwable t)
+            {
+                fail(t);
+            }
+        }
+
+        private Integer nextTask()
+        {
+            synchronized (_tasks)
+            {
+                if (_tasks.isEmpty())
+                {
+                    return null;
+                }
+                return (Integer)_tasks.remove(0);
+            }
+        }
+
+        private void fail(Throwable t)
+        {
+            synchronized (_tasks)
+            {
+                _failure = t;
+                // Stop the other workers
+                _tasks.clear();
+            }
+        }
+
+        public Throwable getFailure()
+        {
+            synchronized (_tasks)
+            {
+                return _failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import org.dbunit.dataset.RowKey;
+
+/**
+ * Selects a reproducible sample of rows by the hash of their key. Since the
+ * decision only depends on the normalized key values and the seed, the same
+ * rows are selected from the expected and the actual table, regardless of
+ * the row order and of the source of the values.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+class RowSampler
+{
+    private static final double TWO_POW_53 = (double)(1L << 53);
+
+    private final double _sampleRate;
+    private final long _seed;
+
+    /**
+     * @param sampleRate The fraction of rows to be sampled, greater than
+     * <code>0</code> and at most <code>1</code>
+     * @param seed The seed selecting a different sample for the same rate
+     */
+    RowSampler(double sampleRate, long seed)
+    {
+        if (!(sampleRate > 0 && sampleRate <= 1))
+        {
+            throw new IllegalArgumentException(
+                    "The sample rate must be within (0, 1]: " + sampleRate);
+        }
+        _sampleRate = sampleRate;
+        _seed = seed;
+    }
+
+    /**
+     * @param key The key of a row
+     * @return <code>true</code> if the row having the given key is part of
+     * the sample
+     */
+    boolean isSampled(RowKey key)
+    {
+        if (_sampleRate == 1)
+        {
+            return true;
+        }
+
+        // Spread the hash code over all bits (finalizer of MurmurHash3)
+        long hash = key.hashCode() * 0x9E3779B97F4A7C15L + _seed;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return (hash >>> 11) / TWO_POW_53 < _sampleRate;
+    }
+}
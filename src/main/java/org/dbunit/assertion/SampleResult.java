@@ -0,0 +1,112 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+/**
+ * The outcome of a sampled table comparison. Given the number of rows
+ * compared without difference it tells how confident one can be that the
+ * rows which were not compared are right as well.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see DbUnitAssert#assertEqualsSampled(org.dbunit.dataset.ITable, org.dbunit.dataset.ITable, double, long, FailureHandler)
+ */
+public class SampleResult
+{
+    private final String _tableName;
+    private final int _rowCount;
+    private final int _sampleSize;
+
+    /**
+     * @param tableName The name of the compared table
+     * @param rowCount The number of rows of the table
+     * @param sampleSize The number of rows which have been compared
+     */
+    public SampleResult(String tableName, int rowCount, int sampleSize)
+    {
+        _tableName = tableName;
+        _rowCount = rowCount;
+        _sampleSize = sampleSize;
+    }
+
+    public String getTableName()
+    {
+        return _tableName;
+    }
+
+    public int getRowCount()
+    {
+        return _rowCount;
+    }
+
+    public int getSampleSize()
+    {
+        return _sampleSize;
+    }
+
+    /**
+     * Returns the confidence that less than the given fraction of all rows
+     * differ, assuming that no difference was found in the sample. This is
+     * the probability that a sample of this size contains at least one
+     * differing row if the given fraction of rows did differ.
+     * @param errorRate The tolerated fraction of differing rows
+     * @return The confidence between <code>0</code> and <code>1</code>
+     */
+    public double getConfidence(double errorRate)
+    {
+        if (_sampleSize >= _rowCount)
+        {
+            return 1;
+        }
+        return 1 - Math.pow(1 - errorRate, _sampleSize);
+    }
+
+    /**
+     * Returns the fraction of differing rows which can be excluded with the
+     * given confidence, assuming that no difference was found in the sample.
+     * @param confidence The confidence, for example <code>0.95</code>
+     * @return The upper bound of the fraction of differing rows
+     */
+    public double getMaxErrorRate(double confidence)
+    {
+        if (_sampleSize >= _rowCount)
+        {
+            return 0;
+        }
+        if (_sampleSize == 0)
+        {
+            return 1;
+        }
+        return 1 - Math.pow(1 - confidence, 1.0 / _sampleSize);
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("tableName=").append(_tableName);
+        sb.append(", rowCount=").append(_rowCount);
+        sb.append(", sampleSize=").append(_sampleSize);
+        sb.append("]");
+        return sb.toString();
+    }
+}
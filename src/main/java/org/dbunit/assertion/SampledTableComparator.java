@@ -0,0 +1,252 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.assertion.DbUnitAssert.ComparisonColumn;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.KeyedRowSelect;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.Columns;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the rows of two tables which are selected by a {@link RowSampler}.
+ * The sampled rows are matched by their primary key and compared like by
+ * {@link DbUnitAssert#assertEqualsUnordered(ITable, ITable, String[], FailureHandler)}.
+ * When comparing with a database table only the sampled rows are read from
+ * the database, looked up by a {@link KeyedRowSelect}.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see DbUnitAssert#assertEqualsSampled(ITable, ITable, double, long, FailureHandler)
+ * @see DbUnitAssert#assertEqualsSampled(ITable, IDatabaseConnection, String, double, long, FailureHandler)
+ */
+class SampledTableComparator
+{
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(SampledTableComparator.class);
+
+    private final DbUnitAssert _assert;
+    private final RowSampler _sampler;
+
+    /**
+     * @param dbUnitAssert The assertion used to compare the sampled rows
+     * @param sampleRate The fraction of rows to be compared
+     * @param seed The seed selecting the sample
+     * @throws IllegalArgumentException If the sample rate is not within
+     * <code>(0, 1]</code>
+     */
+    SampledTableComparator(DbUnitAssert dbUnitAssert, double sampleRate, long seed)
+    {
+        _assert = dbUnitAssert;
+        _sampler = new RowSampler(sampleRate, seed);
+    }
+
+    /**
+     * Compares the sampled rows of the given tables.
+     * @param expectedTable Table containing all expected results
+     * @param actualTable Table containing all actual results
+     * @param failureHandler The failure handler used if the tables differ
+     * @return The number of rows compared and the confidence achieved
+     * @throws DatabaseUnitException
+     */
+    SampleResult compare(ITable expectedTable, ITable actualTable,
+            FailureHandler failureHandler) throws DatabaseUnitException
+    {
+        logger.debug("compare(expectedTable={}, actualTable={}, failureHandler={}) - start",
+                new Object[] {expectedTable, actualTable, failureHandler});
+
+        ITableMetaData expectedMetaData = expectedTable.getTableMetaData();
+        ITableMetaData actualMetaData = actualTable.getTableMetaData();
+        String expectedTableName = expectedMetaData.getTableName();
+
+        // Verify row count
+        int expectedRowsCount = expectedTable.getRowCount();
+        verifyRowCount(expectedTableName, expectedRowsCount, actualTable.getRowCount(),
+                failureHandler);
+        if (expectedRowsCount == 0)
+        {
+            logger.debug("Tables are empty, hence equals.");
+            return new SampleResult(expectedTableName, 0, 0);
+        }
+
+        // Put the columns into the same order
+        Column[] expectedColumns = Columns.getSortedColumns(expectedMetaData);
+        Column[] actualColumns = Columns.getSortedColumns(actualMetaData);
+
+        // Verify columns
+        Columns.ColumnDiff columnDiff =
+                Columns.getColumnDiff(expectedMetaData, actualMetaData);
+        if (columnDiff.hasDifference())
+        {
+            String message = columnDiff.getMessage();
+            Error error =
+                    failureHandler.createFailure(message, Columns
+                            .getColumnNamesAsString(expectedColumns), Columns
+                            .getColumnNamesAsString(actualColumns));
+            logger.error(error.toString());
+            throw error;
+        }
+
+        ComparisonColumn[] comparisonCols = _assert.getComparisonColumns(expectedTableName,
+                expectedColumns, actualColumns, failureHandler);
+        ComparisonColumn[] keyCols = _assert.getKeyColumns(expectedTableName,
+                _assert.getPrimaryKeyNames(expectedMetaData, actualMetaData), comparisonCols);
+
+        int[] expectedRows = getSampledRows(expectedTable, keyCols);
+        int[] actualRows = getSampledRows(actualTable, keyCols);
+        _assert.compareDataUnordered(new JoinedTable(expectedTable, expectedRows),
+                new JoinedTable(actualTable, actualRows), keyCols,
+                comparisonCols, failureHandler);
+
+        return createSampleResult(expectedTableName, expectedRowsCount,
+                expectedRows.length);
+    }
+
+    /**
+     * Compares the sampled rows of the given table with the rows of a
+     * database table having the same primary key values.
+     * @param expectedTable Table containing all expected results
+     * @param connection Connection to the database holding the actual table
+     * @param tableName The name of the database table
+     * @param failureHandler The failure handler used if the tables differ
+     * @return The number of rows compared and the confidence achieved
+     * @throws DatabaseUnitException
+     * @throws SQLException
+     */
+    SampleResult compare(ITable expectedTable, IDatabaseConnection connection,
+            String tableName, FailureHandler failureHandler)
+            throws DatabaseUnitException, SQLException
+    {
+        logger.debug("compare(expectedTable={}, connection={}, tableName={}, "
+                + "failureHandler={}) - start",
+                new Object[] {expectedTable, connection, tableName, failureHandler});
+
+        // Verify row count
+        int expectedRowsCount = expectedTable.getRowCount();
+        verifyRowCount(tableName, expectedRowsCount, connection.getRowCount(tableName),
+                failureHandler);
+        if (expectedRowsCount == 0)
+        {
+            logger.debug("Tables are empty, hence equals.");
+            return new SampleResult(tableName, 0, 0);
+        }
+
+        ITableMetaData expectedMetaData = expectedTable.getTableMetaData();
+        ITableMetaData actualMetaData = connection.createDataSet().getTableMetaData(tableName);
+
+        // Only the columns of the expected table are compared
+        Column[] expectedColumns = Columns.getSortedColumns(expectedMetaData);
+        Column[] actualColumns = Columns.findColumnsByName(expectedColumns,
+                actualMetaData);
+        ComparisonColumn[] comparisonCols = _assert.getComparisonColumns(tableName,
+                expectedColumns, actualColumns, failureHandler);
+        ComparisonColumn[] keyCols = _assert.getKeyColumns(tableName,
+                _assert.getPrimaryKeyNames(expectedMetaData, actualMetaData), comparisonCols);
+
+        int[] expectedRows = getSampledRows(expectedTable, keyCols);
+        Column[] actualKeyColumns = new Column[keyCols.length];
+        for (int i = 0; i < keyCols.length; i++)
+        {
+            actualKeyColumns[i] = Columns.getColumn(keyCols[i].getColumnName(),
+                    actualColumns);
+        }
+        List keys = new ArrayList(expectedRows.length);
+        for (int i = 0; i < expectedRows.length; i++)
+        {
+            Object[] key = new Object[keyCols.length];
+            for (int j = 0; j < keyCols.length; j++)
+            {
+                key[j] = expectedTable.getValue(expectedRows[i],
+                        keyCols[j].getColumnName());
+            }
+            keys.add(key);
+        }
+        ITable actualTable = new KeyedRowSelect(connection, tableName,
+                actualColumns, actualKeyColumns).select(keys);
+
+        _assert.compareDataUnordered(new JoinedTable(expectedTable, expectedRows),
+                actualTable, keyCols, comparisonCols, failureHandler);
+
+        return createSampleResult(tableName, expectedRowsCount,
+                expectedRows.length);
+    }
+
+    private static void verifyRowCount(String tableName, int expectedRowsCount,
+            int actualRowsCount, FailureHandler failureHandler)
+    {
+        if (expectedRowsCount != actualRowsCount)
+        {
+            String msg = "row count (table=" + tableName + ")";
+            Error error =
+                    failureHandler.createFailure(msg, String
+                            .valueOf(expectedRowsCount), String
+                            .valueOf(actualRowsCount));
+            logger.error(error.toString());
+            throw error;
+        }
+    }
+
+    private int[] getSampledRows(ITable table, ComparisonColumn[] keyCols)
+            throws DataSetException
+    {
+        int rowCount = table.getRowCount();
+        int[] rows = new int[rowCount];
+        int sampleSize = 0;
+        for (int i = 0; i < rowCount; i++)
+        {
+            if (_sampler.isSampled(DbUnitAssert.createKey(table, i, keyCols)))
+            {
+                rows[sampleSize++] = i;
+            }
+        }
+
+        int[] result = new int[sampleSize];
+        System.arraycopy(rows, 0, result, 0, sampleSize);
+        return result;
+    }
+
+    private static SampleResult createSampleResult(String tableName,
+            int rowCount, int sampleSize)
+    {
+        SampleResult result = new SampleResult(tableName, rowCount, sampleSize);
+        if (logger.isInfoEnabled())
+        {
+            logger.info("Compared {} of {} rows of table '{}'. Less than {}% "
+                    + "of the rows differ with 95% confidence.", new Object[] {
+                    new Integer(sampleSize), new Integer(rowCount), tableName,
+                    String.valueOf(Math.round(result.getMaxErrorRate(0.95) * 10000) / 100.0) });
+        }
+        return result;
+    }
+}
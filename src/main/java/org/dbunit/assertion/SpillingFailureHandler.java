@@ -0,0 +1,361 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.dbunit.DatabaseUnitRuntimeException;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+import org.dbunit.dataset.stream.IDataSetConsumer;
+import org.dbunit.dataset.xml.FlatXmlWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link DiffCollectingFailureHandler} with bounded memory usage. Only the
+ * first differences are kept in memory, all further differences are streamed
+ * to an {@link IDataSetConsumer} as they arrive, for example a
+ * {@link FlatXmlWriter}. The number of differences of every column is
+ * counted, so that a summary of even a badly broken table is cheap.
+ * <p>
+ * The streamed differences are rows of the table <code>DIFFERENCES</code> with
+ * the columns <code>TABLE_NAME</code>, <code>ROW_INDEX</code>,
+ * <code>COLUMN_NAME</code>, <code>EXPECTED_VALUE</code> and
+ * <code>ACTUAL_VALUE</code>. The values are written as strings. The handler
+ * must be closed once the assertion is done in order to complete the output:
+ * <code><pre>
+ * SpillingFailureHandler handler = new SpillingFailureHandler(100, new File("diff.xml"));
+ * try {
+ *     assertion.assertEquals(expectedTable, actualTable, handler);
+ * }
+ * finally {
+ *     handler.close();
+ * }
+ * System.out.println(handler.getSummary());
+ * </pre></code>
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class SpillingFailureHandler extends DiffCollectingFailureHandler
+{
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(SpillingFailureHandler.class);
+
+    /**
+     * The name of the table receiving the streamed differences
+     */
+    public static final String TABLE_NAME = "DIFFERENCES";
+
+    private static final ITableMetaData METADATA = new DefaultTableMetaData(TABLE_NAME,
+            new Column[] {
+                new Column("TABLE_NAME", DataType.VARCHAR),
+                new Column("ROW_INDEX", DataType.INTEGER),
+                new Column("COLUMN_NAME", DataType.VARCHAR),
+                new Column("EXPECTED_VALUE", DataType.VARCHAR),
+                new Column("ACTUAL_VALUE", DataType.VARCHAR)
+            });
+
+    private final int _maxInMemory;
+    private final IDataSetConsumer _consumer;
+    private final OutputStream _out;
+
+    /**
+     * The number of differences as <code>int[1]</code> by "TABLE.COLUMN"
+     */
+    private final Map _columnCounts = new LinkedHashMap();
+    private int _differenceCount = 0;
+    private int _spilledCount = 0;
+    private boolean _started = false;
+    private boolean _closed = false;
+
+    /**
+     * @param maxInMemory The number of differences to be kept in memory
+     * @param consumer The consumer receiving all further differences
+     */
+    public SpillingFailureHandler(int maxInMemory, IDataSetConsumer consumer)
+    {
+        this(maxInMemory, consumer, null);
+    }
+
+    /**
+     * @param maxInMemory The number of differences to be kept in memory
+     * @param file The flat XML file receiving all further differences
+     * @throws IOException
+     */
+    public SpillingFailureHandler(int maxInMemory, File file) throws IOException
+    {
+        // The arguments are checked before the file is opened
+        this(checkMaxInMemory(maxInMemory), new BufferedOutputStream(new FileOutputStream(file)));
+    }
+
+    private SpillingFailureHandler(int maxInMemory, OutputStream out) throws IOException
+    {
+        this(maxInMemory, createWriter(out), out);
+    }
+
+    private SpillingFailureHandler(int maxInMemory, IDataSetConsumer consumer,
+            OutputStream out)
+    {
+        _maxInMemory = checkMaxInMemory(maxInMemory);
+        if (consumer == null)
+        {
+            throw new NullPointerException("The parameter 'consumer' must not be null");
+        }
+        _consumer = consumer;
+        _out = out;
+    }
+
+    private static int checkMaxInMemory(int maxInMemory)
+    {
+        if (maxInMemory < 0)
+        {
+            throw new IllegalArgumentException(
+                    "The number of differences kept in memory must not be negative: "
+                    + maxInMemory);
+        }
+        return maxInMemory;
+    }
+
+    /**
+     * Creates the writer of the given stream, closing the stream if the
+     * writer cannot be created.
+     */
+    private static FlatXmlWriter createWriter(OutputStream out) throws IOException
+    {
+        boolean success = false;
+        try
+        {
+            FlatXmlWriter writer = new FlatXmlWriter(out, "UTF-8");
+            success = true;
+            return writer;
+        }
+        finally
+        {
+            if (!success)
+            {
+                try
+                {
+                    out.close();
+                }
+                catch (IOException e)
+                {
+                    logger.warn("Exception while closing the output stream: " + e, e);
+                }
+            }
+        }
+    }
+
+    public void handle(Difference diff)
+    {
+        String tableName = diff.getExpectedTable().getTableMetaData().getTableName();
+        String key = tableName + "." + diff.getColumnName();
+        int[] count = (int[])_columnCounts.get(key);
+        if (count == null)
+        {
+            count = new int[1];
+            _columnCounts.put(key, count);
+        }
+        count[0]++;
+        _differenceCount++;
+
+        if (getDiffList().size() < _maxInMemory)
+        {
+            super.handle(diff);
+            return;
+        }
+
+        try
+        {
+            spill(tableName, diff);
+        }
+        catch (DataSetException e)
+        {
+            throw new DatabaseUnitRuntimeException("Cannot write the difference " + diff, e);
+        }
+    }
+
+    private void spill(String tableName, Difference diff) throws DataSetException
+    {
+        if (_closed)
+        {
+            throw new IllegalStateException("The handler has already been closed");
+        }
+        start();
+        _consumer.row(new Object[] {
+                tableName,
+                new Integer(diff.getRowIndex()),
+                diff.getColumnName(),
+                toString(diff.getExpectedValue()),
+                toString(diff.getActualValue())});
+        _spilledCount++;
+    }
+
+    private void start() throws DataSetException
+    {
+        if (!_started)
+        {
+            _consumer.startDataSet();
+            _consumer.startTable(METADATA);
+            _started = true;
+        }
+    }
+
+    private static String toString(Object value)
+    {
+        try
+        {
+            return DataType.asString(value);
+        }
+        catch (TypeCastException e)
+        {
+            logger.debug("Cannot convert value to string, using toString(): {}", e.toString());
+            return value.toString();
+        }
+    }
+
+    /**
+     * Completes the streamed differences and closes the file if the handler
+     * writes into one. Does nothing if already closed.
+     * @throws DataSetException
+     */
+    public void close() throws DataSetException
+    {
+        logger.debug("close() - start");
+
+        if (_closed)
+        {
+            return;
+        }
+        _closed = true;
+
+        try
+        {
+            start();
+            _consumer.endTable();
+            _consumer.endDataSet();
+        }
+        finally
+        {
+            if (_out != null)
+            {
+                try
+                {
+                    _out.close();
+                }
+                catch (IOException e)
+                {
+                    throw new DataSetException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of all differences, including the streamed ones
+     */
+    public int getDifferenceCount()
+    {
+        return _differenceCount;
+    }
+
+    /**
+     * @return The number of differences which have been streamed to the consumer
+     */
+    public int getSpilledCount()
+    {
+        return _spilledCount;
+    }
+
+    /**
+     * @param tableName The table name
+     * @param columnName The column name
+     * @return The number of differences of the given column
+     */
+    public int getDifferenceCount(String tableName, String columnName)
+    {
+        int[] count = (int[])_columnCounts.get(tableName + "." + columnName);
+        return count == null ? 0 : count[0];
+    }
+
+    /**
+     * @return The number of differences as {@link Integer} by "TABLE.COLUMN",
+     * in the order the columns differed first
+     */
+    public Map getColumnCounts()
+    {
+        Map result = new LinkedHashMap();
+        for (Iterator iterator = _columnCounts.entrySet().iterator(); iterator.hasNext();)
+        {
+            Map.Entry entry = (Map.Entry)iterator.next();
+            result.put(entry.getKey(), new Integer(((int[])entry.getValue())[0]));
+        }
+        return result;
+    }
+
+    /**
+     * @return A short report of the number of differences per column
+     */
+    public String getSummary()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(_differenceCount).append(" difference(s)");
+        if (_spilledCount > 0)
+        {
+            sb.append(", ").append(_spilledCount).append(" not kept in memory");
+        }
+        for (Iterator iterator = _columnCounts.entrySet().iterator(); iterator.hasNext();)
+        {
+            Map.Entry entry = (Map.Entry)iterator.next();
+            sb.append("\n    ").append(entry.getKey()).append(": ");
+            sb.append(((int[])entry.getValue())[0]);
+        }
+        return sb.toString();
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(SpillingFailureHandler.class.getName()).append("[");
+        sb.append("maxInMemory=").append(_maxInMemory);
+        sb.append(", differenceCount=").append(_differenceCount);
+        sb.append(", spilledCount=").append(_spilledCount);
+        sb.append(", consumer=").append(_consumer);
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,605 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.assertion.DbUnitAssert.ComparisonColumn;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.Columns;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.NoSuchColumnException;
+import org.dbunit.dataset.RowKey;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares two tables by reading both of them only once from the first to
+ * the last row. The rows are merged by their key: rows having equal keys at
+ * the same position are compared directly, a row whose key differs from the
+ * current row of the other table is kept until a row with the same key is
+ * read from the other table. The rows left without a match are reported
+ * after all rows have been read.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see DbUnitAssert#assertEqualsStreaming(ITable, ITable, String[], FailureHandler)
+ */
+class StreamingTableComparator
+{
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(StreamingTableComparator.class);
+
+    private final DbUnitAssert _assert;
+
+    /**
+     * @param dbUnitAssert The assertion providing the column data types and
+     * deciding which values are skipped
+     */
+    StreamingTableComparator(DbUnitAssert dbUnitAssert)
+    {
+        _assert = dbUnitAssert;
+    }
+
+    /**
+     * Compares the given tables.
+     * @param expectedTable Table containing all expected results
+     * @param actualTable Table containing all actual results
+     * @param keyColumnNames The names of the columns matching the rows, can be
+     * <code>null</code> to use the primary key columns
+     * @param failureHandler The failure handler used if the tables differ
+     * @throws DatabaseUnitException
+     */
+    void compare(ITable expectedTable, ITable actualTable, String[] keyColumnNames,
+            FailureHandler failureHandler) throws DatabaseUnitException
+    {
+        logger.debug("compare(expectedTable={}, actualTable={}, keyColumnNames={}, "
+                + "failureHandler={}) - start",
+                new Object[] {expectedTable, actualTable,
+                        keyColumnNames == null ? null : Arrays.asList(keyColumnNames),
+                        failureHandler});
+
+        ITableMetaData expectedMetaData = expectedTable.getTableMetaData();
+        ITableMetaData actualMetaData = actualTable.getTableMetaData();
+        String expectedTableName = expectedMetaData.getTableName();
+
+        // Put the columns into the same order
+        Column[] expectedColumns = Columns.getSortedColumns(expectedMetaData);
+        Column[] actualColumns = Columns.getSortedColumns(actualMetaData);
+
+        RowCursor expectedRows = new RowCursor(expectedTable, expectedColumns);
+        RowCursor actualRows = new RowCursor(actualTable, actualColumns);
+
+        // The columns are not compared if one of the tables is empty, since
+        // the column metadata of an empty table may be different
+        expectedRows.next();
+        actualRows.next();
+        if (!expectedRows.hasRow() || !actualRows.hasRow())
+        {
+            while (expectedRows.next() || actualRows.next())
+            {
+                // count the rows of the other table
+            }
+            verifyRowCount(expectedTableName, expectedRows, actualRows, failureHandler);
+            logger.debug("Tables are empty, hence equals.");
+            return;
+        }
+
+        // Verify columns
+        Columns.ColumnDiff columnDiff =
+                Columns.getColumnDiff(expectedMetaData, actualMetaData);
+        if (columnDiff.hasDifference())
+        {
+            String message = columnDiff.getMessage();
+            Error error =
+                    failureHandler.createFailure(message, Columns
+                            .getColumnNamesAsString(expectedColumns), Columns
+                            .getColumnNamesAsString(actualColumns));
+            logger.error(error.toString());
+            throw error;
+        }
+
+        // Get the datatypes to be used for comparing the sorted columns
+        ComparisonColumn[] comparisonCols = _assert.getComparisonColumns(expectedTableName,
+                expectedColumns, actualColumns, failureHandler);
+
+        if (keyColumnNames == null)
+        {
+            keyColumnNames = Columns.getColumnNames(
+                    DbUnitAssert.getPrimaryKeys(expectedMetaData, actualMetaData));
+            if (keyColumnNames.length == 0)
+            {
+                logger.debug("No primary key defined for table '{}'. "
+                        + "Comparing the rows by their position.", expectedTableName);
+            }
+        }
+        ComparisonColumn[] keyCols = _assert.getKeyColumns(expectedTableName,
+                keyColumnNames, comparisonCols);
+
+        // Finally compare the data
+        if (compareData(expectedRows, actualRows, keyCols, comparisonCols, failureHandler))
+        {
+            verifyRowCount(expectedTableName, expectedRows, actualRows, failureHandler);
+        }
+    }
+
+    /**
+     * Merges the rows of the given tables, matching them by the key columns.
+     * Keys are only tested for equality, never ordered, so the tables may be
+     * ordered differently, for example by a database collation.
+     *
+     * @param expectedRows
+     *            The expected rows, positioned on the first row
+     * @param actualRows
+     *            The actual rows, positioned on the first row
+     * @param keyCols
+     *            The columns matching the rows, can be empty to match the rows
+     *            by their position
+     * @param comparisonCols
+     *            The columns to be compared, also including the correct
+     *            {@link DataType}s for comparison
+     * @param failureHandler
+     *          The failure handler used if the assert fails because of a data
+     *          mismatch. Must not be <code>null</code> at this stage
+     * @return <code>false</code> if the comparison has been stopped because
+     *         the limit of a {@link LimitedFailureHandler} was reached
+     * @throws DataSetException
+     */
+    private boolean compareData(RowCursor expectedRows, RowCursor actualRows,
+            ComparisonColumn[] keyCols, ComparisonColumn[] comparisonCols,
+            FailureHandler failureHandler) throws DataSetException
+    {
+        logger.debug("compareData(expectedRows={}, actualRows={}, "
+                + "keyCols={}, comparisonCols={}, failureHandler={}) - start",
+                new Object[] {expectedRows, actualRows, keyCols,
+                        comparisonCols, failureHandler});
+
+        int[] keyIndexes = new int[keyCols.length];
+        DataType[] keyTypes = new DataType[keyCols.length];
+        for (int i = 0; i < keyCols.length; i++)
+        {
+            keyIndexes[i] = Arrays.asList(comparisonCols).indexOf(keyCols[i]);
+            keyTypes[i] = keyCols[i].getDataType();
+        }
+
+        ITable expectedTable = expectedRows.getTable();
+        ITable actualTable = actualRows.getTable();
+
+        // The rows without a match so far, as lists of BufferedRow by RowKey
+        Map pendingExpected = new LinkedHashMap();
+        Map pendingActual = new LinkedHashMap();
+        while (expectedRows.hasRow() || actualRows.hasRow())
+        {
+            if (DbUnitAssert.isLimitReached(failureHandler))
+            {
+                // The remaining rows are not read
+                logger.debug("Difference limit reached. Stopping the comparison.");
+                return false;
+            }
+
+            RowKey expectedKey = expectedRows.hasRow()
+                    ? createKey(expectedRows.getValues(), keyIndexes, keyTypes) : null;
+            RowKey actualKey = actualRows.hasRow()
+                    ? createKey(actualRows.getValues(), keyIndexes, keyTypes) : null;
+
+            if (expectedKey != null && expectedKey.equals(actualKey))
+            {
+                compareRow(expectedRows.getRow(), expectedTable, expectedRows.getValues(),
+                        actualTable, actualRows.getValues(), comparisonCols, failureHandler);
+                expectedRows.next();
+                actualRows.next();
+                continue;
+            }
+
+            if (expectedKey != null)
+            {
+                BufferedRow actualRow = removePending(pendingActual, expectedKey);
+                if (actualRow == null)
+                {
+                    addPending(pendingExpected, expectedKey,
+                            new BufferedRow(expectedRows.getRow(), expectedRows.getValues()));
+                }
+                else
+                {
+                    compareRow(expectedRows.getRow(), expectedTable, expectedRows.getValues(),
+                            actualTable, actualRow.getValues(), comparisonCols, failureHandler);
+                }
+                expectedRows.next();
+            }
+            if (actualKey != null)
+            {
+                BufferedRow expectedRow = removePending(pendingExpected, actualKey);
+                if (expectedRow == null)
+                {
+                    addPending(pendingActual, actualKey,
+                            new BufferedRow(actualRows.getRow(), actualRows.getValues()));
+                }
+                else
+                {
+                    compareRow(expectedRow.getRow(), expectedTable, expectedRow.getValues(),
+                            actualTable, actualRows.getValues(), comparisonCols, failureHandler);
+                }
+                actualRows.next();
+            }
+        }
+
+        // Missing rows
+        for (Iterator it = pendingExpected.values().iterator(); it.hasNext();)
+        {
+            List rows = (List)it.next();
+            for (int i = 0; i < rows.size(); i++)
+            {
+                BufferedRow row = (BufferedRow)rows.get(i);
+                compareRow(row.getRow(), expectedTable, row.getValues(),
+                        actualTable, null, comparisonCols, failureHandler);
+            }
+        }
+        // Unexpected rows
+        for (Iterator it = pendingActual.values().iterator(); it.hasNext();)
+        {
+            List rows = (List)it.next();
+            for (int i = 0; i < rows.size(); i++)
+            {
+                BufferedRow row = (BufferedRow)rows.get(i);
+                compareRow(row.getRow(), expectedTable, null,
+                        actualTable, row.getValues(), comparisonCols, failureHandler);
+            }
+        }
+        return !DbUnitAssert.isLimitReached(failureHandler);
+    }
+
+    private static RowKey createKey(Object[] values, int[] keyIndexes,
+            DataType[] keyTypes) throws TypeCastException
+    {
+        Object[] keyValues = new Object[keyIndexes.length];
+        for (int i = 0; i < keyIndexes.length; i++)
+        {
+            keyValues[i] = values[keyIndexes[i]];
+        }
+        return RowKey.create(keyValues, keyTypes);
+    }
+
+    private static void addPending(Map pendingRows, RowKey key, BufferedRow row)
+    {
+        List rows = (List)pendingRows.get(key);
+        if (rows == null)
+        {
+            rows = new LinkedList();
+            pendingRows.put(key, rows);
+        }
+        rows.add(row);
+    }
+
+    private static BufferedRow removePending(Map pendingRows, RowKey key)
+    {
+        List rows = (List)pendingRows.get(key);
+        if (rows == null)
+        {
+            return null;
+        }
+        BufferedRow row = (BufferedRow)rows.remove(0);
+        if (rows.isEmpty())
+        {
+            pendingRows.remove(key);
+        }
+        return row;
+    }
+
+    /**
+     * Compares a row of the expected table with a row of the actual table.
+     * <code>null</code> values stand for a missing row whose values are all
+     * <code>null</code>.
+     */
+    private void compareRow(int row, ITable expectedTable, Object[] expectedValues,
+            ITable actualTable, Object[] actualValues, ComparisonColumn[] comparisonCols,
+            FailureHandler failureHandler) throws DataSetException
+    {
+        ITable expectedView = null;
+        ITable actualView = null;
+        for (int j = 0; j < comparisonCols.length; j++)
+        {
+            ComparisonColumn compareColumn = comparisonCols[j];
+
+            String columnName = compareColumn.getColumnName();
+
+            Object expectedValue = expectedValues == null ? null : expectedValues[j];
+            Object actualValue = actualValues == null ? null : actualValues[j];
+
+            // Compare the values
+            if (_assert.skipCompare(columnName, expectedValue, actualValue))
+            {
+                if (logger.isTraceEnabled())
+                {
+                    logger.trace( "ignoring comparison " + expectedValue + "=" +
+                            actualValue + " on column " + columnName);
+                }
+                continue;
+            }
+
+            if (compareColumn.compare(expectedValue, actualValue) != 0)
+            {
+                // Create the single row tables only when needed
+                if (expectedView == null)
+                {
+                    expectedView = new RowTable(expectedTable, row, comparisonCols,
+                            expectedValues);
+                    actualView = new RowTable(actualTable, row, comparisonCols,
+                            actualValues);
+                }
+
+                Difference diff = new Difference(
+                        expectedView, actualView,
+                        row, columnName,
+                        expectedValue, actualValue);
+
+                // Handle the difference (throw error immediately or something else)
+                failureHandler.handle(diff);
+            }
+        }
+    }
+
+    private static void verifyRowCount(String expectedTableName, RowCursor expectedRows,
+            RowCursor actualRows, FailureHandler failureHandler)
+    {
+        int expectedRowsCount = expectedRows.getRowCount();
+        int actualRowsCount = actualRows.getRowCount();
+        if (expectedRowsCount != actualRowsCount)
+        {
+            String msg = "row count (table=" + expectedTableName + ")";
+            Error error =
+                    failureHandler.createFailure(msg, String
+                            .valueOf(expectedRowsCount), String
+                            .valueOf(actualRowsCount));
+            logger.error(error.toString());
+            throw error;
+        }
+    }
+
+    /**
+     * Reads a table row by row, from the first to the last row, without
+     * invoking {@link ITable#getRowCount()}.
+     *
+     * @author Last changed by: $Author$
+     * @version $Revision$ $Date$
+     * @since 2.4.10
+     */
+    private static class RowCursor
+    {
+        private final ITable _table;
+        private final Column[] _columns;
+        private int _row = -1;
+        private Object[] _values;
+        /**
+         * The row count of a table without columns, <code>-1</code> if not yet known
+         */
+        private int _rowCount = -1;
+
+        /**
+         * @param table The table to be read
+         * @param columns The columns to be read, in the order of the values
+         */
+        public RowCursor(ITable table, Column[] columns)
+        {
+            _table = table;
+            _columns = columns;
+        }
+
+        /**
+         * Moves to the next row.
+         * @return <code>false</code> if there is no more row
+         * @throws DataSetException
+         */
+        public boolean next() throws DataSetException
+        {
+            if (_row >= 0 && _values == null)
+            {
+                return false;
+            }
+
+            _row++;
+            Object[] values = new Object[_columns.length];
+            // The end of a table without columns, like an empty table of a
+            // flat XML file, cannot be detected by reading values
+            if (_columns.length == 0)
+            {
+                if (_rowCount < 0)
+                {
+                    _rowCount = _table.getRowCount();
+                }
+                if (_row >= _rowCount)
+                {
+                    _values = null;
+                    return false;
+                }
+            }
+            try
+            {
+                for (int i = 0; i < _columns.length; i++)
+                {
+                    values[i] = _table.getValue(_row, _columns[i].getColumnName());
+                }
+            }
+            catch (RowOutOfBoundsException e)
+            {
+                _values = null;
+                return false;
+            }
+            _values = values;
+            return true;
+        }
+
+        public boolean hasRow()
+        {
+            return _values != null;
+        }
+
+        /**
+         * @return The index of the current row
+         */
+        public int getRow()
+        {
+            return _row;
+        }
+
+        /**
+         * @return The values of the current row
+         */
+        public Object[] getValues()
+        {
+            return _values;
+        }
+
+        /**
+         * @return The number of rows read so far
+         */
+        public int getRowCount()
+        {
+            return _values == null ? _row : _row + 1;
+        }
+
+        public ITable getTable()
+        {
+            return _table;
+        }
+
+        public String toString()
+        {
+            StringBuffer sb = new StringBuffer();
+            sb.append(getClass().getName()).append("[");
+            sb.append("_table=").append(_table);
+            sb.append(", _row=").append(_row);
+            sb.append("]");
+            return sb.toString();
+        }
+    }
+
+    /**
+     * A row read by a {@link RowCursor} which is kept until the row with the
+     * same key is read from the other table.
+     *
+     * @author Last changed by: $Author$
+     * @version $Revision$ $Date$
+     * @since 2.4.10
+     */
+    private static class BufferedRow
+    {
+        private final int _row;
+        private final Object[] _values;
+
+        public BufferedRow(int row, Object[] values)
+        {
+            _row = row;
+            _values = values;
+        }
+
+        public int getRow()
+        {
+            return _row;
+        }
+
+        public Object[] getValues()
+        {
+            return _values;
+        }
+    }
+
+    /**
+     * Table consisting of a single row which has been read from another table.
+     * All values of the row are <code>null</code> if no values are given.
+     *
+     * @author Last changed by: $Author$
+     * @version $Revision$ $Date$
+     * @since 2.4.10
+     */
+    private static class RowTable implements ITable
+    {
+        private final ITableMetaData _metaData;
+        private final int _row;
+        private final ComparisonColumn[] _columns;
+        private final Object[] _values;
+
+        /**
+         * @param table The table the row has been read from
+         * @param row The index of the row
+         * @param columns The columns of the values
+         * @param values The values of the row, can be <code>null</code>
+         */
+        public RowTable(ITable table, int row, ComparisonColumn[] columns,
+                Object[] values)
+        {
+            _metaData = table.getTableMetaData();
+            _row = row;
+            _columns = columns;
+            _values = values;
+        }
+
+        public ITableMetaData getTableMetaData()
+        {
+            return _metaData;
+        }
+
+        public int getRowCount()
+        {
+            return _row + 1;
+        }
+
+        public Object getValue(int row, String column) throws DataSetException
+        {
+            if (row != _row)
+            {
+                throw new RowOutOfBoundsException("Only row " + _row
+                        + " is available, not " + row);
+            }
+            for (int i = 0; i < _columns.length; i++)
+            {
+                if (_columns[i].getColumnName().equalsIgnoreCase(column))
+                {
+                    return _values == null ? null : _values[i];
+                }
+            }
+            throw new NoSuchColumnException(_metaData.getTableName(), column);
+        }
+
+        public String toString()
+        {
+            StringBuffer sb = new StringBuffer();
+            sb.append(getClass().getName()).append("[");
+            sb.append("_metaData=").append(_metaData);
+            sb.append(", _row=").append(_row);
+            sb.append("]");
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.BigIntegerDataType;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.DateDataType;
+import org.dbunit.dataset.datatype.DoubleDataType;
+import org.dbunit.dataset.datatype.FloatDataType;
+import org.dbunit.dataset.datatype.IntegerDataType;
+import org.dbunit.dataset.datatype.LongDataType;
+import org.dbunit.dataset.datatype.NumberDataType;
+import org.dbunit.dataset.datatype.NumberTolerantDataType;
+import org.dbunit.dataset.datatype.StringDataType;
+import org.dbunit.dataset.datatype.TimeDataType;
+import org.dbunit.dataset.datatype.TimestampDataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+
+/**
+ * Compares the values of a single column, giving the same result as
+ * {@link DataType#compare(Object, Object)} of the column data type. A
+ * comparator is created once per compared column so that the work depending
+ * on the data type only is done once: for the built-in data types whose
+ * comparison is based on {@link Comparable} the values which are already
+ * of the type class are not casted again, and the numbers of a
+ * {@link NumberTolerantDataType} are checked using
+ * {@link NumberTolerantDataType#isWithinTolerance(BigDecimal, BigDecimal)}.
+ * Any other data type is delegated to.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+abstract class ValueComparator
+{
+    /**
+     * The data type classes which compare the typecast values using
+     * {@link Comparable#compareTo(Object)} and return values of the type
+     * class unchanged from {@link DataType#typeCast(Object)}
+     */
+    private static final Set COMPARABLE_TYPES = new HashSet();
+
+    static
+    {
+        COMPARABLE_TYPES.add(StringDataType.class);
+        COMPARABLE_TYPES.add(NumberDataType.class);
+        COMPARABLE_TYPES.add(IntegerDataType.class);
+        COMPARABLE_TYPES.add(LongDataType.class);
+        COMPARABLE_TYPES.add(DoubleDataType.class);
+        COMPARABLE_TYPES.add(FloatDataType.class);
+        COMPARABLE_TYPES.add(BigIntegerDataType.class);
+        COMPARABLE_TYPES.add(DateDataType.class);
+        COMPARABLE_TYPES.add(TimeDataType.class);
+        COMPARABLE_TYPES.add(TimestampDataType.class);
+    }
+
+    /**
+     * Creates the comparator for the given data type.
+     * @param dataType The data type used to compare the values
+     * @return The comparator
+     */
+    static ValueComparator create(DataType dataType)
+    {
+        Class dataTypeClass = dataType.getClass();
+        if (dataTypeClass == NumberTolerantDataType.class)
+        {
+            return new TolerantComparator((NumberTolerantDataType)dataType);
+        }
+        if (COMPARABLE_TYPES.contains(dataTypeClass))
+        {
+            return new ComparableComparator(dataType);
+        }
+        return new DataTypeComparator(dataType);
+    }
+
+    /**
+     * Compares the given values.
+     * @param expectedValue The expected value
+     * @param actualValue The actual value
+     * @return <code>0</code> if the values are equal
+     * @throws TypeCastException If one of the values cannot be casted
+     * @see DataType#compare(Object, Object)
+     */
+    abstract int compare(Object expectedValue, Object actualValue) throws TypeCastException;
+
+
+    /**
+     * Delegates to {@link DataType#compare(Object, Object)}.
+     */
+    private static class DataTypeComparator extends ValueComparator
+    {
+        private final DataType _dataType;
+
+        DataTypeComparator(DataType dataType)
+        {
+            _dataType = dataType;
+        }
+
+        int compare(Object expectedValue, Object actualValue) throws TypeCastException
+        {
+            return _dataType.compare(expectedValue, actualValue);
+        }
+    }
+
+    /**
+     * Compares the typecast values using {@link Comparable#compareTo(Object)}.
+     */
+    private static class ComparableComparator extends ValueComparator
+    {
+        private final DataType _dataType;
+        private final Class _typeClass;
+
+        ComparableComparator(DataType dataType)
+        {
+            _dataType = dataType;
+            _typeClass = dataType.getTypeClass();
+        }
+
+        int compare(Object expectedValue, Object actualValue) throws TypeCastException
+        {
+            if (expectedValue == actualValue
+                    || (expectedValue != null && expectedValue.equals(actualValue)))
+            {
+                return 0;
+            }
+
+            Object value1 = typeCast(expectedValue);
+            Object value2 = typeCast(actualValue);
+            if (value1 == null)
+            {
+                return value2 == null ? 0 : -1;
+            }
+            if (value2 == null)
+            {
+                return 1;
+            }
+
+            try
+            {
+                return compareNonNulls(value1, value2);
+            }
+            catch (ClassCastException e)
+            {
+                throw new TypeCastException(e);
+            }
+        }
+
+        private Object typeCast(Object value) throws TypeCastException
+        {
+            if (value == null || value == ITable.NO_VALUE)
+            {
+                return null;
+            }
+            if (value.getClass() == _typeClass)
+            {
+                return value;
+            }
+            return _dataType.typeCast(value);
+        }
+
+        int compareNonNulls(Object value1, Object value2) throws TypeCastException
+        {
+            return ((Comparable)value1).compareTo(value2);
+        }
+    }
+
+    /**
+     * Compares numbers allowing the tolerance of a {@link NumberTolerantDataType}.
+     */
+    private static class TolerantComparator extends ComparableComparator
+    {
+        private final NumberTolerantDataType _dataType;
+
+        TolerantComparator(NumberTolerantDataType dataType)
+        {
+            super(dataType);
+            _dataType = dataType;
+        }
+
+        int compareNonNulls(Object value1, Object value2) throws TypeCastException
+        {
+            if (!(value1 instanceof BigDecimal) || !(value2 instanceof BigDecimal))
+            {
+                return super.compareNonNulls(value1, value2);
+            }
+
+            BigDecimal number1 = (BigDecimal)value1;
+            BigDecimal number2 = (BigDecimal)value2;
+            return _dataType.isWithinTolerance(number1, number2) ? 0 : number1.compareTo(number2);
+        }
+    }
+}
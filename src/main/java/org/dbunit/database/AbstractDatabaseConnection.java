@@ -28,6 +28,7 @@ import java.sql.Statement;
 
 import org.dbunit.DatabaseUnitRuntimeException;
 import org.dbunit.database.statement.IStatementFactory;
+import org.dbunit.database.statement.PreparedStatementCache;
 import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.FilteredDataSet;
 import org.dbunit.dataset.IDataSet;
@@ -52,6 +53,7 @@ public abstract class AbstractDatabaseConnection implements IDatabaseConnection
 
     private IDataSet _dataSet = null;
     private final DatabaseConfig _databaseConfig;
+    private PreparedStatementCache _statementCache = null;
 
     public AbstractDatabaseConnection()
     {
@@ -190,6 +192,51 @@ public abstract class AbstractDatabaseConnection implements IDatabaseConnection
         return (IStatementFactory)_databaseConfig.getProperty(DatabaseConfig.PROPERTY_STATEMENT_FACTORY);
     }
 
+    /**
+     * Returns the cache of the prepared statements of this connection.
+     * @return The cache or <code>null</code> if statement caching is disabled
+     * using the {@link DatabaseConfig#PROPERTY_STATEMENT_CACHE_SIZE}
+     * @since 2.4.10
+     */
+    public synchronized PreparedStatementCache getStatementCache()
+    {
+        int maxSize = ((Integer)_databaseConfig.getProperty(
+                DatabaseConfig.PROPERTY_STATEMENT_CACHE_SIZE)).intValue();
+        if (_statementCache == null)
+        {
+            if (maxSize <= 0)
+            {
+                return null;
+            }
+            _statementCache = new PreparedStatementCache(maxSize);
+        }
+        else if (_statementCache.getMaxSize() != maxSize)
+        {
+            _statementCache.setMaxSize(maxSize);
+        }
+        return maxSize > 0 ? _statementCache : null;
+    }
+
+    /**
+     * Closes the cached prepared statements. Must be invoked by subclasses
+     * before the JDBC connection is closed.
+     * @throws SQLException
+     * @since 2.4.10
+     */
+    protected synchronized void clearStatementCache() throws SQLException
+    {
+        logger.debug("clearStatementCache() - start");
+
+        if (_statementCache != null)
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Clearing statement cache {}", _statementCache);
+            }
+            _statementCache.clear();
+        }
+    }
+
     private IResultSetTableFactory getResultSetTableFactory()
     {
         return (IResultSetTableFactory)_databaseConfig.getProperty(DatabaseConfig.PROPERTY_RESULTSET_TABLE_FACTORY);
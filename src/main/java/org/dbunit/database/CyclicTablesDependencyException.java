@@ -20,6 +20,10 @@
  */
 package org.dbunit.database;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import org.dbunit.dataset.DataSetException;
@@ -31,9 +35,12 @@ import org.dbunit.dataset.DataSetException;
  */
 public class CyclicTablesDependencyException extends DataSetException
 {
+    private final List _cycles;
+
     public CyclicTablesDependencyException(String message)
     {
         super(message);
+        _cycles = Collections.EMPTY_LIST;
     }
     
     /**
@@ -43,10 +50,45 @@ public class CyclicTablesDependencyException extends DataSetException
      */
     public CyclicTablesDependencyException(String tableName, Set cyclicTableNames)
     {
-        this(buildMessage(tableName, cyclicTableNames));
+        super(buildMessage(tableName, cyclicTableNames));
+        _cycles = Collections.singletonList(cyclicTableNames);
+    }
+
+    /**
+     * @param cycles The cycles found, each one being a {@link Set} of the
+     * names of the tables depending on each other
+     * @since 2.4.10
+     */
+    public CyclicTablesDependencyException(List cycles)
+    {
+        super(buildMessage(cycles));
+        _cycles = Collections.unmodifiableList(new ArrayList(cycles));
+    }
+
+    /**
+     * @return The cycles found, each one being a {@link Set} of the names of
+     * the tables depending on each other. Empty if the exception has been
+     * created with a message only.
+     * @since 2.4.10
+     */
+    public List getCycles()
+    {
+        return _cycles;
     }
 
     private static String buildMessage(String tableName, Set cyclicTableNames) {
         return "Table: " + tableName + " (" + cyclicTableNames.toString() + ")";
     }
+
+    private static String buildMessage(List cycles) {
+        StringBuffer sb = new StringBuffer();
+        sb.append(cycles.size()).append(" cycle(s) between the tables: ");
+        for (Iterator it = cycles.iterator(); it.hasNext();) {
+            sb.append(it.next());
+            if (it.hasNext()) {
+                sb.append(", ");
+            }
+        }
+        return sb.toString();
+    }
 }
@@ -28,7 +28,12 @@ import java.util.Map;
 import java.util.Properties;
 
 import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.bulk.IBulkLoader;
+import org.dbunit.database.clear.ITableClearStrategy;
+import org.dbunit.database.diff.ITableDiffSqlBuilder;
+import org.dbunit.database.statement.IBatchSizeListener;
 import org.dbunit.database.statement.IStatementFactory;
+import org.dbunit.database.statement.IUpsertSqlBuilder;
 import org.dbunit.database.statement.PreparedStatementFactory;
 import org.dbunit.dataset.datatype.DefaultDataTypeFactory;
 import org.dbunit.dataset.datatype.IDataTypeFactory;
@@ -71,6 +76,43 @@ public class DatabaseConfig
 			"http://www.dbunit.org/properties/fetchSize";
 	public static final String PROPERTY_METADATA_HANDLER =
 	        "http://www.dbunit.org/properties/metadataHandler";
+    public static final String PROPERTY_CONNECTION_FACTORY =
+            "http://www.dbunit.org/properties/connectionFactory";
+    /**
+     * The maximum number of connections used to process tables concurrently.
+     * Each connection commits its own tables once all tables of a dependency
+     * level succeeded, so the operation is not atomic: a failing level is
+     * rolled back but the previous levels stay committed, and if a commit
+     * fails the connections committed before keep their part of the level.
+     */
+    public static final String PROPERTY_PARALLEL_CONNECTIONS =
+            "http://www.dbunit.org/properties/parallelConnections";
+    public static final String PROPERTY_UPSERT_SQL_BUILDER =
+            "http://www.dbunit.org/properties/upsertSqlBuilder";
+    public static final String PROPERTY_BULK_LOADER =
+            "http://www.dbunit.org/properties/bulkLoader";
+    public static final String PROPERTY_MIN_BATCH_SIZE =
+            "http://www.dbunit.org/properties/minBatchSize";
+    public static final String PROPERTY_MAX_BATCH_SIZE =
+            "http://www.dbunit.org/properties/maxBatchSize";
+    public static final String PROPERTY_MAX_BATCH_BYTES =
+            "http://www.dbunit.org/properties/maxBatchBytes";
+    public static final String PROPERTY_BATCH_SIZE_LISTENER =
+            "http://www.dbunit.org/properties/batchSizeListener";
+    public static final String PROPERTY_MAX_BIND_PARAMETERS =
+            "http://www.dbunit.org/properties/maxBindParameters";
+    public static final String PROPERTY_STATEMENT_CACHE_SIZE =
+            "http://www.dbunit.org/properties/statementCacheSize";
+    public static final String PROPERTY_TABLE_CLEAR_STRATEGY =
+            "http://www.dbunit.org/properties/tableClearStrategy";
+    public static final String PROPERTY_TABLE_DIFF_SQL_BUILDER =
+            "http://www.dbunit.org/properties/tableDiffSqlBuilder";
+    public static final String PROPERTY_SCHEMA_METADATA_LOADER =
+            "http://www.dbunit.org/properties/schemaMetadataLoader";
+    public static final String PROPERTY_METADATA_CACHE =
+            "http://www.dbunit.org/properties/metadataCache";
+    public static final String PROPERTY_CYCLIC_TABLES_HANDLER =
+            "http://www.dbunit.org/properties/cyclicTablesHandler";
 
     public static final String FEATURE_CASE_SENSITIVE_TABLE_NAMES =
         "http://www.dbunit.org/features/caseSensitiveTableNames";
@@ -82,6 +124,8 @@ public class DatabaseConfig
         "http://www.dbunit.org/features/datatypeWarning";
     public static final String FEATURE_SKIP_ORACLE_RECYCLEBIN_TABLES =
         "http://www.dbunit.org/features/skipOracleRecycleBinTables";
+    public static final String FEATURE_ADAPTIVE_BATCH_SIZE =
+        "http://www.dbunit.org/features/adaptiveBatchSize";
 
     /**
      * A list of all properties as {@link ConfigProperty} objects. 
@@ -97,11 +141,27 @@ public class DatabaseConfig
         new ConfigProperty(PROPERTY_BATCH_SIZE, Integer.class, false),
         new ConfigProperty(PROPERTY_FETCH_SIZE, Integer.class, false),
         new ConfigProperty(PROPERTY_METADATA_HANDLER, IMetadataHandler.class, false),
+        new ConfigProperty(PROPERTY_CONNECTION_FACTORY, IDatabaseConnectionFactory.class, true),
+        new ConfigProperty(PROPERTY_PARALLEL_CONNECTIONS, Integer.class, false),
+        new ConfigProperty(PROPERTY_UPSERT_SQL_BUILDER, IUpsertSqlBuilder.class, true),
+        new ConfigProperty(PROPERTY_BULK_LOADER, IBulkLoader.class, true),
+        new ConfigProperty(PROPERTY_MIN_BATCH_SIZE, Integer.class, false),
+        new ConfigProperty(PROPERTY_MAX_BATCH_SIZE, Integer.class, false),
+        new ConfigProperty(PROPERTY_MAX_BATCH_BYTES, Integer.class, false),
+        new ConfigProperty(PROPERTY_BATCH_SIZE_LISTENER, IBatchSizeListener.class, true),
+        new ConfigProperty(PROPERTY_MAX_BIND_PARAMETERS, Integer.class, false),
+        new ConfigProperty(PROPERTY_STATEMENT_CACHE_SIZE, Integer.class, false),
+        new ConfigProperty(PROPERTY_TABLE_CLEAR_STRATEGY, ITableClearStrategy.class, true),
+        new ConfigProperty(PROPERTY_TABLE_DIFF_SQL_BUILDER, ITableDiffSqlBuilder.class, true),
+        new ConfigProperty(PROPERTY_SCHEMA_METADATA_LOADER, ISchemaMetadataLoader.class, true),
+        new ConfigProperty(PROPERTY_METADATA_CACHE, MetadataCache.class, true),
+        new ConfigProperty(PROPERTY_CYCLIC_TABLES_HANDLER, ICyclicTablesHandler.class, true),
         new ConfigProperty(FEATURE_CASE_SENSITIVE_TABLE_NAMES, Boolean.class, false),
         new ConfigProperty(FEATURE_QUALIFIED_TABLE_NAMES, Boolean.class, false),
         new ConfigProperty(FEATURE_BATCHED_STATEMENTS, Boolean.class, false),
         new ConfigProperty(FEATURE_DATATYPE_WARNING, Boolean.class, false),
         new ConfigProperty(FEATURE_SKIP_ORACLE_RECYCLEBIN_TABLES, Boolean.class, false),
+        new ConfigProperty(FEATURE_ADAPTIVE_BATCH_SIZE, Boolean.class, false),
     };
 
     /**
@@ -113,7 +173,8 @@ public class DatabaseConfig
         FEATURE_QUALIFIED_TABLE_NAMES,
         FEATURE_BATCHED_STATEMENTS,
         FEATURE_DATATYPE_WARNING,
-        FEATURE_SKIP_ORACLE_RECYCLEBIN_TABLES
+        FEATURE_SKIP_ORACLE_RECYCLEBIN_TABLES,
+        FEATURE_ADAPTIVE_BATCH_SIZE
     };
     
     private static final DefaultDataTypeFactory DEFAULT_DATA_TYPE_FACTORY =
@@ -126,6 +187,12 @@ public class DatabaseConfig
     private static final String[] DEFAULT_TABLE_TYPE = {"TABLE"};
     private static final Integer DEFAULT_BATCH_SIZE = new Integer(100);
     private static final Integer DEFAULT_FETCH_SIZE = new Integer(100);
+    private static final Integer DEFAULT_PARALLEL_CONNECTIONS = new Integer(1);
+    private static final Integer DEFAULT_MIN_BATCH_SIZE = new Integer(10);
+    private static final Integer DEFAULT_MAX_BATCH_SIZE = new Integer(10000);
+    private static final Integer DEFAULT_MAX_BATCH_BYTES = new Integer(1024 * 1024);
+    private static final Integer DEFAULT_MAX_BIND_PARAMETERS = new Integer(2000);
+    private static final Integer DEFAULT_STATEMENT_CACHE_SIZE = new Integer(0);
 
 
 
@@ -139,6 +206,7 @@ public class DatabaseConfig
         setFeature(FEATURE_QUALIFIED_TABLE_NAMES, false);
         setFeature(FEATURE_CASE_SENSITIVE_TABLE_NAMES, false);
         setFeature(FEATURE_DATATYPE_WARNING, true);
+        setFeature(FEATURE_ADAPTIVE_BATCH_SIZE, false);
 
         setProperty(PROPERTY_STATEMENT_FACTORY, PREPARED_STATEMENT_FACTORY);
         setProperty(PROPERTY_RESULTSET_TABLE_FACTORY, RESULT_SET_TABLE_FACTORY);
@@ -148,6 +216,12 @@ public class DatabaseConfig
         setProperty(PROPERTY_BATCH_SIZE, DEFAULT_BATCH_SIZE);
         setProperty(PROPERTY_FETCH_SIZE, DEFAULT_FETCH_SIZE);
         setProperty(PROPERTY_METADATA_HANDLER, new DefaultMetadataHandler());
+        setProperty(PROPERTY_PARALLEL_CONNECTIONS, DEFAULT_PARALLEL_CONNECTIONS);
+        setProperty(PROPERTY_MIN_BATCH_SIZE, DEFAULT_MIN_BATCH_SIZE);
+        setProperty(PROPERTY_MAX_BATCH_SIZE, DEFAULT_MAX_BATCH_SIZE);
+        setProperty(PROPERTY_MAX_BATCH_BYTES, DEFAULT_MAX_BATCH_BYTES);
+        setProperty(PROPERTY_MAX_BIND_PARAMETERS, DEFAULT_MAX_BIND_PARAMETERS);
+        setProperty(PROPERTY_STATEMENT_CACHE_SIZE, DEFAULT_STATEMENT_CACHE_SIZE);
 
         this.configurator = new Configurator(this);
     }
@@ -235,6 +309,29 @@ public class DatabaseConfig
         return _propertyMap.get(name);
     }
 
+    /**
+     * Copies all properties that are set on this configuration to the given
+     * configuration, for example to configure additional connections to the
+     * same database the same way.
+     *
+     * @param target the configuration to be updated
+     * @since 2.4.10
+     */
+    public void copyTo(DatabaseConfig target)
+    {
+        logger.trace("copyTo(target={}) - start", target);
+
+        for (int i = 0; i < ALL_PROPERTIES.length; i++)
+        {
+            String property = ALL_PROPERTIES[i].getProperty();
+            Object value = getProperty(property);
+            if (value != null)
+            {
+                target.setProperty(property, value);
+            }
+        }
+    }
+
     private Object convertIfNeeded(String property, Object value) 
     {
         logger.trace("convertIfNeeded(property={}, value={}) - start", property, value);
@@ -141,7 +141,14 @@ public class DatabaseConnection extends AbstractDatabaseConnection
     public void close() throws SQLException
     {
         logger.debug("close() - start");
-        _connection.close();
+        try
+        {
+            clearStatementCache();
+        }
+        finally
+        {
+            _connection.close();
+        }
     }
     
     
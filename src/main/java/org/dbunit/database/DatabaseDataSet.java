@@ -25,6 +25,7 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
 
 import org.dbunit.DatabaseUnitRuntimeException;
 import org.dbunit.dataset.AbstractDataSet;
@@ -37,6 +38,7 @@ import org.dbunit.dataset.ITableIterator;
 import org.dbunit.dataset.ITableMetaData;
 import org.dbunit.dataset.NoSuchTableException;
 import org.dbunit.dataset.OrderedTableNameMap;
+import org.dbunit.dataset.datatype.IDataTypeFactory;
 import org.dbunit.dataset.filter.ITableFilterSimple;
 import org.dbunit.util.QualifiedTableName;
 import org.dbunit.util.SQLHelper;
@@ -196,6 +198,24 @@ public class DatabaseDataSet extends AbstractDataSet
             String[] tableType = (String[])config.getProperty(DatabaseConfig.PROPERTY_TABLE_TYPE);
             IMetadataHandler metadataHandler = (IMetadataHandler) config.getProperty(DatabaseConfig.PROPERTY_METADATA_HANDLER);
 
+            // Load the metadata of all tables at once if configured
+            ISchemaMetadataLoader metadataLoader = (ISchemaMetadataLoader)config.getProperty(
+                    DatabaseConfig.PROPERTY_SCHEMA_METADATA_LOADER);
+            MetadataCache metadataCache = (MetadataCache)config.getProperty(
+                    DatabaseConfig.PROPERTY_METADATA_CACHE);
+            if (metadataLoader != null || metadataCache != null)
+            {
+                if (metadataLoader == null)
+                {
+                    metadataLoader = new DefaultSchemaMetadataLoader();
+                }
+                SchemaMetaData schemaMetaData = metadataCache != null
+                        ? metadataCache.getSchemaMetaData(_connection, schema, tableType, metadataLoader)
+                        : SchemaMetaData.load(_connection, schema, tableType, metadataLoader, null, false);
+                _tableMap = createTableMap(schemaMetaData);
+                return;
+            }
+
             ResultSet resultSet = metadataHandler.getTables(databaseMetaData, schema, tableType);
 
             if(logger.isDebugEnabled())
@@ -210,25 +230,12 @@ public class DatabaseDataSet extends AbstractDataSet
                 while (resultSet.next())
                 {
                     String schemaName = metadataHandler.getSchema(resultSet);
-                    String tableName = resultSet.getString(3);
-
-                    if(_tableFilter != null && !_tableFilter.accept(tableName))
-                    {
-                        logger.debug("Skipping table '{}'", tableName);
-                        continue;
-                    }
-                    if(!_oracleRecycleBinTableFilter.accept(tableName))
+                    String tableName = getTableMapName(schemaName, resultSet.getString(3));
+                    if (tableName != null)
                     {
-                        logger.debug("Skipping oracle recycle bin table '{}'", tableName);
-                        continue;
+                        // Put the table into the table map
+                        tableMap.add(tableName, null);
                     }
-
-
-                    QualifiedTableName qualifiedTableName = new QualifiedTableName(tableName, schemaName);
-                    tableName = qualifiedTableName.getQualifiedNameIfEnabled(config);
-
-                    // Put the table into the table map
-                    tableMap.add(tableName, null);
                 }
 
                 _tableMap = tableMap;
@@ -244,6 +251,70 @@ public class DatabaseDataSet extends AbstractDataSet
         }
     }
 
+    /**
+     * Returns the name of a table in this data set.
+     * @param schemaName The schema of the table
+     * @param tableName The name of the table
+     * @return The name, qualified if enabled, or <code>null</code> if the table is filtered
+     */
+    private String getTableMapName(String schemaName, String tableName) throws DataSetException
+    {
+        if(_tableFilter != null && !_tableFilter.accept(tableName))
+        {
+            logger.debug("Skipping table '{}'", tableName);
+            return null;
+        }
+        if(!_oracleRecycleBinTableFilter.accept(tableName))
+        {
+            logger.debug("Skipping oracle recycle bin table '{}'", tableName);
+            return null;
+        }
+
+        QualifiedTableName qualifiedTableName = new QualifiedTableName(tableName, schemaName);
+        return qualifiedTableName.getQualifiedNameIfEnabled(_connection.getConfig());
+    }
+
+    /**
+     * Creates the table map holding the metadata of the tables which has been
+     * loaded in advance. The metadata of the tables whose columns are missing
+     * is created when it is accessed.
+     * @param schemaMetaData The metadata of the schema
+     * @return The table map
+     */
+    private OrderedTableNameMap createTableMap(SchemaMetaData schemaMetaData)
+    throws DataSetException, SQLException
+    {
+        logger.debug("createTableMap(schemaMetaData={}) - start", schemaMetaData);
+
+        DatabaseConfig config = _connection.getConfig();
+        IDataTypeFactory dataTypeFactory = (IDataTypeFactory)config.getProperty(
+                DatabaseConfig.PROPERTY_DATATYPE_FACTORY);
+        boolean datatypeWarning = config.getFeature(DatabaseConfig.FEATURE_DATATYPE_WARNING);
+
+        OrderedTableNameMap tableMap = super.createTableNameMap();
+        List tables = schemaMetaData.getTables();
+        for (int i = 0; i < tables.size(); i++)
+        {
+            SchemaMetaData.TableData table = (SchemaMetaData.TableData)tables.get(i);
+            String tableName = getTableMapName(table.getSchemaName(), table.getTableName());
+            if (tableName == null)
+            {
+                continue;
+            }
+
+            ITableMetaData metaData = null;
+            if (table.hasColumns())
+            {
+                metaData = new DatabaseTableMetaData(tableName, _connection,
+                        super.isCaseSensitiveTableNames(),
+                        table.createColumns(dataTypeFactory, datatypeWarning),
+                        table.getPrimaryKeyNames());
+            }
+            tableMap.add(tableName, metaData);
+        }
+        return tableMap;
+    }
+
     ////////////////////////////////////////////////////////////////////////////
     // AbstractDataSet class
 
@@ -142,8 +142,15 @@ public class DatabaseDataSourceConnection extends AbstractDatabaseConnection
 
         if (_connection != null)
         {
-            _connection.close();
-            _connection = null;
+            try
+            {
+                clearStatementCache();
+            }
+            finally
+            {
+                _connection.close();
+                _connection = null;
+            }
         }
     }
 }
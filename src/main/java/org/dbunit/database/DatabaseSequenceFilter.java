@@ -21,16 +21,12 @@
 package org.dbunit.database;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
-import org.dbunit.database.search.TablesDependencyHelper;
+import org.apache.commons.collections.set.ListOrderedSet;
+import org.dbunit.database.search.ForeignKeyGraph;
 import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.filter.SequenceTableFilter;
 import org.dbunit.util.search.SearchException;
@@ -39,9 +35,19 @@ import org.slf4j.LoggerFactory;
 
 /**
  * This filter orders tables using dependency information provided by
- * {@link java.sql.DatabaseMetaData#getExportedKeys}. Note that this class
+ * {@link java.sql.DatabaseMetaData#getImportedKeys}, which is read once for
+ * all tables into a {@link ForeignKeyGraph}. Note that this class
  * name is a bit misleading since it is not at all related to database
  * sequences. It just brings database tables in a specific order.
+ * <p>
+ * The tables are sorted topologically in linear time, so that every table
+ * comes after the tables it references. The tables which depend on each
+ * other through a cycle are found using Tarjan's algorithm. By default all
+ * cycles are reported at once by a {@link CyclicTablesDependencyException}.
+ * If an {@link ICyclicTablesHandler} is configured using
+ * {@link DatabaseConfig#PROPERTY_CYCLIC_TABLES_HANDLER} it orders the tables
+ * of every cycle instead.
+ * </p>
  *
  * @author Manuel Laflamme
  * @author Erik Price
@@ -78,10 +84,13 @@ public class DatabaseSequenceFilter extends SequenceTableFilter
 
     /**
      * Re-orders a string array of table names, placing dependent ("parent")
-     * tables after their dependencies ("children").
+     * tables after their dependencies ("children"). Tables which do not
+     * depend on each other keep their relative order as far as possible.
      *
      * @param tableNames A string array of table names to be ordered.
      * @return The re-ordered array of table names.
+     * @throws CyclicTablesDependencyException If some tables depend on each
+     * other and no {@link ICyclicTablesHandler} is configured
      * @throws DataSetException
      * @throws SQLException If an exception is encountered in accessing the database.
      */
@@ -89,232 +98,183 @@ public class DatabaseSequenceFilter extends SequenceTableFilter
         IDatabaseConnection connection,
         String[] tableNames)
         throws DataSetException, SQLException
-            // not sure why this throws DataSetException ? - ENP
     {
         logger.debug("sortTableNames(connection={}, tableNames={}) - start", connection, tableNames);
 
-        // Get dependencies for each table
-        Map dependencies = new HashMap();
+        ForeignKeyGraph graph;
         try {
-            for (int i = 0; i < tableNames.length; i++) {
-                String tableName = tableNames[i];
-                DependencyInfo info = getDependencyInfo(connection, tableName);
-                dependencies.put(tableName, info);
-            }
+            graph = ForeignKeyGraph.create(connection, tableNames);
         } catch (SearchException e) {
             throw new DataSetException("Exception while searching the dependent tables.", e);
         }
 
-        
-        // Check whether the table dependency info contains cycles
-        for (Iterator iterator = dependencies.values().iterator(); iterator.hasNext();) {
-            DependencyInfo info = (DependencyInfo) iterator.next();
-            info.checkCycles();
+        int[] tables = new int[tableNames.length];
+        for (int i = 0; i < tableNames.length; i++) {
+            tables[i] = graph.getTableIndex(tableNames[i]);
         }
-        
-        return sort(tableNames, dependencies);
-    }
-    
-
-    private static String[] sort(String[] tableNames, Map dependencies) 
-    {
-        logger.debug("sort(tableNames={}, dependencies={}) - start", tableNames, dependencies);
-        
-        boolean reprocess = true;
-        List tmpTableNames = Arrays.asList(tableNames);
-        List sortedTableNames = null;
-        
-        while (reprocess) {
-            sortedTableNames = new LinkedList();
-            
-            // re-order 'tmpTableNames' into 'sortedTableNames'
-            for (Iterator i = tmpTableNames.iterator(); i.hasNext();)
-            {
-                boolean foundDependentInSortedTableNames = false;
-                String tmpTable = (String)i.next();
-                DependencyInfo tmpTableDependents = (DependencyInfo) dependencies.get(tmpTable);
-                
+        int[][] components = sortComponents(getReferencedTables(graph, tables));
 
-                int sortedTableIndex = -1;
-                for (Iterator k = sortedTableNames.iterator(); k.hasNext();)
-                {
-                    String sortedTable = (String)k.next();
-                    if (tmpTableDependents.containsDirectDependsOn(sortedTable))
-                    {
-                        sortedTableIndex = sortedTableNames.indexOf(sortedTable);
-                        foundDependentInSortedTableNames = true;
-                        break; // end for loop; we know the index
-                    }
-                }
-
-                
-                // add 'tmpTable' to 'sortedTableNames'.
-                // Insert it before its first dependent if there are any,
-                // otherwise append it to the end of 'sortedTableNames'
-                if (foundDependentInSortedTableNames) {
-                    if (sortedTableIndex < 0) {
-                        throw new IllegalStateException(
-                            "sortedTableIndex should be 0 or greater, but is "
-                                + sortedTableIndex);
-                    }
-                    sortedTableNames.add(sortedTableIndex, tmpTable);
-                }
-                else
-                {
-                    sortedTableNames.add(tmpTable);
-                }
+        // Collect all cycles before handling them
+        ICyclicTablesHandler cyclicTablesHandler = (ICyclicTablesHandler)connection.getConfig()
+                .getProperty(DatabaseConfig.PROPERTY_CYCLIC_TABLES_HANDLER);
+        List cycles = new ArrayList();
+        for (int i = 0; i < components.length; i++) {
+            if (components[i].length > 1) {
+                cycles.add(toTableNames(tableNames, components[i]));
             }
-            
-            
-            
-            // don't stop processing until we have a perfect run (no re-ordering)
-            if (tmpTableNames.equals(sortedTableNames))
-            {
-                reprocess = false;
+        }
+        if (!cycles.isEmpty()) {
+            if (cyclicTablesHandler == null) {
+                throw new CyclicTablesDependencyException(cycles);
             }
-            else
-            {
+            logger.info("Ordering the tables of the cycles {} using {}", cycles, cyclicTablesHandler);
+        }
 
-                tmpTableNames = null;
-                tmpTableNames = (List)((LinkedList)sortedTableNames).clone();
+        List sortedTableNames = new ArrayList(tableNames.length);
+        for (int i = 0; i < components.length; i++) {
+            int[] component = components[i];
+            if (component.length == 1) {
+                sortedTableNames.add(tableNames[component[0]]);
+            } else {
+                String[] cyclicTableNames = (String[])toTableNames(tableNames, component)
+                        .toArray(new String[0]);
+                String[] sortedCyclicTableNames = cyclicTablesHandler.sortCyclicTables(
+                        connection, graph, cyclicTableNames);
+                sortedTableNames.addAll(Arrays.asList(sortedCyclicTableNames));
             }
-        }// end 'while (reprocess)'
-        
+        }
         return (String[])sortedTableNames.toArray(new String[0]);
     }
 
     /**
-     * Creates the dependency information for the given table
-     * @param connection
-     * @param tableName
-     * @return The dependency information for the given table
-     * @throws SearchException
+     * Returns the tables referenced by each of the given tables.
+     * @param graph The foreign keys
+     * @param tables The indexes of the tables in the graph
+     * @return For each position of <code>tables</code> the positions of the
+     * tables it references, in ascending order. References to the table
+     * itself and to other tables are left out.
      */
-    private static DependencyInfo getDependencyInfo(
-            IDatabaseConnection connection, String tableName) 
-    throws SearchException 
+    private static int[][] getReferencedTables(ForeignKeyGraph graph, int[] tables)
     {
-        logger.debug("getDependencyInfo(connection={}, tableName={}) - start", connection, tableName);
-        
-        // The tables dependency helpers makes a depth search for dependencies and returns the whole
-        // tree of dependent objects, not only the direct FK-PK related tables.
-        String[] allDependentTables = TablesDependencyHelper.getDependentTables(connection, tableName);
-        String[] allDependsOnTables = TablesDependencyHelper.getDependsOnTables(connection, tableName);
-        Set allDependentTablesSet = new HashSet(Arrays.asList(allDependentTables));
-        Set allDependsOnTablesSet = new HashSet(Arrays.asList(allDependsOnTables));
-        // Remove the table itself which is automatically included by the TablesDependencyHelper
-        allDependentTablesSet.remove(tableName);
-        allDependsOnTablesSet.remove(tableName);
-        
-        Set directDependsOnTablesSet = TablesDependencyHelper.getDirectDependsOnTables(connection, tableName);
-        Set directDependentTablesSet = TablesDependencyHelper.getDirectDependentTables(connection, tableName);
-        directDependsOnTablesSet.remove(tableName);
-        directDependentTablesSet.remove(tableName);
-        
-        DependencyInfo info = new DependencyInfo(tableName, 
-                directDependsOnTablesSet, directDependentTablesSet, 
-                allDependsOnTablesSet, allDependentTablesSet);
-        return info;
-    }
-
-
-    
-    /**
-     * Container of dependency information for one single table.
-     * 
-     * @author gommma (gommma AT users.sourceforge.net)
-     * @author Last changed by: $Author$
-     * @version $Revision$ $Date$
-     * @since 2.4.0
-     */
-    static class DependencyInfo
-    {
-        /**
-         * Logger for this class
-         */
-        private static final Logger logger = LoggerFactory.getLogger(DatabaseSequenceFilter.class);
-
-        private String tableName;
-        
-        private Set allTableDependsOn;
-        private Set allTableDependent;
-        
-        private Set directDependsOnTablesSet;
-        private Set directDependentTablesSet;
-        
-        /**
-         * @param tableName
-         * @param allTableDependsOn Tables that are required as prerequisite so that this one can exist
-         * @param allTableDependent Tables that need this one in order to be able to exist
-         */
-        public DependencyInfo(String tableName, 
-                Set directDependsOnTablesSet, Set directDependentTablesSet,
-                Set allTableDependsOn, Set allTableDependent) 
-        {
-            super();
-            this.directDependsOnTablesSet = directDependsOnTablesSet;
-            this.directDependentTablesSet = directDependentTablesSet;
-            this.allTableDependsOn = allTableDependsOn;
-            this.allTableDependent = allTableDependent;
-            this.tableName = tableName;
+        int[] positions = new int[graph.getTableCount()];
+        Arrays.fill(positions, -1);
+        for (int i = tables.length - 1; i >= 0; i--) {
+            positions[tables[i]] = i;
         }
 
-        public boolean containsDirectDependent(String tableName) {
-            return this.directDependentTablesSet.contains(tableName);
-        }
-        public boolean containsDirectDependsOn(String tableName) {
-            return this.directDependsOnTablesSet.contains(tableName);
+        // Iterate over the referenced tables in ascending order, once to count
+        // the references of every table and once to fill them in
+        int[] counts = new int[tables.length];
+        int[][] referencingTables = new int[tables.length][];
+        for (int i = 0; i < tables.length; i++) {
+            if (positions[tables[i]] == i) {
+                referencingTables[i] = graph.getExportedTables(tables[i]);
+                for (int j = 0; j < referencingTables[i].length; j++) {
+                    int position = positions[referencingTables[i][j]];
+                    if (position >= 0 && position != i) {
+                        counts[position]++;
+                    }
+                }
+            }
         }
-
-        public String getTableName() {
-            return tableName;
+        int[][] referencedTables = new int[tables.length][];
+        for (int i = 0; i < tables.length; i++) {
+            referencedTables[i] = new int[counts[i]];
+            counts[i] = 0;
         }
-
-        public Set getAllTableDependsOn() {
-            return allTableDependsOn;
+        for (int i = 0; i < tables.length; i++) {
+            for (int j = 0; referencingTables[i] != null && j < referencingTables[i].length; j++) {
+                int position = positions[referencingTables[i][j]];
+                if (position >= 0 && position != i) {
+                    referencedTables[position][counts[position]++] = i;
+                }
+            }
         }
+        return referencedTables;
+    }
 
-        public Set getAllTableDependent() {
-            return allTableDependent;
-        }
-        
-        public Set getDirectDependsOnTablesSet() {
-            return directDependsOnTablesSet;
-        }
+    /**
+     * Sorts tables topologically and groups the tables depending on each
+     * other through a cycle, using Tarjan's algorithm for strongly connected
+     * components. The tables are visited depth first in their given order,
+     * so that tables which do not depend on each other keep it. The runtime
+     * is linear in the number of tables and references.
+     * @param referencedTables For every table the tables it references. A
+     * table must not reference itself.
+     * @return The groups of tables depending on each other through a cycle,
+     * or single tables, each group with its tables in ascending order. Every
+     * group comes after the groups it references.
+     */
+    static int[][] sortComponents(int[][] referencedTables)
+    {
+        int count = referencedTables.length;
+        int[] index = new int[count];
+        int[] lowLink = new int[count];
+        Arrays.fill(index, -1);
+        // The tables of the components not completed yet
+        int[] stack = new int[count];
+        boolean[] onStack = new boolean[count];
+        int stackSize = 0;
+        // The path of the depth first search, with the next reference to follow
+        int[] path = new int[count];
+        int[] nextReference = new int[count];
+        int pathSize = 0;
 
-        public Set getDirectDependentTablesSet() {
-            return directDependentTablesSet;
-        }
+        List components = new ArrayList();
+        int nextIndex = 0;
+        for (int root = 0; root < count; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            index[root] = lowLink[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            path[pathSize++] = root;
 
-        /**
-         * Checks this table's information for cycles by intersecting the two sets.
-         * When the result set has at least one element we do have cycles.
-         * @throws CyclicTablesDependencyException
-         */
-        public void checkCycles() throws CyclicTablesDependencyException 
-        {
-            logger.debug("checkCycles() - start");
+            while (pathSize > 0) {
+                int table = path[pathSize - 1];
+                if (nextReference[table] < referencedTables[table].length) {
+                    int referenced = referencedTables[table][nextReference[table]++];
+                    if (index[referenced] < 0) {
+                        index[referenced] = lowLink[referenced] = nextIndex++;
+                        stack[stackSize++] = referenced;
+                        onStack[referenced] = true;
+                        path[pathSize++] = referenced;
+                    } else if (onStack[referenced]) {
+                        lowLink[table] = Math.min(lowLink[table], index[referenced]);
+                    }
+                    continue;
+                }
 
-            // Intersect the "tableDependsOn" and "otherTablesDependOn" to check for cycles
-            Set intersect = new HashSet(this.allTableDependsOn);
-            intersect.retainAll(this.allTableDependent);
-            if(!intersect.isEmpty()){
-                throw new CyclicTablesDependencyException(tableName, intersect);
+                pathSize--;
+                if (pathSize > 0) {
+                    int parent = path[pathSize - 1];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[table]);
+                }
+                if (lowLink[table] == index[table]) {
+                    int start = stackSize;
+                    do {
+                        start--;
+                        onStack[stack[start]] = false;
+                    } while (stack[start] != table);
+                    int[] component = new int[stackSize - start];
+                    System.arraycopy(stack, start, component, 0, component.length);
+                    Arrays.sort(component);
+                    stackSize = start;
+                    components.add(component);
+                }
             }
         }
+        return (int[][])components.toArray(new int[components.size()][]);
+    }
 
-        public String toString()
+    private static ListOrderedSet toTableNames(String[] tableNames, int[] positions)
+    {
+        ListOrderedSet result = new ListOrderedSet();
+        for (int i = 0; i < positions.length; i++)
         {
-            StringBuffer sb = new StringBuffer();
-            sb.append("DependencyInfo[");
-            sb.append("table=").append(tableName);
-            sb.append(", directDependsOn=").append(directDependsOnTablesSet);
-            sb.append(", directDependent=").append(directDependentTablesSet);
-            sb.append(", allDependsOn=").append(allTableDependsOn);
-            sb.append(", allDependent=").append(allTableDependent);
-            sb.append("]");
-            return sb.toString();
+            result.add(tableNames[positions[i]]);
         }
-        
+        return result;
     }
 }
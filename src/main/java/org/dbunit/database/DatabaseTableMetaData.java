@@ -69,6 +69,10 @@ public class DatabaseTableMetaData extends AbstractTableMetaData
     private final IDatabaseConnection _connection;
     private Column[] _columns;
     private Column[] _primaryKeys;
+    /**
+     * The primary key column names if they have been loaded in advance
+     */
+    private String[] _primaryKeyNames;
     private boolean _caseSensitiveMetaData;
 	//added by hzhan032
     private IColumnFilter lastKeyFilter;
@@ -163,6 +167,32 @@ public class DatabaseTableMetaData extends AbstractTableMetaData
         
     }
 
+    /**
+     * Creates a new database table metadata whose columns and optionally primary
+     * keys have been loaded in advance, for example by a {@link ISchemaMetadataLoader}.
+     * The existence of the table is not validated.
+     * @param tableName The name of the table - can be fully qualified
+     * @param connection The database connection
+     * @param caseSensitiveMetaData Whether or not the metadata looked up in a case sensitive way
+     * @param columns The columns of the table
+     * @param primaryKeyNames The names of the primary key columns ordered by their
+     * key sequence, or <code>null</code> if they are looked up when needed
+     * @throws DataSetException
+     * @since 2.4.10
+     */
+    DatabaseTableMetaData(String tableName, IDatabaseConnection connection,
+            boolean caseSensitiveMetaData, Column[] columns, String[] primaryKeyNames)
+    throws DataSetException
+    {
+        this(tableName, connection, false, caseSensitiveMetaData);
+
+        if (columns == null) {
+            throw new NullPointerException("The parameter 'columns' must not be null");
+        }
+        _columns = columns;
+        _primaryKeyNames = primaryKeyNames;
+    }
+
     /**
      * @param tableName
      * @param resultSet
@@ -383,7 +413,8 @@ public class DatabaseTableMetaData extends AbstractTableMetaData
                 	_primaryKeys = Columns.getColumns(getTableName(), getColumns(),
                             primaryKeysFilter);
                 } else {
-                	String[] pkNames = getPrimaryKeyNames();
+                	String[] pkNames = _primaryKeyNames != null
+                	        ? _primaryKeyNames : getPrimaryKeyNames();
                     _primaryKeys = Columns.getColumns(pkNames, getColumns());
                 }
             }
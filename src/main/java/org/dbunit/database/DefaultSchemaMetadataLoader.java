@@ -0,0 +1,141 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.dbunit.util.SQLHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Default implementation of {@link ISchemaMetadataLoader} which works for the
+ * most databases. The columns are retrieved using the configured
+ * {@link IMetadataHandler} with the table name pattern <code>%</code>. The
+ * primary and foreign keys are still looked up for every table since
+ * {@link DatabaseMetaData#getPrimaryKeys(String, String, String)} and
+ * {@link DatabaseMetaData#getImportedKeys(String, String, String)} do not
+ * accept a table name pattern.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class DefaultSchemaMetadataLoader implements ISchemaMetadataLoader
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(DefaultSchemaMetadataLoader.class);
+
+    public ResultSet getColumns(IDatabaseConnection connection, String schemaName)
+    throws SQLException
+    {
+        logger.debug("getColumns(connection={}, schemaName={}) - start", connection, schemaName);
+
+        DatabaseMetaData databaseMetaData = connection.getConnection().getMetaData();
+        IMetadataHandler metadataHandler = (IMetadataHandler)connection.getConfig().getProperty(
+                DatabaseConfig.PROPERTY_METADATA_HANDLER);
+        return metadataHandler.getColumns(databaseMetaData, schemaName, "%");
+    }
+
+    public ResultSet getPrimaryKeys(IDatabaseConnection connection, String schemaName)
+    throws SQLException
+    {
+        return null;
+    }
+
+    public ResultSet getImportedKeys(IDatabaseConnection connection, String schemaName)
+    throws SQLException
+    {
+        return null;
+    }
+
+    public String getSchemaVersion(IDatabaseConnection connection, String schemaName)
+    throws SQLException
+    {
+        return null;
+    }
+
+    /**
+     * Executes a query having the schema name as its only parameter and
+     * returning a single value.
+     * @param connection The database connection
+     * @param sql The query
+     * @param schemaName The schema name
+     * @return The value of the first column of the first row, or
+     * <code>null</code> if there is no row
+     * @throws SQLException
+     */
+    protected String queryString(IDatabaseConnection connection, String sql,
+            String schemaName) throws SQLException
+    {
+        ResultSet resultSet = executeQuery(connection, sql, schemaName);
+        try
+        {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+        finally
+        {
+            SQLHelper.close(resultSet, resultSet.getStatement());
+        }
+    }
+
+    /**
+     * Executes a query having the schema name as its only parameter.
+     * @param connection The database connection
+     * @param sql The query
+     * @param schemaName The schema name, bound as <code>NULL</code> if it
+     * is <code>null</code>
+     * @return The result set, to be closed together with its statement
+     * @throws SQLException
+     */
+    protected ResultSet executeQuery(IDatabaseConnection connection, String sql,
+            String schemaName) throws SQLException
+    {
+        logger.debug("executeQuery(connection={}, sql={}, schemaName={}) - start",
+                new Object[] {connection, sql, schemaName});
+
+        PreparedStatement statement = connection.getConnection().prepareStatement(sql);
+        try
+        {
+            if (schemaName == null)
+            {
+                statement.setNull(1, Types.VARCHAR);
+            }
+            else
+            {
+                statement.setString(1, schemaName);
+            }
+            return statement.executeQuery();
+        }
+        catch (SQLException e)
+        {
+            statement.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import org.dbunit.database.search.ForeignKeyGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the tables of a cycle in the order in which they have been given.
+ * To be used with databases which check the foreign keys at commit time,
+ * for example with constraints declared <code>DEFERRABLE INITIALLY DEFERRED</code>
+ * or after <code>SET CONSTRAINTS ALL DEFERRED</code>, or when the foreign keys
+ * are disabled while the data is inserted.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class DeferredConstraintsCycleHandler implements ICyclicTablesHandler
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(DeferredConstraintsCycleHandler.class);
+
+    public String[] sortCyclicTables(IDatabaseConnection connection, ForeignKeyGraph graph,
+            String[] tableNames)
+    {
+        logger.debug("sortCyclicTables(connection={}, graph={}, tableNames={}) - start",
+                new Object[] {connection, graph, tableNames});
+
+        return tableNames;
+    }
+}
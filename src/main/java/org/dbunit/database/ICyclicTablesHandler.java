@@ -0,0 +1,57 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.sql.SQLException;
+
+import org.dbunit.database.search.ForeignKeyGraph;
+import org.dbunit.dataset.DataSetException;
+
+/**
+ * Decides how the {@link DatabaseSequenceFilter} orders tables which depend
+ * on each other through a cycle of foreign keys. Such tables can only be
+ * inserted if the database does not check the foreign keys immediately, or
+ * if some of the foreign key columns are left empty.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see DatabaseConfig#PROPERTY_CYCLIC_TABLES_HANDLER
+ * @see DeferredConstraintsCycleHandler
+ * @see NullableForeignKeyOrderingHandler
+ */
+public interface ICyclicTablesHandler
+{
+    /**
+     * Orders the tables of one cycle. The tables referenced by the tables of
+     * the cycle are placed before all of them by the caller.
+     * @param connection The database connection
+     * @param graph The foreign keys of the tables
+     * @param tableNames The names of the tables of the cycle, in the order in
+     * which they have been given to the filter
+     * @return The names of the tables in the order in which they can be inserted
+     * @throws CyclicTablesDependencyException If the tables cannot be ordered
+     * @throws DataSetException
+     * @throws SQLException
+     */
+    public String[] sortCyclicTables(IDatabaseConnection connection, ForeignKeyGraph graph,
+            String[] tableNames) throws DataSetException, SQLException;
+}
@@ -0,0 +1,47 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.sql.SQLException;
+
+import org.dbunit.DatabaseUnitException;
+
+/**
+ * Supplies additional {@link IDatabaseConnection}s to the same database, for
+ * example to operations that process several tables concurrently.
+ * Each invocation must return a new, independent connection which is
+ * closed by the caller once it is no longer needed.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see DatabaseConfig#PROPERTY_CONNECTION_FACTORY
+ */
+public interface IDatabaseConnectionFactory
+{
+    /**
+     * Creates a new connection to the database.
+     * @return The new connection
+     * @throws DatabaseUnitException
+     * @throws SQLException
+     */
+    public IDatabaseConnection createConnection() throws DatabaseUnitException, SQLException;
+}
@@ -0,0 +1,88 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Loads the metadata of all tables of a schema at once, so that a
+ * {@link DatabaseDataSet} does not need to look up the columns, primary
+ * keys and foreign keys of every table separately. The returned result sets are closed by the
+ * caller together with their statement.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see DatabaseConfig#PROPERTY_SCHEMA_METADATA_LOADER
+ */
+public interface ISchemaMetadataLoader
+{
+    /**
+     * Returns the columns of all tables of the given schema. The result set
+     * has the columns of {@link DatabaseMetaData#getColumns(String, String, String, String)}.
+     * Columns of other schemas are ignored by the caller.
+     * @param connection The database connection
+     * @param schemaName The schema, can be <code>null</code>
+     * @return The columns of all tables
+     * @throws SQLException
+     */
+    public ResultSet getColumns(IDatabaseConnection connection, String schemaName)
+    throws SQLException;
+
+    /**
+     * Returns the primary key columns of all tables of the given schema. The
+     * result set has the columns of {@link DatabaseMetaData#getPrimaryKeys(String, String, String)}.
+     * @param connection The database connection
+     * @param schemaName The schema, can be <code>null</code>
+     * @return The primary key columns of all tables, or <code>null</code> if
+     * the primary keys must be looked up for every table separately
+     * @throws SQLException
+     */
+    public ResultSet getPrimaryKeys(IDatabaseConnection connection, String schemaName)
+    throws SQLException;
+
+    /**
+     * Returns the foreign key columns of all tables of the given schema. The
+     * result set has the columns of {@link DatabaseMetaData#getImportedKeys(String, String, String)}.
+     * The referenced tables may belong to other schemas.
+     * @param connection The database connection
+     * @param schemaName The schema, can be <code>null</code>
+     * @return The foreign key columns of all tables, or <code>null</code> if
+     * the foreign keys must be looked up for every table separately
+     * @throws SQLException
+     */
+    public ResultSet getImportedKeys(IDatabaseConnection connection, String schemaName)
+    throws SQLException;
+
+    /**
+     * Returns a stamp which changes whenever the definition of a table of the
+     * given schema changes, for example built from the time of the last DDL
+     * statement. It is used to detect outdated entries of a {@link MetadataCache}.
+     * @param connection The database connection
+     * @param schemaName The schema, can be <code>null</code>
+     * @return The version of the schema, or <code>null</code> if it is unknown
+     * @throws SQLException
+     */
+    public String getSchemaVersion(IDatabaseConnection connection, String schemaName)
+    throws SQLException;
+}
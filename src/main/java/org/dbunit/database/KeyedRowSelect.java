@@ -0,0 +1,249 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.stream.DefaultConsumer;
+import org.dbunit.dataset.stream.IDataSetConsumer;
+import org.dbunit.util.QualifiedTableName;
+import org.dbunit.util.SQLHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Selects the rows of a database table having given key values, without
+ * reading any other row. The keys are looked up in chunks using
+ * <code>IN</code> lists, or <code>OR</code>ed conditions for compound keys.
+ * A chunk holds at most {@link #MAX_KEYS_PER_QUERY} keys and does not use more
+ * bind parameters than the {@link DatabaseConfig#PROPERTY_MAX_BIND_PARAMETERS}.
+ * The rows of each chunk are ordered by the key columns.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class KeyedRowSelect
+{
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(KeyedRowSelect.class);
+
+    /**
+     * The maximum number of keys looked up by one query, since some databases
+     * do not accept longer <code>IN</code> lists
+     */
+    public static final int MAX_KEYS_PER_QUERY = 1000;
+
+    private final IDatabaseConnection _connection;
+    private final String _tableName;
+    private final Column[] _columns;
+    private final Column[] _keyColumns;
+
+    /**
+     * @param connection The connection to the database
+     * @param tableName The name of the database table
+     * @param columns The database columns to be read
+     * @param keyColumns The database columns identifying a row
+     */
+    public KeyedRowSelect(IDatabaseConnection connection, String tableName,
+            Column[] columns, Column[] keyColumns)
+    {
+        _connection = connection;
+        _tableName = tableName;
+        _columns = columns;
+        _keyColumns = keyColumns;
+    }
+
+    /**
+     * Returns the number of keys looked up by one query.
+     * @param connection The connection whose bind parameter limit is used
+     * @param keyColumnCount The number of columns of a key
+     * @return The number of keys per chunk, at least <code>1</code>
+     */
+    public static int getChunkSize(IDatabaseConnection connection, int keyColumnCount)
+    {
+        int maxBindParameters = ((Integer)connection.getConfig().getProperty(
+                DatabaseConfig.PROPERTY_MAX_BIND_PARAMETERS)).intValue();
+        return Math.max(1, Math.min(MAX_KEYS_PER_QUERY, maxBindParameters / keyColumnCount));
+    }
+
+    /**
+     * Reads the rows having the given keys into a table.
+     * @param keys The key values of each row as <code>Object[]</code>, in
+     * the order of the key columns
+     * @return The rows found
+     * @throws DataSetException
+     * @throws SQLException
+     */
+    public ITable select(List keys) throws DataSetException, SQLException
+    {
+        final DefaultTable table = new DefaultTable(_tableName, _columns);
+        select(keys, new DefaultConsumer()
+        {
+            public void row(Object[] values) throws DataSetException
+            {
+                table.addRow(values);
+            }
+        });
+        return table;
+    }
+
+    /**
+     * Passes the rows having the given keys to a consumer, one at a time.
+     * Only {@link IDataSetConsumer#row(Object[])} is invoked.
+     * @param keys The key values of each row as <code>Object[]</code>, in
+     * the order of the key columns
+     * @param consumer The consumer of the rows found
+     * @throws DataSetException
+     * @throws SQLException
+     */
+    public void select(List keys, IDataSetConsumer consumer)
+            throws DataSetException, SQLException
+    {
+        logger.debug("select(keys={}, consumer={}) - start",
+                String.valueOf(keys.size()), consumer);
+
+        int chunkSize = getChunkSize(_connection, _keyColumns.length);
+        for (int start = 0; start < keys.size(); start += chunkSize)
+        {
+            int end = Math.min(keys.size(), start + chunkSize);
+            selectChunk(keys.subList(start, end), consumer);
+        }
+    }
+
+    private void selectChunk(List keys, IDataSetConsumer consumer)
+            throws DataSetException, SQLException
+    {
+        PreparedStatement statement = _connection.getConnection().prepareStatement(
+                buildSelect(keys.size()));
+        ResultSet resultSet = null;
+        try
+        {
+            int index = 1;
+            for (int i = 0; i < keys.size(); i++)
+            {
+                Object[] key = (Object[])keys.get(i);
+                for (int j = 0; j < _keyColumns.length; j++)
+                {
+                    _keyColumns[j].getDataType().setSqlValue(key[j], index++, statement);
+                }
+            }
+
+            resultSet = statement.executeQuery();
+            while (resultSet.next())
+            {
+                Object[] values = new Object[_columns.length];
+                for (int i = 0; i < _columns.length; i++)
+                {
+                    values[i] = _columns[i].getDataType().getSqlValue(i + 1, resultSet);
+                }
+                consumer.row(values);
+            }
+        }
+        finally
+        {
+            SQLHelper.close(resultSet, statement);
+        }
+    }
+
+    /**
+     * Builds the select statement of a chunk.
+     * @param keyCount The number of keys of the chunk
+     * @return The SQL statement
+     */
+    String buildSelect(int keyCount)
+    {
+        String escapePattern = (String)_connection.getConfig().getProperty(
+                DatabaseConfig.PROPERTY_ESCAPE_PATTERN);
+
+        String[] keyColumnNames = new String[_keyColumns.length];
+        for (int j = 0; j < _keyColumns.length; j++)
+        {
+            keyColumnNames[j] = getQualifiedName(_keyColumns[j].getColumnName(),
+                    null, escapePattern);
+        }
+
+        StringBuffer sql = new StringBuffer(128 + keyCount * 8 * _keyColumns.length);
+        sql.append("select ");
+        for (int i = 0; i < _columns.length; i++)
+        {
+            if (i > 0)
+            {
+                sql.append(", ");
+            }
+            sql.append(getQualifiedName(_columns[i].getColumnName(), null, escapePattern));
+        }
+        sql.append(" from ");
+        sql.append(getQualifiedName(_tableName, _connection.getSchema(), escapePattern));
+        sql.append(" where ");
+
+        if (_keyColumns.length == 1)
+        {
+            sql.append(keyColumnNames[0]).append(" in (");
+            for (int i = 0; i < keyCount; i++)
+            {
+                sql.append(i > 0 ? ", ?" : "?");
+            }
+            sql.append(")");
+        }
+        else
+        {
+            for (int i = 0; i < keyCount; i++)
+            {
+                sql.append(i > 0 ? " or (" : "(");
+                for (int j = 0; j < keyColumnNames.length; j++)
+                {
+                    if (j > 0)
+                    {
+                        sql.append(" and ");
+                    }
+                    sql.append(keyColumnNames[j]).append(" = ?");
+                }
+                sql.append(")");
+            }
+        }
+
+        sql.append(" order by ");
+        for (int j = 0; j < keyColumnNames.length; j++)
+        {
+            if (j > 0)
+            {
+                sql.append(", ");
+            }
+            sql.append(keyColumnNames[j]);
+        }
+        return sql.toString();
+    }
+
+    private static String getQualifiedName(String name, String schema, String escapePattern)
+    {
+        return new QualifiedTableName(name, schema, escapePattern).getQualifiedName();
+    }
+}
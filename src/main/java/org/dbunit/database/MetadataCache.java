@@ -0,0 +1,363 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the table names, columns and primary keys of database schemas so
+ * that they are not looked up again by every new {@link DatabaseDataSet}. A
+ * single instance is meant to be shared by all connections of a process by
+ * setting it as {@link DatabaseConfig#PROPERTY_METADATA_CACHE} of each
+ * connection. The metadata is loaded using the configured
+ * {@link ISchemaMetadataLoader}, or the {@link DefaultSchemaMetadataLoader}.
+ * <p>
+ * The entries are identified by the JDBC URL, the user and the schema of the
+ * connection and the table types. An entry is loaded again
+ * <ul>
+ * <li>when the version of the schema returned by
+ * {@link ISchemaMetadataLoader#getSchemaVersion(IDatabaseConnection, String)}
+ * has changed,</li>
+ * <li>when it is older than the time to live, if one is given,</li>
+ * <li>after it has been invalidated using {@link #invalidate(String, String)}
+ * or {@link #invalidateAll()}.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * If a file is given the entries are written to it whenever an entry has been
+ * loaded, and read from it when the cache is used for the first time. This
+ * allows test processes started one after the other to share the metadata.
+ * If the loader does not provide a schema version, as the
+ * {@link DefaultSchemaMetadataLoader}, a time to live should be given since
+ * the file keeps outdated metadata across processes otherwise.
+ * </p>
+ * <p>
+ * Without schema version and without time to live an entry is only loaded
+ * again after it has been invalidated, whether the cache uses a file or not.
+ * A warning is logged once per cache in that case.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class MetadataCache
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(MetadataCache.class);
+
+    private final long _timeToLive;
+    private final File _file;
+    /**
+     * The {@link SchemaMetaData} by their key
+     */
+    private Map _entries;
+    private boolean _versionWarningLogged;
+
+    /**
+     * Creates a cache whose entries do not expire.
+     */
+    public MetadataCache()
+    {
+        this(0);
+    }
+
+    /**
+     * Creates a cache kept in memory.
+     * @param timeToLive The time in milliseconds after which an entry is
+     * loaded again, or <code>0</code> if the entries do not expire
+     */
+    public MetadataCache(long timeToLive)
+    {
+        this(timeToLive, null);
+    }
+
+    /**
+     * Creates a cache which is persisted to the given file.
+     * @param timeToLive The time in milliseconds after which an entry is
+     * loaded again, or <code>0</code> if the entries do not expire
+     * @param file The file to which the entries are written, can be
+     * <code>null</code> to keep them in memory only
+     */
+    public MetadataCache(long timeToLive, File file)
+    {
+        if (timeToLive < 0)
+        {
+            throw new IllegalArgumentException("The time to live must not be negative: " + timeToLive);
+        }
+        _timeToLive = timeToLive;
+        _file = file;
+    }
+
+    /**
+     * Returns the metadata of the given schema, loading it if it is not cached
+     * or outdated.
+     * @param connection The database connection
+     * @param schema The schema, can be <code>null</code>
+     * @param tableTypes The types of the tables
+     * @param metadataLoader The loader used to load the metadata and the version of the schema
+     * @return The metadata
+     * @throws SQLException
+     */
+    SchemaMetaData getSchemaMetaData(IDatabaseConnection connection, String schema,
+            String[] tableTypes, ISchemaMetadataLoader metadataLoader) throws SQLException
+    {
+        logger.debug("getSchemaMetaData(connection={}, schema={}, metadataLoader={}) - start",
+                new Object[] {connection, schema, metadataLoader});
+
+        DatabaseMetaData databaseMetaData = connection.getConnection().getMetaData();
+        String key = createKey(databaseMetaData.getURL(), databaseMetaData.getUserName(),
+                schema, tableTypes);
+        String version = metadataLoader.getSchemaVersion(connection, schema);
+
+        synchronized (this)
+        {
+            if (version == null && _timeToLive == 0 && !_versionWarningLogged)
+            {
+                logger.warn("The metadata loader {} does not provide a schema version and"
+                        + " the metadata cache {} has no time to live. Cached"
+                        + " metadata is never refreshed unless the cache is invalidated.",
+                        metadataLoader, this);
+                _versionWarningLogged = true;
+            }
+
+            SchemaMetaData schemaMetaData = (SchemaMetaData)getEntries().get(key);
+            if (schemaMetaData != null && isValid(schemaMetaData, version))
+            {
+                logger.debug("Using cached metadata {} for {}", schemaMetaData, key);
+                return schemaMetaData;
+            }
+        }
+
+        // Several threads may load the same schema, the last one wins
+        logger.info("Loading the metadata of {}", key);
+        SchemaMetaData schemaMetaData = SchemaMetaData.load(connection, schema, tableTypes,
+                metadataLoader, version, true);
+
+        synchronized (this)
+        {
+            getEntries().put(key, schemaMetaData);
+            save();
+        }
+        return schemaMetaData;
+    }
+
+    /**
+     * Removes the cached metadata of a schema, for example after its tables
+     * have been changed.
+     * @param url The JDBC URL of the database
+     * @param schema The schema, can be <code>null</code>
+     */
+    public synchronized void invalidate(String url, String schema)
+    {
+        logger.debug("invalidate(url={}, schema={}) - start", url, schema);
+
+        String prefix = createKeyPrefix(url);
+        for (Iterator it = getEntries().keySet().iterator(); it.hasNext();)
+        {
+            String key = (String)it.next();
+            if (!key.startsWith(prefix))
+            {
+                continue;
+            }
+            // Skip the user name
+            int schemaStart = key.indexOf('|', prefix.length()) + 1;
+            if (key.startsWith(schema + "|", schemaStart))
+            {
+                it.remove();
+            }
+        }
+        save();
+    }
+
+    /**
+     * Removes all cached metadata.
+     */
+    public synchronized void invalidateAll()
+    {
+        logger.debug("invalidateAll() - start");
+
+        getEntries().clear();
+        save();
+    }
+
+    /**
+     * @return The number of cached schemas
+     */
+    public synchronized int size()
+    {
+        return getEntries().size();
+    }
+
+    private boolean isValid(SchemaMetaData schemaMetaData, String version)
+    {
+        if (_timeToLive > 0
+                && System.currentTimeMillis() - schemaMetaData.getLoadTime() > _timeToLive)
+        {
+            logger.debug("Cached metadata {} has expired", schemaMetaData);
+            return false;
+        }
+        if (version != null && !version.equals(schemaMetaData.getVersion()))
+        {
+            logger.debug("Cached metadata {} is outdated, the schema version is now {}",
+                    schemaMetaData, version);
+            return false;
+        }
+        return true;
+    }
+
+    private static String createKeyPrefix(String url)
+    {
+        return url + "|";
+    }
+
+    private static String createKey(String url, String userName, String schema,
+            String[] tableTypes)
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(createKeyPrefix(url));
+        sb.append(userName).append("|");
+        sb.append(schema).append("|");
+        for (int i = 0; tableTypes != null && i < tableTypes.length; i++)
+        {
+            if (i > 0)
+            {
+                sb.append(",");
+            }
+            sb.append(tableTypes[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return The entries, read from the file when invoked for the first time
+     */
+    private Map getEntries()
+    {
+        if (_entries == null)
+        {
+            _entries = new HashMap();
+            if (_file != null && _file.exists())
+            {
+                try
+                {
+                    ObjectInputStream in = new ObjectInputStream(
+                            new BufferedInputStream(new FileInputStream(_file)));
+                    try
+                    {
+                        _entries.putAll((Map)in.readObject());
+                    }
+                    finally
+                    {
+                        in.close();
+                    }
+                    logger.debug("Read {} cached schemas from {}",
+                            String.valueOf(_entries.size()), _file);
+                }
+                catch (Exception e)
+                {
+                    // An outdated or broken file is simply replaced
+                    logger.warn("Could not read the metadata cache from '" + _file
+                            + "'. Starting with an empty cache.", e);
+                    _entries.clear();
+                }
+            }
+        }
+        return _entries;
+    }
+
+    /**
+     * Writes the entries to the file, if there is one. The entries are
+     * written to a temporary file first so that other processes never read
+     * an incomplete file. Processes writing at the same time may overwrite
+     * each other's entries, which are then loaded again.
+     */
+    private void save()
+    {
+        if (_file == null)
+        {
+            return;
+        }
+
+        File tempFile = null;
+        try
+        {
+            tempFile = File.createTempFile("dbunit-" + _file.getName(), ".tmp",
+                    _file.getAbsoluteFile().getParentFile());
+            ObjectOutputStream out = new ObjectOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tempFile)));
+            try
+            {
+                out.writeObject(new HashMap(_entries));
+            }
+            finally
+            {
+                out.close();
+            }
+
+            if (!tempFile.renameTo(_file))
+            {
+                // Some platforms do not replace an existing file
+                _file.delete();
+                if (!tempFile.renameTo(_file))
+                {
+                    throw new IOException("Could not rename '" + tempFile + "' to '" + _file + "'");
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            logger.warn("Could not write the metadata cache to '" + _file + "'", e);
+            if (tempFile != null)
+            {
+                tempFile.delete();
+            }
+        }
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("timeToLive=").append(_timeToLive);
+        sb.append(", file=").append(_file);
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.collections.set.ListOrderedSet;
+import org.dbunit.database.search.ForeignKeyGraph;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITableMetaData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Orders the tables of a cycle ignoring the foreign keys whose columns are all
+ * nullable. The tables are sorted using the foreign keys having a
+ * <code>NOT NULL</code> column only. This handler only decides the order of
+ * the tables, it does not change the inserted rows: the data set must leave
+ * the nullable foreign key columns of the cycle empty, otherwise inserting a
+ * row referencing a row which is not yet inserted fails. The columns can be
+ * set in a second phase once all referenced rows exist, for example using
+ * {@link org.dbunit.operation.DatabaseOperation#UPDATE} with a second data
+ * set. If the tables still depend on each other through <code>NOT NULL</code>
+ * columns a {@link CyclicTablesDependencyException} is thrown.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class NullableForeignKeyOrderingHandler implements ICyclicTablesHandler
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(NullableForeignKeyOrderingHandler.class);
+
+    public String[] sortCyclicTables(IDatabaseConnection connection, ForeignKeyGraph graph,
+            String[] tableNames) throws DataSetException, SQLException
+    {
+        logger.debug("sortCyclicTables(connection={}, graph={}, tableNames={}) - start",
+                new Object[] {connection, graph, tableNames});
+
+        IDataSet dataSet = connection.createDataSet();
+        int[] tables = new int[tableNames.length];
+        for (int i = 0; i < tableNames.length; i++)
+        {
+            tables[i] = graph.getTableIndex(tableNames[i]);
+        }
+
+        int[][] referencedTables = new int[tableNames.length][];
+        for (int i = 0; i < tableNames.length; i++)
+        {
+            ITableMetaData metaData = dataSet.getTableMetaData(tableNames[i]);
+            List referenced = new ArrayList();
+            for (int j = 0; j < tableNames.length; j++)
+            {
+                if (j == i)
+                {
+                    continue;
+                }
+                String[] columnNames = graph.getForeignKeyColumns(tables[i], tables[j]);
+                if (columnNames.length > 0 && !isNullable(metaData, columnNames))
+                {
+                    referenced.add(new Integer(j));
+                }
+                else if (columnNames.length > 0)
+                {
+                    logger.debug("Ignoring the nullable foreign key from {} to {}",
+                            tableNames[i], tableNames[j]);
+                }
+            }
+            referencedTables[i] = new int[referenced.size()];
+            for (int j = 0; j < referencedTables[i].length; j++)
+            {
+                referencedTables[i][j] = ((Integer)referenced.get(j)).intValue();
+            }
+        }
+
+        int[][] components = DatabaseSequenceFilter.sortComponents(referencedTables);
+        List cycles = new ArrayList();
+        for (int i = 0; i < components.length; i++)
+        {
+            if (components[i].length > 1)
+            {
+                ListOrderedSet cycle = new ListOrderedSet();
+                for (int j = 0; j < components[i].length; j++)
+                {
+                    cycle.add(tableNames[components[i][j]]);
+                }
+                cycles.add(cycle);
+            }
+        }
+        if (!cycles.isEmpty())
+        {
+            throw new CyclicTablesDependencyException(cycles);
+        }
+
+        String[] sortedTableNames = new String[components.length];
+        for (int i = 0; i < components.length; i++)
+        {
+            sortedTableNames[i] = tableNames[components[i][0]];
+        }
+        return sortedTableNames;
+    }
+
+    /**
+     * @return <code>true</code> if all given columns are known to be nullable
+     */
+    private boolean isNullable(ITableMetaData metaData, String[] columnNames)
+            throws DataSetException
+    {
+        Column[] columns = metaData.getColumns();
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            int columnIndex = metaData.getColumnIndex(columnNames[i]);
+            if (columns[columnIndex].getNullable() != Column.NULLABLE)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -47,9 +47,13 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Filter a table given a map of the allowed rows based on primary key values.<br>
- * It uses a depth-first algorithm (although not recursive - it might be refactored
- * in the future) to define which rows are allowed, as well which rows are necessary
- * (and hence allowed) because of dependencies with the allowed rows.<br>
+ * It follows the foreign keys breadth-first, level by level, to define which rows
+ * are allowed, as well which rows are necessary (and hence allowed) because of
+ * dependencies with the allowed rows. The keys of a level are looked up together
+ * using chunked <code>IN</code> lists, limited by the
+ * {@link DatabaseConfig#PROPERTY_MAX_BIND_PARAMETERS}, instead of one query per key.<br>
+ * The allowed rows can be read without scanning the whole tables using a
+ * {@link PrimaryKeyFilteredProducer}.<br>
  * <strong>NOTE:</strong> multi-column primary keys are not supported at the moment.
  * TODO: test cases
  * @author Felipe Leme (dbunit@felipeal.net)
@@ -64,6 +68,7 @@ public class PrimaryKeyFilter extends AbstractTableFilter {
     private final PkTableMap allowedPKsPerTable;
     private final PkTableMap allowedPKsInput;
     private final PkTableMap pksToScanPerTable;
+    private final PkTableMap scannedPKsPerTable;
 
     private final boolean reverseScan;
 
@@ -96,6 +101,7 @@ public class PrimaryKeyFilter extends AbstractTableFilter {
 
         // we need a deep copy here
         this.pksToScanPerTable = new PkTableMap(allowedPKs);
+        this.scannedPKsPerTable = new PkTableMap();
     }
 
     public void nodeAdded(Object node) {
@@ -159,31 +165,44 @@ public class PrimaryKeyFilter extends AbstractTableFilter {
                 .iterator());
     }
 
-    private void searchPKs(IDataSet dataSet) throws DataSetException, SQLException {
+    /**
+     * Searches the allowed primary keys, if not done yet.
+     * @param dataSet The tables
+     */
+    void searchPKs(IDataSet dataSet) throws DataSetException, SQLException {
         logger.debug("searchPKs(dataSet={}) - start", dataSet);
 
-        int counter = 0;
+        int level = 0;
         while ( !this.pksToScanPerTable.isEmpty() ) {
-            counter ++;
-            if ( this.logger.isDebugEnabled() ) {
-                this.logger.debug( "RUN # " + counter );
-            }
+            level ++;
 
+            // take all keys found so far, the keys found while scanning them
+            // are scanned on the next level
+            Map pksToScanPerLevel = new HashMap();
             for( int i=this.tableNames.size()-1; i>=0; i-- ) {
                 String tableName = (String) this.tableNames.get(i);
-                // TODO: support multi-column PKs
-                String pkColumn = dataSet.getTable(tableName).getTableMetaData().getPrimaryKeys()[0].getColumnName();
                 Set tmpSet = this.pksToScanPerTable.get( tableName );
                 if ( tmpSet != null && ! tmpSet.isEmpty() ) {
                     Set pksToScan = new HashSet( tmpSet );
-                    if ( this.logger.isDebugEnabled() ) {
-                        this.logger.debug(  "before search: "+ tableName + "=>" + pksToScan );
-                    }
+                    removePKsToScan( tableName, pksToScan );
+                    this.scannedPKsPerTable.addAll( tableName, pksToScan );
+                    pksToScanPerLevel.put( tableName, pksToScan );
+                }
+            }
+            if ( this.logger.isDebugEnabled() ) {
+                this.logger.debug( "LEVEL # " + level + ": " + pksToScanPerLevel );
+            }
+
+            for( int i=this.tableNames.size()-1; i>=0; i-- ) {
+                String tableName = (String) this.tableNames.get(i);
+                Set pksToScan = (Set) pksToScanPerLevel.get( tableName );
+                if ( pksToScan != null ) {
+                    // TODO: support multi-column PKs
+                    String pkColumn = dataSet.getTableMetaData(tableName).getPrimaryKeys()[0].getColumnName();
                     scanPKs( tableName, pkColumn, pksToScan );
                     scanReversePKs( tableName, pksToScan );
                     allowPKs( tableName, pksToScan );
-                    removePKsToScan( tableName, pksToScan );
-                } // if
+                }
             } // for 
             removeScannedTables();
         } // while
@@ -192,6 +211,13 @@ public class PrimaryKeyFilter extends AbstractTableFilter {
         }
     } 
 
+    /**
+     * @return The allowed primary keys per table, as found by {@link #searchPKs(IDataSet)}
+     */
+    PkTableMap getAllowedPKs() {
+        return this.allowedPKsPerTable;
+    }
+
     private void removeScannedTables() {
         logger.debug("removeScannedTables() - start");
         this.pksToScanPerTable.retainOnly(this.tableNames);
@@ -232,63 +258,80 @@ public class PrimaryKeyFilter extends AbstractTableFilter {
         if ( fkEdges == null || fkEdges.isEmpty() ) {
             return;
         }
-        // we need a temporary list as there is no warranty about the set order...
-        List fkTables = new ArrayList( fkEdges.size() );
-        StringBuffer colsBuffer = new StringBuffer();
-        for(Iterator iterator = fkEdges.iterator(); iterator.hasNext(); ) {
+        String[] fkColumns = new String[fkEdges.size()];
+        String[] fkTables = new String[fkEdges.size()];
+        int i = 0;
+        for(Iterator iterator = fkEdges.iterator(); iterator.hasNext(); i++ ) {
             ForeignKeyRelationshipEdge edge = (ForeignKeyRelationshipEdge) iterator.next();
-            fkTables.add( edge.getTo() );
-            colsBuffer.append( edge.getFKColumn() );
-            if ( iterator.hasNext() ) {
-                colsBuffer.append( ", " );
-            }
-        }
-        // NOTE: make sure the query below is compatible standard SQL
-        String sql = "SELECT " + colsBuffer + " FROM " + table + 
-        " WHERE " + pkColumn + " = ? ";
-        if ( this.logger.isDebugEnabled() ) {
-            this.logger.debug( "SQL: " + sql );
+            fkColumns[i] = edge.getFKColumn();
+            fkTables[i] = (String) edge.getTo();
         }
 
-        scanPKs(table, sql, allowedIds, fkTables);
+        try {
+            scanPKs( table, fkColumns, pkColumn, allowedIds, fkTables );
+        } catch (SQLException e) {
+            logger.error("scanPKs()", e);
+        }
     }
 
-    private void scanPKs(String table, String sql, Set allowedIds, List fkTables) throws SQLException
+    /**
+     * Selects the given columns of the rows having one of the given keys and
+     * adds their values to the keys to scan. The keys are looked up in chunks.
+     * @param table The table to select from
+     * @param columns The columns to select
+     * @param keyColumn The column to look up the keys in
+     * @param keys The keys to look up
+     * @param targetTables For each column the table whose primary key it contains
+     */
+    private void scanPKs(String table, String[] columns, String keyColumn, Set keys, String[] targetTables)
+    throws SQLException
     {
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
-        try {
-            pstmt = this.connection.getConnection().prepareStatement( sql );
-            for(Iterator iterator = allowedIds.iterator(); iterator.hasNext(); ) {
-                Object pk = iterator.next(); // id being scanned
-                if( this.logger.isDebugEnabled() ) {
-                    this.logger.debug("Executing sql for ? = " + pk );
+        int chunkSize = KeyedRowSelect.getChunkSize( this.connection, 1 );
+        List keyList = new ArrayList( keys );
+        for ( int start=0; start<keyList.size(); start+=chunkSize ) {
+            List chunk = keyList.subList( start, Math.min( keyList.size(), start + chunkSize ) );
+            // NOTE: make sure the query below is compatible standard SQL
+            StringBuffer sql = new StringBuffer( 64 + chunk.size() * 3 );
+            sql.append( "SELECT " );
+            for ( int i=0; i<columns.length; i++ ) {
+                sql.append( i > 0 ? ", " : "" ).append( columns[i] );
+            }
+            sql.append( " FROM " ).append( table );
+            sql.append( " WHERE " ).append( keyColumn ).append( " IN (" );
+            for ( int i=0; i<chunk.size(); i++ ) {
+                sql.append( i > 0 ? ", ?" : "?" );
+            }
+            sql.append( ")" );
+            if ( this.logger.isDebugEnabled() ) {
+                this.logger.debug( "executing query '" + sql + "' for ? = " + chunk );
+            }
+
+            PreparedStatement pstmt = null;
+            ResultSet rs = null;
+            try {
+                pstmt = this.connection.getConnection().prepareStatement( sql.toString() );
+                for ( int i=0; i<chunk.size(); i++ ) {
+                    pstmt.setObject( i+1, chunk.get(i) );
                 }
-                pstmt.setObject( 1, pk );
                 rs = pstmt.executeQuery();
                 while( rs.next() ) {
-                    for( int i=0; i<fkTables.size(); i++ ) {
-                        String newTable = (String) fkTables.get(i);
-                        Object fk = rs.getObject(i+1);
-                        if( fk != null ) {
+                    for( int i=0; i<targetTables.length; i++ ) {
+                        Object pk = rs.getObject(i+1);
+                        if( pk != null ) {
                             if( this.logger.isDebugEnabled() ) {
-                                this.logger.debug("New ID: " + newTable + "->" + fk);
+                                this.logger.debug("New ID: " + targetTables[i] + "->" + pk);
                             }
-                            addPKToScan( newTable, fk );
+                            addPKToScan( targetTables[i], pk );
                         } 
                         else {
                             this.logger.warn( "Found null FK for relationship  " + 
-                                    table + "=>" + newTable );
+                                    table + "=>" + targetTables[i] );
                         }
                     }
                 }
+            } finally {
+                SQLHelper.close( rs, pstmt );
             }
-        } catch (SQLException e) {
-            logger.error("scanPKs()", e);
-        }
-        finally {
-            // new in the finally block. has been in the catch only before
-            SQLHelper.close( rs, pstmt );
         }
     }
 
@@ -315,31 +358,7 @@ public class PrimaryKeyFilter extends AbstractTableFilter {
         String fkTable = (String) edge.getFrom();
         String fkColumn = edge.getFKColumn();
         String pkColumn = getPKColumn( fkTable );
-        // NOTE: make sure the query below is compatible standard SQL
-        String sql = "SELECT " + pkColumn + " FROM " + fkTable + " WHERE " + fkColumn + " = ? ";
-
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
-        try {
-            if ( this.logger.isDebugEnabled() ) {
-                this.logger.debug( "Preparing SQL query '" + sql + "'" );
-            }
-            pstmt = this.connection.getConnection().prepareStatement( sql );
-            for(Iterator iterator = idsToScan.iterator(); iterator.hasNext(); ) {
-                Object pk = iterator.next();
-                if ( this.logger.isDebugEnabled() ) {
-                    this.logger.debug( "executing query '" + sql + "' for ? = " + pk );
-                }
-                pstmt.setObject( 1, pk );
-                rs = pstmt.executeQuery();
-                while( rs.next() ) {
-                    Object fk = rs.getObject(1);
-                    addPKToScan( fkTable, fk );
-                }
-            } 
-        } finally {
-            SQLHelper.close( rs, pstmt );
-        }
+        scanPKs( fkTable, new String[] { pkColumn }, fkColumn, idsToScan, new String[] { fkTable } );
     }
 
     private void updatePkCache(String table, ForeignKeyRelationshipEdge edge) {
@@ -383,8 +402,8 @@ public class PrimaryKeyFilter extends AbstractTableFilter {
     private void addPKToScan(String table, Object pk) {
         logger.debug("addPKToScan(table={}, pk={}) - start", table, pk);
 
-        // first, check if it wasn't added yet
-        if(this.allowedPKsPerTable.contains(table, pk)) {
+        // first, check if it wasn't scanned yet
+        if(this.scannedPKsPerTable.contains(table, pk)) {
             if ( this.logger.isDebugEnabled() ) {
                 this.logger.debug( "Discarding already scanned id=" + pk + " for table " + table );
             }
@@ -403,6 +422,7 @@ public class PrimaryKeyFilter extends AbstractTableFilter {
         sb.append(", fkReverseEdgesPerTable=").append(fkReverseEdgesPerTable);
         sb.append(", pkColumnPerTable=").append(pkColumnPerTable);
         sb.append(", pksToScanPerTable=").append(pksToScanPerTable);
+        sb.append(", scannedPKsPerTable=").append(scannedPKsPerTable);
         sb.append(", reverseScan=").append(reverseScan);
         sb.append(", connection=").append(connection);
         return sb.toString();
@@ -0,0 +1,180 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.NoPrimaryKeyException;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.stream.DefaultConsumer;
+import org.dbunit.dataset.stream.IDataSetConsumer;
+import org.dbunit.dataset.stream.IDataSetProducer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams the rows allowed by a {@link PrimaryKeyFilter} to a consumer. Unlike
+ * a {@link org.dbunit.dataset.FilteredDataSet} using the filter, which reads
+ * every table completely and then skips the rows which are not allowed, only
+ * the allowed rows are read. They are selected by their primary keys in chunks
+ * using a {@link KeyedRowSelect} and passed on to the consumer one at a time. The tables for which the filter has no allowed
+ * primary keys are produced completely, as by the filter. Like the filter,
+ * only single column primary keys are supported.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see org.dbunit.database.search.TablesDependencyHelper#getDatasetProducer(IDatabaseConnection, PrimaryKeyFilter.PkTableMap)
+ */
+public class PrimaryKeyFilteredProducer implements IDataSetProducer
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(PrimaryKeyFilteredProducer.class);
+
+    private static final IDataSetConsumer EMPTY_CONSUMER = new DefaultConsumer();
+
+    private final IDatabaseConnection _connection;
+    private final PrimaryKeyFilter _filter;
+    private final String[] _tableNames;
+    private IDataSetConsumer _consumer = EMPTY_CONSUMER;
+
+    /**
+     * @param connection The database connection
+     * @param filter The filter, which already got the tables and foreign keys
+     * found by the dependency search
+     * @param tableNames The tables to be produced, in this order
+     */
+    public PrimaryKeyFilteredProducer(IDatabaseConnection connection, PrimaryKeyFilter filter,
+            String[] tableNames)
+    {
+        _connection = connection;
+        _filter = filter;
+        _tableNames = tableNames;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // IDataSetProducer interface
+
+    public void setConsumer(IDataSetConsumer consumer) throws DataSetException
+    {
+        logger.debug("setConsumer(consumer) - start");
+
+        _consumer = consumer;
+    }
+
+    public void produce() throws DataSetException
+    {
+        logger.debug("produce() - start");
+
+        try
+        {
+            IDataSet dataSet = _connection.createDataSet(_tableNames);
+            _filter.searchPKs(dataSet);
+
+            _consumer.startDataSet();
+            for (int i = 0; i < _tableNames.length; i++)
+            {
+                ITableMetaData metaData = dataSet.getTableMetaData(_tableNames[i]);
+                _consumer.startTable(metaData);
+                Set allowedPKs = _filter.getAllowedPKs().get(metaData.getTableName());
+                if (allowedPKs == null)
+                {
+                    produceTable(dataSet.getTable(_tableNames[i]));
+                }
+                else
+                {
+                    produceRows(metaData, allowedPKs);
+                }
+                _consumer.endTable();
+            }
+            _consumer.endDataSet();
+        }
+        catch (SQLException e)
+        {
+            throw new DataSetException(e);
+        }
+    }
+
+    private void produceTable(ITable table) throws DataSetException
+    {
+        Column[] columns = table.getTableMetaData().getColumns();
+        try
+        {
+            for (int row = 0; ; row++)
+            {
+                Object[] values = new Object[columns.length];
+                for (int j = 0; j < columns.length; j++)
+                {
+                    values[j] = table.getValue(row, columns[j].getColumnName());
+                }
+                _consumer.row(values);
+            }
+        }
+        catch (RowOutOfBoundsException e)
+        {
+            // end of table
+        }
+    }
+
+    private void produceRows(ITableMetaData metaData, Set allowedPKs)
+            throws DataSetException, SQLException
+    {
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("produceRows(table={}, allowedPKs={}) - start",
+                    metaData.getTableName(), String.valueOf(allowedPKs.size()));
+        }
+
+        // The filter collects the values of single column primary keys only
+        Column[] primaryKeys = metaData.getPrimaryKeys();
+        if (primaryKeys.length == 0)
+        {
+            throw new NoPrimaryKeyException(metaData.getTableName());
+        }
+        if (primaryKeys.length > 1)
+        {
+            throw new DataSetException("Table '" + metaData.getTableName()
+                    + "' has a primary key of " + primaryKeys.length
+                    + " columns but only single column primary keys can be filtered");
+        }
+
+        List keys = new ArrayList(allowedPKs.size());
+        for (Iterator iterator = allowedPKs.iterator(); iterator.hasNext();)
+        {
+            keys.add(new Object[] {iterator.next()});
+        }
+        KeyedRowSelect select = new KeyedRowSelect(_connection, metaData.getTableName(),
+                metaData.getColumns(), primaryKeys);
+        select.select(keys, _consumer);
+    }
+}
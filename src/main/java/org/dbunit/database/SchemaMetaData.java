@@ -0,0 +1,375 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.io.Serializable;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.datatype.DataTypeException;
+import org.dbunit.dataset.datatype.IDataTypeFactory;
+import org.dbunit.util.SQLHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The tables of a schema with the columns and primary keys of each table, as
+ * loaded using a {@link ISchemaMetadataLoader}. The columns are kept as
+ * returned by the database so that they can be created again using any
+ * {@link IDataTypeFactory}, and so that instances can be serialized by the
+ * {@link MetadataCache}.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+class SchemaMetaData implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMetaData.class);
+
+    private final List _tables;
+    private final String _version;
+    private final long _loadTime;
+
+    private SchemaMetaData(List tables, String version)
+    {
+        _tables = Collections.unmodifiableList(tables);
+        _version = version;
+        _loadTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Loads the metadata of the tables of a schema.
+     * @param connection The database connection
+     * @param schema The schema, can be <code>null</code>
+     * @param tableTypes The types of the tables to be loaded
+     * @param metadataLoader The loader for the columns and primary keys
+     * @param version The version of the schema as returned by the loader
+     * @param lookupPrimaryKeys Whether or not the primary keys are looked up
+     * for every table if the loader does not return them. Otherwise they are
+     * looked up when they are needed.
+     * @return The metadata
+     * @throws SQLException
+     */
+    static SchemaMetaData load(IDatabaseConnection connection, String schema,
+            String[] tableTypes, ISchemaMetadataLoader metadataLoader, String version,
+            boolean lookupPrimaryKeys) throws SQLException
+    {
+        logger.debug("load(connection={}, schema={}, metadataLoader={}) - start",
+                new Object[] {connection, schema, metadataLoader});
+
+        DatabaseMetaData databaseMetaData = connection.getConnection().getMetaData();
+        IMetadataHandler metadataHandler = (IMetadataHandler)connection.getConfig().getProperty(
+                DatabaseConfig.PROPERTY_METADATA_HANDLER);
+
+        // Tables
+        List tables = new ArrayList();
+        Map tablesByName = new HashMap();
+        ResultSet resultSet = metadataHandler.getTables(databaseMetaData, schema, tableTypes);
+        try
+        {
+            while (resultSet.next())
+            {
+                TableData table = new TableData(metadataHandler.getSchema(resultSet),
+                        resultSet.getString(3));
+                tables.add(table);
+                tablesByName.put(table.getKey(), table);
+            }
+        }
+        finally
+        {
+            resultSet.close();
+        }
+
+        // Columns
+        resultSet = metadataLoader.getColumns(connection, schema);
+        try
+        {
+            while (resultSet.next())
+            {
+                // The loaders may return the tables of other schemas as well
+                TableData table = (TableData)tablesByName.get(TableData.createKey(
+                        metadataHandler.getSchema(resultSet), resultSet.getString(3)));
+                if (table != null)
+                {
+                    table._columns.add(new ColumnData(resultSet));
+                }
+            }
+        }
+        finally
+        {
+            SQLHelper.close(resultSet, resultSet.getStatement());
+        }
+
+        // Primary keys
+        resultSet = metadataLoader.getPrimaryKeys(connection, schema);
+        if (resultSet != null)
+        {
+            try
+            {
+                while (resultSet.next())
+                {
+                    TableData table = (TableData)tablesByName.get(TableData.createKey(
+                            metadataHandler.getSchema(resultSet), resultSet.getString(3)));
+                    if (table != null)
+                    {
+                        table.addPrimaryKey(resultSet);
+                    }
+                }
+            }
+            finally
+            {
+                SQLHelper.close(resultSet, resultSet.getStatement());
+            }
+
+            for (int i = 0; i < tables.size(); i++)
+            {
+                ((TableData)tables.get(i)).setPrimaryKeysLoaded();
+            }
+        }
+        else if (lookupPrimaryKeys)
+        {
+            for (int i = 0; i < tables.size(); i++)
+            {
+                TableData table = (TableData)tables.get(i);
+                resultSet = metadataHandler.getPrimaryKeys(databaseMetaData,
+                        table.getSchemaName(), table.getTableName());
+                try
+                {
+                    while (resultSet.next())
+                    {
+                        table.addPrimaryKey(resultSet);
+                    }
+                }
+                finally
+                {
+                    resultSet.close();
+                }
+                table.setPrimaryKeysLoaded();
+            }
+        }
+
+        return new SchemaMetaData(tables, version);
+    }
+
+    /**
+     * @return The tables in the order returned by the database, as a list of {@link TableData}
+     */
+    List getTables()
+    {
+        return _tables;
+    }
+
+    /**
+     * @return The version of the schema at the time the metadata was loaded,
+     * or <code>null</code> if it is unknown
+     */
+    String getVersion()
+    {
+        return _version;
+    }
+
+    /**
+     * @return The time the metadata was loaded, in milliseconds
+     */
+    long getLoadTime()
+    {
+        return _loadTime;
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("tables=").append(_tables.size());
+        sb.append(", version=").append(_version);
+        sb.append(", loadTime=").append(_loadTime);
+        sb.append("]");
+        return sb.toString();
+    }
+
+
+    /**
+     * The metadata of a single table.
+     */
+    static class TableData implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final String _schemaName;
+        private final String _tableName;
+        private final List _columns = new ArrayList();
+        /**
+         * The primary key column names by their key sequence
+         */
+        private SortedMap _primaryKeys;
+        private String[] _primaryKeyNames;
+
+        TableData(String schemaName, String tableName)
+        {
+            _schemaName = schemaName;
+            _tableName = tableName;
+        }
+
+        static String createKey(String schemaName, String tableName)
+        {
+            return schemaName + "." + tableName;
+        }
+
+        String getKey()
+        {
+            return createKey(_schemaName, _tableName);
+        }
+
+        String getSchemaName()
+        {
+            return _schemaName;
+        }
+
+        String getTableName()
+        {
+            return _tableName;
+        }
+
+        /**
+         * @return <code>true</code> if the columns of this table have been loaded
+         */
+        boolean hasColumns()
+        {
+            return !_columns.isEmpty();
+        }
+
+        /**
+         * Creates the columns of this table, ignoring the columns whose data
+         * type is unknown to the given factory.
+         * @param dataTypeFactory The data type factory
+         * @param datatypeWarning Whether or not to log a warning for unknown data types
+         * @return The columns
+         * @throws DataTypeException
+         */
+        Column[] createColumns(IDataTypeFactory dataTypeFactory, boolean datatypeWarning)
+        throws DataTypeException
+        {
+            List columns = new ArrayList(_columns.size());
+            for (int i = 0; i < _columns.size(); i++)
+            {
+                Column column = ((ColumnData)_columns.get(i)).createColumn(
+                        _tableName, dataTypeFactory, datatypeWarning);
+                if (column != null)
+                {
+                    columns.add(column);
+                }
+            }
+            return (Column[])columns.toArray(new Column[0]);
+        }
+
+        /**
+         * @return The primary key column names ordered by their key sequence,
+         * or <code>null</code> if they have not been loaded
+         */
+        String[] getPrimaryKeyNames()
+        {
+            return _primaryKeyNames;
+        }
+
+        private void addPrimaryKey(ResultSet resultSet) throws SQLException
+        {
+            if (_primaryKeys == null)
+            {
+                _primaryKeys = new TreeMap();
+            }
+            _primaryKeys.put(new Integer(resultSet.getInt(5)), resultSet.getString(4));
+        }
+
+        private void setPrimaryKeysLoaded()
+        {
+            _primaryKeyNames = _primaryKeys == null ? new String[0]
+                    : (String[])_primaryKeys.values().toArray(new String[0]);
+            _primaryKeys = null;
+        }
+    }
+
+
+    /**
+     * The values of a row returned by {@link DatabaseMetaData#getColumns(String, String, String, String)}
+     * needed to create a {@link Column}.
+     */
+    private static class ColumnData implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final String _columnName;
+        private final int _sqlType;
+        private final String _sqlTypeName;
+        private final int _nullable;
+        private final String _remarks;
+        private final String _columnDefaultValue;
+        private final String _isAutoIncrement;
+
+        ColumnData(ResultSet resultSet) throws SQLException
+        {
+            _columnName = resultSet.getString(4);
+            int sqlType = resultSet.getInt(5);
+            if (sqlType == java.sql.Types.DISTINCT)
+            {
+                sqlType = resultSet.getInt("SOURCE_DATA_TYPE");
+            }
+            _sqlType = sqlType;
+            _sqlTypeName = resultSet.getString(6);
+            _nullable = resultSet.getInt(11);
+            _remarks = resultSet.getString(12);
+            _columnDefaultValue = resultSet.getString(13);
+
+            String isAutoIncrement = Column.AutoIncrement.NO.getKey();
+            try
+            {
+                isAutoIncrement = resultSet.getString(23);
+            }
+            catch (SQLException e)
+            {
+                logger.debug("Could not retrieve the 'isAutoIncrement' property - defaulting to NO", e);
+            }
+            _isAutoIncrement = isAutoIncrement;
+        }
+
+        Column createColumn(String tableName, IDataTypeFactory dataTypeFactory,
+                boolean datatypeWarning) throws DataTypeException
+        {
+            return SQLHelper.createColumn(tableName, _columnName, _sqlType, _sqlTypeName,
+                    _nullable, _remarks, _columnDefaultValue, _isAutoIncrement,
+                    dataTypeFactory, datatypeWarning);
+        }
+    }
+}
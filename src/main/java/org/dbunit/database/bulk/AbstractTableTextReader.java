@@ -0,0 +1,287 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.bulk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.ColumnIndexMapping;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+
+/**
+ * Reads the rows of a table as delimited text, one line per row, in the input format
+ * of a bulk load facility. The rows are read from the table lazily while the
+ * text is consumed, so the table is never held in memory.
+ * <p>
+ * The values are converted using the {@link DataType#typeCast(Object)} of their
+ * column and then formatted by the subclass.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public abstract class AbstractTableTextReader extends Reader
+{
+    private final String _tableName;
+    private final Column[] _columns;
+    private final ColumnIndexMapping _columnMapping;
+
+    private int _rowCount = 0;
+    private boolean _endOfTable = false;
+    private String _line;
+    private int _position;
+    private DataSetException _exception;
+
+    /**
+     * @param table The table to read
+     * @param columns The columns to read, in the order of the text fields
+     * @throws DataSetException
+     */
+    protected AbstractTableTextReader(ITable table, Column[] columns) throws DataSetException
+    {
+        _tableName = table.getTableMetaData().getTableName();
+        _columns = columns;
+        _columnMapping = new ColumnIndexMapping(table, columns);
+    }
+
+    /**
+     * Returns the text of the next row, including the line terminator.
+     * @return The line or <code>null</code> if the end of the table has been reached
+     * @throws DataSetException
+     */
+    public String readLine() throws DataSetException
+    {
+        if (_endOfTable)
+        {
+            return null;
+        }
+
+        StringBuffer line = new StringBuffer(_columns.length * 16);
+        try
+        {
+            for (int i = 0; i < _columns.length; i++)
+            {
+                if (i > 0)
+                {
+                    line.append(getSeparator());
+                }
+
+                Object value = _columnMapping.getValue(_rowCount, i);
+                if (value != null && value != ITable.NO_VALUE)
+                {
+                    try
+                    {
+                        value = _columns[i].getDataType().typeCast(value);
+                    }
+                    catch (TypeCastException e)
+                    {
+                        throw new TypeCastException("Error casting value for table '" + _tableName
+                                + "' and column '" + _columns[i].getColumnName() + "'", e);
+                    }
+                }
+
+                if (value == null || value == ITable.NO_VALUE)
+                {
+                    appendNull(line);
+                }
+                else
+                {
+                    appendValue(line, toText(value));
+                }
+            }
+        }
+        catch (RowOutOfBoundsException e)
+        {
+            // end of table
+            _endOfTable = true;
+            return null;
+        }
+
+        line.append('\n');
+        _rowCount++;
+        return line.toString();
+    }
+
+    /**
+     * Converts a casted value to its text representation before it is escaped.
+     * Booleans are written as <code>1</code> and <code>0</code>, all other values
+     * using their <code>toString()</code> method.
+     * @param value The value, never <code>null</code>
+     * @return The text
+     */
+    protected String toText(Object value)
+    {
+        if (value instanceof Boolean)
+        {
+            return ((Boolean)value).booleanValue() ? "1" : "0";
+        }
+        return value.toString();
+    }
+
+    /**
+     * @return The field separator
+     */
+    protected abstract char getSeparator();
+
+    /**
+     * Appends the representation of <code>null</code>.
+     */
+    protected abstract void appendNull(StringBuffer line);
+
+    /**
+     * Appends a value, escaping or quoting it as necessary.
+     */
+    protected abstract void appendValue(StringBuffer line, String text);
+
+    /**
+     * @return The number of rows read so far
+     */
+    public int getRowCount()
+    {
+        return _rowCount;
+    }
+
+    /**
+     * Returns the exception which aborted a {@link #read(char[], int, int)} invocation.
+     * Bulk load APIs only propagate <code>IOException</code>s, this method
+     * gives access to the original exception.
+     * @return The exception or <code>null</code>
+     */
+    public DataSetException getException()
+    {
+        return _exception;
+    }
+
+    /**
+     * Returns an input stream providing the text of this reader encoded using
+     * the given character encoding.
+     * @param encoding The character encoding
+     * @return The input stream
+     */
+    public InputStream toInputStream(String encoding)
+    {
+        return new LineInputStream(encoding);
+    }
+
+    private boolean nextLine() throws IOException
+    {
+        try
+        {
+            _line = readLine();
+            _position = 0;
+            return _line != null;
+        }
+        catch (DataSetException e)
+        {
+            _exception = e;
+            IOException ioException = new IOException(e.getMessage());
+            ioException.initCause(e);
+            throw ioException;
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // Reader class
+
+    public int read(char[] cbuf, int off, int len) throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+
+        if ((_line == null || _position == _line.length()) && !nextLine())
+        {
+            return -1;
+        }
+
+        int count = Math.min(len, _line.length() - _position);
+        _line.getChars(_position, _position + count, cbuf, off);
+        _position += count;
+        return count;
+    }
+
+    public void close()
+    {
+    }
+
+    /**
+     * Encodes the lines of the enclosing reader.
+     */
+    private class LineInputStream extends InputStream
+    {
+        private final String _encoding;
+        private byte[] _bytes;
+        private int _bytePosition;
+
+        public LineInputStream(String encoding)
+        {
+            _encoding = encoding;
+        }
+
+        private boolean fill() throws IOException
+        {
+            while (_bytes == null || _bytePosition == _bytes.length)
+            {
+                if (!nextLine())
+                {
+                    return false;
+                }
+                _bytes = _line.getBytes(_encoding);
+                _bytePosition = 0;
+            }
+            return true;
+        }
+
+        public int read() throws IOException
+        {
+            if (!fill())
+            {
+                return -1;
+            }
+            return _bytes[_bytePosition++] & 0xff;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            if (!fill())
+            {
+                return -1;
+            }
+
+            int count = Math.min(len, _bytes.length - _bytePosition);
+            System.arraycopy(_bytes, _bytePosition, b, off, count);
+            _bytePosition += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.bulk;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+
+/**
+ * Base class for {@link IBulkLoader}s loading the rows as text. Binary columns are
+ * not supported since their values have no portable text representation.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public abstract class AbstractTextBulkLoader implements IBulkLoader
+{
+    public boolean isSupported(IDatabaseConnection connection, Column[] columns)
+            throws SQLException
+    {
+        for (int i = 0; i < columns.length; i++)
+        {
+            switch (columns[i].getDataType().getSqlType())
+            {
+                case Types.BINARY:
+                case Types.VARBINARY:
+                case Types.LONGVARBINARY:
+                case Types.BLOB:
+                    return false;
+                default:
+                    break;
+            }
+        }
+        return isSupported(connection.getConnection());
+    }
+
+    /**
+     * Returns <code>true</code> if the bulk load facility can be used on the given
+     * JDBC connection, for example if it was created by the expected driver.
+     */
+    protected abstract boolean isSupported(Connection connection) throws SQLException;
+
+    /**
+     * Returns the given column names separated by commas.
+     */
+    protected String getColumnList(String[] columnNames)
+    {
+        StringBuffer sb = new StringBuffer();
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            if (i > 0)
+            {
+                sb.append(", ");
+            }
+            sb.append(columnNames[i]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.bulk;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+
+/**
+ * Reads table rows as comma separated values. Every value is enclosed in double
+ * quotes, <code>null</code> is written as an empty unquoted field.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class CsvTableReader extends AbstractTableTextReader
+{
+    public CsvTableReader(ITable table, Column[] columns) throws DataSetException
+    {
+        super(table, columns);
+    }
+
+    protected char getSeparator()
+    {
+        return ',';
+    }
+
+    protected void appendNull(StringBuffer line)
+    {
+    }
+
+    protected void appendValue(StringBuffer line, String text)
+    {
+        line.append('"');
+        for (int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            if (c == '"')
+            {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.bulk;
+
+import java.sql.SQLException;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+
+/**
+ * Loads the rows of a table using a native bulk load facility of the database,
+ * for example <code>COPY</code> or <code>LOAD DATA</code>. Used by the
+ * {@link org.dbunit.operation.DatabaseOperation#BULK_INSERT} operation.
+ * <p>
+ * Implementations must read the table rows only once and in order so that
+ * streamed tables can be loaded without materializing them. All rows are loaded
+ * with the same column list, thus {@link ITable#NO_VALUE} values are loaded as
+ * <code>null</code>.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see org.dbunit.database.DatabaseConfig#PROPERTY_BULK_LOADER
+ */
+public interface IBulkLoader
+{
+    /**
+     * Returns <code>true</code> if this loader can load the given columns on the
+     * given connection. If not, the rows are inserted using batched insert statements.
+     * @param connection The database connection
+     * @param columns The columns to load
+     * @return <code>true</code> if the columns can be bulk loaded
+     * @throws SQLException
+     */
+    public boolean isSupported(IDatabaseConnection connection, Column[] columns)
+            throws SQLException;
+
+    /**
+     * Loads all rows of the given table.
+     * @param connection The database connection
+     * @param tableName The qualified and escaped name of the table to load
+     * @param columnNames The escaped names of the given columns
+     * @param columns The columns to load, with the data types of the database table
+     * @param table The table providing the rows
+     * @return The number of loaded rows
+     * @throws DataSetException
+     * @throws SQLException
+     */
+    public int load(IDatabaseConnection connection, String tableName, String[] columnNames,
+            Column[] columns, ITable table) throws DataSetException, SQLException;
+}
@@ -0,0 +1,78 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.bulk;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+
+/**
+ * Reads table rows in the tab delimited text format understood by the PostgreSQL
+ * <code>COPY</code> and MySQL <code>LOAD DATA</code> statements with their default
+ * options. <code>null</code> is written as <code>\N</code>, backslashes, tabs and
+ * line breaks are escaped with a backslash.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class TabDelimitedTableReader extends AbstractTableTextReader
+{
+    public TabDelimitedTableReader(ITable table, Column[] columns) throws DataSetException
+    {
+        super(table, columns);
+    }
+
+    protected char getSeparator()
+    {
+        return '\t';
+    }
+
+    protected void appendNull(StringBuffer line)
+    {
+        line.append("\\N");
+    }
+
+    protected void appendValue(StringBuffer line, String text)
+    {
+        for (int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            switch (c)
+            {
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                default:
+                    line.append(c);
+            }
+        }
+    }
+}
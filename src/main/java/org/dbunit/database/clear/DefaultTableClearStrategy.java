@@ -0,0 +1,246 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.clear;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.util.QualifiedTableName;
+import org.dbunit.util.SQLHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Truncates the tables which are not referenced by foreign keys and deletes the
+ * rows of the other tables. No constraints are disabled, so the tables are cleared
+ * in dependency order.
+ * <p>
+ * Subclasses disable the constraints of a specific database by overriding
+ * {@link #disableConstraints(IDatabaseConnection, String[], List)}, which allows
+ * every table to be truncated in any order.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class DefaultTableClearStrategy implements ITableClearStrategy
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(DefaultTableClearStrategy.class);
+
+    public ITableClearer begin(IDatabaseConnection connection, String[] tableNames)
+            throws SQLException
+    {
+        logger.debug("begin(connection={}, tableNames={}) - start", connection, tableNames);
+
+        List restoreStatements = new ArrayList();
+        boolean disabled;
+        try
+        {
+            disabled = disableConstraints(connection, tableNames, restoreStatements);
+        }
+        catch (SQLException e)
+        {
+            restore(connection, restoreStatements);
+            throw e;
+        }
+        return new TableClearer(connection, restoreStatements, disabled);
+    }
+
+    /**
+     * Disables the constraints preventing the given tables from being truncated.
+     * @param connection The connection
+     * @param tableNames The names of the tables to clear
+     * @param restoreStatements The list to which the statements restoring the
+     * disabled constraints are added, they are executed in reverse order
+     * @return <code>true</code> if the constraints have been disabled and the
+     * tables can be truncated in any order
+     * @throws SQLException
+     */
+    protected boolean disableConstraints(IDatabaseConnection connection, String[] tableNames,
+            List restoreStatements) throws SQLException
+    {
+        return false;
+    }
+
+    /**
+     * Returns <code>true</code> if the constraints are disabled for the session
+     * of the connection only, in which case the tables are cleared on that
+     * connection only.
+     */
+    protected boolean isSessionScoped()
+    {
+        return false;
+    }
+
+    /**
+     * Returns <code>true</code> if the given table can be truncated.
+     * @param connection The connection
+     * @param tableName The name of the table
+     * @param constraintsDisabled <code>true</code> if the constraints have been disabled
+     * @throws SQLException
+     */
+    protected boolean canTruncate(IDatabaseConnection connection, String tableName,
+            boolean constraintsDisabled) throws SQLException
+    {
+        return constraintsDisabled || !isReferenced(connection, tableName);
+    }
+
+    /**
+     * Returns the statement deleting all rows of the given table.
+     * @param qualifiedTableName The qualified and escaped name of the table
+     * @param truncate <code>true</code> if the table can be truncated
+     */
+    protected String getClearTableSql(String qualifiedTableName, boolean truncate)
+    {
+        return (truncate ? "truncate table " : "delete from ") + qualifiedTableName;
+    }
+
+    /**
+     * Returns <code>true</code> if the given table is referenced by a foreign key.
+     */
+    protected boolean isReferenced(IDatabaseConnection connection, String tableName)
+            throws SQLException
+    {
+        QualifiedTableName qualifiedTableName = new QualifiedTableName(tableName,
+                connection.getSchema());
+        DatabaseMetaData metaData = connection.getConnection().getMetaData();
+        ResultSet resultSet = metaData.getExportedKeys(null, qualifiedTableName.getSchema(),
+                qualifiedTableName.getTable());
+        try
+        {
+            return resultSet.next();
+        }
+        finally
+        {
+            SQLHelper.close(resultSet);
+        }
+    }
+
+    /**
+     * Returns the qualified and escaped name of the given table.
+     */
+    protected String getQualifiedName(IDatabaseConnection connection, String tableName)
+    {
+        String escapePattern = (String)connection.getConfig().getProperty(
+                DatabaseConfig.PROPERTY_ESCAPE_PATTERN);
+        return new QualifiedTableName(tableName, connection.getSchema(), escapePattern)
+                .getQualifiedName();
+    }
+
+    /**
+     * Executes the given update statement.
+     * @return The update count
+     */
+    protected int execute(IDatabaseConnection connection, String sql) throws SQLException
+    {
+        logger.debug("execute(connection={}, sql={}) - start", connection, sql);
+
+        Statement statement = connection.getConnection().createStatement();
+        try
+        {
+            return statement.executeUpdate(sql);
+        }
+        finally
+        {
+            SQLHelper.close(statement);
+        }
+    }
+
+    private void restore(IDatabaseConnection connection, List restoreStatements)
+            throws SQLException
+    {
+        SQLException exception = null;
+        for (int i = restoreStatements.size() - 1; i >= 0; i--)
+        {
+            try
+            {
+                execute(connection, (String)restoreStatements.get(i));
+            }
+            catch (SQLException e)
+            {
+                logger.warn("Could not restore the constraints: " + e);
+                if (exception == null)
+                {
+                    exception = e;
+                }
+            }
+        }
+        restoreStatements.clear();
+        if (exception != null)
+        {
+            throw exception;
+        }
+    }
+
+    private class TableClearer implements ITableClearer
+    {
+        private final IDatabaseConnection _connection;
+        private final List _restoreStatements;
+        private final boolean _constraintsDisabled;
+
+        public TableClearer(IDatabaseConnection connection, List restoreStatements,
+                boolean constraintsDisabled)
+        {
+            _connection = connection;
+            _restoreStatements = restoreStatements;
+            _constraintsDisabled = constraintsDisabled;
+        }
+
+        public boolean isOrderIndependent()
+        {
+            return _constraintsDisabled;
+        }
+
+        public boolean isConcurrent()
+        {
+            return !(_constraintsDisabled && isSessionScoped());
+        }
+
+        public int clearTable(IDatabaseConnection connection, String tableName)
+                throws SQLException
+        {
+            logger.debug("clearTable(connection={}, tableName={}) - start", connection, tableName);
+
+            boolean truncate = canTruncate(connection, tableName, _constraintsDisabled);
+            int rowCount = execute(connection,
+                    getClearTableSql(getQualifiedName(connection, tableName), truncate));
+            return truncate ? -1 : rowCount;
+        }
+
+        public void finish() throws SQLException
+        {
+            logger.debug("finish() - start");
+
+            restore(_connection, _restoreStatements);
+        }
+    }
+}
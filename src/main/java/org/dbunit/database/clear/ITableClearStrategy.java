@@ -0,0 +1,52 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.clear;
+
+import java.sql.SQLException;
+
+import org.dbunit.database.IDatabaseConnection;
+
+/**
+ * Chooses how the tables of a dataset are cleared by the
+ * {@link org.dbunit.operation.DatabaseOperation#DELETE_ALL} and
+ * {@link org.dbunit.operation.DatabaseOperation#TRUNCATE_TABLE} operations, for
+ * example using <code>TRUNCATE</code> instead of <code>DELETE</code> and
+ * disabling the foreign key constraints of the tables while they are cleared.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see org.dbunit.database.DatabaseConfig#PROPERTY_TABLE_CLEAR_STRATEGY
+ */
+public interface ITableClearStrategy
+{
+    /**
+     * Starts clearing the given tables, for example by disabling the constraints
+     * which would prevent them from being truncated. The returned clearer must be
+     * finished by the caller once all tables are cleared.
+     * @param connection The database connection
+     * @param tableNames The names of the tables to clear, dependent tables first
+     * @return The clearer for the given tables
+     * @throws SQLException
+     */
+    public ITableClearer begin(IDatabaseConnection connection, String[] tableNames)
+            throws SQLException;
+}
@@ -0,0 +1,65 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.clear;
+
+import java.sql.SQLException;
+
+import org.dbunit.database.IDatabaseConnection;
+
+/**
+ * Clears the tables given to {@link ITableClearStrategy#begin(IDatabaseConnection, String[])}.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public interface ITableClearer
+{
+    /**
+     * Returns <code>true</code> if the tables can be cleared in any order, for
+     * example because their foreign key constraints have been disabled.
+     */
+    public boolean isOrderIndependent();
+
+    /**
+     * Returns <code>true</code> if the tables can be cleared on other connections
+     * than the one given to {@link ITableClearStrategy#begin(IDatabaseConnection, String[])}.
+     * This is not the case if the constraints have been disabled for the session only.
+     */
+    public boolean isConcurrent();
+
+    /**
+     * Deletes all rows of the given table.
+     * @param connection The connection to use
+     * @param tableName The name of the table
+     * @return The number of deleted rows or <code>-1</code> if unknown,
+     * for example if the table has been truncated
+     * @throws SQLException
+     */
+    public int clearTable(IDatabaseConnection connection, String tableName) throws SQLException;
+
+    /**
+     * Restores what has been changed to clear the tables, for example enables
+     * the disabled constraints again.
+     * @throws SQLException
+     */
+    public void finish() throws SQLException;
+}
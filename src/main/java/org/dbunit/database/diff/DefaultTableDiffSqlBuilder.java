@@ -0,0 +1,182 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.diff;
+
+import java.sql.Types;
+import java.util.Random;
+
+import org.dbunit.dataset.Column;
+
+/**
+ * Builds standard SQL for comparing tables inside of the database, using
+ * <code>CREATE TEMPORARY TABLE ... AS SELECT</code> and <code>EXCEPT</code>.
+ * Works for PostgreSQL and H2 for example, but does not compute fingerprints.
+ * The dialect specific subclasses
+ * can be found in the <code>org.dbunit.ext</code> packages.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class DefaultTableDiffSqlBuilder implements ITableDiffSqlBuilder
+{
+    /**
+     * The prefix of the names of the temporary tables
+     */
+    public static final String TEMPORARY_TABLE_NAME = "DBUNIT_DIFF";
+
+    private static final Random random = new Random();
+
+    // JDBC 4.0 types, not available in java.sql.Types of JDK 1.4
+    private static final int LONGNVARCHAR = -16;
+    private static final int NCLOB = 2011;
+    private static final int SQLXML = 2009;
+
+    /**
+     * Returns {@link #TEMPORARY_TABLE_NAME} followed by a random suffix, so
+     * that concurrent comparisons do not use the same table and a table left
+     * over by an aborted comparison does not prevent the next one. The name
+     * is at most 30 characters long.
+     */
+    public String getTemporaryTableName(String tableName)
+    {
+        long suffix = random.nextLong() & Long.MAX_VALUE;
+        return TEMPORARY_TABLE_NAME + "_" + Long.toString(suffix, Character.MAX_RADIX).toUpperCase();
+    }
+
+    public String[] buildCreateTemporaryTableSql(String temporaryTableName,
+            String tableName, String[] columnNames)
+    {
+        return new String[] {"create temporary table " + temporaryTableName
+                + " as " + buildEmptySelect(tableName, columnNames)};
+    }
+
+    public String buildDifferenceSql(String tableName, String otherTableName,
+            String[] columnNames)
+    {
+        return buildSelect(tableName, columnNames) + " " + getDifferenceOperator()
+                + " " + buildSelect(otherTableName, columnNames);
+    }
+
+    /**
+     * Returns <code>null</code> since there is no standard aggregate function
+     * computing a hash.
+     */
+    public String buildFingerprintSql(String tableName, String[] columnNames,
+            Column[] columns)
+    {
+        return null;
+    }
+
+    public String[] buildDropTemporaryTableSql(String temporaryTableName)
+    {
+        return new String[] {"drop table " + temporaryTableName};
+    }
+
+    /**
+     * @return The set operator returning the rows of the first query which
+     * are not returned by the second one, <code>except</code> by default
+     */
+    protected String getDifferenceOperator()
+    {
+        return "except";
+    }
+
+    /**
+     * Builds a query selecting the given columns of all rows of a table.
+     * @param tableName The qualified table name
+     * @param columnNames The column names
+     * @return The query
+     */
+    protected String buildSelect(String tableName, String[] columnNames)
+    {
+        StringBuffer sql = new StringBuffer(128);
+        sql.append("select ");
+        appendColumnNames(sql, null, columnNames);
+        sql.append(" from ").append(tableName);
+        return sql.toString();
+    }
+
+    /**
+     * Builds a query selecting the given columns of a table without returning
+     * any row, used to create a table with the same column definitions.
+     * @param tableName The qualified table name
+     * @param columnNames The column names
+     * @return The query
+     */
+    protected String buildEmptySelect(String tableName, String[] columnNames)
+    {
+        return buildSelect(tableName, columnNames) + " where 1 = 0";
+    }
+
+    /**
+     * Checks whether one of the columns holds large objects or values of an
+     * unknown type, which most databases cannot hash reliably.
+     * @param columns The columns
+     * @return <code>true</code> if one of the columns is a <code>LONGVARCHAR</code>,
+     * <code>LONGNVARCHAR</code>, <code>LONGVARBINARY</code>, <code>CLOB</code>,
+     * <code>NCLOB</code>, <code>BLOB</code>, <code>SQLXML</code> or
+     * <code>OTHER</code> column
+     */
+    protected boolean hasLargeObjectColumn(Column[] columns)
+    {
+        for (int i = 0; i < columns.length; i++)
+        {
+            switch (columns[i].getDataType().getSqlType())
+            {
+                case Types.LONGVARCHAR:
+                case LONGNVARCHAR:
+                case Types.LONGVARBINARY:
+                case Types.CLOB:
+                case NCLOB:
+                case Types.BLOB:
+                case SQLXML:
+                case Types.OTHER:
+                    return true;
+                default:
+                    break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends the comma separated column names.
+     * @param sql The buffer to append to
+     * @param alias The table alias to prefix each column with, can be <code>null</code>
+     * @param columnNames The column names
+     */
+    protected void appendColumnNames(StringBuffer sql, String alias, String[] columnNames)
+    {
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            if (i > 0)
+            {
+                sql.append(", ");
+            }
+            if (alias != null)
+            {
+                sql.append(alias).append(".");
+            }
+            sql.append(columnNames[i]);
+        }
+    }
+}
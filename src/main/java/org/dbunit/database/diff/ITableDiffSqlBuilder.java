@@ -0,0 +1,103 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.diff;
+
+import org.dbunit.dataset.Column;
+
+/**
+ * Builds the SQL used to compare a table with expected rows inside of the
+ * database. The expected rows are inserted into a temporary table having the
+ * same columns as the compared table and the rows which differ are selected
+ * using set operations like <code>EXCEPT</code> or <code>MINUS</code>.
+ * <p>
+ * If the database is able to compute a fingerprint of a table the rows are
+ * only selected if the fingerprints of both tables differ.
+ * </p>
+ * <p>
+ * The given table and column names are already qualified and escaped. The
+ * temporary table name is used as returned by
+ * {@link #getTemporaryTableName(String)}.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see org.dbunit.database.DatabaseConfig#PROPERTY_TABLE_DIFF_SQL_BUILDER
+ */
+public interface ITableDiffSqlBuilder
+{
+    /**
+     * Returns the name of the temporary table holding the expected rows. The
+     * name must be unique for each call, since the table may outlive the
+     * comparison, e.g. the global temporary tables of Oracle.
+     * @param tableName The unqualified name of the compared table
+     * @return The name of the temporary table
+     */
+    public String getTemporaryTableName(String tableName);
+
+    /**
+     * Builds the statements creating an empty temporary table with the given
+     * columns of the compared table. Where these statements are DDL which
+     * commits the current transaction it must be documented by the
+     * implementation.
+     * @param temporaryTableName The name of the temporary table
+     * @param tableName The qualified name of the compared table
+     * @param columnNames The columns to be compared
+     * @return The statements to be executed in the given order
+     */
+    public String[] buildCreateTemporaryTableSql(String temporaryTableName,
+            String tableName, String[] columnNames);
+
+    /**
+     * Builds the query selecting the distinct rows of a table which do not
+     * exist in another table.
+     * @param tableName The table whose rows are selected
+     * @param otherTableName The table whose rows are excluded
+     * @param columnNames The columns to be compared
+     * @return The query selecting the given columns
+     */
+    public String buildDifferenceSql(String tableName, String otherTableName,
+            String[] columnNames);
+
+    /**
+     * Builds the query computing a fingerprint of a table, selecting a single
+     * row with the row count in the first column and an order independent
+     * hash of the given columns of all rows in the second column. The hash
+     * must be the same for tables containing the same rows and must not be
+     * the same for tables containing different rows except for unlikely
+     * collisions, since the rows are not compared at all if the fingerprints
+     * match.
+     * @param tableName The table
+     * @param columnNames The columns to be compared
+     * @param columns The compared columns, in the same order as the column names
+     * @return The query or <code>null</code> if the database does not
+     * provide a suitable aggregate function or cannot hash the given columns
+     */
+    public String buildFingerprintSql(String tableName, String[] columnNames,
+            Column[] columns);
+
+    /**
+     * Builds the statements dropping the temporary table.
+     * @param temporaryTableName The name of the temporary table
+     * @return The statements to be executed in the given order
+     */
+    public String[] buildDropTemporaryTableSql(String temporaryTableName);
+}
@@ -21,19 +21,15 @@
 
 package org.dbunit.database.search;
 
-import java.sql.Connection;
-import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
-import org.dbunit.database.DatabaseConfig;
 import org.dbunit.database.IDatabaseConnection;
-import org.dbunit.database.IMetadataHandler;
 import org.dbunit.dataset.NoSuchTableException;
 import org.dbunit.util.QualifiedTableName;
-import org.dbunit.util.SQLHelper;
 import org.dbunit.util.search.AbstractNodesFilterSearchCallback;
 import org.dbunit.util.search.IEdge;
 import org.dbunit.util.search.SearchException;
@@ -42,7 +38,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Super-class for the ISearchCallback that implements the
- * <code>getEdges()</code> method using the database meta-data.
+ * <code>getEdges()</code> method using the database meta-data.<br>
+ * The foreign keys are read from a {@link ForeignKeyGraph}, which is created
+ * on first use unless it is given to the constructor.
  * 
  * @author Felipe Leme (dbunit@felipeal.net)
  * @version $Revision$
@@ -57,12 +55,31 @@ public abstract class AbstractMetaDataBasedSearchCallback extends AbstractNodesF
 
     private final IDatabaseConnection connection;
 
+    private ForeignKeyGraph graph;
+
+    /**
+     * Table names the graph has been created for, if it has been created by this callback
+     */
+    private List graphTableNames;
+
     /**
      * Default constructor.
      * @param connection connection where the edges will be calculated from
      */
     public AbstractMetaDataBasedSearchCallback(IDatabaseConnection connection) {
+        this(connection, null);
+    }
+
+    /**
+     * Creates a callback reading the edges from the given foreign keys.
+     * @param connection connection where the edges will be calculated from
+     * @param graph the foreign keys of the database, or <code>null</code> to
+     * retrieve them from the connection on first use
+     * @since 2.4.10
+     */
+    public AbstractMetaDataBasedSearchCallback(IDatabaseConnection connection, ForeignKeyGraph graph) {
         this.connection = connection;
+        this.graph = graph;
     }
 
     /**
@@ -137,103 +154,77 @@ public abstract class AbstractMetaDataBasedSearchCallback extends AbstractNodesF
         return importedNodes;
     }
 
-    private SortedSet getNodes(int type, Object node) throws SearchException {
-    	if(logger.isDebugEnabled())
-    		logger.debug("getNodes(type={}, node={}) - start", Integer.toString(type), node);
-
-        try {
-            Connection conn = this.connection.getConnection();
-            String schema = this.connection.getSchema();
-            DatabaseMetaData metaData = conn.getMetaData();
-            SortedSet edges = new TreeSet();
-            getNodes(type, node, conn, schema, metaData, edges);
-            return edges;
-        } catch (SQLException e) {
-            throw new SearchException(e);
-        } catch (NoSuchTableException e) {
-            throw new SearchException(e);
+    /**
+     * Get the foreign keys the edges are calculated from.
+     * @param tableName name of the table whose edges are needed
+     * @return the foreign keys
+     * @throws SearchException if the foreign keys cannot be retrieved
+     */
+    private ForeignKeyGraph getGraph(String tableName) throws SearchException {
+        if (this.graph == null) {
+            this.graphTableNames = new ArrayList();
+            this.graphTableNames.add(tableName);
+        }
+        else if (this.graphTableNames != null && this.graph.indexOf(tableName) < 0
+                && new QualifiedTableName(tableName, null).getSchema() != null
+                && !this.graphTableNames.contains(tableName)) {
+            // The table may belong to a schema which has not been loaded yet
+            this.graphTableNames.add(tableName);
         }
+        else {
+            return this.graph;
+        }
+        this.graph = ForeignKeyGraph.create(this.connection,
+                (String[]) this.graphTableNames.toArray(new String[0]));
+        return this.graph;
     }
 
-    private void getNodes(int type, Object node, Connection conn,
-            String schema, DatabaseMetaData metaData, SortedSet edges)
-    throws SearchException, NoSuchTableException 
-    {
+    private SortedSet getNodes(int type, Object node) throws SearchException {
         if (logger.isDebugEnabled())
         {
-            logger.debug("getNodes(type={}, node={}, conn={}, schema={}, metaData={}, edges={}) - start", 
-                    new Object[] {String.valueOf(type), node, conn, schema, metaData, edges});
+            logger.debug("getNodes(type={}, node={}) - start", Integer.toString(type), node);
             logger.debug("Getting edges for node " + node);
         }
-        
+
         if (!(node instanceof String)) {
             throw new IllegalArgumentException("node '" + node + "' should be a String, not a "
                     + node.getClass().getName());
         }
         String tableName = (String) node;
 
-    	QualifiedTableName qualifiedTableName = new QualifiedTableName(tableName, schema);
-    	schema = qualifiedTableName.getSchema();
-    	tableName = qualifiedTableName.getTable();
-        
-        ResultSet rs = null;
+        ForeignKeyGraph graph = getGraph(tableName);
+        int table;
         try {
-            IMetadataHandler metadataHandler = (IMetadataHandler) 
-                    this.connection.getConfig().getProperty(DatabaseConfig.PROPERTY_METADATA_HANDLER);
-            // Validate if the table exists
-            if(!metadataHandler.tableExists(metaData, schema, tableName))
-            {
-                throw new NoSuchTableException("The table '"+tableName+"' does not exist in schema '"+schema+"'");
-            }
-
-            switch (type) {
-            case IMPORT:
-                rs = metaData.getImportedKeys(null, schema, tableName);
-                break;
-            case EXPORT:
-                rs = metaData.getExportedKeys(null, schema, tableName);
-                break;
-            }
-            
-            
-            
-            DatabaseConfig dbConfig = this.connection.getConfig();
-            while (rs.next()) {
-                int index = TABLENAME_INDEXES[type];
-                int schemaindex = SCHEMANAME_INDEXES[type];
-                String dependentTableName = rs.getString(index);
-                String dependentSchemaName = rs.getString(schemaindex);
-                String pkColumn = rs.getString( PK_INDEXES[type] );
-                String fkColumn = rs.getString( FK_INDEXES[type] );
-
-                // set the schema in front if there is none ("SCHEMA.TABLE") - depending on the "qualified table names" feature
-            	tableName = new QualifiedTableName(tableName, schema).getQualifiedNameIfEnabled(dbConfig);
-            	dependentTableName = new QualifiedTableName(dependentTableName, dependentSchemaName).getQualifiedNameIfEnabled(dbConfig);
-                
-                IEdge edge = newEdge(rs, type, tableName, dependentTableName, fkColumn, pkColumn );
-                if ( logger.isDebugEnabled() ) {
-                    logger.debug("Adding edge " + edge);
-                }
-                edges.add(edge);
-            }
-        } 
-        catch (SQLException e) {
+            table = graph.getTableIndex(tableName);
+        } catch (NoSuchTableException e) {
             throw new SearchException(e);
         }
-        finally
-        {
-        	try {
-        		SQLHelper.close(rs);
-            } catch (SQLException e) {
-                throw new SearchException(e);
-            }        		
+
+        // set the schema in front if there is none ("SCHEMA.TABLE") - depending on the "qualified table names" feature
+        tableName = new QualifiedTableName(tableName, this.connection.getSchema())
+                .getQualifiedNameIfEnabled(this.connection.getConfig());
+
+        SortedSet edges = new TreeSet();
+        int[] tableEdges = type == IMPORT ? graph.getImportedEdges(table) : graph.getExportedEdges(table);
+        for (int i = 0; i < tableEdges.length; i++) {
+            int dependentTable = type == IMPORT ? graph.getEdgeTo(tableEdges[i]) : graph.getEdgeFrom(tableEdges[i]);
+            String dependentTableName = graph.getTableName(dependentTable);
+            String pkColumn = graph.getPKColumn(tableEdges[i]);
+            String fkColumn = graph.getFKColumn(tableEdges[i]);
+
+            IEdge edge = newEdge(type, tableName, dependentTableName, fkColumn, pkColumn );
+            if ( logger.isDebugEnabled() ) {
+                logger.debug("Adding edge " + edge);
+            }
+            edges.add(edge);
         }
+        return edges;
     }
 
 
     /**
      * Creates an edge representing a foreign key relationship between 2 tables.<br>
-     * @param rs database meta-data result set
+     * @param rs ignored
      * @param type type of relationship (IMPORT or EXPORT)
      * @param from name of the table representing the 'from' node
      * @param to name of the table representing the 'to' node
@@ -242,13 +233,32 @@ public abstract class AbstractMetaDataBasedSearchCallback extends AbstractNodesF
      * @return edge representing the relationship between the 2 tables, according to 
      * the type
      * @throws SearchException not thrown in this method (but might on sub-classes)
+     * @deprecated since 2.4.10, use {@link #createFKEdge(int, String, String, String, String)}
      */
     protected static ForeignKeyRelationshipEdge createFKEdge(ResultSet rs, int type, 
             String from, String to, String fkColumn, String pkColumn)
+    throws SearchException {
+        return createFKEdge(type, from, to, fkColumn, pkColumn);
+    }
+
+    /**
+     * Creates an edge representing a foreign key relationship between 2 tables.<br>
+     * @param type type of relationship (IMPORT or EXPORT)
+     * @param from name of the table representing the 'from' node
+     * @param to name of the table representing the 'to' node
+     * @param fkColumn name of the foreign key column
+     * @param pkColumn name of the primary key column
+     * @return edge representing the relationship between the 2 tables, according to 
+     * the type
+     * @throws SearchException not thrown in this method (but might on sub-classes)
+     * @since 2.4.10
+     */
+    protected static ForeignKeyRelationshipEdge createFKEdge(int type, 
+            String from, String to, String fkColumn, String pkColumn)
     throws SearchException {
         if (logger.isDebugEnabled()) {
-            logger.debug("createFKEdge(rs={}, type={}, from={}, to={}, fkColumn={}, pkColumn={}) - start",
-                    new Object[] {rs, String.valueOf(type), from, to, fkColumn, pkColumn});
+            logger.debug("createFKEdge(type={}, from={}, to={}, fkColumn={}, pkColumn={}) - start",
+                    new Object[] {String.valueOf(type), from, to, fkColumn, pkColumn});
         }
 
         return type == IMPORT ? 
@@ -260,8 +270,12 @@ public abstract class AbstractMetaDataBasedSearchCallback extends AbstractNodesF
     /**
      * This method can be overwritten by the sub-classes if they need to decorate
      * the edge (for instance, providing an Edge that contains the primary and 
-     * foreign keys used).
-     * @param rs database meta-data result set
+     * foreign keys used).<br>
+     * <strong>NOTE:</strong> since 2.4.10 the edges are read from a {@link ForeignKeyGraph}
+     * instead of the <code>DatabaseMetaData</code> result sets. This method is
+     * still called by {@link #newEdge(int, String, String, String, String)}, but
+     * <code>rs</code> is always <code>null</code>.
+     * @param rs always <code>null</code>
      * @param type type of relationship (IMPORT or EXPORT)
      * @param from name of the table representing the 'from' node
      * @param to name of the table representing the 'to' node
@@ -270,14 +284,37 @@ public abstract class AbstractMetaDataBasedSearchCallback extends AbstractNodesF
      * @return edge representing the relationship between the 2 tables, according to 
      * the type
      * @throws SearchException not thrown in this method (but might on sub-classes)
+     * @deprecated since 2.4.10, override {@link #newEdge(int, String, String, String, String)}
      */
     protected IEdge newEdge(ResultSet rs, int type, String from, String to, String fkColumn, String pkColumn)
+    throws SearchException {
+        return createFKEdge( type, from, to, fkColumn, pkColumn );
+    }
+
+    /**
+     * This method can be overwritten by the sub-classes if they need to decorate
+     * the edge (for instance, providing an Edge that contains the primary and 
+     * foreign keys used).<br>
+     * The default implementation calls the deprecated
+     * {@link #newEdge(ResultSet, int, String, String, String, String)} so that
+     * existing sub-classes overriding it keep working.
+     * @param type type of relationship (IMPORT or EXPORT)
+     * @param from name of the table representing the 'from' node
+     * @param to name of the table representing the 'to' node
+     * @param fkColumn name of the foreign key column
+     * @param pkColumn name of the primary key column
+     * @return edge representing the relationship between the 2 tables, according to 
+     * the type
+     * @throws SearchException not thrown in this method (but might on sub-classes)
+     * @since 2.4.10
+     */
+    protected IEdge newEdge(int type, String from, String to, String fkColumn, String pkColumn)
     throws SearchException {
         if (logger.isDebugEnabled()) {
-            logger.debug("newEdge(rs={}, type={}, from={}, to={}, fkColumn={}, pkColumn={}) - start",
-                    new Object[] {rs, String.valueOf(type), from, to, fkColumn, pkColumn});
+            logger.debug("newEdge(type={}, from={}, to={}, fkColumn={}, pkColumn={}) - start",
+                    new Object[] {String.valueOf(type), from, to, fkColumn, pkColumn});
         }
 
-        return createFKEdge( rs, type, from, to, fkColumn, pkColumn );
+        return newEdge( null, type, from, to, fkColumn, pkColumn );
     }
 }
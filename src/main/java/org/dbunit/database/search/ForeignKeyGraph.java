@@ -0,0 +1,732 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.search;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.DefaultSchemaMetadataLoader;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IMetadataHandler;
+import org.dbunit.database.ISchemaMetadataLoader;
+import org.dbunit.dataset.NoSuchTableException;
+import org.dbunit.util.QualifiedTableName;
+import org.dbunit.util.SQLHelper;
+import org.dbunit.util.search.SearchException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Immutable snapshot of the foreign keys between the tables of one or more
+ * schemas, used to calculate the dependencies among tables without further
+ * database lookups.
+ * <p>
+ * The snapshot is created using one query for the imported keys of all
+ * tables of a schema, see {@link ISchemaMetadataLoader#getImportedKeys(IDatabaseConnection, String)}.
+ * The schemas of tables referenced by a foreign key are loaded as well.
+ * If the configured loader cannot return the keys of a whole schema they are
+ * looked up once for every table of the schema.
+ * </p>
+ * <p>
+ * The tables are identified by their index. For every table the direct
+ * relationships are kept as arrays of table indexes. The transitive
+ * relationships are computed on first use and cached.
+ * </p>
+ * <p>
+ * The edges between tables point from the table having the foreign key to
+ * the table having the primary key: the tables <i>imported</i> by a table
+ * are the tables it references, the tables <i>exported</i> by a table are
+ * the tables referencing it.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public final class ForeignKeyGraph
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ForeignKeyGraph.class);
+
+    private static final int[] NO_TABLES = new int[0];
+
+    private final String[] tableNames;
+    private final Map indexes;
+    private final Map unqualifiedIndexes;
+    private final String defaultSchema;
+    private final boolean caseSensitive;
+
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final String[] fkColumns;
+    private final String[] pkColumns;
+
+    private final int[][] importedEdges;
+    private final int[][] exportedEdges;
+    private final int[][] importedTables;
+    private final int[][] exportedTables;
+
+    /**
+     * Transitive relationships, computed on first use
+     */
+    private final BitSet[] allImportedTables;
+    private final BitSet[] allExportedTables;
+
+    private ForeignKeyGraph(Builder builder)
+    {
+        this.tableNames = (String[])builder.tableNames.toArray(new String[0]);
+        this.indexes = builder.indexes;
+        this.unqualifiedIndexes = builder.unqualifiedIndexes;
+        this.defaultSchema = builder.defaultSchema;
+        this.caseSensitive = builder.caseSensitive;
+
+        int tableCount = this.tableNames.length;
+        int edgeCount = builder.edges.size();
+        this.edgeFrom = new int[edgeCount];
+        this.edgeTo = new int[edgeCount];
+        this.fkColumns = new String[edgeCount];
+        this.pkColumns = new String[edgeCount];
+
+        // Keep the order of the JDBC metadata: imported keys ordered by the
+        // referenced table, exported keys by the referencing table
+        List edges = new ArrayList(builder.edges);
+        Collections.sort(edges, new EdgeComparator(builder.tableNames, false));
+        for (int i = 0; i < edgeCount; i++)
+        {
+            EdgeData edge = (EdgeData)edges.get(i);
+            this.edgeFrom[i] = edge.from;
+            this.edgeTo[i] = edge.to;
+            this.fkColumns[i] = edge.fkColumn;
+            this.pkColumns[i] = edge.pkColumn;
+            edge.index = i;
+        }
+        this.importedEdges = groupEdges(edges, tableCount, false);
+        Collections.sort(edges, new EdgeComparator(builder.tableNames, true));
+        this.exportedEdges = groupEdges(edges, tableCount, true);
+
+        this.importedTables = new int[tableCount][];
+        this.exportedTables = new int[tableCount][];
+        for (int i = 0; i < tableCount; i++)
+        {
+            this.importedTables[i] = toTables(this.importedEdges[i], this.edgeTo, tableCount);
+            this.exportedTables[i] = toTables(this.exportedEdges[i], this.edgeFrom, tableCount);
+        }
+        this.allImportedTables = new BitSet[tableCount];
+        this.allExportedTables = new BitSet[tableCount];
+    }
+
+    /**
+     * Creates the snapshot of the foreign keys of the schema of the given
+     * connection.
+     * @param connection The database connection
+     * @return The snapshot
+     * @throws SearchException If the foreign keys cannot be retrieved
+     */
+    public static ForeignKeyGraph create(IDatabaseConnection connection) throws SearchException
+    {
+        return create(connection, null);
+    }
+
+    /**
+     * Creates the snapshot of the foreign keys of the schema of the given
+     * connection and of the schemas of the given qualified table names.
+     * @param connection The database connection
+     * @param tableNames The tables whose schemas are loaded, can be <code>null</code>
+     * @return The snapshot
+     * @throws SearchException If the foreign keys cannot be retrieved
+     */
+    public static ForeignKeyGraph create(IDatabaseConnection connection, String[] tableNames)
+    throws SearchException
+    {
+        logger.debug("create(connection={}, tableNames={}) - start", connection, tableNames);
+
+        try
+        {
+            Builder builder = new Builder(connection);
+            builder.addSchema(connection.getSchema());
+            if (tableNames != null)
+            {
+                for (int i = 0; i < tableNames.length; i++)
+                {
+                    String schema = new QualifiedTableName(tableNames[i], null).getSchema();
+                    if (schema != null)
+                    {
+                        builder.addSchema(schema);
+                    }
+                }
+            }
+            builder.load();
+            ForeignKeyGraph graph = new ForeignKeyGraph(builder);
+            logger.debug("Created {}", graph);
+            return graph;
+        }
+        catch (SQLException e)
+        {
+            throw new SearchException(e);
+        }
+    }
+
+    /**
+     * @return The number of tables
+     */
+    public int getTableCount()
+    {
+        return this.tableNames.length;
+    }
+
+    /**
+     * Returns the name of a table. It is qualified with the schema name if
+     * the feature {@link DatabaseConfig#FEATURE_QUALIFIED_TABLE_NAMES} is
+     * enabled.
+     * @param table The table index
+     * @return The table name
+     */
+    public String getTableName(int table)
+    {
+        return this.tableNames[table];
+    }
+
+    /**
+     * Returns the index of a table. Table names which are not qualified
+     * belong to the schema of the connection, or to any loaded schema if
+     * the connection has no schema.
+     * @param tableName The table name, optionally qualified with the schema
+     * @return The index of the table, or <code>-1</code> if it is unknown
+     */
+    public int indexOf(String tableName)
+    {
+        QualifiedTableName qualifiedTableName = new QualifiedTableName(tableName, this.defaultSchema);
+        Integer index = null;
+        if (qualifiedTableName.getSchema() != null)
+        {
+            index = (Integer)this.indexes.get(toKey(qualifiedTableName.getSchema(),
+                    qualifiedTableName.getTable(), this.caseSensitive));
+        }
+        // The schema reported by the driver may differ from the one of the connection
+        if (index == null && new QualifiedTableName(tableName, null).getSchema() == null)
+        {
+            index = (Integer)this.unqualifiedIndexes.get(
+                    toKey(qualifiedTableName.getTable(), this.caseSensitive));
+        }
+        return index == null ? -1 : index.intValue();
+    }
+
+    /**
+     * Returns the index of a table like {@link #indexOf(String)} does.
+     * @param tableName The table name, optionally qualified with the schema
+     * @return The index of the table
+     * @throws NoSuchTableException If the table is unknown
+     */
+    public int getTableIndex(String tableName) throws NoSuchTableException
+    {
+        int table = indexOf(tableName);
+        if (table < 0)
+        {
+            QualifiedTableName qualifiedTableName = new QualifiedTableName(tableName, this.defaultSchema);
+            throw new NoSuchTableException("The table '" + qualifiedTableName.getTable()
+                    + "' does not exist in schema '" + qualifiedTableName.getSchema() + "'");
+        }
+        return table;
+    }
+
+    /**
+     * Returns the tables directly referenced by the foreign keys of a table.
+     * @param table The table index
+     * @return The indexes of the referenced tables in ascending order,
+     * including the table itself if it references itself
+     */
+    public int[] getImportedTables(int table)
+    {
+        return (int[])this.importedTables[table].clone();
+    }
+
+    /**
+     * Returns the tables whose foreign keys directly reference a table.
+     * @param table The table index
+     * @return The indexes of the referencing tables in ascending order,
+     * including the table itself if it references itself
+     */
+    public int[] getExportedTables(int table)
+    {
+        return (int[])this.exportedTables[table].clone();
+    }
+
+    /**
+     * Returns all tables a table depends on, i.e. the tables it references
+     * directly or indirectly. The table itself is only contained if it is
+     * part of a cycle.
+     * @param table The table index
+     * @return The indexes of the referenced tables
+     */
+    public BitSet getAllImportedTables(int table)
+    {
+        synchronized (this.allImportedTables)
+        {
+            if (this.allImportedTables[table] == null)
+            {
+                this.allImportedTables[table] = closure(table, this.importedTables);
+            }
+            return (BitSet)this.allImportedTables[table].clone();
+        }
+    }
+
+    /**
+     * Returns all tables depending on a table, i.e. the tables referencing
+     * it directly or indirectly. The table itself is only contained if it is
+     * part of a cycle.
+     * @param table The table index
+     * @return The indexes of the referencing tables
+     */
+    public BitSet getAllExportedTables(int table)
+    {
+        synchronized (this.allExportedTables)
+        {
+            if (this.allExportedTables[table] == null)
+            {
+                this.allExportedTables[table] = closure(table, this.exportedTables);
+            }
+            return (BitSet)this.allExportedTables[table].clone();
+        }
+    }
+
+    /**
+     * Returns the columns of the foreign keys by which a table references
+     * another one.
+     * @param table The index of the table having the foreign keys
+     * @param referencedTable The index of the referenced table
+     * @return The names of the foreign key columns, empty if the table does
+     * not reference the other one
+     */
+    public String[] getForeignKeyColumns(int table, int referencedTable)
+    {
+        List columns = new ArrayList();
+        int[] edges = this.importedEdges[table];
+        for (int i = 0; i < edges.length; i++)
+        {
+            if (this.edgeTo[edges[i]] == referencedTable)
+            {
+                columns.add(this.fkColumns[edges[i]]);
+            }
+        }
+        return (String[])columns.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the foreign key columns of a table, ordered by the referenced table.
+     * @param table The table index
+     * @return The indexes of the edges whose <code>from</code> table is the given table
+     */
+    int[] getImportedEdges(int table)
+    {
+        return this.importedEdges[table];
+    }
+
+    /**
+     * Returns the foreign key columns referencing a table, ordered by the
+     * referencing table.
+     * @param table The table index
+     * @return The indexes of the edges whose <code>to</code> table is the given table
+     */
+    int[] getExportedEdges(int table)
+    {
+        return this.exportedEdges[table];
+    }
+
+    /**
+     * @param edge The edge index
+     * @return The index of the table having the foreign key
+     */
+    int getEdgeFrom(int edge)
+    {
+        return this.edgeFrom[edge];
+    }
+
+    /**
+     * @param edge The edge index
+     * @return The index of the table having the primary key
+     */
+    int getEdgeTo(int edge)
+    {
+        return this.edgeTo[edge];
+    }
+
+    /**
+     * @param edge The edge index
+     * @return The name of the foreign key column
+     */
+    String getFKColumn(int edge)
+    {
+        return this.fkColumns[edge];
+    }
+
+    /**
+     * @param edge The edge index
+     * @return The name of the referenced primary key column
+     */
+    String getPKColumn(int edge)
+    {
+        return this.pkColumns[edge];
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("tables=").append(this.tableNames.length);
+        sb.append(", foreignKeyColumns=").append(this.edgeFrom.length);
+        sb.append(", defaultSchema=").append(this.defaultSchema);
+        sb.append("]");
+        return sb.toString();
+    }
+
+    private static BitSet closure(int table, int[][] adjacency)
+    {
+        BitSet result = new BitSet(adjacency.length);
+        int[] stack = new int[adjacency.length];
+        int size = 0;
+        stack[size++] = table;
+        while (size > 0)
+        {
+            int[] next = adjacency[stack[--size]];
+            for (int i = 0; i < next.length; i++)
+            {
+                if (!result.get(next[i]))
+                {
+                    result.set(next[i]);
+                    stack[size++] = next[i];
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int[][] groupEdges(List edges, int tableCount, boolean byTo)
+    {
+        int[] counts = new int[tableCount];
+        for (int i = 0; i < edges.size(); i++)
+        {
+            EdgeData edge = (EdgeData)edges.get(i);
+            counts[byTo ? edge.to : edge.from]++;
+        }
+        int[][] result = new int[tableCount][];
+        for (int i = 0; i < tableCount; i++)
+        {
+            result[i] = counts[i] == 0 ? NO_TABLES : new int[counts[i]];
+            counts[i] = 0;
+        }
+        for (int i = 0; i < edges.size(); i++)
+        {
+            EdgeData edge = (EdgeData)edges.get(i);
+            int table = byTo ? edge.to : edge.from;
+            result[table][counts[table]++] = edge.index;
+        }
+        return result;
+    }
+
+    private static int[] toTables(int[] edges, int[] edgeTables, int tableCount)
+    {
+        if (edges.length == 0)
+        {
+            return NO_TABLES;
+        }
+        BitSet tables = new BitSet(tableCount);
+        for (int i = 0; i < edges.length; i++)
+        {
+            tables.set(edgeTables[edges[i]]);
+        }
+        int[] result = new int[tables.cardinality()];
+        int j = 0;
+        for (int i = tables.nextSetBit(0); i >= 0; i = tables.nextSetBit(i + 1))
+        {
+            result[j++] = i;
+        }
+        return result;
+    }
+
+    private static String toKey(String tableName, boolean caseSensitive)
+    {
+        return caseSensitive ? tableName : tableName.toUpperCase();
+    }
+
+    private static String toKey(String schema, String tableName, boolean caseSensitive)
+    {
+        return toKey(schema + "." + tableName, caseSensitive);
+    }
+
+
+    /**
+     * A foreign key column read from the database metadata.
+     */
+    private static class EdgeData
+    {
+        private final int from;
+        private final int to;
+        private final String fkColumn;
+        private final String pkColumn;
+        private final int keySeq;
+        private int index;
+
+        EdgeData(int from, int to, String fkColumn, String pkColumn, int keySeq)
+        {
+            this.from = from;
+            this.to = to;
+            this.fkColumn = fkColumn;
+            this.pkColumn = pkColumn;
+            this.keySeq = keySeq;
+        }
+    }
+
+
+    /**
+     * Orders the edges of a table like {@link DatabaseMetaData#getImportedKeys(String, String, String)}
+     * or {@link DatabaseMetaData#getExportedKeys(String, String, String)} do.
+     */
+    private static class EdgeComparator implements Comparator
+    {
+        private final List sortNames;
+        private final boolean byTo;
+
+        EdgeComparator(List tableNames, boolean byTo)
+        {
+            this.sortNames = tableNames;
+            this.byTo = byTo;
+        }
+
+        public int compare(Object o1, Object o2)
+        {
+            EdgeData edge1 = (EdgeData)o1;
+            EdgeData edge2 = (EdgeData)o2;
+            int table1 = this.byTo ? edge1.to : edge1.from;
+            int table2 = this.byTo ? edge2.to : edge2.from;
+            if (table1 != table2)
+            {
+                return table1 - table2;
+            }
+            int other1 = this.byTo ? edge1.from : edge1.to;
+            int other2 = this.byTo ? edge2.from : edge2.to;
+            int result = ((String)this.sortNames.get(other1)).compareTo(
+                    (String)this.sortNames.get(other2));
+            if (result == 0)
+            {
+                result = other1 - other2;
+            }
+            if (result == 0)
+            {
+                result = edge1.keySeq - edge2.keySeq;
+            }
+            return result;
+        }
+    }
+
+
+    /**
+     * Collects the tables and foreign keys of the loaded schemas.
+     */
+    private static class Builder
+    {
+        private final IDatabaseConnection connection;
+        private final DatabaseConfig config;
+        private final boolean caseSensitive;
+        private final String defaultSchema;
+
+        private final List tableNames = new ArrayList();
+        /**
+         * The schema and the unqualified name of every table
+         */
+        private final List tables = new ArrayList();
+        private final Map indexes = new HashMap();
+        private final Map unqualifiedIndexes = new HashMap();
+        private final List edges = new ArrayList();
+
+        private final LinkedList pendingSchemas = new LinkedList();
+        private final Set loadedSchemas = new HashSet();
+        private boolean allSchemasLoaded = false;
+
+        Builder(IDatabaseConnection connection)
+        {
+            this.connection = connection;
+            this.config = connection.getConfig();
+            this.caseSensitive = this.config.getFeature(
+                    DatabaseConfig.FEATURE_CASE_SENSITIVE_TABLE_NAMES);
+            this.defaultSchema = connection.getSchema();
+        }
+
+        void addSchema(String schema)
+        {
+            if (this.allSchemasLoaded)
+            {
+                return;
+            }
+            if (schema == null)
+            {
+                this.pendingSchemas.add(null);
+            }
+            else if (this.loadedSchemas.add(toKey(schema, this.caseSensitive)))
+            {
+                this.pendingSchemas.add(schema);
+            }
+        }
+
+        void load() throws SQLException
+        {
+            while (!this.pendingSchemas.isEmpty())
+            {
+                String schema = (String)this.pendingSchemas.removeFirst();
+                loadSchema(schema);
+                if (schema == null)
+                {
+                    this.allSchemasLoaded = true;
+                    this.pendingSchemas.clear();
+                }
+            }
+        }
+
+        private void loadSchema(String schema) throws SQLException
+        {
+            logger.debug("loadSchema(schema={}) - start", schema);
+
+            DatabaseMetaData metaData = this.connection.getConnection().getMetaData();
+            IMetadataHandler metadataHandler = (IMetadataHandler)this.config.getProperty(
+                    DatabaseConfig.PROPERTY_METADATA_HANDLER);
+            String[] tableTypes = (String[])this.config.getProperty(DatabaseConfig.PROPERTY_TABLE_TYPE);
+
+            List schemaTables = new ArrayList();
+            ResultSet resultSet = metadataHandler.getTables(metaData, schema, tableTypes);
+            try
+            {
+                while (resultSet.next())
+                {
+                    String schemaName = metadataHandler.getSchema(resultSet);
+                    String tableName = resultSet.getString(3);
+                    schemaTables.add(new Integer(addTable(schemaName, tableName)));
+                }
+            }
+            finally
+            {
+                SQLHelper.close(resultSet);
+            }
+
+            ISchemaMetadataLoader metadataLoader = (ISchemaMetadataLoader)this.config.getProperty(
+                    DatabaseConfig.PROPERTY_SCHEMA_METADATA_LOADER);
+            if (metadataLoader == null)
+            {
+                metadataLoader = new DefaultSchemaMetadataLoader();
+            }
+            resultSet = metadataLoader.getImportedKeys(this.connection, schema);
+            if (resultSet != null)
+            {
+                try
+                {
+                    addImportedKeys(resultSet);
+                }
+                finally
+                {
+                    SQLHelper.close(resultSet, resultSet.getStatement());
+                }
+                return;
+            }
+
+            logger.debug("Looking up the imported keys of {} tables separately",
+                    String.valueOf(schemaTables.size()));
+            for (int i = 0; i < schemaTables.size(); i++)
+            {
+                String[] table = (String[])this.tables.get(((Integer)schemaTables.get(i)).intValue());
+                resultSet = metaData.getImportedKeys(null, table[0], table[1]);
+                try
+                {
+                    addImportedKeys(resultSet);
+                }
+                finally
+                {
+                    SQLHelper.close(resultSet);
+                }
+            }
+        }
+
+        private void addImportedKeys(ResultSet resultSet) throws SQLException
+        {
+            while (resultSet.next())
+            {
+                String pkSchema = getSchema(resultSet, 1, 2);
+                String pkTable = resultSet.getString(3);
+                String pkColumn = resultSet.getString(4);
+                String fkSchema = getSchema(resultSet, 5, 6);
+                String fkTable = resultSet.getString(7);
+                String fkColumn = resultSet.getString(8);
+                int keySeq = resultSet.getInt(9);
+
+                int from = addTable(fkSchema, fkTable);
+                int to = addTable(pkSchema, pkTable);
+                this.edges.add(new EdgeData(from, to, fkColumn, pkColumn, keySeq));
+                if (pkSchema != null)
+                {
+                    // The referenced table may have foreign keys as well
+                    addSchema(pkSchema);
+                }
+            }
+        }
+
+        private String getSchema(ResultSet resultSet, int catalogIndex, int schemaIndex)
+        throws SQLException
+        {
+            String schema = resultSet.getString(schemaIndex);
+            // MySQL only provides the catalog
+            return schema != null ? schema : resultSet.getString(catalogIndex);
+        }
+
+        private int addTable(String schema, String tableName)
+        {
+            String key = toKey(schema, tableName, this.caseSensitive);
+            Integer index = (Integer)this.indexes.get(key);
+            if (index != null)
+            {
+                return index.intValue();
+            }
+
+            index = new Integer(this.tables.size());
+            this.tables.add(new String[] {schema, tableName});
+            this.tableNames.add(new QualifiedTableName(tableName, schema)
+                    .getQualifiedNameIfEnabled(this.config));
+            this.indexes.put(key, index);
+            String unqualifiedKey = toKey(tableName, this.caseSensitive);
+            if (!this.unqualifiedIndexes.containsKey(unqualifiedKey))
+            {
+                this.unqualifiedIndexes.put(unqualifiedKey, index);
+            }
+            return index.intValue();
+        }
+    }
+}
@@ -47,6 +47,16 @@ public class ImportedKeysSearchCallback extends
         super(connection);
     }
 
+    /**
+     * @param connection connection where the edges will be calculated from
+     * @param graph the foreign keys of the database, or <code>null</code> to
+     * retrieve them from the connection on first use
+     * @since 2.4.10
+     */
+    public ImportedKeysSearchCallback(IDatabaseConnection connection, ForeignKeyGraph graph) {
+        super(connection, graph);
+    }
+
     public SortedSet getEdges(Object node) throws SearchException {
         logger.debug("getEdges(node={}) - start", node);
 
@@ -21,8 +21,6 @@
 
 package org.dbunit.database.search;
 
-import java.sql.ResultSet;
-
 import org.dbunit.database.IDatabaseConnection;
 import org.dbunit.database.PrimaryKeyFilter;
 import org.dbunit.database.PrimaryKeyFilter.PkTableMap;
@@ -56,7 +54,21 @@ public class ImportedKeysSearchCallbackFilteredByPKs extends ImportedKeysSearchC
    * of a table; value is a Set with allowed primary keys for that table)
    */
   public ImportedKeysSearchCallbackFilteredByPKs(IDatabaseConnection connection, PkTableMap allowedPKs) {
-    super(connection);
+    this(connection, allowedPKs, null);
+  }
+
+  /**
+   * Creates a callback reading the edges from the given foreign keys.
+   * @param connection database connection
+   * @param allowedPKs map of allowed rows, based on the primary keys (key is the name
+   * of a table; value is a Set with allowed primary keys for that table)
+   * @param graph the foreign keys of the database, or <code>null</code> to
+   * retrieve them from the connection on first use
+   * @since 2.4.10
+   */
+  public ImportedKeysSearchCallbackFilteredByPKs(IDatabaseConnection connection, PkTableMap allowedPKs,
+      ForeignKeyGraph graph) {
+    super(connection, graph);
     this.pksFilter = new PrimaryKeyFilter(connection, allowedPKs, false);
   }
   
@@ -75,13 +87,13 @@ public class ImportedKeysSearchCallbackFilteredByPKs extends ImportedKeysSearchC
     this.pksFilter.nodeAdded( node );
   }
   
-  protected IEdge newEdge(ResultSet rs, int type, String from, String to, String fkColumn, String pkColumn) throws SearchException {
+  protected IEdge newEdge(int type, String from, String to, String fkColumn, String pkColumn) throws SearchException {
 	  if (logger.isDebugEnabled())
 	  {
-        logger.debug("newEdge(rs={}, type={}, from={}, to={}, fkColumn={}, pkColumn={}) - start",
-        		new Object[]{rs, String.valueOf(type), from, to, fkColumn, pkColumn});
+        logger.debug("newEdge(type={}, from={}, to={}, fkColumn={}, pkColumn={}) - start",
+        		new Object[]{String.valueOf(type), from, to, fkColumn, pkColumn});
 	  }
-    ForeignKeyRelationshipEdge edge = createFKEdge( rs, type, from, to, fkColumn, pkColumn );
+    ForeignKeyRelationshipEdge edge = createFKEdge( type, from, to, fkColumn, pkColumn );
     this.pksFilter.edgeAdded( edge );
     return edge;
   }
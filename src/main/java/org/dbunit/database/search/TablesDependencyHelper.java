@@ -21,15 +21,27 @@
 package org.dbunit.database.search;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.collections.set.ListOrderedSet;
+import org.dbunit.database.CyclicTablesDependencyException;
+import org.dbunit.database.DatabaseConfig;
 import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.PrimaryKeyFilter;
+import org.dbunit.database.PrimaryKeyFilteredProducer;
 import org.dbunit.database.PrimaryKeyFilter.PkTableMap;
 import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.FilteredDataSet;
 import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.NoSuchTableException;
 import org.dbunit.dataset.filter.ITableFilter;
+import org.dbunit.dataset.stream.IDataSetProducer;
 import org.dbunit.util.CollectionsHelper;
 import org.dbunit.util.search.DepthFirstSearch;
 import org.dbunit.util.search.SearchException;
@@ -39,7 +51,8 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Helper for the graph-search based classes used to calculate dependency
- * among tables.  
+ * among tables.<br>
+ * Every method retrieves the foreign keys once using a {@link ForeignKeyGraph}.
  * 
  * @author Felipe Leme (dbunit@felipeal.net)
  * @author Last changed by: $Author$
@@ -58,8 +71,8 @@ public class TablesDependencyHelper {
     }
 
     /**
-     * Get the name of all tables that depend on the root tables (i.e, all tables that have FKs
-     * pointing to the PK of the root table).
+     * Get the name of all tables that the root table depends on (i.e, all tables whose PK
+     * is referenced by a FK of the root table, directly or indirectly).
      * @param connection database connection
      * @param rootTable root table described above
      * @return name of all tables that depend on the root table (including the root table), 
@@ -74,8 +87,8 @@ public class TablesDependencyHelper {
     }
 
     /**
-     * Get the name of all tables that depend on the root tables (i.e, all tables that have FKs
-     * pointing to the PK of one of the root tables).
+     * Get the name of all tables that the root tables depend on (i.e, all tables whose PK
+     * is referenced by a FK of one of the root tables, directly or indirectly).
      * @param connection database connection
      * @param rootTables array of root tables described above
      * @return name of all tables that depend on the root tables (including the root tables), 
@@ -87,18 +100,20 @@ public class TablesDependencyHelper {
     {
         logger.debug("getDependentTables(connection={}, rootTables={}) - start", connection, rootTables);
 
-        ImportedKeysSearchCallback callback = new ImportedKeysSearchCallback(connection);
+        ForeignKeyGraph graph = ForeignKeyGraph.create(connection, rootTables);
+        ImportedKeysSearchCallback callback = new ImportedKeysSearchCallback(connection, graph);
         DepthFirstSearch search = new DepthFirstSearch();
         Set tables = search.search( rootTables, callback );
         return CollectionsHelper.setToStrings( tables );
     }
 
     /**
-     * Get the name of all tables that the given rootTable depends on (i.e, all tables whose PK is a FK for the root table). 
+     * Get the name of all tables that depend on the given rootTable (i.e, all tables having a FK
+     * for the PK of the root table, directly or indirectly). 
      * @param connection database connection
      * @param rootTable root table described above
-     * @return name of all tables that the rootTable depends on (including the rootTable itself), 
-     * in the right order for insertions
+     * @return name of all tables that depend on the rootTable (including the rootTable itself), 
+     * in the right order for deletions
      * @throws SearchException if an exception occurred while calculating the order
      * @since 2.4
      */
@@ -106,10 +121,28 @@ public class TablesDependencyHelper {
     throws SearchException 
     {
         logger.debug("getDependsOnTables(connection={}, rootTable={}) - start", connection, rootTable);
+        return getDependsOnTables( connection, new String[] { rootTable } );
+    }
 
-        ExportedKeysSearchCallback callback = new ExportedKeysSearchCallback(connection);
+    /**
+     * Get the name of all tables that depend on the given rootTables (i.e, all tables having a FK
+     * for the PK of one of the root tables, directly or indirectly). 
+     * @param connection database connection
+     * @param rootTables array of root tables described above
+     * @return name of all tables that depend on the rootTables (including the rootTables themselves), 
+     * in the right order for deletions
+     * @throws SearchException if an exception occurred while calculating the order
+     * @since 2.4.10
+     */
+    public static String[] getDependsOnTables( IDatabaseConnection connection, String[] rootTables ) 
+    throws SearchException 
+    {
+        logger.debug("getDependsOnTables(connection={}, rootTables={}) - start", connection, rootTables);
+
+        ForeignKeyGraph graph = ForeignKeyGraph.create(connection, rootTables);
+        ExportedKeysSearchCallback callback = new ExportedKeysSearchCallback(connection, graph);
         DepthFirstSearch search = new DepthFirstSearch();
-        Set tables = search.search( new String[]{rootTable}, callback );
+        Set tables = search.search( rootTables, callback );
         return CollectionsHelper.setToStrings( tables );
     }
 
@@ -145,7 +178,8 @@ public class TablesDependencyHelper {
     {
         logger.debug("getAllDependentTables(connection={}, rootTables={}) - start",connection, rootTables);
 
-        ImportedAndExportedKeysSearchCallback callback = new ImportedAndExportedKeysSearchCallback(connection);
+        ForeignKeyGraph graph = ForeignKeyGraph.create(connection, rootTables);
+        ImportedAndExportedKeysSearchCallback callback = new ImportedAndExportedKeysSearchCallback(connection, graph);
         DepthFirstSearch search = new DepthFirstSearch();
         Set tables = search.search(rootTables, callback);
         return CollectionsHelper.setToStrings(tables);
@@ -172,10 +206,11 @@ public class TablesDependencyHelper {
     {
         logger.debug("getDataset(connection={}, rootTables={}) - start", connection, rootTables);
 
-        ImportedKeysSearchCallbackFilteredByPKs callback = new ImportedKeysSearchCallbackFilteredByPKs(connection, rootTables);
+        String[] tableNames = rootTables.getTableNames(); 
+        ForeignKeyGraph graph = ForeignKeyGraph.create(connection, tableNames);
+        ImportedKeysSearchCallbackFilteredByPKs callback = new ImportedKeysSearchCallbackFilteredByPKs(connection, rootTables, graph);
         ITableFilter filter = callback.getFilter();
         DepthFirstSearch search = new DepthFirstSearch();
-        String[] tableNames = rootTables.getTableNames(); 
         ListOrderedSet tmpTables = search.search( tableNames, callback );
         String[] dependentTables  = CollectionsHelper.setToStrings( tmpTables );
         IDataSet tmpDataset = connection.createDataSet( dependentTables );
@@ -202,10 +237,11 @@ public class TablesDependencyHelper {
     {
         logger.debug("getAllDataset(connection={}, rootTables={}) - start", connection, rootTables);
 
-        ImportedAndExportedKeysSearchCallbackFilteredByPKs callback = new ImportedAndExportedKeysSearchCallbackFilteredByPKs(connection, rootTables);    
+        String[] tableNames = rootTables.getTableNames(); 
+        ForeignKeyGraph graph = ForeignKeyGraph.create(connection, tableNames);
+        ImportedAndExportedKeysSearchCallbackFilteredByPKs callback = new ImportedAndExportedKeysSearchCallbackFilteredByPKs(connection, rootTables, graph);    
         ITableFilter filter = callback.getFilter();
         DepthFirstSearch search = new DepthFirstSearch();
-        String[] tableNames = rootTables.getTableNames(); 
         Set tmpTables = search.search( tableNames, callback );
         String[] dependentTables  = CollectionsHelper.setToStrings( tmpTables );
         IDataSet tmpDataset = connection.createDataSet( dependentTables );
@@ -214,10 +250,63 @@ public class TablesDependencyHelper {
     }
 
     /**
-     * Returns a set of tables on which the given table directly depends on.
+     * Returns a producer streaming the rows of {@link #getDataset(IDatabaseConnection, PkTableMap)}.
+     * Only the allowed rows are read from the database, selected by their
+     * primary keys in chunks.
+     * @param connection The connection to be used for the database lookup.
+     * @param rootTables The allowed primary keys of the root tables
+     * @return The producer
+     * @throws SearchException
+     * @since 2.4.10
+     */
+    public static IDataSetProducer getDatasetProducer( IDatabaseConnection connection, PkTableMap rootTables ) 
+    throws SearchException 
+    {
+        logger.debug("getDatasetProducer(connection={}, rootTables={}) - start", connection, rootTables);
+
+        String[] tableNames = rootTables.getTableNames(); 
+        ForeignKeyGraph graph = ForeignKeyGraph.create(connection, tableNames);
+        ImportedKeysSearchCallbackFilteredByPKs callback = new ImportedKeysSearchCallbackFilteredByPKs(connection, rootTables, graph);
+        PrimaryKeyFilter filter = (PrimaryKeyFilter) callback.getFilter();
+        DepthFirstSearch search = new DepthFirstSearch();
+        Set tmpTables = search.search( tableNames, callback );
+        String[] dependentTables  = CollectionsHelper.setToStrings( tmpTables );
+        return new PrimaryKeyFilteredProducer(connection, filter, dependentTables);
+    }
+
+    /**
+     * Returns a producer streaming the rows of {@link #getAllDataset(IDatabaseConnection, PkTableMap)}.
+     * Only the allowed rows are read from the database, selected by their
+     * primary keys in chunks.
+     * @param connection The connection to be used for the database lookup.
+     * @param rootTables The allowed primary keys of the root tables
+     * @return The producer
+     * @throws SearchException
+     * @since 2.4.10
+     */
+    public static IDataSetProducer getAllDatasetProducer( IDatabaseConnection connection, PkTableMap rootTables ) 
+    throws SearchException 
+    {
+        logger.debug("getAllDatasetProducer(connection={}, rootTables={}) - start", connection, rootTables);
+
+        String[] tableNames = rootTables.getTableNames(); 
+        ForeignKeyGraph graph = ForeignKeyGraph.create(connection, tableNames);
+        ImportedAndExportedKeysSearchCallbackFilteredByPKs callback = new ImportedAndExportedKeysSearchCallbackFilteredByPKs(connection, rootTables, graph);    
+        PrimaryKeyFilter filter = (PrimaryKeyFilter) callback.getFilter();
+        DepthFirstSearch search = new DepthFirstSearch();
+        Set tmpTables = search.search( tableNames, callback );
+        String[] dependentTables  = CollectionsHelper.setToStrings( tmpTables );
+        return new PrimaryKeyFilteredProducer(connection, filter, dependentTables);
+    }
+
+    /**
+     * Returns the tables directly depending on the given table, i.e. the tables
+     * having a FK for the given table's PK. This is the first step of
+     * {@link #getDependsOnTables(IDatabaseConnection, String)}.
      * @param connection The connection to be used for the database lookup.
      * @param tableName
-     * @return a set of tables on which the given table directly depends on.
+     * @return the tables directly depending on the given table, including
+     * the table itself
      * @throws SearchException
      * @since 2.4
      */
@@ -227,18 +316,19 @@ public class TablesDependencyHelper {
         logger.debug("getDirectDependsOnTables(connection={}, tableName={}) - start", 
                     connection, tableName);
         
-        ExportedKeysSearchCallback callback = new ExportedKeysSearchCallback(connection);
-        // Do a depthFirstSearch with a recursion depth of 1
-        DepthFirstSearch search = new DepthFirstSearch(1);
-        Set tables = search.search( new String[]{tableName}, callback );
-        return tables;
+        ForeignKeyGraph graph = ForeignKeyGraph.create(connection, new String[] {tableName});
+        int table = getTableIndex(graph, tableName);
+        return toTableNames(graph, graph.getExportedTables(table), tableName);
     }
 
     /**
-     * Returns a set of tables which directly depend on the given table.
+     * Returns the tables the given table directly depends on, i.e. the tables
+     * whose PK is referenced by a FK of the given table. This is the first step of
+     * {@link #getDependentTables(IDatabaseConnection, String)}.
      * @param connection The connection to be used for the database lookup.
      * @param tableName
-     * @return a set of tables on which the given table directly depends on.
+     * @return the tables the given table directly depends on, including
+     * the table itself
      * @throws SearchException
      * @since 2.4
      */
@@ -248,11 +338,149 @@ public class TablesDependencyHelper {
         logger.debug("getDirectDependentTables(connection={}, tableName={}) - start", 
                     connection, tableName);
 
-        ImportedKeysSearchCallback callback = new ImportedKeysSearchCallback(connection);
-        // Do a depthFirstSearch with a recursion depth of 1
-        DepthFirstSearch search = new DepthFirstSearch(1);
-        Set tables = search.search( new String[]{tableName}, callback );
-        return tables;
+        ForeignKeyGraph graph = ForeignKeyGraph.create(connection, new String[] {tableName});
+        int table = getTableIndex(graph, tableName);
+        return toTableNames(graph, graph.getImportedTables(table), tableName);
+    }
+
+    private static int getTableIndex(ForeignKeyGraph graph, String tableName) throws SearchException
+    {
+        try
+        {
+            return graph.getTableIndex(tableName);
+        }
+        catch (NoSuchTableException e)
+        {
+            throw new SearchException(e);
+        }
+    }
+
+    private static Set toTableNames(ForeignKeyGraph graph, int[] tables, String tableName)
+    {
+        ListOrderedSet tableNames = new ListOrderedSet();
+        for (int i = 0; i < tables.length; i++)
+        {
+            tableNames.add(graph.getTableName(tables[i]));
+        }
+        tableNames.add(tableName);
+        return tableNames;
+    }
+
+    /**
+     * Groups the given tables into dependency levels. The first level contains the
+     * tables that do not reference any other of the given tables, every following level
+     * contains the tables whose referenced tables are contained in the previous levels.
+     * Tables of the same level do not depend on each other and can therefore be
+     * processed concurrently.
+     * @param connection The connection to be used for the database lookup.
+     * @param tableNames The tables to be grouped
+     * @return The tables grouped by level, in the right order for insertions. The
+     * order of the given tables is retained within each level.
+     * @throws SearchException if an exception occurred while retrieving the dependencies
+     * @throws CyclicTablesDependencyException if the given tables have cyclic dependencies
+     * @since 2.4.10
+     */
+    public static String[][] getDependencyLevels(IDatabaseConnection connection,
+            String[] tableNames) throws SearchException, CyclicTablesDependencyException
+    {
+        logger.debug("getDependencyLevels(connection={}, tableNames={}) - start", connection, tableNames);
+
+        ForeignKeyGraph graph = ForeignKeyGraph.create(connection, tableNames);
+        Map directDependsOn = new HashMap();
+        for (int i = 0; i < tableNames.length; i++)
+        {
+            int table = getTableIndex(graph, tableNames[i]);
+            directDependsOn.put(tableNames[i],
+                    toTableNames(graph, graph.getImportedTables(table), tableNames[i]));
+        }
+        boolean caseSensitive = connection.getConfig().getFeature(
+                DatabaseConfig.FEATURE_CASE_SENSITIVE_TABLE_NAMES);
+        return getDependencyLevels(tableNames, directDependsOn, caseSensitive);
+    }
+
+    /**
+     * Groups the given tables into dependency levels.
+     * @param tableNames The tables to be grouped
+     * @param directDependsOn Map of table names to the {@link Set} of table names
+     * the table directly references. Tables that are not contained in <code>tableNames</code>
+     * are ignored.
+     * @param caseSensitive Whether or not table names are compared case sensitive
+     * @return The tables grouped by level, in the right order for insertions
+     * @throws CyclicTablesDependencyException if the given tables have cyclic dependencies
+     * @see #getDependencyLevels(IDatabaseConnection, String[])
+     */
+    static String[][] getDependencyLevels(String[] tableNames, Map directDependsOn,
+            boolean caseSensitive) throws CyclicTablesDependencyException
+    {
+        Set allTables = new HashSet();
+        for (int i = 0; i < tableNames.length; i++)
+        {
+            allTables.add(toKey(tableNames[i], caseSensitive));
+        }
+
+        List levels = new ArrayList();
+        List remaining = new ArrayList();
+        for (int i = 0; i < tableNames.length; i++)
+        {
+            remaining.add(tableNames[i]);
+        }
+        Set processed = new HashSet();
+
+        while (!remaining.isEmpty())
+        {
+            List level = new ArrayList();
+            for (Iterator it = remaining.iterator(); it.hasNext();)
+            {
+                String tableName = (String)it.next();
+                if (isSatisfied(tableName, (Set)directDependsOn.get(tableName),
+                        allTables, processed, caseSensitive))
+                {
+                    level.add(tableName);
+                }
+            }
+
+            // No table could be added, so the remaining tables depend on each other
+            if (level.isEmpty())
+            {
+                throw new CyclicTablesDependencyException((String)remaining.get(0),
+                        new HashSet(remaining));
+            }
+
+            remaining.removeAll(level);
+            for (Iterator it = level.iterator(); it.hasNext();)
+            {
+                processed.add(toKey((String)it.next(), caseSensitive));
+            }
+            levels.add(level.toArray(new String[0]));
+        }
+        return (String[][])levels.toArray(new String[0][]);
+    }
+
+    private static boolean isSatisfied(String tableName, Set dependsOn, Set allTables,
+            Set processed, boolean caseSensitive)
+    {
+        if (dependsOn == null)
+        {
+            return true;
+        }
+
+        String tableKey = toKey(tableName, caseSensitive);
+        for (Iterator it = dependsOn.iterator(); it.hasNext();)
+        {
+            String dependsOnKey = toKey((String)it.next(), caseSensitive);
+            // Self references and tables not being processed do not impose an order
+            if (!dependsOnKey.equals(tableKey) && allTables.contains(dependsOnKey)
+                    && !processed.contains(dependsOnKey))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String toKey(String tableName, boolean caseSensitive)
+    {
+        return caseSensitive ? tableName : tableName.toUpperCase();
     }
 
 }
@@ -0,0 +1,115 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.statement;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Base class for {@link IUpsertSqlBuilder}s generating a SQL:2003
+ * <code>MERGE</code> statement. The bound values are selected as
+ * source row which is matched against the target table by primary key.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public abstract class AbstractMergeUpsertSqlBuilder implements IUpsertSqlBuilder
+{
+    public String buildUpsertSql(String tableName, String[] columnNames,
+            String[] primaryKeyNames, String[] nullColumnNames)
+    {
+        List primaryKeys = Arrays.asList(primaryKeyNames);
+
+        StringBuffer sql = new StringBuffer(256);
+        sql.append("merge into ").append(tableName).append(" t using (select ");
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            if (i > 0)
+            {
+                sql.append(", ");
+            }
+            sql.append("? ").append(columnNames[i]);
+        }
+        sql.append(getSourceSuffix()).append(") s on (");
+        for (int i = 0; i < primaryKeyNames.length; i++)
+        {
+            if (i > 0)
+            {
+                sql.append(" and ");
+            }
+            sql.append("t.").append(primaryKeyNames[i]).append(" = s.").append(primaryKeyNames[i]);
+        }
+        sql.append(")");
+
+        // update
+        String separator = " when matched then update set ";
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            if (!primaryKeys.contains(columnNames[i]))
+            {
+                sql.append(separator);
+                sql.append("t.").append(columnNames[i]).append(" = s.").append(columnNames[i]);
+                separator = ", ";
+            }
+        }
+        for (int i = 0; i < nullColumnNames.length; i++)
+        {
+            sql.append(separator);
+            sql.append("t.").append(nullColumnNames[i]).append(" = null");
+            separator = ", ";
+        }
+
+        // insert
+        sql.append(" when not matched then insert (");
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            if (i > 0)
+            {
+                sql.append(", ");
+            }
+            sql.append(columnNames[i]);
+        }
+        sql.append(") values (");
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            if (i > 0)
+            {
+                sql.append(", ");
+            }
+            sql.append("s.").append(columnNames[i]);
+        }
+        sql.append(")");
+        sql.append(getStatementTerminator());
+        return sql.toString();
+    }
+
+    /**
+     * @return The text appended to the select list of the source row, for example
+     * <code>" from dual"</code>
+     */
+    protected abstract String getSourceSuffix();
+
+    /**
+     * @return The text appended to the statement
+     */
+    protected abstract String getStatementTerminator();
+}
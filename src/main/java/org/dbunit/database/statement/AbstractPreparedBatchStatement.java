@@ -43,16 +43,60 @@ public abstract class AbstractPreparedBatchStatement implements IPreparedBatchSt
 
     protected final PreparedStatement _statement;
 
+    private final String _sql;
+    private final Connection _connection;
+    private final PreparedStatementCache _cache;
+
     AbstractPreparedBatchStatement(String sql, Connection connection)
             throws SQLException
     {
-        _statement = connection.prepareStatement(sql);
+        this(sql, connection, null);
+    }
+
+    /**
+     * @param sql The SQL of the statement
+     * @param connection The connection
+     * @param cache The cache from which the statement is borrowed and to which
+     * it is returned on close or <code>null</code> to prepare a new statement
+     * @since 2.4.10
+     */
+    AbstractPreparedBatchStatement(String sql, Connection connection,
+            PreparedStatementCache cache) throws SQLException
+    {
+        _sql = sql;
+        _connection = connection;
+        _cache = cache;
+        if (cache != null)
+        {
+            _statement = cache.borrowStatement(sql, connection);
+        }
+        else
+        {
+            _statement = connection.prepareStatement(sql);
+        }
     }
 
     public void close() throws SQLException
     {
         logger.debug("close() - start");
 
-        _statement.close();
+        if (_cache != null)
+        {
+            // Do not hand over pending rows to the next borrower
+            try
+            {
+                clearBatch();
+            }
+            catch (SQLException e)
+            {
+                _statement.close();
+                throw e;
+            }
+            _cache.returnStatement(_sql, _connection, _statement);
+        }
+        else
+        {
+            _statement.close();
+        }
     }
 }
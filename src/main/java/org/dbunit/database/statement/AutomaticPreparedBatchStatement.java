@@ -29,6 +29,19 @@ import org.dbunit.dataset.datatype.TypeCastException;
 import java.sql.SQLException;
 
 /**
+ * Executes the batch of the decorated statement every time a threshold number
+ * of rows has been added.
+ * <p>
+ * In adaptive mode the threshold is tuned while the statement is used. After each
+ * executed batch the throughput is compared to the previous batch: the threshold
+ * keeps moving in the same direction (doubling or halving) as long as the
+ * throughput improves and turns around otherwise. The threshold stays within the
+ * given bounds and is capped so that the estimated size of the bound values of one
+ * batch does not exceed the given byte limit. A batch is also executed as soon as
+ * that byte limit is reached. The final threshold is reported to the
+ * {@link IBatchSizeListener} when the statement is closed.
+ * </p>
+ *
  * @author Manuel Laflamme
  * @since Jun 12, 2003
  * @version $Revision$
@@ -41,15 +54,143 @@ public class AutomaticPreparedBatchStatement implements IPreparedBatchStatement
      */
     private static final Logger logger = LoggerFactory.getLogger(AutomaticPreparedBatchStatement.class);
 
+    /**
+     * Estimated size of values which are neither strings nor byte arrays
+     */
+    private static final int DEFAULT_VALUE_SIZE = 8;
+
     private final IPreparedBatchStatement _statement;
     private int _batchCount = 0;
     private int _threshold;
     private int _result = 0;
 
+    // adaptive mode
+    private final boolean _adaptive;
+    private final String _sql;
+    private final int _minThreshold;
+    private final int _maxThreshold;
+    private final int _maxBatchBytes;
+    private final IBatchSizeListener _listener;
+    private int _pendingCount = 0;
+    private long _pendingBytes = 0;
+    private int _rowCount = 0;
+    private long _totalBytes = 0;
+    private long _executionMillis = 0;
+    private double _lastThroughput = -1;
+    private boolean _growing = true;
+
     public AutomaticPreparedBatchStatement(IPreparedBatchStatement statement, int threshold)
     {
         _statement = statement;
         _threshold = threshold;
+
+        _adaptive = false;
+        _sql = null;
+        _minThreshold = threshold;
+        _maxThreshold = threshold;
+        _maxBatchBytes = Integer.MAX_VALUE;
+        _listener = null;
+    }
+
+    /**
+     * Creates a statement tuning its threshold.
+     * @param statement The decorated statement
+     * @param sql The SQL of the statement, reported to the listener
+     * @param threshold The initial threshold
+     * @param minThreshold The lower bound of the threshold
+     * @param maxThreshold The upper bound of the threshold
+     * @param maxBatchBytes The maximum estimated number of bytes bound per batch
+     * @param listener The listener notified of the chosen threshold, can be <code>null</code>
+     */
+    public AutomaticPreparedBatchStatement(IPreparedBatchStatement statement, String sql,
+            int threshold, int minThreshold, int maxThreshold, int maxBatchBytes,
+            IBatchSizeListener listener)
+    {
+        _statement = statement;
+        _adaptive = true;
+        _sql = sql;
+        _minThreshold = Math.max(1, minThreshold);
+        _maxThreshold = Math.max(_minThreshold, maxThreshold);
+        _maxBatchBytes = Math.max(1, maxBatchBytes);
+        _listener = listener;
+        _threshold = Math.max(_minThreshold, Math.min(_maxThreshold, threshold));
+    }
+
+    /**
+     * @return The current threshold
+     */
+    public int getThreshold()
+    {
+        return _threshold;
+    }
+
+    private int estimateSize(Object value)
+    {
+        if (value instanceof String)
+        {
+            return ((String)value).length();
+        }
+        if (value instanceof byte[])
+        {
+            return ((byte[])value).length;
+        }
+        return DEFAULT_VALUE_SIZE;
+    }
+
+    /**
+     * Executes the pending rows.
+     * @param full <code>true</code> if the batch reached the threshold or the byte limit
+     */
+    private int executePending(boolean full) throws SQLException
+    {
+        long start = System.currentTimeMillis();
+        int result = _statement.executeBatch();
+        long duration = System.currentTimeMillis() - start;
+
+        _executionMillis += duration;
+        if (full)
+        {
+            adaptThreshold(_pendingCount, duration);
+        }
+        _pendingCount = 0;
+        _pendingBytes = 0;
+        return result;
+    }
+
+    /**
+     * Moves the threshold after a full batch has been executed.
+     */
+    private void adaptThreshold(int rows, long duration)
+    {
+        // The clock resolution may be coarser than one batch
+        double throughput = (double)rows / Math.max(1, duration);
+        if (_lastThroughput >= 0 && throughput < _lastThroughput)
+        {
+            _growing = !_growing;
+        }
+        _lastThroughput = throughput;
+
+        int threshold = _growing ? _threshold * 2 : _threshold / 2;
+
+        // Stay below the byte limit
+        int bytesPerRow = getBytesPerRow();
+        if (bytesPerRow > 0)
+        {
+            threshold = Math.min(threshold, _maxBatchBytes / bytesPerRow);
+        }
+        threshold = Math.max(_minThreshold, Math.min(_maxThreshold, threshold));
+
+        if (threshold != _threshold && logger.isDebugEnabled())
+        {
+            logger.debug("Batch of {} rows took {} ms, threshold changed to {}", new Object[] {
+                    String.valueOf(rows), String.valueOf(duration), String.valueOf(threshold)});
+        }
+        _threshold = threshold;
+    }
+
+    private int getBytesPerRow()
+    {
+        return _rowCount == 0 ? 0 : (int)(_totalBytes / _rowCount);
     }
 
     ////////////////////////////////////////////////////////////////////////////
@@ -61,6 +202,12 @@ public class AutomaticPreparedBatchStatement implements IPreparedBatchStatement
         logger.debug("addValue(value={}, dataType={}) - start", value, dataType);
 
         _statement.addValue(value, dataType);
+        if (_adaptive)
+        {
+            int size = estimateSize(value);
+            _pendingBytes += size;
+            _totalBytes += size;
+        }
     }
 
     public void addBatch() throws SQLException
@@ -70,7 +217,16 @@ public class AutomaticPreparedBatchStatement implements IPreparedBatchStatement
         _statement.addBatch();
         _batchCount++;
 
-        if (_batchCount % _threshold == 0)
+        if (_adaptive)
+        {
+            _pendingCount++;
+            _rowCount++;
+            if (_pendingCount >= _threshold || _pendingBytes >= _maxBatchBytes)
+            {
+                _result += executePending(true);
+            }
+        }
+        else if (_batchCount % _threshold == 0)
         {
             _result += _statement.executeBatch();
         }
@@ -80,7 +236,14 @@ public class AutomaticPreparedBatchStatement implements IPreparedBatchStatement
     {
         logger.debug("executeBatch() - start");
 
-        _result += _statement.executeBatch();
+        if (_adaptive)
+        {
+            _result += executePending(false);
+        }
+        else
+        {
+            _result += _statement.executeBatch();
+        }
         return _result;
     }
 
@@ -90,6 +253,8 @@ public class AutomaticPreparedBatchStatement implements IPreparedBatchStatement
 
         _statement.clearBatch();
         _batchCount = 0;
+        _pendingCount = 0;
+        _pendingBytes = 0;
     }
 
     public void close() throws SQLException
@@ -97,5 +262,11 @@ public class AutomaticPreparedBatchStatement implements IPreparedBatchStatement
         logger.debug("close() - start");
 
         _statement.close();
+
+        if (_adaptive && _listener != null && _rowCount > 0)
+        {
+            _listener.batchSizeChosen(_sql, _threshold, _rowCount, getBytesPerRow(),
+                    _executionMillis);
+        }
     }
 }
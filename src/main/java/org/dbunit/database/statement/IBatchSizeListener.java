@@ -0,0 +1,50 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.statement;
+
+/**
+ * Receives the batch sizes chosen by statements running in adaptive batch size
+ * mode (see {@link org.dbunit.database.DatabaseConfig#FEATURE_ADAPTIVE_BATCH_SIZE}).
+ * The reported values can be used to configure a fixed
+ * {@link org.dbunit.database.DatabaseConfig#PROPERTY_BATCH_SIZE} afterwards.
+ * <p>
+ * An {@link org.dbunit.IOperationListener} implementing this interface is
+ * registered automatically on the connections used by the database tester.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see org.dbunit.database.DatabaseConfig#PROPERTY_BATCH_SIZE_LISTENER
+ */
+public interface IBatchSizeListener
+{
+    /**
+     * Invoked when an adaptive batch statement is closed.
+     * @param sql The SQL of the statement
+     * @param batchSize The batch size the statement ended up with
+     * @param rowCount The number of rows added to the statement
+     * @param bytesPerRow The estimated average number of bytes bound per row
+     * @param executionMillis The total time spent executing the batches
+     */
+    public void batchSizeChosen(String sql, int batchSize, int rowCount, int bytesPerRow,
+            long executionMillis);
+}
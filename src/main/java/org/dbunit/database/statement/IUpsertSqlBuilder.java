@@ -0,0 +1,54 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.statement;
+
+/**
+ * Builds the SQL of a native "upsert" statement which inserts a row or updates
+ * it if a row with the same primary key already exists, for example
+ * <code>MERGE</code> or <code>INSERT ... ON CONFLICT</code>. The statement
+ * is used by the {@link org.dbunit.operation.RefreshOperation} instead of
+ * checking the existence of each row.
+ * <p>
+ * The given table and column names are already qualified and escaped. The values
+ * of the <code>columnNames</code> are bound to the statement in the given order.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see org.dbunit.database.DatabaseConfig#PROPERTY_UPSERT_SQL_BUILDER
+ */
+public interface IUpsertSqlBuilder
+{
+    /**
+     * Builds the upsert SQL for one table.
+     * @param tableName The qualified table name
+     * @param columnNames The columns whose values are bound to the statement, in binding order.
+     * Contains all primary key columns.
+     * @param primaryKeyNames The primary key columns
+     * @param nullColumnNames Non primary key columns which are not bound and must be
+     * set to <code>null</code> when an existing row is updated
+     * @return The SQL or <code>null</code> if no upsert statement can be built for
+     * the given columns
+     */
+    public String buildUpsertSql(String tableName, String[] columnNames,
+            String[] primaryKeyNames, String[] nullColumnNames);
+}
@@ -0,0 +1,284 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.statement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the rows of an <code>insert into ... values (?, ...)</code> statement
+ * as multi-row inserts of the form <code>insert into ... values (?, ...), (?, ...)</code>
+ * to save a round trip to the database for every row.
+ * <p>
+ * The added rows are buffered until the number of rows per statement is reached.
+ * The statement for that number of rows is prepared once and reused, the
+ * statements for the remaining rows executed by {@link #executeBatch()} are
+ * cached by row count. If a {@link PreparedStatementCache} is given the statements
+ * are borrowed from it and returned on close.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class MultiRowInsertStatement implements IPreparedBatchStatement
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(MultiRowInsertStatement.class);
+
+    private final Connection _connection;
+    private final PreparedStatementCache _cache;
+    private final String _sqlPrefix;
+    private final String _rowValues;
+    private final int _parametersPerRow;
+    private final int _rowsPerStatement;
+
+    /**
+     * Cached statements by number of rows
+     */
+    private final Map _statements = new HashMap();
+
+    private final List _values = new ArrayList();
+    private final List _dataTypes = new ArrayList();
+    private int _rowCount = 0;
+    private int _valueCount = 0;
+    private int _result = 0;
+
+    /**
+     * @param sqlPrefix The statement up to and including the <code>values</code> keyword
+     * @param rowValues The parameter list of one row, for example <code>(?, ?)</code>
+     * @param parametersPerRow The number of parameters of one row
+     * @param rowsPerStatement The maximum number of rows inserted by one statement
+     * @param connection The connection
+     */
+    MultiRowInsertStatement(String sqlPrefix, String rowValues, int parametersPerRow,
+            int rowsPerStatement, Connection connection)
+    {
+        this(sqlPrefix, rowValues, parametersPerRow, rowsPerStatement, connection, null);
+    }
+
+    /**
+     * @param sqlPrefix The statement up to and including the <code>values</code> keyword
+     * @param rowValues The parameter list of one row, for example <code>(?, ?)</code>
+     * @param parametersPerRow The number of parameters of one row
+     * @param rowsPerStatement The maximum number of rows inserted by one statement
+     * @param connection The connection
+     * @param cache The cache from which the statements are borrowed or <code>null</code>
+     */
+    MultiRowInsertStatement(String sqlPrefix, String rowValues, int parametersPerRow,
+            int rowsPerStatement, Connection connection, PreparedStatementCache cache)
+    {
+        _connection = connection;
+        _cache = cache;
+        _sqlPrefix = sqlPrefix;
+        _rowValues = rowValues;
+        _parametersPerRow = parametersPerRow;
+        _rowsPerStatement = Math.max(1, rowsPerStatement);
+    }
+
+    /**
+     * Returns the SQL inserting the given number of rows.
+     */
+    String getSql(int rowCount)
+    {
+        StringBuffer sql = new StringBuffer(_sqlPrefix.length()
+                + rowCount * (_rowValues.length() + 2));
+        sql.append(_sqlPrefix);
+        for (int i = 0; i < rowCount; i++)
+        {
+            if (i > 0)
+            {
+                sql.append(", ");
+            }
+            sql.append(_rowValues);
+        }
+        return sql.toString();
+    }
+
+    private PreparedStatement getStatement(int rowCount) throws SQLException
+    {
+        Integer key = new Integer(rowCount);
+        PreparedStatement statement = (PreparedStatement)_statements.get(key);
+        if (statement == null)
+        {
+            String sql = getSql(rowCount);
+            if (_cache != null)
+            {
+                statement = _cache.borrowStatement(sql, _connection);
+            }
+            else
+            {
+                statement = _connection.prepareStatement(sql);
+            }
+            _statements.put(key, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Inserts the buffered rows.
+     */
+    private void executeRows() throws SQLException
+    {
+        if (_rowCount == 0)
+        {
+            return;
+        }
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("executeRows() - inserting {} rows", String.valueOf(_rowCount));
+        }
+
+        PreparedStatement statement = getStatement(_rowCount);
+        int parameterCount = _rowCount * _parametersPerRow;
+        for (int i = 0; i < parameterCount; i++)
+        {
+            Object value = _values.get(i);
+            DataType dataType = (DataType)_dataTypes.get(i);
+            try
+            {
+                // Special NULL handling
+                if (value == null || value == ITable.NO_VALUE)
+                {
+                    statement.setNull(i + 1, dataType.getSqlType());
+                }
+                else
+                {
+                    dataType.setSqlValue(value, i + 1, statement);
+                }
+            }
+            catch (TypeCastException e)
+            {
+                SQLException sqlException = new SQLException("Cannot bind value " + value
+                        + " as " + dataType + ": " + e.getMessage());
+                sqlException.initCause(e);
+                throw sqlException;
+            }
+        }
+        _result += statement.executeUpdate();
+        clearRows();
+    }
+
+    private void clearRows()
+    {
+        _values.clear();
+        _dataTypes.clear();
+        _rowCount = 0;
+        _valueCount = 0;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // IPreparedBatchStatement interface
+
+    public void addValue(Object value, DataType dataType) throws TypeCastException,
+            SQLException
+    {
+        logger.debug("addValue(value={}, dataType={}) - start", value, dataType);
+
+        _values.add(value);
+        _dataTypes.add(dataType);
+        _valueCount++;
+    }
+
+    public void addBatch() throws SQLException
+    {
+        logger.debug("addBatch() - start");
+
+        if (_valueCount != (_rowCount + 1) * _parametersPerRow)
+        {
+            throw new SQLException("Expected " + _parametersPerRow + " values per row but got "
+                    + (_valueCount - _rowCount * _parametersPerRow));
+        }
+
+        _rowCount++;
+        if (_rowCount == _rowsPerStatement)
+        {
+            executeRows();
+        }
+    }
+
+    public int executeBatch() throws SQLException
+    {
+        logger.debug("executeBatch() - start");
+
+        executeRows();
+        int result = _result;
+        _result = 0;
+        return result;
+    }
+
+    public void clearBatch() throws SQLException
+    {
+        logger.debug("clearBatch() - start");
+
+        clearRows();
+    }
+
+    public void close() throws SQLException
+    {
+        logger.debug("close() - start");
+
+        clearRows();
+        SQLException exception = null;
+        for (Iterator it = _statements.entrySet().iterator(); it.hasNext();)
+        {
+            Map.Entry entry = (Map.Entry)it.next();
+            PreparedStatement statement = (PreparedStatement)entry.getValue();
+            try
+            {
+                if (_cache != null)
+                {
+                    int rowCount = ((Integer)entry.getKey()).intValue();
+                    _cache.returnStatement(getSql(rowCount), _connection, statement);
+                }
+                else
+                {
+                    statement.close();
+                }
+            }
+            catch (SQLException e)
+            {
+                exception = e;
+            }
+        }
+        _statements.clear();
+        if (exception != null)
+        {
+            throw exception;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.statement;
+
+import java.sql.SQLException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Statement factory inserting several rows with a single
+ * <code>insert into ... values (...), (...)</code> statement, for drivers which
+ * execute every row of a JDBC batch in its own round trip. Insert statements as
+ * generated by the {@link org.dbunit.operation.InsertOperation} are executed by a
+ * {@link MultiRowInsertStatement}, all other statements are created like by the
+ * {@link PreparedStatementFactory}.
+ * <p>
+ * The number of rows per statement is limited by the
+ * {@link DatabaseConfig#PROPERTY_MAX_BIND_PARAMETERS} property and the
+ * {@link DatabaseConfig#PROPERTY_BATCH_SIZE}. Since the insert operation creates
+ * a new statement whenever the columns with {@link org.dbunit.dataset.ITable#NO_VALUE}
+ * change, all rows of one multi-row statement have the same columns.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class MultiRowInsertStatementFactory extends PreparedStatementFactory
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(MultiRowInsertStatementFactory.class);
+
+    /**
+     * Matches single row inserts, the first group is the statement up to the
+     * values keyword and the second one the parameter list
+     */
+    private static final Pattern INSERT_PATTERN = Pattern.compile(
+            "^(\\s*insert\\s+into\\s.*\\svalues\\s*)(\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\))\\s*$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    public IPreparedBatchStatement createPreparedBatchStatement(String sql,
+            IDatabaseConnection connection) throws SQLException
+    {
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("createPreparedBatchStatement(sql={}, connection={}) - start", sql, connection);
+        }
+
+        Matcher matcher = INSERT_PATTERN.matcher(sql);
+        if (!matcher.matches())
+        {
+            return super.createPreparedBatchStatement(sql, connection);
+        }
+
+        String rowValues = matcher.group(2);
+        int parametersPerRow = 0;
+        for (int i = 0; i < rowValues.length(); i++)
+        {
+            if (rowValues.charAt(i) == '?')
+            {
+                parametersPerRow++;
+            }
+        }
+
+        DatabaseConfig config = connection.getConfig();
+        int maxParameters = ((Integer)config.getProperty(
+                DatabaseConfig.PROPERTY_MAX_BIND_PARAMETERS)).intValue();
+        int batchSize = ((Integer)config.getProperty(
+                DatabaseConfig.PROPERTY_BATCH_SIZE)).intValue();
+        int rowsPerStatement = Math.min(batchSize, maxParameters / parametersPerRow);
+
+        return new MultiRowInsertStatement(matcher.group(1), rowValues, parametersPerRow,
+                rowsPerStatement, connection.getConnection(), getStatementCache(connection));
+    }
+}
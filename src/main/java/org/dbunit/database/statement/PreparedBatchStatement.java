@@ -53,6 +53,13 @@ public class PreparedBatchStatement extends AbstractPreparedBatchStatement
         _index = 0;
     }
 
+    PreparedBatchStatement(String sql, Connection connection, PreparedStatementCache cache)
+            throws SQLException
+    {
+        super(sql, connection, cache);
+        _index = 0;
+    }
+
     ////////////////////////////////////////////////////////////////////////////
     // IPreparedBatchStatement interface
 
@@ -0,0 +1,306 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.statement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Least recently used cache of idle {@link PreparedStatement}s keyed by their SQL.
+ * <p>
+ * Statements are borrowed by {@link #borrowStatement(String, Connection)} and given
+ * back by {@link #returnStatement(String, Connection, PreparedStatement)} instead of
+ * being closed, so that identical SQL executed for several tables or several
+ * operations is prepared only once per connection. A borrowed statement is removed
+ * from the cache until it is returned and therefore never shared. When more than the
+ * maximum number of statements are idle the least recently used ones are closed.
+ * </p>
+ * <p>
+ * Statements that have been prepared on another JDBC connection than the one
+ * requested are discarded, the cache must nevertheless be cleared by the owner when
+ * its connection is closed (see {@link #clear()}).
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see org.dbunit.database.DatabaseConfig#PROPERTY_STATEMENT_CACHE_SIZE
+ */
+public class PreparedStatementCache
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(PreparedStatementCache.class);
+
+    /**
+     * Idle statements by SQL, least recently used first
+     */
+    private final Map _statements = new LinkedHashMap(16, 0.75f, true);
+    private int _maxSize;
+
+    private long _hitCount = 0;
+    private long _missCount = 0;
+    private long _evictionCount = 0;
+
+    /**
+     * @param maxSize The maximum number of idle statements kept open
+     */
+    public PreparedStatementCache(int maxSize)
+    {
+        _maxSize = maxSize;
+    }
+
+    /**
+     * Returns an idle statement for the given SQL or prepares a new one if none
+     * is cached.
+     * @param sql The SQL of the statement
+     * @param connection The connection on which the statement is prepared
+     * @return The statement which must be given back using
+     * {@link #returnStatement(String, Connection, PreparedStatement)}
+     * @throws SQLException
+     */
+    public PreparedStatement borrowStatement(String sql, Connection connection)
+            throws SQLException
+    {
+        logger.debug("borrowStatement(sql={}, connection={}) - start", sql, connection);
+
+        CachedStatement cached;
+        synchronized (this)
+        {
+            cached = (CachedStatement)_statements.remove(sql);
+            if (cached != null && cached.connection == connection)
+            {
+                _hitCount++;
+                return cached.statement;
+            }
+            _missCount++;
+        }
+
+        if (cached != null)
+        {
+            // Prepared on a previous connection
+            close(cached.statement);
+        }
+        return connection.prepareStatement(sql);
+    }
+
+    /**
+     * Gives a statement back to the cache. The statement is closed instead if
+     * its parameters cannot be cleared or if an idle statement with the same SQL
+     * is already cached.
+     * @param sql The SQL of the statement
+     * @param connection The connection on which the statement has been prepared
+     * @param statement The statement obtained by {@link #borrowStatement(String, Connection)}
+     * @throws SQLException
+     */
+    public void returnStatement(String sql, Connection connection, PreparedStatement statement)
+            throws SQLException
+    {
+        logger.debug("returnStatement(sql={}, statement={}) - start", sql, statement);
+
+        try
+        {
+            statement.clearParameters();
+        }
+        catch (SQLException e)
+        {
+            statement.close();
+            throw e;
+        }
+
+        PreparedStatement duplicate = null;
+        PreparedStatement[] evicted;
+        synchronized (this)
+        {
+            if (_maxSize <= 0 || _statements.containsKey(sql))
+            {
+                duplicate = statement;
+            }
+            else
+            {
+                _statements.put(sql, new CachedStatement(connection, statement));
+            }
+            evicted = evict();
+        }
+
+        if (duplicate != null)
+        {
+            duplicate.close();
+        }
+        for (int i = 0; i < evicted.length; i++)
+        {
+            close(evicted[i]);
+        }
+    }
+
+    /**
+     * Removes the least recently used statements exceeding the maximum size.
+     * @return The removed statements which must be closed by the caller
+     */
+    private PreparedStatement[] evict()
+    {
+        int count = Math.max(0, _statements.size() - Math.max(0, _maxSize));
+        PreparedStatement[] evicted = new PreparedStatement[count];
+        Iterator it = _statements.values().iterator();
+        for (int i = 0; i < count; i++)
+        {
+            evicted[i] = ((CachedStatement)it.next()).statement;
+            it.remove();
+        }
+        _evictionCount += count;
+        return evicted;
+    }
+
+    private void close(PreparedStatement statement)
+    {
+        try
+        {
+            statement.close();
+        }
+        catch (SQLException e)
+        {
+            logger.warn("Exception while closing the statement: " + e, e);
+        }
+    }
+
+    /**
+     * Closes all idle statements. Statements borrowed at this time are not affected.
+     * @throws SQLException If one of the statements could not be closed
+     */
+    public void clear() throws SQLException
+    {
+        logger.debug("clear() - start");
+
+        CachedStatement[] statements;
+        synchronized (this)
+        {
+            statements = (CachedStatement[])_statements.values().toArray(new CachedStatement[0]);
+            _statements.clear();
+        }
+
+        SQLException exception = null;
+        for (int i = 0; i < statements.length; i++)
+        {
+            try
+            {
+                statements[i].statement.close();
+            }
+            catch (SQLException e)
+            {
+                exception = e;
+            }
+        }
+        if (exception != null)
+        {
+            throw exception;
+        }
+    }
+
+    /**
+     * Sets the maximum number of idle statements, closing the least recently
+     * used ones if more are cached.
+     * @param maxSize The maximum number of idle statements
+     */
+    public void setMaxSize(int maxSize)
+    {
+        PreparedStatement[] evicted;
+        synchronized (this)
+        {
+            _maxSize = maxSize;
+            evicted = evict();
+        }
+        for (int i = 0; i < evicted.length; i++)
+        {
+            close(evicted[i]);
+        }
+    }
+
+    public synchronized int getMaxSize()
+    {
+        return _maxSize;
+    }
+
+    /**
+     * @return The number of idle statements currently cached
+     */
+    public synchronized int size()
+    {
+        return _statements.size();
+    }
+
+    /**
+     * @return The number of borrowed statements which have been taken from the cache
+     */
+    public synchronized long getHitCount()
+    {
+        return _hitCount;
+    }
+
+    /**
+     * @return The number of borrowed statements which had to be prepared
+     */
+    public synchronized long getMissCount()
+    {
+        return _missCount;
+    }
+
+    /**
+     * @return The number of idle statements closed because the cache was full
+     */
+    public synchronized long getEvictionCount()
+    {
+        return _evictionCount;
+    }
+
+    public synchronized String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("_maxSize=").append(_maxSize);
+        sb.append(", size=").append(_statements.size());
+        sb.append(", _hitCount=").append(_hitCount);
+        sb.append(", _missCount=").append(_missCount);
+        sb.append(", _evictionCount=").append(_evictionCount);
+        sb.append("]");
+        return sb.toString();
+    }
+
+    private static class CachedStatement
+    {
+        private final Connection connection;
+        private final PreparedStatement statement;
+
+        public CachedStatement(Connection connection, PreparedStatement statement)
+        {
+            this.connection = connection;
+            this.statement = statement;
+        }
+    }
+}
@@ -24,6 +24,7 @@ package org.dbunit.database.statement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.dbunit.database.AbstractDatabaseConnection;
 import org.dbunit.database.DatabaseConfig;
 import org.dbunit.database.IDatabaseConnection;
 
@@ -68,19 +69,45 @@ public class PreparedStatementFactory extends AbstractStatementFactory
     	
     	Integer batchSize = (Integer)connection.getConfig().getProperty(DatabaseConfig.PROPERTY_BATCH_SIZE);
 
+        PreparedStatementCache cache = getStatementCache(connection);
         IPreparedBatchStatement statement = null;
         if (supportBatchStatement(connection))
         {
-            statement = new PreparedBatchStatement(sql, connection.getConnection());
+            statement = new PreparedBatchStatement(sql, connection.getConnection(), cache);
         }
         else
         {
-            statement = new SimplePreparedStatement(sql, connection.getConnection());
+            statement = new SimplePreparedStatement(sql, connection.getConnection(), cache);
+        }
+
+        DatabaseConfig config = connection.getConfig();
+        if (config.getFeature(DatabaseConfig.FEATURE_ADAPTIVE_BATCH_SIZE))
+        {
+            Integer minBatchSize = (Integer)config.getProperty(DatabaseConfig.PROPERTY_MIN_BATCH_SIZE);
+            Integer maxBatchSize = (Integer)config.getProperty(DatabaseConfig.PROPERTY_MAX_BATCH_SIZE);
+            Integer maxBatchBytes = (Integer)config.getProperty(DatabaseConfig.PROPERTY_MAX_BATCH_BYTES);
+            IBatchSizeListener listener = (IBatchSizeListener)config.getProperty(
+                    DatabaseConfig.PROPERTY_BATCH_SIZE_LISTENER);
+            return new AutomaticPreparedBatchStatement(statement, sql, batchSize.intValue(),
+                    minBatchSize.intValue(), maxBatchSize.intValue(), maxBatchBytes.intValue(),
+                    listener);
         }
         return new AutomaticPreparedBatchStatement(statement, batchSize.intValue());
     }
-}
-
-
-
 
+    /**
+     * Returns the cache from which the prepared statements are borrowed.
+     * @param connection The connection
+     * @return The statement cache of the connection or <code>null</code> if the
+     * connection does not cache statements
+     * @since 2.4.10
+     */
+    protected PreparedStatementCache getStatementCache(IDatabaseConnection connection)
+    {
+        if (connection instanceof AbstractDatabaseConnection)
+        {
+            return ((AbstractDatabaseConnection)connection).getStatementCache();
+        }
+        return null;
+    }
+}
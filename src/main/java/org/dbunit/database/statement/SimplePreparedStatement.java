@@ -55,6 +55,21 @@ public class SimplePreparedStatement extends AbstractPreparedBatchStatement
         _result = 0;
     }
 
+    /**
+     * @param sql The SQL of the statement
+     * @param connection The connection
+     * @param cache The cache from which the statement is borrowed or <code>null</code>
+     * @throws SQLException
+     * @since 2.4.10
+     */
+    public SimplePreparedStatement(String sql, Connection connection,
+            PreparedStatementCache cache) throws SQLException
+    {
+        super(sql, connection, cache);
+        _index = 0;
+        _result = 0;
+    }
+
     ////////////////////////////////////////////////////////////////////////////
     // IPreparedBatchStatement interface
 
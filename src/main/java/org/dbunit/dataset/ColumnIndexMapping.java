@@ -0,0 +1,93 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset;
+
+/**
+ * Reads the values of a table in the order of a given column array. The
+ * positions of the columns in the table are resolved once when the mapping is
+ * created so that reading a value does not need to look up the column name if the
+ * table implements {@link IColumnIndexedTable}.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public final class ColumnIndexMapping
+{
+    private final ITable _table;
+    private final IColumnIndexedTable _indexedTable;
+    private final Column[] _columns;
+    private final int[] _columnIndexes;
+
+    /**
+     * @param table The table to read from
+     * @param columns The columns to read. They are looked up by name in the
+     * metadata of the given table.
+     * @throws NoSuchColumnException If one of the columns does not exist in the table
+     * @throws DataSetException
+     */
+    public ColumnIndexMapping(ITable table, Column[] columns) throws DataSetException
+    {
+        _table = table;
+        _columns = columns;
+
+        if (table instanceof IColumnIndexedTable)
+        {
+            _indexedTable = (IColumnIndexedTable)table;
+            ITableMetaData metaData = table.getTableMetaData();
+            _columnIndexes = new int[columns.length];
+            for (int i = 0; i < columns.length; i++)
+            {
+                _columnIndexes[i] = metaData.getColumnIndex(columns[i].getColumnName());
+            }
+        }
+        else
+        {
+            _indexedTable = null;
+            _columnIndexes = null;
+        }
+    }
+
+    /**
+     * @return The mapped columns
+     */
+    public Column[] getColumns()
+    {
+        return _columns;
+    }
+
+    /**
+     * Returns the value of a mapped column.
+     * @param row The row index, starting with 0
+     * @param column The index of the column in {@link #getColumns()}
+     * @return The value
+     * @throws RowOutOfBoundsException if specified row does not exist
+     * @throws DataSetException
+     */
+    public Object getValue(int row, int column) throws DataSetException
+    {
+        if (_indexedTable != null)
+        {
+            return _indexedTable.getValue(row, _columnIndexes[column]);
+        }
+        return _table.getValue(row, _columns[column].getColumnName());
+    }
+}
@@ -34,7 +34,7 @@ import org.slf4j.LoggerFactory;
  * @version $Revision$
  * @since Feb 17, 2002
  */
-public class DefaultTable extends AbstractTable
+public class DefaultTable extends AbstractTable implements IColumnIndexedTable
 {
 
     /**
@@ -197,6 +197,17 @@ public class DefaultTable extends AbstractTable
         return rowValues[getColumnIndex(column)];
     }
 
+    ////////////////////////////////////////////////////////////////////////////
+    // IColumnIndexedTable interface
+
+    public Object getValue(int row, int column) throws DataSetException
+    {
+        assertValidRowIndex(row);
+
+        Object[] rowValues = (Object[])_rowList.get(row);
+        return rowValues[column];
+    }
+
     public String toString()
     {
     	StringBuffer sb = new StringBuffer();
@@ -0,0 +1,47 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset;
+
+/**
+ * Optional extension of {@link ITable} for tables which can access their values by
+ * column position. Callers reading many cells, like the database operations, use
+ * it to avoid resolving the column name of every cell. Tables not implementing
+ * this interface are read using {@link ITable#getValue(int, String)}.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see ColumnIndexMapping
+ */
+public interface IColumnIndexedTable extends ITable
+{
+    /**
+     * Returns this table value for the specified row and column.
+     * @param row The row index, starting with 0
+     * @param column The index of the column in the columns of
+     * {@link #getTableMetaData()}, starting with 0
+     * @return The value
+     *
+     * @throws RowOutOfBoundsException if specified row is less than zero or
+     * equals or greater than <code>getRowCount</code>
+     */
+    public Object getValue(int row, int column) throws DataSetException;
+}
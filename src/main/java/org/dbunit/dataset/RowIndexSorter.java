@@ -0,0 +1,421 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset;
+
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sorts the row indexes of a table using sort keys that have been extracted
+ * from the table once, so that the comparisons neither look up the values by
+ * column name nor convert them again. The sort is a stable merge sort on a
+ * primitive <code>int</code> array which optionally sorts and merges the parts
+ * of large tables concurrently.
+ * 
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see SortedTable
+ */
+final class RowIndexSorter
+{
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(RowIndexSorter.class);
+
+    /**
+     * The number of rows per thread from which a parallel sort pays off
+     */
+    private static final int PARALLEL_THRESHOLD = 8192;
+
+    /**
+     * Parts smaller than this are sorted by insertion sort
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 7;
+
+    private final SortKey[] _keys;
+
+    /**
+     * @param keys The sort keys in the order they are compared
+     */
+    RowIndexSorter(SortKey[] keys)
+    {
+        _keys = keys;
+    }
+
+    /**
+     * Extracts the string representation of a column which is compared
+     * lexicographically.
+     * @param table The table
+     * @param column The column
+     * @return The sort key
+     * @throws DataSetException
+     */
+    static SortKey createStringKey(ITable table, Column column) throws DataSetException
+    {
+        String columnName = column.getColumnName();
+        String[] values = new String[table.getRowCount()];
+        for (int i = 0; i < values.length; i++)
+        {
+            Object value = table.getValue(i, columnName);
+            values[i] = value == null ? null : DataType.asString(value);
+        }
+        return new StringKey(values);
+    }
+
+    /**
+     * Extracts the values of a column casted to the column data type which are
+     * compared using {@link DataType#compare(Object, Object)}.
+     * @param table The table
+     * @param column The column
+     * @return The sort key
+     * @throws DataSetException
+     */
+    static SortKey createComparableKey(ITable table, Column column) throws DataSetException
+    {
+        String columnName = column.getColumnName();
+        DataType dataType = column.getDataType();
+        Object[] values = new Object[table.getRowCount()];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = dataType.typeCast(table.getValue(i, columnName));
+        }
+        return new ComparableKey(values, dataType);
+    }
+
+    /**
+     * Returns the number of threads to be used for sorting the given number of
+     * rows concurrently, limited by the available processors.
+     * @param rowCount The number of rows
+     * @return The number of threads, at least 1
+     */
+    static int getThreadCount(int rowCount)
+    {
+        int threadCount = Math.min(Runtime.getRuntime().availableProcessors(),
+                rowCount / PARALLEL_THRESHOLD);
+        return Math.max(threadCount, 1);
+    }
+
+    /**
+     * Sorts the row indexes.
+     * @param rowCount The number of rows
+     * @param threadCount The number of threads sorting concurrently, 1 to
+     * sort in the current thread only
+     * @return The row indexes in sort order
+     * @throws DataSetException
+     */
+    int[] sort(int rowCount, int threadCount) throws DataSetException
+    {
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("sort(rowCount={}, threadCount={}) - start",
+                    String.valueOf(rowCount), String.valueOf(threadCount));
+        }
+
+        int[] indexes = new int[rowCount];
+        for (int i = 0; i < rowCount; i++)
+        {
+            indexes[i] = i;
+        }
+
+        threadCount = Math.min(threadCount, rowCount);
+        if (threadCount < 2)
+        {
+            mergeSort((int[])indexes.clone(), indexes, 0, rowCount);
+            return indexes;
+        }
+        return sortParallel(indexes, threadCount);
+    }
+
+    /**
+     * Sorts equally sized parts of the indexes concurrently and then merges
+     * neighbouring parts concurrently until a single part is left.
+     */
+    private int[] sortParallel(int[] indexes, int threadCount) throws TypeCastException
+    {
+        logger.debug("Sorting {} rows using {} threads", String.valueOf(indexes.length),
+                String.valueOf(threadCount));
+
+        int[] bounds = new int[threadCount + 1];
+        for (int i = 0; i <= threadCount; i++)
+        {
+            bounds[i] = (int)((long)indexes.length * i / threadCount);
+        }
+
+        final int[] src = (int[])indexes.clone();
+        final int[] dest = indexes;
+        SortTask[] tasks = new SortTask[threadCount];
+        for (int i = 0; i < threadCount; i++)
+        {
+            final int low = bounds[i];
+            final int high = bounds[i + 1];
+            tasks[i] = new SortTask() {
+                protected void sort() throws TypeCastException
+                {
+                    mergeSort(src, dest, low, high);
+                }
+            };
+        }
+        execute(tasks);
+
+        // The sorted parts are in 'dest'. Each pass merges pairs of parts into
+        // the other array
+        int[] from = dest;
+        int[] to = src;
+        while (bounds.length > 2)
+        {
+            int partCount = bounds.length - 1;
+            int[] mergedBounds = new int[(partCount + 1) / 2 + 1];
+            tasks = new SortTask[mergedBounds.length - 1];
+            for (int i = 0; i < tasks.length; i++)
+            {
+                final int[] mergeFrom = from;
+                final int[] mergeTo = to;
+                final int low = bounds[2 * i];
+                final int mid = bounds[Math.min(2 * i + 1, partCount)];
+                final int high = bounds[Math.min(2 * i + 2, partCount)];
+                tasks[i] = new SortTask() {
+                    protected void sort() throws TypeCastException
+                    {
+                        merge(mergeFrom, mergeTo, low, mid, high);
+                    }
+                };
+                mergedBounds[i] = low;
+            }
+            mergedBounds[tasks.length] = indexes.length;
+            execute(tasks);
+
+            bounds = mergedBounds;
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        return from;
+    }
+
+    /**
+     * Runs the given tasks, all but the last one in new threads.
+     */
+    private void execute(SortTask[] tasks) throws TypeCastException
+    {
+        Thread[] threads = new Thread[tasks.length - 1];
+        for (int i = 0; i < threads.length; i++)
+        {
+            threads[i] = new Thread(tasks[i], "dbunit-sort-" + i);
+            threads[i].start();
+        }
+        tasks[tasks.length - 1].run();
+
+        for (int i = 0; i < threads.length; i++)
+        {
+            try
+            {
+                threads[i].join();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while sorting rows");
+            }
+        }
+        for (int i = 0; i < tasks.length; i++)
+        {
+            tasks[i].rethrow();
+        }
+    }
+
+    /**
+     * Sorts the range of <code>dest</code>, using <code>src</code> which
+     * holds the same values as auxiliary array. Like the merge sort of
+     * {@link java.util.Arrays#sort(Object[])} the sort is stable.
+     */
+    private void mergeSort(int[] src, int[] dest, int low, int high) throws TypeCastException
+    {
+        int length = high - low;
+        if (length < INSERTION_SORT_THRESHOLD)
+        {
+            for (int i = low + 1; i < high; i++)
+            {
+                for (int j = i; j > low && compare(dest[j - 1], dest[j]) > 0; j--)
+                {
+                    int swap = dest[j];
+                    dest[j] = dest[j - 1];
+                    dest[j - 1] = swap;
+                }
+            }
+            return;
+        }
+
+        int mid = (low + high) >>> 1;
+        mergeSort(dest, src, low, mid);
+        mergeSort(dest, src, mid, high);
+
+        // Skip the merge if the two halves are already in order
+        if (compare(src[mid - 1], src[mid]) <= 0)
+        {
+            System.arraycopy(src, low, dest, low, length);
+            return;
+        }
+        merge(src, dest, low, mid, high);
+    }
+
+    /**
+     * Merges the sorted ranges <code>[low, mid)</code> and
+     * <code>[mid, high)</code> of <code>src</code> into <code>dest</code>.
+     */
+    private void merge(int[] src, int[] dest, int low, int mid, int high) throws TypeCastException
+    {
+        for (int i = low, p = low, q = mid; i < high; i++)
+        {
+            if (q >= high || p < mid && compare(src[p], src[q]) <= 0)
+            {
+                dest[i] = src[p++];
+            }
+            else
+            {
+                dest[i] = src[q++];
+            }
+        }
+    }
+
+    private int compare(int row1, int row2) throws TypeCastException
+    {
+        for (int i = 0; i < _keys.length; i++)
+        {
+            int result = _keys[i].compare(row1, row2);
+            if (result != 0)
+            {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+
+    /**
+     * The values of a sort column, extracted for all rows. <code>null</code>
+     * values are sorted first like in {@link SortedTable.AbstractRowComparator}.
+     */
+    static abstract class SortKey
+    {
+        /**
+         * @return A negative number, zero or a positive number if the value of
+         * the first row is less than, equal to or greater than the value of the
+         * second row
+         */
+        abstract int compare(int row1, int row2) throws TypeCastException;
+    }
+
+    private static final class StringKey extends SortKey
+    {
+        private final String[] _values;
+
+        StringKey(String[] values)
+        {
+            _values = values;
+        }
+
+        int compare(int row1, int row2)
+        {
+            String value1 = _values[row1];
+            String value2 = _values[row2];
+            if (value1 == null || value2 == null)
+            {
+                return value1 == null ? (value2 == null ? 0 : -1) : 1;
+            }
+            return value1.compareTo(value2);
+        }
+    }
+
+    private static final class ComparableKey extends SortKey
+    {
+        private final Object[] _values;
+        private final DataType _dataType;
+
+        ComparableKey(Object[] values, DataType dataType)
+        {
+            _values = values;
+            _dataType = dataType;
+        }
+
+        int compare(int row1, int row2) throws TypeCastException
+        {
+            Object value1 = _values[row1];
+            Object value2 = _values[row2];
+            if (value1 == null || value2 == null)
+            {
+                return value1 == null ? (value2 == null ? 0 : -1) : 1;
+            }
+            return _dataType.compare(value1, value2);
+        }
+    }
+
+    /**
+     * A part of a parallel sort which keeps the exception it failed with.
+     */
+    private static abstract class SortTask implements Runnable
+    {
+        private TypeCastException _exception;
+        private RuntimeException _runtimeException;
+        private Error _error;
+
+        public void run()
+        {
+            try
+            {
+                sort();
+            }
+            catch (TypeCastException e)
+            {
+                _exception = e;
+            }
+            catch (RuntimeException e)
+            {
+                _runtimeException = e;
+            }
+            catch (Error e)
+            {
+                _error = e;
+            }
+        }
+
+        protected abstract void sort() throws TypeCastException;
+
+        void rethrow() throws TypeCastException
+        {
+            if (_exception != null)
+            {
+                throw _exception;
+            }
+            if (_runtimeException != null)
+            {
+                throw _runtimeException;
+            }
+            if (_error != null)
+            {
+                throw _error;
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+import org.dbunit.util.Base64;
+
+/**
+ * Immutable key built from the values of one or more columns of a row, for example
+ * the primary key columns. The values are normalized using the {@link DataType} of
+ * their column so that rows coming from different sources (a flat XML file and a
+ * database result set for example) can be matched using hash based collections:
+ * <ul>
+ * <li>numbers are compared by their numeric value, ignoring the scale
+ * (<code>1</code> equals <code>1.00</code>)</li>
+ * <li>trailing blanks of strings are ignored like for SQL <code>CHAR</code> comparisons</li>
+ * <li>byte arrays are compared by their content</li>
+ * </ul>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public final class RowKey
+{
+    private final Object[] _values;
+    private final int _hashCode;
+
+    private RowKey(Object[] values)
+    {
+        _values = values;
+
+        int hashCode = 1;
+        for (int i = 0; i < values.length; i++)
+        {
+            hashCode = 31 * hashCode + (values[i] == null ? 0 : values[i].hashCode());
+        }
+        _hashCode = hashCode;
+    }
+
+    /**
+     * Creates a key from the given values.
+     * @param values The key values, one for each of the given data types
+     * @param dataTypes The data types used to normalize the values
+     * @return The new key
+     * @throws TypeCastException If one of the values cannot be casted to its data type
+     */
+    public static RowKey create(Object[] values, DataType[] dataTypes) throws TypeCastException
+    {
+        if (values.length != dataTypes.length)
+        {
+            throw new IllegalArgumentException("Got " + values.length + " values for "
+                    + dataTypes.length + " data types");
+        }
+
+        Object[] normalized = new Object[values.length];
+        for (int i = 0; i < values.length; i++)
+        {
+            normalized[i] = normalize(values[i], dataTypes[i]);
+        }
+        return new RowKey(normalized);
+    }
+
+    /**
+     * Creates a key from the given columns of a table row.
+     * @param table The table
+     * @param row The row index
+     * @param columns The key columns
+     * @return The new key
+     * @throws DataSetException
+     */
+    public static RowKey create(ITable table, int row, Column[] columns) throws DataSetException
+    {
+        Object[] values = new Object[columns.length];
+        DataType[] dataTypes = new DataType[columns.length];
+        for (int i = 0; i < columns.length; i++)
+        {
+            values[i] = table.getValue(row, columns[i].getColumnName());
+            dataTypes[i] = columns[i].getDataType();
+        }
+        return create(values, dataTypes);
+    }
+
+    /**
+     * Returns the normalized value used to compare the given value.
+     * @param value The value
+     * @param dataType The data type used to cast the value
+     * @return The normalized value
+     * @throws TypeCastException If the value cannot be casted to the data type
+     */
+    public static Object normalize(Object value, DataType dataType) throws TypeCastException
+    {
+        if (value == null || value == ITable.NO_VALUE)
+        {
+            return null;
+        }
+
+        Object castedValue = dataType.typeCast(value);
+        if (castedValue instanceof BigDecimal)
+        {
+            return normalizeNumber((BigDecimal)castedValue);
+        }
+        if (castedValue instanceof Number && !(castedValue instanceof Double)
+                && !(castedValue instanceof Float))
+        {
+            return normalizeNumber(new BigDecimal(castedValue.toString()));
+        }
+        if (castedValue instanceof String)
+        {
+            String string = (String)castedValue;
+            int end = string.length();
+            while (end > 0 && string.charAt(end - 1) == ' ')
+            {
+                end--;
+            }
+            return string.substring(0, end);
+        }
+        if (castedValue instanceof byte[])
+        {
+            return Base64.encodeBytes((byte[])castedValue);
+        }
+        return castedValue;
+    }
+
+    private static String normalizeNumber(BigDecimal number)
+    {
+        if (number.scale() < 0)
+        {
+            number = number.setScale(0);
+        }
+
+        BigInteger unscaled = number.unscaledValue();
+        int scale = number.scale();
+        BigInteger[] divRem = unscaled.divideAndRemainder(BigInteger.valueOf(10));
+        while (scale > 0 && divRem[1].signum() == 0)
+        {
+            unscaled = divRem[0];
+            scale--;
+            divRem = unscaled.divideAndRemainder(BigInteger.valueOf(10));
+        }
+        return new BigDecimal(unscaled, scale).toString();
+    }
+
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (!(obj instanceof RowKey))
+        {
+            return false;
+        }
+
+        RowKey other = (RowKey)obj;
+        if (_hashCode != other._hashCode || _values.length != other._values.length)
+        {
+            return false;
+        }
+        for (int i = 0; i < _values.length; i++)
+        {
+            Object value = _values[i];
+            Object otherValue = other._values[i];
+            if (value == null ? otherValue != null : !value.equals(otherValue))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int hashCode()
+    {
+        return _hashCode;
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append("[");
+        for (int i = 0; i < _values.length; i++)
+        {
+            if (i > 0)
+            {
+                sb.append(", ");
+            }
+            sb.append(_values[i]);
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+}
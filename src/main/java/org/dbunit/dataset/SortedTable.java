@@ -41,7 +41,7 @@ import org.slf4j.LoggerFactory;
  *          $
  * @since Feb 19, 2003
  */
-public class SortedTable extends AbstractTable {
+public class SortedTable extends AbstractTable implements IColumnIndexedTable {
 
     /**
      * Logger for this class
@@ -51,13 +51,18 @@ public class SortedTable extends AbstractTable {
 
     private final ITable _table;
     private final Column[] _columns;
-    private Integer[] _indexes;
+    private int[] _indexes;
 
     /**
      * The row comparator which is used for sorting
      */
     private Comparator rowComparator;
 
+    /**
+     * Whether or not large tables are sorted by several threads
+     */
+    private boolean parallelSort = false;
+
     /**
      * Sort the decorated table by specified columns order.
      * 
@@ -172,21 +177,70 @@ public class SortedTable extends AbstractTable {
         }
 
         if (_indexes == null) {
-            Integer[] indexes = new Integer[getRowCount()];
-            for (int i = 0; i < indexes.length; i++) {
-                indexes[i] = new Integer(i);
+            _indexes = sortRows();
+        }
+
+        return _indexes[row];
+    }
+
+    /**
+     * Sorts the row indexes. The values of the sort columns are extracted once
+     * and the indexes are sorted as primitive <code>int</code>s if the rows are
+     * sorted by one of the built-in comparators. Other comparators are invoked
+     * for boxed row indexes.
+     * 
+     * @return The indexes of the decorated table rows in sort order
+     * @throws DataSetException
+     */
+    private int[] sortRows() throws DataSetException {
+        logger.debug("sortRows() - start");
+
+        int rowCount = getRowCount();
+        Class comparatorClass = rowComparator.getClass();
+        if (comparatorClass == RowComparatorByString.class
+                || comparatorClass == RowComparator.class) {
+            AbstractRowComparator comparator =
+                    (AbstractRowComparator) rowComparator;
+            ITable table = comparator.getTable();
+            Column[] sortColumns = comparator.getSortColumns();
+
+            // A single row does not need to be compared at all
+            if (rowCount < 2) {
+                return new int[rowCount];
             }
 
-            try {
-                Arrays.sort(indexes, rowComparator);
-            } catch (DatabaseUnitRuntimeException e) {
-                throw (DataSetException) e.getCause();
+            RowIndexSorter.SortKey[] keys =
+                    new RowIndexSorter.SortKey[sortColumns.length];
+            for (int i = 0; i < sortColumns.length; i++) {
+                if (comparatorClass == RowComparator.class) {
+                    keys[i] = RowIndexSorter.createComparableKey(table,
+                            sortColumns[i]);
+                } else {
+                    keys[i] = RowIndexSorter.createStringKey(table,
+                            sortColumns[i]);
+                }
             }
+            int threadCount = parallelSort
+                    ? RowIndexSorter.getThreadCount(rowCount) : 1;
+            return new RowIndexSorter(keys).sort(rowCount, threadCount);
+        }
+
+        Integer[] indexes = new Integer[rowCount];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = new Integer(i);
+        }
 
-            _indexes = indexes;
+        try {
+            Arrays.sort(indexes, rowComparator);
+        } catch (DatabaseUnitRuntimeException e) {
+            throw (DataSetException) e.getCause();
         }
 
-        return _indexes[row].intValue();
+        int[] result = new int[rowCount];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = indexes[i].intValue();
+        }
+        return result;
     }
 
     /**
@@ -238,6 +292,31 @@ public class SortedTable extends AbstractTable {
         this.rowComparator = comparator;
     }
 
+    /**
+     * Whether or not tables with many rows should be sorted by several threads,
+     * one per available processor. Only applies if the rows are sorted by one
+     * of the built-in comparators, i.e. unless a custom comparator has been set
+     * via {@link #setRowComparator(Comparator)}. Default value is
+     * <code>false</code>.
+     * 
+     * @param parallelSort
+     * @since 2.4.10
+     */
+    public void setParallelSort(boolean parallelSort) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("setParallelSort(parallelSort={}) - start", Boolean
+                    .valueOf(parallelSort));
+        }
+
+        if (_indexes != null) {
+            throw new IllegalStateException(
+                    "Do not use this method after the table has been used (i.e. #getValue() has been called). "
+                            + "Please invoke this method immediately after the intialization of this object.");
+        }
+
+        this.parallelSort = parallelSort;
+    }
+
     // //////////////////////////////////////////////////////////////////////////
     // ITable interface
 
@@ -264,6 +343,20 @@ public class SortedTable extends AbstractTable {
         return _table.getValue(getOriginalRowIndex(row), columnName);
     }
 
+    // //////////////////////////////////////////////////////////////////////////
+    // IColumnIndexedTable interface
+
+    public Object getValue(int row, int column) throws DataSetException {
+        assertValidRowIndex(row);
+
+        int originalRow = getOriginalRowIndex(row);
+        if (_table instanceof IColumnIndexedTable) {
+            return ((IColumnIndexedTable) _table).getValue(originalRow, column);
+        }
+        String columnName = getTableMetaData().getColumns()[column].getColumnName();
+        return _table.getValue(originalRow, columnName);
+    }
+
     // //////////////////////////////////////////////////////////////////////////
     // Comparator interface
 
@@ -291,6 +384,20 @@ public class SortedTable extends AbstractTable {
             this._sortColumns = sortColumns;
         }
 
+        /**
+         * @return The table to be sorted
+         */
+        ITable getTable() {
+            return _table;
+        }
+
+        /**
+         * @return The columns used for sorting in the given order
+         */
+        Column[] getSortColumns() {
+            return _sortColumns;
+        }
+
         public int compare(Object o1, Object o2) {
             logger.debug("compare(o1={}, o2={}) - start", o1, o2);
 
@@ -0,0 +1,217 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.dbunit.DatabaseUnitRuntimeException;
+import org.dbunit.dataset.datatype.DataType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Order independent fingerprint of the contents of a table, made of the row count
+ * and of the sum of the MD5 hashes of the rows. The values are normalized using
+ * {@link RowKey#normalize(Object, DataType)} so that a table read from a file and
+ * the same table read from the database get the same fingerprint when the data
+ * types of the database columns are used. Duplicate rows are taken into account.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public final class TableFingerprint
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(TableFingerprint.class);
+
+    private final int _rowCount;
+    private final long _hash;
+
+    private TableFingerprint(int rowCount, long hash)
+    {
+        _rowCount = rowCount;
+        _hash = hash;
+    }
+
+    /**
+     * Computes the fingerprint of the given columns of a table. The rows are
+     * read once and in order, thus forward only tables are supported.
+     * @param table The table
+     * @param columns The columns to include, with the data types used to normalize
+     * the values
+     * @return The fingerprint or <code>null</code> if the table contains
+     * {@link ITable#NO_VALUE} values, whose value in the database is unknown
+     * @throws DataSetException
+     */
+    public static TableFingerprint create(ITable table, Column[] columns)
+            throws DataSetException
+    {
+        logger.debug("create(table={}, columns={}) - start", table, columns);
+
+        if (columns.length == 0)
+        {
+            return new TableFingerprint(table.getRowCount(), 0);
+        }
+
+        MessageDigest digest = createDigest();
+        ColumnIndexMapping mapping = new ColumnIndexMapping(table, columns);
+        long hash = 0;
+        int row = 0;
+        while (true)
+        {
+            Object value;
+            try
+            {
+                value = mapping.getValue(row, 0);
+            }
+            catch (RowOutOfBoundsException e)
+            {
+                break;
+            }
+
+            for (int i = 0; i < columns.length; i++)
+            {
+                if (i > 0)
+                {
+                    value = mapping.getValue(row, i);
+                }
+                if (value == ITable.NO_VALUE)
+                {
+                    return null;
+                }
+                update(digest, RowKey.normalize(value, columns[i].getDataType()));
+            }
+            hash += toLong(digest.digest());
+            row++;
+        }
+        return new TableFingerprint(row, hash);
+    }
+
+    private static MessageDigest createDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("MD5");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new DatabaseUnitRuntimeException("MD5 is not available", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, Object value)
+    {
+        if (value == null)
+        {
+            digest.update((byte)0);
+            return;
+        }
+
+        byte[] bytes;
+        try
+        {
+            bytes = value.toString().getBytes("UTF-8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new DatabaseUnitRuntimeException(e);
+        }
+        // The length separates the values of adjacent columns
+        digest.update((byte)1);
+        digest.update((byte)(bytes.length >>> 24));
+        digest.update((byte)(bytes.length >>> 16));
+        digest.update((byte)(bytes.length >>> 8));
+        digest.update((byte)bytes.length);
+        digest.update(bytes);
+    }
+
+    private static long toLong(byte[] bytes)
+    {
+        long result = 0;
+        for (int i = 0; i < 8; i++)
+        {
+            result = (result << 8) | (bytes[i] & 0xFF);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the fingerprint of the union of the rows of this and of the given
+     * fingerprint, for example of a table split into several parts.
+     * @param other The fingerprint to add
+     * @return The combined fingerprint
+     */
+    public TableFingerprint add(TableFingerprint other)
+    {
+        return new TableFingerprint(_rowCount + other._rowCount, _hash + other._hash);
+    }
+
+    /**
+     * @return The number of rows of the table
+     */
+    public int getRowCount()
+    {
+        return _rowCount;
+    }
+
+    /**
+     * @return The sum of the row hashes
+     */
+    public long getHash()
+    {
+        return _hash;
+    }
+
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (!(obj instanceof TableFingerprint))
+        {
+            return false;
+        }
+
+        TableFingerprint other = (TableFingerprint)obj;
+        return _rowCount == other._rowCount && _hash == other._hash;
+    }
+
+    public int hashCode()
+    {
+        return 31 * _rowCount + (int)(_hash ^ (_hash >>> 32));
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append("[rowCount=").append(_rowCount);
+        sb.append(", hash=").append(Long.toHexString(_hash));
+        sb.append("]");
+        return sb.toString();
+    }
+}
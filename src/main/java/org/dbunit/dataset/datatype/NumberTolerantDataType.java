@@ -51,6 +51,11 @@ public class NumberTolerantDataType extends NumberDataType
      * The allowed/tolerated difference 
      */
     private Precision toleratedDelta;
+    /**
+     * The tolerated fraction of the first value for a percentage comparison,
+     * resolved once from {@link #toleratedDelta}
+     */
+    private BigDecimal toleratedFraction;
 
     /**
      * Creates a new number tolerant datatype
@@ -67,6 +72,12 @@ public class NumberTolerantDataType extends NumberDataType
                     "The parameter 'delta' must not be null");
         }
         this.toleratedDelta = delta;
+        if (delta.isPercentage())
+        {
+            BigDecimal percentage = delta.getDelta();
+            this.toleratedFraction = percentage.divide(C_100,
+                    percentage.scale() + 2, BigDecimal.ROUND_HALF_UP);
+        }
     }
 
     public Precision getToleratedDelta() 
@@ -90,49 +101,17 @@ public class NumberTolerantDataType extends NumberDataType
             if(value1cast instanceof BigDecimal && value2cast instanceof BigDecimal){
                 BigDecimal bdValue1 = (BigDecimal)value1cast;
                 BigDecimal bdValue2 = (BigDecimal)value2cast;
-                BigDecimal diff = bdValue1.subtract(bdValue2);
-                // Exact match
-                if(isZero(diff)) 
+                if(isWithinTolerance(bdValue1, bdValue2))
                 {
+                    // within tolerance delta, so accept
+                    if(logger.isDebugEnabled())
+                        logger.debug("Values val1={}, val2={} are within tolerated delta {}",
+                                new Object[] {bdValue1, bdValue2, this.toleratedDelta } );
                     return 0;
                 }
-                
-                BigDecimal toleratedDeltaValue = this.toleratedDelta.getDelta();
-                if(!this.toleratedDelta.isPercentage()) 
-                {
-                    if(diff.abs().compareTo(toleratedDeltaValue) <= 0) 
-                    {
-                        // within tolerance delta, so accept
-                        if(logger.isDebugEnabled())
-                            logger.debug("Values val1={}, val2={} differ but are within tolerated delta {}",
-                                    new Object[] {bdValue1, bdValue2, toleratedDeltaValue } );
-                        return 0;
-                    } 
-                    else {
-                        // TODO it would be beautiful to report a precise description about difference and tolerated delta values in the assertion
-                        // Therefore think about introducing a method "DataType.getCompareInfo()"
-                        return diff.signum();
-                    }
-                }
-                else {
-                    // percentage comparison
-                    int scale = toleratedDeltaValue.scale() + 2;
-                    BigDecimal toleratedValue = bdValue1.multiply( toleratedDeltaValue.divide(C_100, scale, BigDecimal.ROUND_HALF_UP) );
-                    if(diff.abs().compareTo(toleratedValue) <= 0) 
-                    {
-                        // within tolerance delta, so accept
-                        if(logger.isDebugEnabled())
-                            logger.debug("Values val1={}, val2={} differ but are within tolerated delta {}",
-                                    new Object[] {bdValue1, bdValue2, toleratedValue } );
-                        return 0;
-                    }
-                    else {
-                        // TODO it would be beautiful to report a precise description about difference and tolerated delta values in the assertion
-                        // Therefore think about introducing a method "DataType.getCompareInfo()"
-                        return diff.signum();
-                    }
-                }
-                
+                // TODO it would be beautiful to report a precise description about difference and tolerated delta values in the assertion
+                // Therefore think about introducing a method "DataType.getCompareInfo()"
+                return bdValue1.compareTo(bdValue2);
             }
             else {
                 Comparable value1 = (Comparable)value1cast;
@@ -146,6 +125,36 @@ public class NumberTolerantDataType extends NumberDataType
         }
     }
 
+    /**
+     * Checks if the given numbers are equal or differ by at most the tolerated
+     * delta. A percentage tolerance is relative to the magnitude of the first
+     * number.
+     * @param value1 The first number, usually the expected value
+     * @param value2 The second number
+     * @return <code>true</code> if the difference of the numbers is tolerated
+     * @since 2.4.10
+     */
+    public boolean isWithinTolerance(BigDecimal value1, BigDecimal value2)
+    {
+        BigDecimal diff = value1.subtract(value2);
+        // Exact match
+        if(isZero(diff))
+        {
+            return true;
+        }
+
+        BigDecimal toleratedValue;
+        if(this.toleratedDelta.isPercentage())
+        {
+            toleratedValue = value1.abs().multiply(this.toleratedFraction);
+        }
+        else
+        {
+            toleratedValue = this.toleratedDelta.getDelta();
+        }
+        return diff.abs().compareTo(toleratedValue) <= 0;
+    }
+
     /**
      * Checks if the given value is zero.
      * @param value
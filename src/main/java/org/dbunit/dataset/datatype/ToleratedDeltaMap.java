@@ -58,6 +58,11 @@ public class ToleratedDeltaMap
     public ToleratedDelta findToleratedDelta(String tableName, String columnName) 
     {
         Map toleratedDeltas = getToleratedDeltasNullSafe();
+        if (toleratedDeltas.isEmpty())
+        {
+            // Called for every numeric column, most often without any delta
+            return null;
+        }
         String mapKey = ToleratedDeltaMap.buildMapKey(tableName, columnName);
         ToleratedDelta deltaObj = (ToleratedDelta)toleratedDeltas.get(mapKey);
         return deltaObj;
@@ -22,6 +22,7 @@ package org.dbunit.dataset.stream;
 
 import org.dbunit.dataset.AbstractTable;
 import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IColumnIndexedTable;
 import org.dbunit.dataset.ITable;
 import org.dbunit.dataset.ITableIterator;
 import org.dbunit.dataset.ITableMetaData;
@@ -164,7 +165,7 @@ public class StreamingIterator implements ITableIterator
     ////////////////////////////////////////////////////////////////////////////
     // StreamingTable class
 
-    private class StreamingTable extends AbstractTable
+    private class StreamingTable extends AbstractTable implements IColumnIndexedTable
     {
 
         /**
@@ -233,6 +234,14 @@ public class StreamingIterator implements ITableIterator
             if(logger.isDebugEnabled())
                 logger.debug("getValue(row={}, columnName={}) - start", Integer.toString(row), columnName);
 
+            return getValue(row, getColumnIndex(columnName));
+        }
+
+        ////////////////////////////////////////////////////////////////////////
+        // IColumnIndexedTable interface
+
+        public Object getValue(int row, int column) throws DataSetException
+        {
             // Iterate up to specified row
             while (!_eot && row > _lastRow)
             {
@@ -249,7 +258,7 @@ public class StreamingIterator implements ITableIterator
                 throw new RowOutOfBoundsException(row + " > " + _lastRow);
             }
 
-            return _rowValues[getColumnIndex(columnName)];
+            return _rowValues[column];
         }
 
     }
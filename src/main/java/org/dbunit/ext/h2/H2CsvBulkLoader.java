@@ -0,0 +1,151 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.h2;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.bulk.AbstractTextBulkLoader;
+import org.dbunit.database.bulk.CsvTableReader;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads tables using the H2 <code>CSVREAD</code> function. The rows are streamed
+ * into a temporary CSV file which is then inserted with a single
+ * <code>INSERT ... SELECT</code> statement and deleted afterwards. The file must
+ * be readable by the database, thus this loader only works with embedded databases
+ * or servers running on the same host.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class H2CsvBulkLoader extends AbstractTextBulkLoader
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(H2CsvBulkLoader.class);
+
+    protected boolean isSupported(Connection connection) throws SQLException
+    {
+        String productName = connection.getMetaData().getDatabaseProductName();
+        return "H2".equalsIgnoreCase(productName);
+    }
+
+    public int load(IDatabaseConnection connection, String tableName, String[] columnNames,
+            Column[] columns, ITable table) throws DataSetException, SQLException
+    {
+        logger.debug("load(connection={}, tableName={}) - start", connection, tableName);
+
+        File file = null;
+        try
+        {
+            file = File.createTempFile("dbunit", ".csv");
+            int rowCount = writeFile(file, table, columns);
+
+            // Name the CSV columns by position, the first line holds data
+            StringBuffer csvColumns = new StringBuffer();
+            for (int i = 0; i < columns.length; i++)
+            {
+                if (i > 0)
+                {
+                    csvColumns.append(',');
+                }
+                csvColumns.append('C').append(i);
+            }
+
+            String path = file.getAbsolutePath().replace('\\', '/');
+            String sql = "INSERT INTO " + tableName + " (" + getColumnList(columnNames)
+                    + ") SELECT * FROM CSVREAD('" + escape(path) + "', '"
+                    + csvColumns + "', 'UTF-8')";
+
+            Statement statement = connection.getConnection().createStatement();
+            try
+            {
+                statement.executeUpdate(sql);
+            }
+            finally
+            {
+                statement.close();
+            }
+            return rowCount;
+        }
+        catch (IOException e)
+        {
+            throw new DataSetException("Cannot write CSV file for table '" + tableName + "'", e);
+        }
+        finally
+        {
+            if (file != null && !file.delete())
+            {
+                logger.warn("Cannot delete temporary file " + file);
+            }
+        }
+    }
+
+    private int writeFile(File file, ITable table, Column[] columns)
+            throws DataSetException, IOException
+    {
+        CsvTableReader reader = new CsvTableReader(table, columns);
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                writer.write(line);
+            }
+        }
+        finally
+        {
+            writer.close();
+        }
+        return reader.getRowCount();
+    }
+
+    private String escape(String literal)
+    {
+        StringBuffer sb = new StringBuffer(literal.length());
+        for (int i = 0; i < literal.length(); i++)
+        {
+            char c = literal.charAt(i);
+            if (c == '\'')
+            {
+                sb.append('\'');
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.hsqldb;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.clear.DefaultTableClearStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Disables the referential integrity of the database so that every table can be
+ * truncated in any order. The referential integrity is enabled again afterwards,
+ * HSQLDB does not check the existing rows when doing so.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class HsqldbTableClearStrategy extends DefaultTableClearStrategy
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(HsqldbTableClearStrategy.class);
+
+    protected boolean disableConstraints(IDatabaseConnection connection, String[] tableNames,
+            List restoreStatements) throws SQLException
+    {
+        logger.debug("disableConstraints(connection={}, tableNames={}) - start",
+                connection, tableNames);
+
+        // HSQLDB 2.0 renamed the statement
+        String version = connection.getConnection().getMetaData().getDatabaseProductVersion();
+        String command = version != null && version.startsWith("1.")
+                ? "set referential_integrity " : "set database referential integrity ";
+
+        execute(connection, command + "false");
+        restoreStatements.add(command + "true");
+        return true;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.hsqldb;
+
+import org.dbunit.database.diff.DefaultTableDiffSqlBuilder;
+
+/**
+ * Compares tables inside of a HSQLDB 1.8 database using a temporary table
+ * created by <code>SELECT ... INTO TEMP</code> and <code>EXCEPT</code>. HSQLDB
+ * does not provide a suitable aggregate function to compute fingerprints.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class HsqldbTableDiffSqlBuilder extends DefaultTableDiffSqlBuilder
+{
+    public String[] buildCreateTemporaryTableSql(String temporaryTableName,
+            String tableName, String[] columnNames)
+    {
+        StringBuffer sql = new StringBuffer(128);
+        sql.append("select ");
+        appendColumnNames(sql, null, columnNames);
+        sql.append(" into temp ").append(temporaryTableName);
+        sql.append(" from ").append(tableName);
+        sql.append(" where 1 = 0");
+        return new String[] {sql.toString()};
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.mssql;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.clear.DefaultTableClearStrategy;
+import org.dbunit.util.SQLHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Disables the foreign keys referencing the cleared tables and the triggers of
+ * the cleared tables so that the tables can be cleared in any order. SQL Server
+ * does not truncate tables referenced by a foreign key even if it is disabled,
+ * so the rows of these tables are deleted. The foreign keys are enabled and
+ * validated again afterwards.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class MsSqlTableClearStrategy extends DefaultTableClearStrategy
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(MsSqlTableClearStrategy.class);
+
+    private static final String REFERENCING_CONSTRAINTS_SQL =
+            "select object_schema_name(fk.parent_object_id), object_name(fk.parent_object_id),"
+            + " fk.name from sys.foreign_keys fk"
+            + " where fk.referenced_object_id = object_id(?) and fk.is_disabled = 0";
+
+    private static final String TRIGGERS_SQL =
+            "select name from sys.triggers where parent_id = object_id(?) and is_disabled = 0";
+
+    protected boolean disableConstraints(IDatabaseConnection connection, String[] tableNames,
+            List restoreStatements) throws SQLException
+    {
+        logger.debug("disableConstraints(connection={}, tableNames={}) - start",
+                connection, tableNames);
+
+        List disableStatements = new ArrayList();
+        List enableStatements = new ArrayList();
+        PreparedStatement constraintStatement = connection.getConnection().prepareStatement(
+                REFERENCING_CONSTRAINTS_SQL);
+        PreparedStatement triggerStatement = null;
+        try
+        {
+            triggerStatement = connection.getConnection().prepareStatement(TRIGGERS_SQL);
+            for (int i = 0; i < tableNames.length; i++)
+            {
+                String qualifiedName = getQualifiedName(connection, tableNames[i]);
+
+                constraintStatement.setString(1, qualifiedName);
+                ResultSet resultSet = constraintStatement.executeQuery();
+                try
+                {
+                    while (resultSet.next())
+                    {
+                        String table = quote(resultSet.getString(1)) + "."
+                                + quote(resultSet.getString(2));
+                        String constraint = quote(resultSet.getString(3));
+                        disableStatements.add("alter table " + table + " nocheck constraint "
+                                + constraint);
+                        enableStatements.add("alter table " + table
+                                + " with check check constraint " + constraint);
+                    }
+                }
+                finally
+                {
+                    SQLHelper.close(resultSet);
+                }
+
+                triggerStatement.setString(1, qualifiedName);
+                resultSet = triggerStatement.executeQuery();
+                try
+                {
+                    while (resultSet.next())
+                    {
+                        String trigger = quote(resultSet.getString(1));
+                        disableStatements.add("disable trigger " + trigger + " on "
+                                + qualifiedName);
+                        enableStatements.add("enable trigger " + trigger + " on "
+                                + qualifiedName);
+                    }
+                }
+                finally
+                {
+                    SQLHelper.close(resultSet);
+                }
+            }
+        }
+        finally
+        {
+            SQLHelper.close(constraintStatement);
+            if (triggerStatement != null)
+            {
+                SQLHelper.close(triggerStatement);
+            }
+        }
+
+        for (int i = 0; i < disableStatements.size(); i++)
+        {
+            execute(connection, (String)disableStatements.get(i));
+            restoreStatements.add(enableStatements.get(i));
+        }
+        return true;
+    }
+
+    protected boolean canTruncate(IDatabaseConnection connection, String tableName,
+            boolean constraintsDisabled) throws SQLException
+    {
+        return !isReferenced(connection, tableName);
+    }
+
+    private static String quote(String identifier)
+    {
+        StringBuffer sb = new StringBuffer(identifier.length() + 2);
+        sb.append('[');
+        for (int i = 0; i < identifier.length(); i++)
+        {
+            char c = identifier.charAt(i);
+            sb.append(c);
+            if (c == ']')
+            {
+                sb.append(']');
+            }
+        }
+        sb.append(']');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.mssql;
+
+import org.dbunit.database.diff.DefaultTableDiffSqlBuilder;
+import org.dbunit.dataset.Column;
+
+/**
+ * Compares tables inside of a MS SQL Server database using a local temporary
+ * table created by <code>SELECT ... INTO</code>. The fingerprint is the sum
+ * of the first 64 bits of the <code>SHA2_256</code> hash of each row, which
+ * requires SQL Server 2012 or later. Tables with <code>text</code>,
+ * <code>ntext</code>, <code>image</code> or <code>xml</code> columns are not
+ * fingerprinted.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class MsSqlTableDiffSqlBuilder extends DefaultTableDiffSqlBuilder
+{
+    public String getTemporaryTableName(String tableName)
+    {
+        return "#" + super.getTemporaryTableName(tableName);
+    }
+
+    public String[] buildCreateTemporaryTableSql(String temporaryTableName,
+            String tableName, String[] columnNames)
+    {
+        // SELECT INTO copies the IDENTITY property of a column, which would
+        // reject the inserted expected values, unless the query is a UNION
+        StringBuffer sql = new StringBuffer(256);
+        sql.append("select ");
+        appendColumnNames(sql, null, columnNames);
+        sql.append(" into ").append(temporaryTableName);
+        sql.append(" from ").append(tableName);
+        sql.append(" where 1 = 0 union all ");
+        sql.append(buildEmptySelect(tableName, columnNames));
+        return new String[] {sql.toString()};
+    }
+
+    public String buildFingerprintSql(String tableName, String[] columnNames,
+            Column[] columns)
+    {
+        if (hasLargeObjectColumn(columns))
+        {
+            return null;
+        }
+
+        // Every value is hashed into a 64 characters long string, hence the
+        // concatenation is unambiguous. The hashes of the rows are summed,
+        // so that duplicate rows do not cancel out each other as with XOR.
+        StringBuffer sql = new StringBuffer(256);
+        sql.append("select count(*), sum(cast(cast(substring(hashbytes('SHA2_256', ");
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            if (i > 0)
+            {
+                sql.append(" + ");
+            }
+            sql.append("isnull(convert(varchar(max), hashbytes('SHA2_256', convert(varbinary(max), ");
+            sql.append(columnNames[i]).append(")), 2), 'N')");
+        }
+        sql.append("), 1, 8) as bigint) as decimal(38, 0))) from ").append(tableName);
+        return sql.toString();
+    }
+}
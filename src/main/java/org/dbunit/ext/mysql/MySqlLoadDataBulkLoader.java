@@ -0,0 +1,129 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.mysql;
+
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.bulk.AbstractTextBulkLoader;
+import org.dbunit.database.bulk.TabDelimitedTableReader;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads tables using the MySQL <code>LOAD DATA LOCAL INFILE</code> statement. The
+ * rows are streamed to the server using the
+ * <code>setLocalInfileInputStream</code> method of the MySQL Connector/J
+ * statement (version 5.1.3 or later), no file is written. Local infile loading must
+ * be allowed on the server and, for newer drivers, by the
+ * <code>allowLoadLocalInfile</code> connection property.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class MySqlLoadDataBulkLoader extends AbstractTextBulkLoader
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(MySqlLoadDataBulkLoader.class);
+
+    private static final String MYSQL_STATEMENT_CLASS = "com.mysql.jdbc.Statement";
+
+    protected boolean isSupported(Connection connection) throws SQLException
+    {
+        try
+        {
+            Class mysqlStatementClass = Class.forName(MYSQL_STATEMENT_CLASS);
+            Statement statement = connection.createStatement();
+            try
+            {
+                return mysqlStatementClass.isInstance(statement);
+            }
+            finally
+            {
+                statement.close();
+            }
+        }
+        catch (ClassNotFoundException e)
+        {
+            logger.debug("MySQL driver not available", e);
+            return false;
+        }
+    }
+
+    public int load(IDatabaseConnection connection, String tableName, String[] columnNames,
+            Column[] columns, ITable table) throws DataSetException, SQLException
+    {
+        logger.debug("load(connection={}, tableName={}) - start", connection, tableName);
+
+        // The file name is ignored when an input stream is set
+        String sql = "LOAD DATA LOCAL INFILE 'dbunit.txt' INTO TABLE " + tableName
+                + " CHARACTER SET utf8 (" + getColumnList(columnNames) + ")";
+        TabDelimitedTableReader reader = new TabDelimitedTableReader(table, columns);
+
+        Statement statement = connection.getConnection().createStatement();
+        try
+        {
+            Method setStream = Class.forName(MYSQL_STATEMENT_CLASS).getMethod(
+                    "setLocalInfileInputStream", new Class[] {InputStream.class});
+            setStream.invoke(statement, new Object[] {reader.toInputStream("UTF-8")});
+        }
+        catch (InvocationTargetException e)
+        {
+            statement.close();
+            throw new DataSetException("Cannot set the input stream of LOAD DATA", e.getTargetException());
+        }
+        catch (Exception e)
+        {
+            statement.close();
+            throw new DataSetException("MySQL Connector/J 5.1.3 or later required", e);
+        }
+
+        try
+        {
+            statement.execute(sql);
+            return reader.getRowCount();
+        }
+        catch (SQLException e)
+        {
+            if (reader.getException() != null)
+            {
+                throw reader.getException();
+            }
+            throw e;
+        }
+        finally
+        {
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.mysql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.dbunit.database.DefaultSchemaMetadataLoader;
+import org.dbunit.database.IDatabaseConnection;
+
+/**
+ * Loads the metadata of all tables of a MySQL database. The columns are
+ * retrieved using the configured metadata handler, the primary and the
+ * foreign keys using single queries on the <code>information_schema</code>.
+ * The version of the schema is the number of columns together with a sum of
+ * MD5 hashes over the definition of each column in
+ * <code>information_schema.COLUMNS</code>, so it changes whenever a column is
+ * added, dropped or modified, even by an in-place <code>ALTER TABLE</code>.
+ * Like for the {@link MySqlMetadataHandler} the schema is the MySQL database,
+ * which defaults to the current database.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class MySqlSchemaMetadataLoader extends DefaultSchemaMetadataLoader
+{
+    private static final String PRIMARY_KEYS_SQL =
+        "select TABLE_SCHEMA as TABLE_CAT, null as TABLE_SCHEM, TABLE_NAME, "
+        + "COLUMN_NAME, ORDINAL_POSITION as KEY_SEQ, CONSTRAINT_NAME as PK_NAME "
+        + "from information_schema.KEY_COLUMN_USAGE "
+        + "where CONSTRAINT_NAME = 'PRIMARY' "
+        + "and TABLE_SCHEMA = coalesce(?, database()) "
+        + "order by TABLE_NAME, ORDINAL_POSITION";
+
+    private static final String IMPORTED_KEYS_SQL =
+        "select REFERENCED_TABLE_SCHEMA as PKTABLE_CAT, null as PKTABLE_SCHEM, "
+        + "REFERENCED_TABLE_NAME as PKTABLE_NAME, REFERENCED_COLUMN_NAME as PKCOLUMN_NAME, "
+        + "TABLE_SCHEMA as FKTABLE_CAT, null as FKTABLE_SCHEM, TABLE_NAME as FKTABLE_NAME, "
+        + "COLUMN_NAME as FKCOLUMN_NAME, ORDINAL_POSITION as KEY_SEQ, "
+        + "null as UPDATE_RULE, null as DELETE_RULE, CONSTRAINT_NAME as FK_NAME, "
+        + "null as PK_NAME, null as DEFERRABILITY "
+        + "from information_schema.KEY_COLUMN_USAGE "
+        + "where REFERENCED_TABLE_NAME is not null "
+        + "and TABLE_SCHEMA = coalesce(?, database()) "
+        + "order by TABLE_NAME, REFERENCED_TABLE_SCHEMA, REFERENCED_TABLE_NAME, ORDINAL_POSITION";
+
+    private static final String VERSION_SQL =
+        "select concat(count(*), '/', coalesce(sum(cast(conv(substr(md5(concat_ws('|', "
+        + "TABLE_NAME, COLUMN_NAME, ORDINAL_POSITION, COLUMN_TYPE, IS_NULLABLE, "
+        + "COLUMN_KEY, COLUMN_DEFAULT, EXTRA)), 1, 15), 16, 10) as unsigned)), 0)) "
+        + "from information_schema.COLUMNS "
+        + "where TABLE_SCHEMA = coalesce(?, database())";
+
+    public ResultSet getPrimaryKeys(IDatabaseConnection connection, String schemaName)
+    throws SQLException
+    {
+        return executeQuery(connection, PRIMARY_KEYS_SQL, schemaName);
+    }
+
+    public ResultSet getImportedKeys(IDatabaseConnection connection, String schemaName)
+    throws SQLException
+    {
+        return executeQuery(connection, IMPORTED_KEYS_SQL, schemaName);
+    }
+
+    public String getSchemaVersion(IDatabaseConnection connection, String schemaName)
+    throws SQLException
+    {
+        return queryString(connection, VERSION_SQL, schemaName);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.mysql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.clear.DefaultTableClearStrategy;
+import org.dbunit.util.SQLHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Disables the foreign key checks of the session using
+ * <code>foreign_key_checks</code> so that every table can be truncated in any order.
+ * Since the checks are disabled for the session only, the tables are cleared on
+ * a single connection.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class MySqlTableClearStrategy extends DefaultTableClearStrategy
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(MySqlTableClearStrategy.class);
+
+    protected boolean disableConstraints(IDatabaseConnection connection, String[] tableNames,
+            List restoreStatements) throws SQLException
+    {
+        logger.debug("disableConstraints(connection={}, tableNames={}) - start",
+                connection, tableNames);
+
+        int checks;
+        Statement statement = connection.getConnection().createStatement();
+        ResultSet resultSet = null;
+        try
+        {
+            resultSet = statement.executeQuery("select @@foreign_key_checks");
+            resultSet.next();
+            checks = resultSet.getInt(1);
+        }
+        finally
+        {
+            SQLHelper.close(resultSet, statement);
+        }
+
+        execute(connection, "set foreign_key_checks = 0");
+        restoreStatements.add("set foreign_key_checks = " + checks);
+        return true;
+    }
+
+    protected boolean isSessionScoped()
+    {
+        return true;
+    }
+}
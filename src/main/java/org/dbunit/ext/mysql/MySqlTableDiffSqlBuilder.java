@@ -0,0 +1,87 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.mysql;
+
+import org.dbunit.database.diff.DefaultTableDiffSqlBuilder;
+import org.dbunit.dataset.Column;
+
+/**
+ * Compares tables inside of a MySQL database. MySQL before 8.0.31 does not
+ * support <code>EXCEPT</code>, hence the difference is selected using
+ * <code>NOT EXISTS</code> and the null-safe equality operator. The
+ * fingerprint is the sum of the first 60 bits of the <code>MD5</code> hash of
+ * each row. Tables with <code>TEXT</code> or <code>BLOB</code> columns are not
+ * fingerprinted.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class MySqlTableDiffSqlBuilder extends DefaultTableDiffSqlBuilder
+{
+    public String buildDifferenceSql(String tableName, String otherTableName,
+            String[] columnNames)
+    {
+        StringBuffer sql = new StringBuffer(256);
+        sql.append("select distinct ");
+        appendColumnNames(sql, "a", columnNames);
+        sql.append(" from ").append(tableName).append(" a");
+        sql.append(" where not exists (select 1 from ").append(otherTableName).append(" b");
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            sql.append(i == 0 ? " where " : " and ");
+            sql.append("a.").append(columnNames[i]);
+            sql.append(" <=> b.").append(columnNames[i]);
+        }
+        sql.append(")");
+        return sql.toString();
+    }
+
+    public String buildFingerprintSql(String tableName, String[] columnNames,
+            Column[] columns)
+    {
+        if (hasLargeObjectColumn(columns))
+        {
+            return null;
+        }
+
+        // Every value is hashed into a string of fixed length, hence the
+        // concatenation is unambiguous. The sum of unsigned values is a
+        // DECIMAL, hence does not overflow.
+        StringBuffer sql = new StringBuffer(256);
+        sql.append("select count(*), sum(cast(conv(substr(md5(concat(");
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            if (i > 0)
+            {
+                sql.append(", ");
+            }
+            sql.append("ifnull(md5(").append(columnNames[i]).append("), 'N')");
+        }
+        sql.append(")), 1, 15), 16, 10) as unsigned)) from ").append(tableName);
+        return sql.toString();
+    }
+
+    public String[] buildDropTemporaryTableSql(String temporaryTableName)
+    {
+        return new String[] {"drop temporary table " + temporaryTableName};
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.mysql;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.dbunit.database.statement.IUpsertSqlBuilder;
+
+/**
+ * Builds MySQL <code>INSERT ... ON DUPLICATE KEY UPDATE</code> statements for the
+ * refresh operation.
+ * <p>
+ * MySQL updates the existing row when the inserted row collides with it on any
+ * unique key, not only on the primary key. For tables having unique keys
+ * besides the primary key a row of the dataset may therefore overwrite a row
+ * having a different primary key, where the probing refresh would have failed
+ * with a duplicate key. Only use this builder for tables whose only unique key
+ * is the primary key.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class MySqlUpsertSqlBuilder implements IUpsertSqlBuilder
+{
+    public String buildUpsertSql(String tableName, String[] columnNames,
+            String[] primaryKeyNames, String[] nullColumnNames)
+    {
+        List primaryKeys = Arrays.asList(primaryKeyNames);
+
+        StringBuffer sql = new StringBuffer(256);
+        sql.append("insert into ").append(tableName).append(" (");
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            if (i > 0)
+            {
+                sql.append(", ");
+            }
+            sql.append(columnNames[i]);
+        }
+        sql.append(") values (");
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            if (i > 0)
+            {
+                sql.append(", ");
+            }
+            sql.append("?");
+        }
+        sql.append(") on duplicate key update ");
+
+        String separator = "";
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            if (!primaryKeys.contains(columnNames[i]))
+            {
+                sql.append(separator);
+                sql.append(columnNames[i]).append(" = values(").append(columnNames[i]).append(")");
+                separator = ", ";
+            }
+        }
+        for (int i = 0; i < nullColumnNames.length; i++)
+        {
+            sql.append(separator);
+            sql.append(nullColumnNames[i]).append(" = null");
+            separator = ", ";
+        }
+
+        // Only primary key columns: keep the existing row
+        if (separator.length() == 0)
+        {
+            sql.append(primaryKeyNames[0]).append(" = ").append(primaryKeyNames[0]);
+        }
+        return sql.toString();
+    }
+}
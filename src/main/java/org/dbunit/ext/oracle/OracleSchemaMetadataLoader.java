@@ -0,0 +1,138 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.oracle;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.dbunit.database.DefaultSchemaMetadataLoader;
+import org.dbunit.database.IDatabaseConnection;
+
+/**
+ * Loads the metadata of all tables of an Oracle schema using a single query on
+ * <code>ALL_TAB_COLUMNS</code> and single queries on <code>ALL_CONSTRAINTS</code>
+ * for the primary and the foreign keys.
+ * The data types are mapped to JDBC types like the Oracle JDBC driver does,
+ * <code>DATE</code> being reported as <code>TIMESTAMP</code>.
+ * The version of the schema is the time of the last DDL statement on one of
+ * its objects. If no schema is given the current schema of the session is
+ * loaded.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class OracleSchemaMetadataLoader extends DefaultSchemaMetadataLoader
+{
+    private static final String COLUMNS_SQL =
+        "select null as TABLE_CAT, t.owner as TABLE_SCHEM, t.table_name as TABLE_NAME, "
+        + "t.column_name as COLUMN_NAME, "
+        + "case "
+        + "when t.data_type = 'CHAR' then 1 "
+        + "when t.data_type = 'VARCHAR2' then 12 "
+        + "when t.data_type = 'NCHAR' then -15 "
+        + "when t.data_type = 'NVARCHAR2' then -9 "
+        + "when t.data_type = 'NUMBER' then 3 "
+        + "when t.data_type = 'FLOAT' then 6 "
+        + "when t.data_type = 'BINARY_FLOAT' then 100 "
+        + "when t.data_type = 'BINARY_DOUBLE' then 101 "
+        + "when t.data_type = 'LONG' then -1 "
+        + "when t.data_type = 'DATE' then 93 "
+        + "when t.data_type like 'TIMESTAMP(%) WITH LOCAL TIME ZONE' then -102 "
+        + "when t.data_type like 'TIMESTAMP(%) WITH TIME ZONE' then -101 "
+        + "when t.data_type like 'TIMESTAMP%' then 93 "
+        + "when t.data_type = 'RAW' then -3 "
+        + "when t.data_type = 'LONG RAW' then -4 "
+        + "when t.data_type = 'BLOB' then 2004 "
+        + "when t.data_type = 'CLOB' then 2005 "
+        + "when t.data_type = 'NCLOB' then 2011 "
+        + "when t.data_type = 'BFILE' then -13 "
+        + "when t.data_type in ('ROWID', 'UROWID') then -8 "
+        + "when t.data_type_owner is not null then 2002 "
+        + "else 1111 end as DATA_TYPE, "
+        + "t.data_type as TYPE_NAME, "
+        + "nvl(t.data_precision, t.data_length) as COLUMN_SIZE, "
+        + "0 as BUFFER_LENGTH, t.data_scale as DECIMAL_DIGITS, 10 as NUM_PREC_RADIX, "
+        + "decode(t.nullable, 'N', 0, 1) as NULLABLE, null as REMARKS, "
+        + "t.data_default as COLUMN_DEF, 0 as SQL_DATA_TYPE, 0 as SQL_DATETIME_SUB, "
+        + "t.data_length as CHAR_OCTET_LENGTH, t.column_id as ORDINAL_POSITION, "
+        + "decode(t.nullable, 'N', 'NO', 'YES') as IS_NULLABLE "
+        + "from all_tab_columns t "
+        + "where t.owner = nvl(?, sys_context('USERENV', 'CURRENT_SCHEMA')) "
+        + "order by t.table_name, t.column_id";
+
+    private static final String PRIMARY_KEYS_SQL =
+        "select null as TABLE_CAT, c.owner as TABLE_SCHEM, c.table_name as TABLE_NAME, "
+        + "cc.column_name as COLUMN_NAME, cc.position as KEY_SEQ, "
+        + "c.constraint_name as PK_NAME "
+        + "from all_constraints c, all_cons_columns cc "
+        + "where c.constraint_type = 'P' "
+        + "and c.owner = nvl(?, sys_context('USERENV', 'CURRENT_SCHEMA')) "
+        + "and cc.owner = c.owner and cc.constraint_name = c.constraint_name "
+        + "and cc.table_name = c.table_name "
+        + "order by c.table_name, cc.position";
+
+    private static final String IMPORTED_KEYS_SQL =
+        "select null as PKTABLE_CAT, p.owner as PKTABLE_SCHEM, p.table_name as PKTABLE_NAME, "
+        + "pc.column_name as PKCOLUMN_NAME, null as FKTABLE_CAT, "
+        + "c.owner as FKTABLE_SCHEM, c.table_name as FKTABLE_NAME, "
+        + "cc.column_name as FKCOLUMN_NAME, cc.position as KEY_SEQ, "
+        + "null as UPDATE_RULE, decode(c.delete_rule, 'CASCADE', 0, 'SET NULL', 2, 1) as DELETE_RULE, "
+        + "c.constraint_name as FK_NAME, p.constraint_name as PK_NAME, "
+        + "decode(c.deferrable, 'DEFERRABLE', 5, 7) as DEFERRABILITY "
+        + "from all_constraints c, all_cons_columns cc, all_constraints p, all_cons_columns pc "
+        + "where c.constraint_type = 'R' "
+        + "and c.owner = nvl(?, sys_context('USERENV', 'CURRENT_SCHEMA')) "
+        + "and cc.owner = c.owner and cc.constraint_name = c.constraint_name "
+        + "and p.owner = c.r_owner and p.constraint_name = c.r_constraint_name "
+        + "and pc.owner = p.owner and pc.constraint_name = p.constraint_name "
+        + "and pc.position = cc.position "
+        + "order by c.table_name, p.owner, p.table_name, cc.position";
+
+    private static final String VERSION_SQL =
+        "select to_char(max(last_ddl_time), 'YYYYMMDDHH24MISS') || '/' || count(*) "
+        + "from all_objects "
+        + "where owner = nvl(?, sys_context('USERENV', 'CURRENT_SCHEMA'))";
+
+    public ResultSet getColumns(IDatabaseConnection connection, String schemaName)
+    throws SQLException
+    {
+        return executeQuery(connection, COLUMNS_SQL, schemaName);
+    }
+
+    public ResultSet getPrimaryKeys(IDatabaseConnection connection, String schemaName)
+    throws SQLException
+    {
+        return executeQuery(connection, PRIMARY_KEYS_SQL, schemaName);
+    }
+
+    public ResultSet getImportedKeys(IDatabaseConnection connection, String schemaName)
+    throws SQLException
+    {
+        return executeQuery(connection, IMPORTED_KEYS_SQL, schemaName);
+    }
+
+    public String getSchemaVersion(IDatabaseConnection connection, String schemaName)
+    throws SQLException
+    {
+        return queryString(connection, VERSION_SQL, schemaName);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.oracle;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.clear.DefaultTableClearStrategy;
+import org.dbunit.util.QualifiedTableName;
+import org.dbunit.util.SQLHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Disables the foreign keys referencing the cleared tables, including the ones
+ * of tables not being cleared, so that every table can be truncated. The
+ * foreign keys are enabled and validated again afterwards.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class OracleTableClearStrategy extends DefaultTableClearStrategy
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(OracleTableClearStrategy.class);
+
+    private static final String REFERENCING_CONSTRAINTS_SQL =
+            "select c.owner, c.table_name, c.constraint_name"
+            + " from all_constraints c, all_constraints p"
+            + " where c.constraint_type = 'R' and c.status = 'ENABLED'"
+            + " and c.r_owner = p.owner and c.r_constraint_name = p.constraint_name"
+            + " and p.owner = nvl(?, sys_context('USERENV', 'CURRENT_SCHEMA'))"
+            + " and p.table_name = ?";
+
+    protected boolean disableConstraints(IDatabaseConnection connection, String[] tableNames,
+            List restoreStatements) throws SQLException
+    {
+        logger.debug("disableConstraints(connection={}, tableNames={}) - start",
+                connection, tableNames);
+
+        List constraints = new ArrayList();
+        PreparedStatement statement = connection.getConnection().prepareStatement(
+                REFERENCING_CONSTRAINTS_SQL);
+        try
+        {
+            for (int i = 0; i < tableNames.length; i++)
+            {
+                QualifiedTableName qualifiedTableName = new QualifiedTableName(tableNames[i],
+                        connection.getSchema());
+                statement.setString(1, qualifiedTableName.getSchema());
+                statement.setString(2, qualifiedTableName.getTable());
+                ResultSet resultSet = statement.executeQuery();
+                try
+                {
+                    while (resultSet.next())
+                    {
+                        constraints.add(new String[] {
+                                quote(resultSet.getString(1)) + "." + quote(resultSet.getString(2)),
+                                quote(resultSet.getString(3))});
+                    }
+                }
+                finally
+                {
+                    SQLHelper.close(resultSet);
+                }
+            }
+        }
+        finally
+        {
+            SQLHelper.close(statement);
+        }
+
+        for (int i = 0; i < constraints.size(); i++)
+        {
+            String[] constraint = (String[])constraints.get(i);
+            execute(connection, "alter table " + constraint[0] + " disable constraint "
+                    + constraint[1]);
+            restoreStatements.add("alter table " + constraint[0] + " enable constraint "
+                    + constraint[1]);
+        }
+        return true;
+    }
+
+    private static String quote(String identifier)
+    {
+        return "\"" + identifier + "\"";
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.oracle;
+
+import org.dbunit.database.diff.DefaultTableDiffSqlBuilder;
+import org.dbunit.dataset.Column;
+
+/**
+ * Compares tables inside of an Oracle database using a global temporary table
+ * and <code>MINUS</code>. Note that creating and dropping the global
+ * temporary table is DDL, which implicitly commits the current transaction
+ * of the connection. The fingerprint is the sum of the first 60 bits of
+ * the <code>MD5</code> hash of each row, computed by <code>STANDARD_HASH</code>
+ * which requires Oracle 12c or later. Tables with <code>LOB</code> columns
+ * or more than 125 columns are not fingerprinted.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class OracleTableDiffSqlBuilder extends DefaultTableDiffSqlBuilder
+{
+    /**
+     * Length of the hexadecimal representation of a MD5 hash
+     */
+    private static final int HASH_LENGTH = 32;
+
+    private static final int MAX_VARCHAR2_LENGTH = 4000;
+
+    public String[] buildCreateTemporaryTableSql(String temporaryTableName,
+            String tableName, String[] columnNames)
+    {
+        return new String[] {"create global temporary table " + temporaryTableName
+                + " on commit preserve rows as " + buildEmptySelect(tableName, columnNames)};
+    }
+
+    public String buildFingerprintSql(String tableName, String[] columnNames,
+            Column[] columns)
+    {
+        // The concatenated hashes must fit into a VARCHAR2
+        if (hasLargeObjectColumn(columns)
+                || columnNames.length * HASH_LENGTH > MAX_VARCHAR2_LENGTH)
+        {
+            return null;
+        }
+
+        // Every value is hashed into a string of fixed length, hence the
+        // concatenation is unambiguous
+        StringBuffer sql = new StringBuffer(256);
+        sql.append("select count(*), sum(to_number(substr(rawtohex(standard_hash(");
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            if (i > 0)
+            {
+                sql.append(" || ");
+            }
+            sql.append("nvl(rawtohex(standard_hash(").append(columnNames[i]);
+            sql.append(", 'MD5')), 'N')");
+        }
+        sql.append(", 'MD5')), 1, 15), 'XXXXXXXXXXXXXXX')) from ").append(tableName);
+        return sql.toString();
+    }
+
+    public String[] buildDropTemporaryTableSql(String temporaryTableName)
+    {
+        // A global temporary table in use by the session cannot be dropped
+        return new String[] {
+                "truncate table " + temporaryTableName,
+                "drop table " + temporaryTableName};
+    }
+
+    protected String getDifferenceOperator()
+    {
+        return "minus";
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.postgresql;
+
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.bulk.AbstractTextBulkLoader;
+import org.dbunit.database.bulk.TabDelimitedTableReader;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads tables using the PostgreSQL <code>COPY ... FROM STDIN</code> statement in
+ * text format. Requires the PostgreSQL JDBC driver 8.4 or later, the
+ * <code>CopyManager</code> of the driver is accessed by reflection.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class PostgresqlCopyBulkLoader extends AbstractTextBulkLoader
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(PostgresqlCopyBulkLoader.class);
+
+    private static final String PG_CONNECTION_CLASS = "org.postgresql.PGConnection";
+
+    protected boolean isSupported(Connection connection)
+    {
+        try
+        {
+            Class pgConnectionClass = Class.forName(PG_CONNECTION_CLASS);
+            return pgConnectionClass.isInstance(connection);
+        }
+        catch (ClassNotFoundException e)
+        {
+            logger.debug("PostgreSQL driver not available", e);
+            return false;
+        }
+    }
+
+    public int load(IDatabaseConnection connection, String tableName, String[] columnNames,
+            Column[] columns, ITable table) throws DataSetException, SQLException
+    {
+        logger.debug("load(connection={}, tableName={}) - start", connection, tableName);
+
+        String sql = "COPY " + tableName + " (" + getColumnList(columnNames) + ") FROM STDIN";
+        TabDelimitedTableReader reader = new TabDelimitedTableReader(table, columns);
+        try
+        {
+            Connection jdbcConnection = connection.getConnection();
+            Class pgConnectionClass = Class.forName(PG_CONNECTION_CLASS);
+            Object copyManager = pgConnectionClass.getMethod("getCopyAPI", new Class[0])
+                    .invoke(jdbcConnection, new Object[0]);
+            Method copyIn = copyManager.getClass().getMethod("copyIn",
+                    new Class[] {String.class, Reader.class});
+            copyIn.invoke(copyManager, new Object[] {sql, reader});
+            return reader.getRowCount();
+        }
+        catch (InvocationTargetException e)
+        {
+            if (reader.getException() != null)
+            {
+                throw reader.getException();
+            }
+            Throwable cause = e.getTargetException();
+            if (cause instanceof SQLException)
+            {
+                throw (SQLException)cause;
+            }
+            throw new DataSetException("COPY of table '" + tableName + "' failed", cause);
+        }
+        catch (Exception e)
+        {
+            throw new DataSetException("PostgreSQL CopyManager not available", e);
+        }
+    }
+}
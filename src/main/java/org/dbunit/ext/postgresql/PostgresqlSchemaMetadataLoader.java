@@ -0,0 +1,129 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.postgresql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.dbunit.database.DefaultSchemaMetadataLoader;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.util.SQLHelper;
+
+/**
+ * Loads the metadata of all tables of a PostgreSQL schema. The columns are
+ * retrieved using the JDBC driver for the whole schema since it maps the
+ * PostgreSQL types, the primary and the foreign keys using single queries on
+ * the <code>information_schema</code>. PostgreSQL does not record the time of
+ * DDL statements, hence the version of the schema is a hash over the
+ * transaction ids of the rows of <code>pg_attribute</code> and
+ * <code>pg_class</code>, which are replaced by every change of a column or
+ * a table. If no schema is given the current schema of the session is used
+ * for the columns, the keys and the version.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class PostgresqlSchemaMetadataLoader extends DefaultSchemaMetadataLoader
+{
+    private static final String PRIMARY_KEYS_SQL =
+        "select null as TABLE_CAT, tc.table_schema as TABLE_SCHEM, "
+        + "tc.table_name as TABLE_NAME, kcu.column_name as COLUMN_NAME, "
+        + "kcu.ordinal_position as KEY_SEQ, tc.constraint_name as PK_NAME "
+        + "from information_schema.table_constraints tc "
+        + "join information_schema.key_column_usage kcu "
+        + "on kcu.constraint_schema = tc.constraint_schema "
+        + "and kcu.constraint_name = tc.constraint_name "
+        + "and kcu.table_name = tc.table_name "
+        + "where tc.constraint_type = 'PRIMARY KEY' "
+        + "and tc.table_schema = coalesce(?, current_schema()) "
+        + "order by tc.table_name, kcu.ordinal_position";
+
+    private static final String IMPORTED_KEYS_SQL =
+        "select null as PKTABLE_CAT, pk.table_schema as PKTABLE_SCHEM, "
+        + "pk.table_name as PKTABLE_NAME, pk.column_name as PKCOLUMN_NAME, "
+        + "null as FKTABLE_CAT, fk.table_schema as FKTABLE_SCHEM, "
+        + "fk.table_name as FKTABLE_NAME, fk.column_name as FKCOLUMN_NAME, "
+        + "fk.ordinal_position as KEY_SEQ, null as UPDATE_RULE, null as DELETE_RULE, "
+        + "rc.constraint_name as FK_NAME, rc.unique_constraint_name as PK_NAME, "
+        + "null as DEFERRABILITY "
+        + "from information_schema.referential_constraints rc "
+        + "join information_schema.key_column_usage fk "
+        + "on fk.constraint_schema = rc.constraint_schema "
+        + "and fk.constraint_name = rc.constraint_name "
+        + "join information_schema.key_column_usage pk "
+        + "on pk.constraint_schema = rc.unique_constraint_schema "
+        + "and pk.constraint_name = rc.unique_constraint_name "
+        + "and pk.ordinal_position = fk.position_in_unique_constraint "
+        + "where fk.table_schema = coalesce(?, current_schema()) "
+        + "order by fk.table_name, pk.table_schema, pk.table_name, fk.ordinal_position";
+
+    private static final String VERSION_SQL =
+        "select count(*) || '/' || coalesce(sum(('x' || substr(md5("
+        + "c.relname || '|' || c.xmin || '|' || a.attname || '|' || a.attnum "
+        + "|| '|' || a.xmin), 1, 15))::bit(60)::bigint), 0) "
+        + "from pg_attribute a join pg_class c on c.oid = a.attrelid "
+        + "join pg_namespace n on n.oid = c.relnamespace "
+        + "where n.nspname = coalesce(?, current_schema()) and a.attnum > 0";
+
+    private static final String CURRENT_SCHEMA_SQL = "select current_schema()";
+
+    public ResultSet getColumns(IDatabaseConnection connection, String schemaName)
+    throws SQLException
+    {
+        if (schemaName == null)
+        {
+            // Otherwise the columns of all schemas are loaded
+            Statement statement = connection.getConnection().createStatement();
+            ResultSet resultSet = null;
+            try
+            {
+                resultSet = statement.executeQuery(CURRENT_SCHEMA_SQL);
+                schemaName = resultSet.next() ? resultSet.getString(1) : null;
+            }
+            finally
+            {
+                SQLHelper.close(resultSet, statement);
+            }
+        }
+        return connection.getConnection().getMetaData().getColumns(
+                null, schemaName, "%", "%");
+    }
+
+    public ResultSet getPrimaryKeys(IDatabaseConnection connection, String schemaName)
+    throws SQLException
+    {
+        return executeQuery(connection, PRIMARY_KEYS_SQL, schemaName);
+    }
+
+    public ResultSet getImportedKeys(IDatabaseConnection connection, String schemaName)
+    throws SQLException
+    {
+        return executeQuery(connection, IMPORTED_KEYS_SQL, schemaName);
+    }
+
+    public String getSchemaVersion(IDatabaseConnection connection, String schemaName)
+    throws SQLException
+    {
+        return queryString(connection, VERSION_SQL, schemaName);
+    }
+}
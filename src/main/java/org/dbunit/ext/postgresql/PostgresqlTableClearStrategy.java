@@ -0,0 +1,112 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.postgresql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.clear.DefaultTableClearStrategy;
+import org.dbunit.util.SQLHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * PostgreSQL checks the foreign keys of truncated tables even if their triggers
+ * are disabled, so the tables referenced by a foreign key are always deleted.
+ * <p>
+ * Optionally all triggers, including the ones enforcing the foreign keys, are
+ * disabled for the session by setting <code>session_replication_role</code> to
+ * <code>replica</code>, which allows deleting the tables in any order. This
+ * requires superuser privileges and the foreign keys are not validated again.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class PostgresqlTableClearStrategy extends DefaultTableClearStrategy
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(PostgresqlTableClearStrategy.class);
+
+    private final boolean _disableTriggers;
+
+    public PostgresqlTableClearStrategy()
+    {
+        this(false);
+    }
+
+    /**
+     * @param disableTriggers <code>true</code> to disable all triggers of the
+     * session while the tables are cleared
+     */
+    public PostgresqlTableClearStrategy(boolean disableTriggers)
+    {
+        _disableTriggers = disableTriggers;
+    }
+
+    protected boolean disableConstraints(IDatabaseConnection connection, String[] tableNames,
+            List restoreStatements) throws SQLException
+    {
+        logger.debug("disableConstraints(connection={}, tableNames={}) - start",
+                connection, tableNames);
+
+        if (!_disableTriggers)
+        {
+            return false;
+        }
+
+        String role;
+        Statement statement = connection.getConnection().createStatement();
+        ResultSet resultSet = null;
+        try
+        {
+            resultSet = statement.executeQuery("show session_replication_role");
+            resultSet.next();
+            role = resultSet.getString(1);
+        }
+        finally
+        {
+            SQLHelper.close(resultSet, statement);
+        }
+
+        execute(connection, "set session_replication_role = replica");
+        restoreStatements.add("set session_replication_role = " + role);
+        return true;
+    }
+
+    protected boolean isSessionScoped()
+    {
+        return true;
+    }
+
+    protected boolean canTruncate(IDatabaseConnection connection, String tableName,
+            boolean constraintsDisabled) throws SQLException
+    {
+        return !isReferenced(connection, tableName);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.postgresql;
+
+import org.dbunit.database.diff.DefaultTableDiffSqlBuilder;
+import org.dbunit.dataset.Column;
+
+/**
+ * Compares tables inside of a PostgreSQL database. The fingerprint is the sum
+ * of the first 60 bits of the <code>MD5</code> of the text representation of
+ * each row.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class PostgresqlTableDiffSqlBuilder extends DefaultTableDiffSqlBuilder
+{
+    public String buildFingerprintSql(String tableName, String[] columnNames,
+            Column[] columns)
+    {
+        // The sum of bigint values is numeric, hence does not overflow
+        StringBuffer sql = new StringBuffer(128);
+        sql.append("select count(*), sum(('x' || substr(md5(row(");
+        appendColumnNames(sql, null, columnNames);
+        sql.append(")::text), 1, 15))::bit(60)::bigint) from ").append(tableName);
+        return sql.toString();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.postgresql;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.dbunit.database.statement.IUpsertSqlBuilder;
+
+/**
+ * Builds PostgreSQL <code>INSERT ... ON CONFLICT</code> statements for the refresh
+ * operation. Requires PostgreSQL 9.5 or later.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class PostgresqlUpsertSqlBuilder implements IUpsertSqlBuilder
+{
+    public String buildUpsertSql(String tableName, String[] columnNames,
+            String[] primaryKeyNames, String[] nullColumnNames)
+    {
+        List primaryKeys = Arrays.asList(primaryKeyNames);
+
+        StringBuffer sql = new StringBuffer(256);
+        sql.append("insert into ").append(tableName).append(" (");
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            if (i > 0)
+            {
+                sql.append(", ");
+            }
+            sql.append(columnNames[i]);
+        }
+        sql.append(") values (");
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            if (i > 0)
+            {
+                sql.append(", ");
+            }
+            sql.append("?");
+        }
+        sql.append(") on conflict (");
+        for (int i = 0; i < primaryKeyNames.length; i++)
+        {
+            if (i > 0)
+            {
+                sql.append(", ");
+            }
+            sql.append(primaryKeyNames[i]);
+        }
+        sql.append(")");
+
+        String separator = " do update set ";
+        for (int i = 0; i < columnNames.length; i++)
+        {
+            if (!primaryKeys.contains(columnNames[i]))
+            {
+                sql.append(separator);
+                sql.append(columnNames[i]).append(" = excluded.").append(columnNames[i]);
+                separator = ", ";
+            }
+        }
+        for (int i = 0; i < nullColumnNames.length; i++)
+        {
+            sql.append(separator);
+            sql.append(nullColumnNames[i]).append(" = null");
+            separator = ", ";
+        }
+
+        // Only primary key columns: nothing to update
+        if (separator.startsWith(" do"))
+        {
+            sql.append(" do nothing");
+        }
+        return sql.toString();
+    }
+}
@@ -30,6 +30,7 @@ import org.dbunit.database.IDatabaseConnection;
 import org.dbunit.database.statement.IPreparedBatchStatement;
 import org.dbunit.database.statement.IStatementFactory;
 import org.dbunit.dataset.Column;
+import org.dbunit.dataset.ColumnIndexMapping;
 import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.ITable;
@@ -122,107 +123,143 @@ public abstract class AbstractBatchOperation extends AbstractOperation
     {
         logger.debug("execute(connection={}, dataSet={}) - start", connection, dataSet);
 
-        DatabaseConfig databaseConfig = connection.getConfig();
-        IStatementFactory factory = (IStatementFactory)databaseConfig.getProperty(DatabaseConfig.PROPERTY_STATEMENT_FACTORY);
+        ITableIterator iterator = iterator(dataSet);
+
+        if (ParallelTableExecutor.isEnabled(connection))
+        {
+            new ParallelTableExecutor(connection).execute(this, iterator);
+            return;
+        }
 
         // for each table
-        ITableIterator iterator = iterator(dataSet);
         while (iterator.next())
         {
-            ITable table = iterator.getTable();
+            executeTable(connection, iterator.getTable());
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if this operation must process the tables in
+     * reverse dependency order, i.e. dependent tables before the tables they
+     * depend on.
+     * @since 2.4.10
+     */
+    boolean isReverseTableOrder()
+    {
+        return false;
+    }
 
-            String tableName=table.getTableMetaData().getTableName();
-            logger.trace("execute: processing table='{}'", tableName);
+    /**
+     * Executes this operation on a single table using the specified connection.
+     * @param connection the database connection
+     * @param table the table to be processed
+     * @return the number of rows processed
+     * @since 2.4.10
+     */
+    int executeTable(IDatabaseConnection connection, ITable table)
+            throws DatabaseUnitException, SQLException
+    {
+        logger.debug("executeTable(connection={}, table={}) - start", connection, table);
 
-            // Do not process empty table
-            if (isEmpty(table))
-            {
-                continue;
-            }
+        DatabaseConfig databaseConfig = connection.getConfig();
+        IStatementFactory factory = (IStatementFactory)databaseConfig.getProperty(DatabaseConfig.PROPERTY_STATEMENT_FACTORY);
 
-            ITableMetaData metaData = getOperationMetaData(connection, table.getTableMetaData());
-            BitSet ignoreMapping = null;
-            OperationData operationData = null;
-            IPreparedBatchStatement statement = null;
+        String tableName=table.getTableMetaData().getTableName();
+        logger.trace("execute: processing table='{}'", tableName);
+
+        // Do not process empty table
+        if (isEmpty(table))
+        {
+            return 0;
+        }
+
+        ITableMetaData metaData = getOperationMetaData(connection, table.getTableMetaData());
+        BitSet ignoreMapping = null;
+        OperationData operationData = null;
+        ColumnIndexMapping columnMapping = null;
+        IPreparedBatchStatement statement = null;
+        int rowCount = 0;
+
+        try
+        {
+            // For each row
+            int start = _reverseRowOrder ? table.getRowCount() - 1 : 0;
+            int increment = _reverseRowOrder ? -1 : 1;
 
             try
             {
-                // For each row
-                int start = _reverseRowOrder ? table.getRowCount() - 1 : 0;
-                int increment = _reverseRowOrder ? -1 : 1;
-
-                try
+                for (int i = start; ; i = i + increment)
                 {
-                    for (int i = start; ; i = i + increment)
-                    {
-                        int row = i;
+                    int row = i;
 
-                        // If current row have a different ignore value mapping than
-                        // previous one, we generate a new statement
-                        if (ignoreMapping == null || !equalsIgnoreMapping(ignoreMapping, table, row))
+                    // If current row have a different ignore value mapping than
+                    // previous one, we generate a new statement
+                    if (ignoreMapping == null || !equalsIgnoreMapping(ignoreMapping, table, row))
+                    {
+                        // Execute and close previous statement
+                        if (statement != null)
                         {
-                            // Execute and close previous statement
-                            if (statement != null)
-                            {
-                                statement.executeBatch();
-                                statement.clearBatch();
-                                statement.close();
-                            }
-
-                            ignoreMapping = getIgnoreMapping(table, row);
-                            operationData = getOperationData(metaData, ignoreMapping, connection);
-                            statement = factory.createPreparedBatchStatement(
-                                    operationData.getSql(), connection);
+                            statement.executeBatch();
+                            statement.clearBatch();
+                            statement.close();
                         }
 
+                        ignoreMapping = getIgnoreMapping(table, row);
+                        operationData = getOperationData(metaData, ignoreMapping, connection);
+                        columnMapping = new ColumnIndexMapping(table, operationData.getColumns());
+                        statement = factory.createPreparedBatchStatement(
+                                operationData.getSql(), connection);
+                    }
+
 
-                        // for each column
-                        Column[] columns = operationData.getColumns();
-                        for (int j = 0; j < columns.length; j++)
+                    // for each column
+                    Column[] columns = operationData.getColumns();
+                    for (int j = 0; j < columns.length; j++)
+                    {
+                        // Bind value only if not in ignore mapping
+                        if (!ignoreMapping.get(j))
                         {
-                            // Bind value only if not in ignore mapping
-                            if (!ignoreMapping.get(j))
-                            {
-                                Column column = columns[j];
-                            	try
-								{
-	                                statement.addValue(table.getValue(row, column.getColumnName()), column.getDataType());
-								}
-                                catch (TypeCastException e)
-								{
-				                	throw new TypeCastException("Error casting value for table '" + table.getTableMetaData().getTableName() 
-				                			+"' and column '" + column.getColumnName() + "'", e);
-								}
-                            }
+                            Column column = columns[j];
+                        	try
+							{
+                                statement.addValue(columnMapping.getValue(row, j), column.getDataType());
+							}
+                            catch (TypeCastException e)
+							{
+			                	throw new TypeCastException("Error casting value for table '" + table.getTableMetaData().getTableName() 
+			                			+"' and column '" + column.getColumnName() + "'", e);
+							}
                         }
-                        statement.addBatch();
                     }
+                    statement.addBatch();
+                    rowCount++;
                 }
-                catch (RowOutOfBoundsException e)
-                {
-                	// This exception occurs when records are exhausted
-                	// and we reach the end of the table.  Ignore this error
-
-                    // end of table
-                }
-
-                statement.executeBatch();
-                statement.clearBatch();
             }
-            catch (SQLException e)
+            catch (RowOutOfBoundsException e)
             {
-                final String msg =
-                    "Exception processing table name='" + tableName + "'";
-                throw new DatabaseUnitException(msg, e);
+            	// This exception occurs when records are exhausted
+            	// and we reach the end of the table.  Ignore this error
+
+                // end of table
             }
-            finally
+
+            statement.executeBatch();
+            statement.clearBatch();
+        }
+        catch (SQLException e)
+        {
+            final String msg =
+                "Exception processing table name='" + tableName + "'";
+            throw new DatabaseUnitException(msg, e);
+        }
+        finally
+        {
+        	if (statement != null)
             {
-            	if (statement != null)
-                {
-                    statement.close();
-                }
+                statement.close();
             }
         }
+        return rowCount;
     }
     
     public String toString()
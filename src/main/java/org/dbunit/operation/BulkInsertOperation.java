@@ -0,0 +1,105 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import java.sql.SQLException;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.bulk.IBulkLoader;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Inserts the dataset contents using the native bulk load facility of the database.
+ * The loader is configured using the {@link DatabaseConfig#PROPERTY_BULK_LOADER}
+ * property. Tables are inserted like with the {@link InsertOperation} if no loader
+ * is configured or if the loader does not support the table columns.
+ * <p>
+ * Unlike the {@link InsertOperation} all rows of a table are loaded with the
+ * same columns, thus missing values ({@link ITable#NO_VALUE}) are loaded as
+ * <code>null</code> and not as the column default.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class BulkInsertOperation extends InsertOperation
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(BulkInsertOperation.class);
+
+    BulkInsertOperation()
+    {
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // AbstractBatchOperation class
+
+    int executeTable(IDatabaseConnection connection, ITable table)
+            throws DatabaseUnitException, SQLException
+    {
+        logger.debug("executeTable(connection={}, table={}) - start", connection, table);
+
+        IBulkLoader loader = (IBulkLoader)connection.getConfig().getProperty(
+                DatabaseConfig.PROPERTY_BULK_LOADER);
+        if (loader == null || isEmpty(table))
+        {
+            return super.executeTable(connection, table);
+        }
+
+        ITableMetaData metaData = getOperationMetaData(connection, table.getTableMetaData());
+        Column[] columns = metaData.getColumns();
+        String tableName = metaData.getTableName();
+        if (!loader.isSupported(connection, columns))
+        {
+            logger.debug("Bulk loader does not support table '{}', using batched inserts", tableName);
+            return super.executeTable(connection, table);
+        }
+
+        String[] columnNames = new String[columns.length];
+        for (int i = 0; i < columns.length; i++)
+        {
+            columnNames[i] = getQualifiedName(null, columns[i].getColumnName(), connection);
+        }
+
+        try
+        {
+            return loader.load(connection,
+                    getQualifiedName(connection.getSchema(), tableName, connection),
+                    columnNames, columns, table);
+        }
+        catch (SQLException e)
+        {
+            final String msg =
+                "Exception processing table name='" + tableName + "'";
+            throw new DatabaseUnitException(msg, e);
+        }
+    }
+}
@@ -43,8 +43,11 @@ public abstract class DatabaseOperation
     public static final DatabaseOperation DELETE = new DeleteOperation();
     public static final DatabaseOperation DELETE_ALL = new DeleteAllOperation();
     public static final DatabaseOperation TRUNCATE_TABLE = new TruncateTableOperation();
+    public static final DatabaseOperation BULK_INSERT = new BulkInsertOperation();
     public static final DatabaseOperation CLEAN_INSERT = new CompositeOperation(
             DELETE_ALL, INSERT);    
+    public static final DatabaseOperation INCREMENTAL_CLEAN_INSERT =
+            new SkipUnchangedTablesOperation(CLEAN_INSERT);
     public static final DatabaseOperation TRANSACTION(DatabaseOperation operation) {
       return new TransactionOperation(operation);
     }
@@ -26,6 +26,8 @@ import org.slf4j.LoggerFactory;
 import org.dbunit.DatabaseUnitException;
 import org.dbunit.database.DatabaseConfig;
 import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.clear.ITableClearStrategy;
+import org.dbunit.database.clear.ITableClearer;
 import org.dbunit.database.statement.IBatchStatement;
 import org.dbunit.database.statement.IStatementFactory;
 import org.dbunit.dataset.IDataSet;
@@ -47,6 +49,10 @@ import java.util.Stack;
  * TruncateTableOperation is faster, and it is non-logged, meaning it cannot be
  * rollback. DeleteAllOperation is more portable because not all database vendor
  * support TRUNCATE_TABLE TABLE statement.
+ * <p/>
+ * If a {@link DatabaseConfig#PROPERTY_TABLE_CLEAR_STRATEGY} is configured, the
+ * strategy decides how the tables are cleared, for example using TRUNCATE after
+ * having disabled the foreign key constraints.
  *
  * @author Manuel Laflamme
  * @version $Revision$
@@ -80,48 +86,55 @@ public class DeleteAllOperation extends AbstractOperation
 
         IDataSet databaseDataSet = connection.createDataSet();
 
-        DatabaseConfig databaseConfig = connection.getConfig();
-        IStatementFactory statementFactory = (IStatementFactory)databaseConfig.getProperty(DatabaseConfig.PROPERTY_STATEMENT_FACTORY);
-        IBatchStatement statement = statementFactory.createBatchStatement(connection);
-        try
+        Stack tableNameStack = new Stack();
+        Set tablesSeen = new HashSet();
+        ITableIterator iterator = dataSet.iterator();
+        while (iterator.next())
         {
-            int count = 0;
-            
-            Stack tableNames = new Stack();
-            Set tablesSeen = new HashSet();
-            ITableIterator iterator = dataSet.iterator();
-            while (iterator.next())
+            String tableName = iterator.getTableMetaData().getTableName();
+            if (!tablesSeen.contains(tableName))
             {
-                String tableName = iterator.getTableMetaData().getTableName();
-                if (!tablesSeen.contains(tableName))
-                {
-                    tableNames.push(tableName);
-                    tablesSeen.add(tableName);
-                }
+                tableNameStack.push(tableName);
+                tablesSeen.add(tableName);
             }
+        }
 
-            // delete tables once each in reverse order of seeing them.
-            while (!tableNames.isEmpty())
-            {
-                String tableName = (String)tableNames.pop();
+        // delete tables once each in reverse order of seeing them.
+        String[] tableNames = new String[tableNameStack.size()];
+        for (int i = 0; i < tableNames.length; i++)
+        {
+            // Use database table name. Required to support case sensitive database.
+            ITableMetaData databaseMetaData = databaseDataSet.getTableMetaData(
+                    (String)tableNameStack.pop());
+            tableNames[i] = databaseMetaData.getTableName();
+        }
 
-                // Use database table name. Required to support case sensitive database.
-                ITableMetaData databaseMetaData = databaseDataSet.getTableMetaData(tableName);
-                tableName = databaseMetaData.getTableName();
+        DatabaseConfig databaseConfig = connection.getConfig();
+        ITableClearStrategy clearStrategy = (ITableClearStrategy)databaseConfig.getProperty(
+                DatabaseConfig.PROPERTY_TABLE_CLEAR_STRATEGY);
+        if (clearStrategy != null)
+        {
+            clearTables(connection, clearStrategy, tableNames);
+            return;
+        }
 
+        IStatementFactory statementFactory = (IStatementFactory)databaseConfig.getProperty(DatabaseConfig.PROPERTY_STATEMENT_FACTORY);
+        IBatchStatement statement = statementFactory.createBatchStatement(connection);
+        try
+        {
+            for (int i = 0; i < tableNames.length; i++)
+            {
                 StringBuffer sqlBuffer = new StringBuffer(128);
                 sqlBuffer.append(getDeleteAllCommand());
-                sqlBuffer.append(getQualifiedName(connection.getSchema(), tableName, connection));
+                sqlBuffer.append(getQualifiedName(connection.getSchema(), tableNames[i], connection));
                 String sql = sqlBuffer.toString();
                 statement.addBatch(sql);
 
                 if(logger.isDebugEnabled())
                     logger.debug("Added SQL: {}", sql);
-                
-                count++;
             }
 
-            if (count > 0)
+            if (tableNames.length > 0)
             {
                 statement.executeBatch();
                 statement.clearBatch();
@@ -132,4 +145,57 @@ public class DeleteAllOperation extends AbstractOperation
             statement.close();
         }
     }
+
+    /**
+     * Clears the given tables using the configured {@link ITableClearStrategy}.
+     * The tables are cleared concurrently if the connection is configured for
+     * parallel table execution.
+     */
+    private void clearTables(IDatabaseConnection connection, ITableClearStrategy clearStrategy,
+            String[] tableNames) throws DatabaseUnitException, SQLException
+    {
+        logger.debug("clearTables(connection={}, clearStrategy={}, tableNames={}) - start",
+                new Object[] {connection, clearStrategy, tableNames});
+
+        final ITableClearer clearer = clearStrategy.begin(connection, tableNames);
+        try
+        {
+            String[][] levels = null;
+            ParallelTableExecutor executor = new ParallelTableExecutor(connection);
+            if (clearer.isConcurrent() && ParallelTableExecutor.isEnabled(connection))
+            {
+                levels = clearer.isOrderIndependent()
+                        ? executor.getIndependentLevels(tableNames)
+                        : executor.getLevels(tableNames, true);
+            }
+
+            if (levels != null)
+            {
+                executor.execute(levels, new ParallelTableExecutor.TableHandler()
+                {
+                    public int executeTable(IDatabaseConnection workerConnection,
+                            String tableName) throws SQLException
+                    {
+                        return clearer.clearTable(workerConnection, tableName);
+                    }
+                });
+                return;
+            }
+
+            for (int i = 0; i < tableNames.length; i++)
+            {
+                long start = System.currentTimeMillis();
+                int rowCount = clearer.clearTable(connection, tableNames[i]);
+                long duration = System.currentTimeMillis() - start;
+
+                logger.info("Processed table '{}': {} rows in {} ms", new Object[] {
+                        tableNames[i], rowCount < 0 ? "?" : String.valueOf(rowCount),
+                        String.valueOf(duration)});
+            }
+        }
+        finally
+        {
+            clearer.finish();
+        }
+    }
 }
@@ -66,6 +66,11 @@ public class DeleteOperation extends AbstractBatchOperation
         return dataSet.reverseIterator();
     }
 
+    boolean isReverseTableOrder()
+    {
+        return true;
+    }
+
     public OperationData getOperationData(ITableMetaData metaData, BitSet ignoreMapping, IDatabaseConnection connection) throws DataSetException
     {
     	if (logger.isDebugEnabled())
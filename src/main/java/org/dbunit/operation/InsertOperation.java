@@ -27,6 +27,7 @@ import org.slf4j.LoggerFactory;
 import org.dbunit.database.IDatabaseConnection;
 import org.dbunit.dataset.Column;
 import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IColumnIndexedTable;
 import org.dbunit.dataset.ITable;
 import org.dbunit.dataset.ITableMetaData;
 
@@ -117,7 +118,7 @@ public class InsertOperation extends AbstractBatchOperation
         BitSet ignoreMapping = new BitSet();
         for (int i = 0; i < columns.length; i++)
         {
-            Object value = table.getValue(row, columns[i].getColumnName());
+            Object value = getValue(table, row, columns, i);
             if (value == ITable.NO_VALUE)
             {
                 ignoreMapping.set(i);
@@ -140,7 +141,7 @@ public class InsertOperation extends AbstractBatchOperation
         for (int i = 0; i < columns.length; i++)
         {
             boolean bit = ignoreMapping.get(i);
-            Object value = table.getValue(row, columns[i].getColumnName());
+            Object value = getValue(table, row, columns, i);
             if ((bit && value != ITable.NO_VALUE) || (!bit && value == ITable.NO_VALUE))
             {
                 return false;
@@ -149,4 +150,18 @@ public class InsertOperation extends AbstractBatchOperation
 
         return true;
     }
+
+    /**
+     * Returns the value of the column at the given position of the table metadata,
+     * avoiding the column name lookup if the table supports it.
+     */
+    private Object getValue(ITable table, int row, Column[] columns, int column)
+            throws DataSetException
+    {
+        if (table instanceof IColumnIndexedTable)
+        {
+            return ((IColumnIndexedTable)table).getValue(row, column);
+        }
+        return table.getValue(row, columns[column].getColumnName());
+    }
 }
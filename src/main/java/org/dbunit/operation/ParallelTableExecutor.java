@@ -0,0 +1,526 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.CyclicTablesDependencyException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IDatabaseConnectionFactory;
+import org.dbunit.database.search.TablesDependencyHelper;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.stream.StreamingIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes an {@link AbstractBatchOperation} or a {@link TableHandler} on several
+ * tables concurrently.
+ * <p>
+ * The tables are grouped into dependency levels using the foreign key information
+ * of the database (see {@link TablesDependencyHelper#getDependencyLevels(IDatabaseConnection, String[])}).
+ * The tables of one level are distributed over connections obtained from the
+ * {@link DatabaseConfig#PROPERTY_CONNECTION_FACTORY} and each level is committed
+ * before the next one is started, after all workers of the level succeeded. If a
+ * table of a level fails the whole level is rolled back, previous levels stay
+ * committed. If the commit of a worker fails the workers not yet committed are
+ * rolled back, but the workers committed before cannot be, leaving the level
+ * partially applied.
+ * </p>
+ * <p>
+ * The serial path is used on the given connection when only one connection
+ * is available, when the data set is streamed, when the tables have cyclic
+ * dependencies, when there is nothing to parallelize or when the given
+ * connection is not in auto-commit mode (for example inside of a
+ * {@link TransactionOperation}) because the worker connections cannot take
+ * part in its transaction.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+class ParallelTableExecutor
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ParallelTableExecutor.class);
+
+    private final IDatabaseConnection _connection;
+
+    ParallelTableExecutor(IDatabaseConnection connection)
+    {
+        _connection = connection;
+    }
+
+    /**
+     * Returns <code>true</code> if the given connection is configured for
+     * parallel table execution.
+     */
+    static boolean isEnabled(IDatabaseConnection connection)
+    {
+        DatabaseConfig config = connection.getConfig();
+        Integer parallelConnections = (Integer)config.getProperty(
+                DatabaseConfig.PROPERTY_PARALLEL_CONNECTIONS);
+        return config.getProperty(DatabaseConfig.PROPERTY_CONNECTION_FACTORY) != null
+                && parallelConnections.intValue() > 1;
+    }
+
+    /**
+     * Executes the operation on all tables of the given iterator.
+     */
+    void execute(final AbstractBatchOperation operation, ITableIterator iterator)
+            throws DatabaseUnitException, SQLException
+    {
+        logger.debug("execute(operation={}, iterator={}) - start", operation, iterator);
+
+        // Streamed tables are invalidated by the next iteration, hence they
+        // could only be handed to worker threads by caching the whole data set
+        if (iterator instanceof StreamingIterator)
+        {
+            logger.info("Data set is streamed. Tables are processed serially.");
+            while (iterator.next())
+            {
+                operation.executeTable(_connection, iterator.getTable());
+            }
+            return;
+        }
+
+        // Tables having the same name are processed one after another by the same worker
+        final Map tablesByName = new LinkedHashMap();
+        List allTables = new ArrayList();
+        while (iterator.next())
+        {
+            ITable table = iterator.getTable();
+            if (AbstractBatchOperation.isEmpty(table))
+            {
+                continue;
+            }
+
+            String tableName = table.getTableMetaData().getTableName();
+            List tables = (List)tablesByName.get(tableName);
+            if (tables == null)
+            {
+                tables = new ArrayList();
+                tablesByName.put(tableName, tables);
+            }
+            tables.add(table);
+            allTables.add(table);
+        }
+
+        String[] tableNames = (String[])tablesByName.keySet().toArray(new String[0]);
+        String[][] levels = getLevels(tableNames, operation.isReverseTableOrder());
+        if (levels == null)
+        {
+            for (int i = 0; i < allTables.size(); i++)
+            {
+                operation.executeTable(_connection, (ITable)allTables.get(i));
+            }
+            return;
+        }
+
+        execute(levels, new TableHandler()
+        {
+            public int executeTable(IDatabaseConnection connection, String tableName)
+                    throws DatabaseUnitException, SQLException
+            {
+                List tables = (List)tablesByName.get(tableName);
+                int rowCount = 0;
+                for (int i = 0; i < tables.size(); i++)
+                {
+                    rowCount += operation.executeTable(connection, (ITable)tables.get(i));
+                }
+                return rowCount;
+            }
+        });
+    }
+
+    /**
+     * Executes the given handler on all tables, one dependency level after another.
+     * @param levels The table names grouped by level in processing order
+     * @param handler The handler processing a single table
+     */
+    void execute(String[][] levels, TableHandler handler)
+            throws DatabaseUnitException, SQLException
+    {
+        logger.debug("execute(levels={}, handler={}) - start", levels, handler);
+
+        int parallelConnections = ((Integer)_connection.getConfig().getProperty(
+                DatabaseConfig.PROPERTY_PARALLEL_CONNECTIONS)).intValue();
+        int maxLevelSize = 0;
+        for (int i = 0; i < levels.length; i++)
+        {
+            maxLevelSize = Math.max(maxLevelSize, levels[i].length);
+        }
+
+        IDatabaseConnection[] workers = openConnections(
+                Math.min(parallelConnections, maxLevelSize));
+        try
+        {
+            for (int i = 0; i < levels.length; i++)
+            {
+                List tasks = new LinkedList(Arrays.asList(levels[i]));
+                executeLevel(i, tasks, workers, handler);
+            }
+        }
+        finally
+        {
+            closeConnections(workers);
+        }
+    }
+
+    /**
+     * Returns the tables grouped by dependency level in processing order or
+     * <code>null</code> if the tables must be processed serially.
+     * @param tableNames The names of the tables
+     * @param reverse <code>true</code> to process dependent tables before the
+     * tables they depend on
+     */
+    String[][] getLevels(String[] tableNames, boolean reverse)
+            throws DatabaseUnitException, SQLException
+    {
+        if (!isParallelizable(tableNames))
+        {
+            return null;
+        }
+
+        String[][] levels;
+        try
+        {
+            levels = TablesDependencyHelper.getDependencyLevels(_connection, tableNames);
+        }
+        catch (CyclicTablesDependencyException e)
+        {
+            logger.info("Cyclic table dependencies found. Tables are processed serially: " + e.getMessage());
+            return null;
+        }
+
+        if (levels.length == tableNames.length)
+        {
+            logger.debug("Every table depends on the previous one. Tables are processed serially.");
+            return null;
+        }
+
+        if (reverse)
+        {
+            String[][] reversed = new String[levels.length][];
+            for (int i = 0; i < levels.length; i++)
+            {
+                reversed[i] = levels[levels.length - 1 - i];
+            }
+            levels = reversed;
+        }
+        return levels;
+    }
+
+    /**
+     * Returns all tables as a single level if they can be processed in any order
+     * or <code>null</code> if the tables must be processed serially.
+     * @param tableNames The names of the tables
+     */
+    String[][] getIndependentLevels(String[] tableNames) throws SQLException
+    {
+        if (!isParallelizable(tableNames))
+        {
+            return null;
+        }
+        return new String[][] {tableNames};
+    }
+
+    private boolean isParallelizable(String[] tableNames) throws SQLException
+    {
+        if (tableNames.length < 2)
+        {
+            return false;
+        }
+
+        if (!_connection.getConnection().getAutoCommit())
+        {
+            logger.info("Connection is not in auto-commit mode. Tables are processed serially.");
+            return false;
+        }
+        return true;
+    }
+
+    private void executeLevel(int level, List tasks, IDatabaseConnection[] workers,
+            TableHandler handler)
+            throws DatabaseUnitException, SQLException
+    {
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("executeLevel(level={}, tasks={}) - start", String.valueOf(level), tasks);
+        }
+
+        int workerCount = Math.min(workers.length, tasks.size());
+        TableWorker[] tableWorkers = new TableWorker[workerCount];
+        Thread[] threads = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++)
+        {
+            tableWorkers[i] = new TableWorker(workers[i], tasks, handler);
+            threads[i] = new Thread(tableWorkers[i], "ParallelTableExecutor-" + i);
+            threads[i].start();
+        }
+
+        try
+        {
+            for (int i = 0; i < workerCount; i++)
+            {
+                threads[i].join();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            throw new DatabaseUnitException("Interrupted while waiting for level " + level, e);
+        }
+
+        Throwable failure = null;
+        for (int i = 0; i < workerCount && failure == null; i++)
+        {
+            failure = tableWorkers[i].getFailure();
+        }
+
+        if (failure == null)
+        {
+            commit(level, workers, workerCount);
+            return;
+        }
+
+        for (int i = 0; i < workerCount; i++)
+        {
+            rollback(workers[i]);
+        }
+
+        // Rethrow the failure of the worker thread on the calling thread
+        if (failure instanceof DatabaseUnitException)
+        {
+            throw (DatabaseUnitException)failure;
+        }
+        else if (failure instanceof SQLException)
+        {
+            throw (SQLException)failure;
+        }
+        else if (failure instanceof RuntimeException)
+        {
+            throw (RuntimeException)failure;
+        }
+        else if (failure instanceof Error)
+        {
+            throw (Error)failure;
+        }
+        else
+        {
+            throw new DatabaseUnitException("Exception processing level " + level, failure);
+        }
+    }
+
+    /**
+     * Commits the given worker connections. If a commit fails the connections
+     * not yet committed are rolled back.
+     */
+    private void commit(int level, IDatabaseConnection[] workers, int workerCount)
+            throws SQLException
+    {
+        int committed = 0;
+        try
+        {
+            for (; committed < workerCount; committed++)
+            {
+                workers[committed].getConnection().commit();
+            }
+        }
+        finally
+        {
+            if (committed < workerCount)
+            {
+                logger.error("Commit of level {} failed after {} of {} connections "
+                        + "had been committed.", new Object[] {
+                        String.valueOf(level), String.valueOf(committed),
+                        String.valueOf(workerCount)});
+                for (int i = committed; i < workerCount; i++)
+                {
+                    rollback(workers[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rolls back the given worker connection. A failing rollback is only logged
+     * so that it does not hide the failure of the level.
+     */
+    private void rollback(IDatabaseConnection worker)
+    {
+        try
+        {
+            worker.getConnection().rollback();
+        }
+        catch (SQLException e)
+        {
+            logger.warn("Exception while rolling back the connection: " + e, e);
+        }
+    }
+
+    private IDatabaseConnection[] openConnections(int count)
+            throws DatabaseUnitException, SQLException
+    {
+        logger.debug("openConnections(count={}) - start", String.valueOf(count));
+
+        DatabaseConfig config = _connection.getConfig();
+        IDatabaseConnectionFactory factory = (IDatabaseConnectionFactory)config.getProperty(
+                DatabaseConfig.PROPERTY_CONNECTION_FACTORY);
+
+        List connections = new ArrayList();
+        try
+        {
+            for (int i = 0; i < count; i++)
+            {
+                IDatabaseConnection worker = factory.createConnection();
+                connections.add(worker);
+                // Process the tables the same way as on the main connection
+                config.copyTo(worker.getConfig());
+                worker.getConnection().setAutoCommit(false);
+            }
+        }
+        catch (DatabaseUnitException e)
+        {
+            closeConnections((IDatabaseConnection[])connections.toArray(new IDatabaseConnection[0]));
+            throw e;
+        }
+        catch (SQLException e)
+        {
+            closeConnections((IDatabaseConnection[])connections.toArray(new IDatabaseConnection[0]));
+            throw e;
+        }
+        return (IDatabaseConnection[])connections.toArray(new IDatabaseConnection[0]);
+    }
+
+    private void closeConnections(IDatabaseConnection[] connections)
+    {
+        for (int i = 0; i < connections.length; i++)
+        {
+            try
+            {
+                connections[i].close();
+            }
+            catch (SQLException e)
+            {
+                logger.warn("Exception while closing the connection: " + e, e);
+            }
+        }
+    }
+
+    /**
+     * Processes a single table on a given connection.
+     */
+    interface TableHandler
+    {
+        /**
+         * @param connection The connection to use
+         * @param tableName The name of the table
+         * @return The number of processed rows or <code>-1</code> if unknown
+         */
+        int executeTable(IDatabaseConnection connection, String tableName)
+                throws DatabaseUnitException, SQLException;
+    }
+
+    /**
+     * Processes tables from a queue shared with the other workers of a level
+     * until the queue is empty or one of the workers failed.
+     */
+    private class TableWorker implements Runnable
+    {
+        private final IDatabaseConnection _workerConnection;
+        private final List _tasks;
+        private final TableHandler _handler;
+        private Throwable _failure;
+
+        public TableWorker(IDatabaseConnection workerConnection, List tasks, TableHandler handler)
+        {
+            _workerConnection = workerConnection;
+            _tasks = tasks;
+            _handler = handler;
+        }
+
+        public void run()
+        {
+            try
+            {
+                String tableName;
+                while ((tableName = nextTask()) != null)
+                {
+                    long start = System.currentTimeMillis();
+                    int rowCount = _handler.executeTable(_workerConnection, tableName);
+                    long duration = System.currentTimeMillis() - start;
+
+                    logger.info("Processed table '{}': {} rows in {} ms", new Object[] {
+                            tableName, rowCount < 0 ? "?" : String.valueOf(rowCount),
+                            String.valueOf(duration)});
+                }
+            }
+            catch (Throwable t)
+            {
+                // Errors as well, otherwise the level would be committed
+                fail(t);
+            }
+        }
+
+        private String nextTask()
+        {
+            synchronized (_tasks)
+            {
+                if (_tasks.isEmpty())
+                {
+                    return null;
+                }
+                return (String)_tasks.remove(0);
+            }
+        }
+
+        private void fail(Throwable t)
+        {
+            synchronized (_tasks)
+            {
+                _failure = t;
+                // Stop the other workers of this level
+                _tasks.clear();
+            }
+        }
+
+        public Throwable getFailure()
+        {
+            synchronized (_tasks)
+            {
+                return _failure;
+            }
+        }
+    }
+}
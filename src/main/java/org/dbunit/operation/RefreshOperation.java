@@ -25,29 +25,57 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
 import org.dbunit.database.IDatabaseConnection;
 import org.dbunit.database.statement.IPreparedBatchStatement;
-import org.dbunit.database.statement.SimplePreparedStatement;
+import org.dbunit.database.statement.IStatementFactory;
+import org.dbunit.database.statement.IUpsertSqlBuilder;
 import org.dbunit.dataset.Column;
+import org.dbunit.dataset.ColumnIndexMapping;
 import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.ITable;
 import org.dbunit.dataset.ITableIterator;
 import org.dbunit.dataset.ITableMetaData;
 import org.dbunit.dataset.NoPrimaryKeyException;
+import org.dbunit.dataset.RowKey;
 import org.dbunit.dataset.RowOutOfBoundsException;
 import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * This operation literally refreshes dataset contents into the database. This
  * means that data of existing rows is updated and non-existing row get
  * inserted. Any rows which exist in the database but not in dataset stay
  * unaffected.
+ * <p>
+ * The rows of a table are processed in chunks of
+ * {@link DatabaseConfig#PROPERTY_BATCH_SIZE} rows. The existing rows of a chunk
+ * are found using a single query probing the primary key of each row, then the
+ * missing rows are inserted and the existing rows are updated using batched
+ * statements.
+ * If an {@link IUpsertSqlBuilder} is configured using the
+ * {@link DatabaseConfig#PROPERTY_UPSERT_SQL_BUILDER} property the rows are
+ * refreshed with a native upsert statement instead.
+ * </p>
+ * <p>
+ * Whether a row exists in the database is decided by the database, but rows of
+ * the same chunk having the same primary key are detected in Java by comparing
+ * the normalized key values. Keys which only the database considers equal, for
+ * example differing in case for a case insensitive collation, are not detected
+ * and the second row fails with a duplicate key instead of updating the first.
+ * </p>
  *
  * @author Manuel Laflamme
  * @version $Revision$
@@ -82,7 +110,11 @@ public class RefreshOperation extends AbstractOperation
             throws DatabaseUnitException, SQLException
     {
         logger.debug("execute(connection={}, dataSet) - start", connection);
-        
+
+        DatabaseConfig config = connection.getConfig();
+        int chunkSize = Math.max(1, ((Integer)config.getProperty(
+                DatabaseConfig.PROPERTY_BATCH_SIZE)).intValue());
+
         // for each table
         ITableIterator iterator = dataSet.iterator();
         while (iterator.next())
@@ -100,28 +132,41 @@ public class RefreshOperation extends AbstractOperation
 
             ITableMetaData metaData = getOperationMetaData(connection,
                     table.getTableMetaData());
-            RowOperation updateRowOperation = createUpdateOperation(connection,
-                    metaData);
-            RowOperation insertRowOperation = new InsertRowOperation(connection,
-                    metaData);
 
+            // cannot identify existing rows if no primary key
+            if (metaData.getPrimaryKeys().length == 0)
+            {
+                throw new NoPrimaryKeyException(metaData.getTableName());
+            }
+
+            TableRefresher refresher = new TableRefresher(connection, metaData, table);
             try
             {
-                // refresh all rows
-                for (int i = 0; ; i++)
+                List rows = new ArrayList(chunkSize);
+                try
                 {
-                    if (!updateRowOperation.execute(table, i))
+                    for (int i = 0; ; i++)
                     {
-                        insertRowOperation.execute(table, i);
+                        rows.add(refresher.getRowValues(i));
+                        if (rows.size() == chunkSize)
+                        {
+                            refresher.refresh(rows);
+                            rows.clear();
+                        }
                     }
                 }
-            }
-            catch (RowOutOfBoundsException e)
-            {
-            	// This exception occurs when records are exhausted
-            	// and we reach the end of the table.  Ignore this error.
+                catch (RowOutOfBoundsException e)
+                {
+                    // This exception occurs when records are exhausted
+                    // and we reach the end of the table.  Ignore this error.
 
-                // end of table
+                    // end of table
+                }
+
+                if (!rows.isEmpty())
+                {
+                    refresher.refresh(rows);
+                }
             }
             catch (SQLException e)
             {
@@ -129,252 +174,467 @@ public class RefreshOperation extends AbstractOperation
                     "Exception processing table name='" + tableName + "'";
                 throw new DatabaseUnitException(msg, e);
             }
-            finally
-            {
-                // cleanup
-                updateRowOperation.close();
-                insertRowOperation.close();
-            }
-        }
-
-    }
-
-    private RowOperation createUpdateOperation(IDatabaseConnection connection,
-            ITableMetaData metaData)
-            throws DataSetException, SQLException
-    {
-        logger.debug("createUpdateOperation(connection={}, metaData={}) - start", connection, metaData);
-
-        // update only if columns are not all primary keys
-        if (metaData.getColumns().length > metaData.getPrimaryKeys().length)
-        {
-            return new UpdateRowOperation(connection, metaData);
         }
 
-        // otherwise, operation only verify if row exist
-        return new RowExistOperation(connection,  metaData);
     }
 
     /**
-     * This class represents a operation executed on a single table row.
+     * Refreshes the rows of a single table chunk by chunk. The values of a row
+     * are held in the column order of the operation metadata.
      */
-    class RowOperation
+    private class TableRefresher
     {
+        private final IDatabaseConnection _connection;
+        private final ITableMetaData _metaData;
+        private final IStatementFactory _factory;
+        private final IUpsertSqlBuilder _upsertSqlBuilder;
+
+        private final Column[] _columns;
+        private final ColumnIndexMapping _columnMapping;
+        private final Column[] _primaryKeys;
+        private final int[] _primaryKeyIndexes;
+        private final DataType[] _primaryKeyTypes;
+
+        private OperationData _updateData;
+        private int[] _updateIndexes;
+
+        public TableRefresher(IDatabaseConnection connection, ITableMetaData metaData,
+                ITable table) throws DataSetException
+        {
+            _connection = connection;
+            _metaData = metaData;
+
+            DatabaseConfig config = connection.getConfig();
+            _factory = (IStatementFactory)config.getProperty(
+                    DatabaseConfig.PROPERTY_STATEMENT_FACTORY);
+            _upsertSqlBuilder = (IUpsertSqlBuilder)config.getProperty(
+                    DatabaseConfig.PROPERTY_UPSERT_SQL_BUILDER);
+
+            _columns = metaData.getColumns();
+            _columnMapping = new ColumnIndexMapping(table, _columns);
+            _primaryKeys = metaData.getPrimaryKeys();
+            _primaryKeyIndexes = new int[_primaryKeys.length];
+            _primaryKeyTypes = new DataType[_primaryKeys.length];
+            for (int i = 0; i < _primaryKeys.length; i++)
+            {
+                _primaryKeyIndexes[i] = metaData.getColumnIndex(_primaryKeys[i].getColumnName());
+                _primaryKeyTypes[i] = _primaryKeys[i].getDataType();
+            }
+        }
 
         /**
-         * Logger for this class
+         * Copies the values of the given row so that forward only tables can be
+         * processed in chunks.
          */
-        private final Logger logger = LoggerFactory.getLogger(RowOperation.class);
-
-        protected IPreparedBatchStatement _statement;
-        protected OperationData _operationData;
-        protected BitSet _ignoreMapping;
+        public Object[] getRowValues(int row) throws DataSetException
+        {
+            Object[] values = new Object[_columns.length];
+            for (int i = 0; i < _columns.length; i++)
+            {
+                values[i] = _columnMapping.getValue(row, i);
+            }
+            return values;
+        }
 
         /**
-         * Execute this operation on the sepcified table row.
-         * @return <code>true</code> if operation have been executed on the row.
+         * Refreshes the given rows.
+         * @param rows List of <code>Object[]</code> row values
          */
-        public boolean execute(ITable table, int row)
-                throws DataSetException, SQLException
+        public void refresh(List rows) throws DataSetException, SQLException
         {
-            logger.debug("execute(table={}, row={}) - start", table, String.valueOf(row));
+            logger.debug("refresh(rows={}) - start", String.valueOf(rows.size()));
 
-            Column[] columns = _operationData.getColumns();
-            for (int i = 0; i < columns.length; i++)
+            if (_upsertSqlBuilder != null)
             {
-                // Bind value only if not in ignore mapping
-                if (_ignoreMapping == null || !_ignoreMapping.get(i))
+                Map upsertSqls = getUpsertSqls(rows);
+                if (upsertSqls != null)
                 {
-                    Object value = table.getValue(row, columns[i].getColumnName());
-                    _statement.addValue(value, columns[i].getDataType());
+                    executeUpserts(rows, upsertSqls);
+                    return;
                 }
             }
-            _statement.addBatch();
-            int result = _statement.executeBatch();
-            _statement.clearBatch();
 
-            return result == 1;
-        }
+            // Whether a row exists is decided by the database, which may
+            // compare keys differently than Java does (collation, padding,
+            // precision). Rows having the same key as a previous row of this
+            // chunk update the row inserted by the previous one.
+            BitSet existingRows = getExistingRows(rows);
+            Set keys = new HashSet();
+            List insertRows = new ArrayList();
+            List updateRows = new ArrayList();
+            for (int i = 0; i < rows.size(); i++)
+            {
+                Object[] values = (Object[])rows.get(i);
+                if (keys.add(getKey(values)) && !existingRows.get(i))
+                {
+                    insertRows.add(values);
+                }
+                else
+                {
+                    updateRows.add(values);
+                }
+            }
 
-        /**
-         * Cleanup this operation state.
-         */
-        public void close() throws SQLException
-        {
-            logger.debug("close() - start");
+            executeInserts(insertRows);
 
-            if (_statement != null)
+            // update only if columns are not all primary keys
+            if (_columns.length > _primaryKeys.length)
             {
-                _statement.close();
+                executeUpdates(updateRows);
             }
         }
-    }
 
-    /**
-     * Insert row operation.
-     */
-    private class InsertRowOperation extends RowOperation
-    {
+        private RowKey getKey(Object[] values) throws TypeCastException
+        {
+            Object[] keyValues = new Object[_primaryKeyIndexes.length];
+            for (int i = 0; i < _primaryKeyIndexes.length; i++)
+            {
+                keyValues[i] = values[_primaryKeyIndexes[i]];
+            }
+            return RowKey.create(keyValues, _primaryKeyTypes);
+        }
 
         /**
-         * Logger for this class
+         * Returns the indexes of the given rows which already exist in the database.
          */
-        private final Logger logger = LoggerFactory.getLogger(InsertRowOperation.class);
-
-        private IDatabaseConnection _connection;
-        private ITableMetaData _metaData;
-
-        public InsertRowOperation(IDatabaseConnection connection,
-                ITableMetaData metaData)
-                throws DataSetException, SQLException
+        private BitSet getExistingRows(List rows) throws DataSetException, SQLException
         {
-            _connection = connection;
-            _metaData = metaData;
-        }
+            // rows having a null key cannot match any existing row
+            List probes = new ArrayList();
+            for (int i = 0; i < rows.size(); i++)
+            {
+                if (!hasNullKey((Object[])rows.get(i)))
+                {
+                    probes.add(new Integer(i));
+                }
+            }
 
-        public boolean execute(ITable table, int row)
-                throws DataSetException, SQLException
-        {
-            logger.debug("execute(table={}, row={}) - start", table, String.valueOf(row));
+            BitSet existingRows = new BitSet();
+            if (probes.isEmpty())
+            {
+                return existingRows;
+            }
 
-            // If current row has a different ignore value mapping than
-            // previous one, we generate a new statement
-            if (_ignoreMapping == null ||
-                    !_insertOperation.equalsIgnoreMapping(_ignoreMapping, table, row))
+            String sql = getSelectExistingSql(probes);
+            PreparedStatement statement = _connection.getConnection().prepareStatement(sql);
+            try
             {
-                // Execute and close previous statement
-                if (_statement != null)
+                int index = 1;
+                for (int i = 0; i < probes.size(); i++)
                 {
-                    _statement.close();
+                    Object[] values = (Object[])rows.get(((Integer)probes.get(i)).intValue());
+                    for (int j = 0; j < _primaryKeyIndexes.length; j++)
+                    {
+                        _primaryKeyTypes[j].setSqlValue(values[_primaryKeyIndexes[j]],
+                                index++, statement);
+                    }
                 }
 
-                _ignoreMapping = _insertOperation.getIgnoreMapping(table, row);
-                _operationData = _insertOperation.getOperationData(_metaData,
-                        _ignoreMapping, _connection);
-                _statement = new SimplePreparedStatement(_operationData.getSql(),
-                        _connection.getConnection());
+                ResultSet resultSet = statement.executeQuery();
+                try
+                {
+                    while (resultSet.next())
+                    {
+                        existingRows.set(resultSet.getInt(1));
+                    }
+                }
+                finally
+                {
+                    resultSet.close();
+                }
             }
-
-            return super.execute(table, row);
+            finally
+            {
+                statement.close();
+            }
+            return existingRows;
         }
 
-    }
-
-    /**
-     * Update row operation.
-     */
-    private class UpdateRowOperation extends RowOperation
-    {
-        PreparedStatement _countStatement;
-
-        public UpdateRowOperation(IDatabaseConnection connection,
-                ITableMetaData metaData)
-                throws DataSetException, SQLException
+        private boolean hasNullKey(Object[] values)
         {
-            // setup update statement
-            _operationData = _updateOperation.getOperationData(
-                    metaData, null, connection);
-            _statement = new SimplePreparedStatement(_operationData.getSql(),
-                    connection.getConnection());
+            for (int i = 0; i < _primaryKeyIndexes.length; i++)
+            {
+                Object value = values[_primaryKeyIndexes[i]];
+                if (value == null || value == ITable.NO_VALUE)
+                {
+                    return true;
+                }
+            }
+            return false;
         }
-    }
-
-    /**
-     * This operation verify if a row exists in the database.
-     */
-    private class RowExistOperation extends RowOperation
-    {
 
         /**
-         * Logger for this class
+         * Returns the query selecting the index of each of the given rows which
+         * exists in the database. Each row is probed by its own select on the
+         * primary key, hence the keys are compared by the database.
+         * @param probes List of <code>Integer</code> row indexes
          */
-        private final Logger logger = LoggerFactory.getLogger(RowExistOperation.class);
+        private String getSelectExistingSql(List probes)
+        {
+            String tableName = getQualifiedName(_connection.getSchema(),
+                    _metaData.getTableName(), _connection);
+            StringBuffer whereBuffer = new StringBuffer(64);
+            for (int i = 0; i < _primaryKeys.length; i++)
+            {
+                if (i > 0)
+                {
+                    whereBuffer.append(" and ");
+                }
+                whereBuffer.append(getQualifiedName(null, _primaryKeys[i].getColumnName(), _connection));
+                whereBuffer.append(" = ?");
+            }
+            String where = whereBuffer.toString();
 
-        PreparedStatement _countStatement;
+            StringBuffer sqlBuffer = new StringBuffer(probes.size()
+                    * (tableName.length() + where.length() + 32));
+            for (int i = 0; i < probes.size(); i++)
+            {
+                if (i > 0)
+                {
+                    sqlBuffer.append(" union all ");
+                }
+                sqlBuffer.append("select ");
+                sqlBuffer.append(probes.get(i));
+                sqlBuffer.append(" from ");
+                sqlBuffer.append(tableName);
+                sqlBuffer.append(" where ");
+                sqlBuffer.append(where);
+            }
+            return sqlBuffer.toString();
+        }
 
-        public RowExistOperation(IDatabaseConnection connection,
-                ITableMetaData metaData)
-                throws DataSetException, SQLException
+        private BitSet getIgnoreMapping(Object[] values)
         {
-            // setup select count statement
-            _operationData = getSelectCountData(metaData, connection);
-            _countStatement = connection.getConnection().prepareStatement(
-                    _operationData.getSql());
+            BitSet ignoreMapping = new BitSet();
+            for (int i = 0; i < values.length; i++)
+            {
+                if (values[i] == ITable.NO_VALUE)
+                {
+                    ignoreMapping.set(i);
+                }
+            }
+            return ignoreMapping;
         }
 
-        private OperationData getSelectCountData(
-                ITableMetaData metaData, IDatabaseConnection connection) throws DataSetException
+        private void executeInserts(List rows) throws DataSetException, SQLException
         {
-            logger.debug("getSelectCountData(metaData={}, connection={}) - start", metaData, connection);
+            logger.debug("executeInserts(rows={}) - start", String.valueOf(rows.size()));
+
+            BitSet ignoreMapping = null;
+            IPreparedBatchStatement statement = null;
+            try
+            {
+                for (int i = 0; i < rows.size(); i++)
+                {
+                    Object[] values = (Object[])rows.get(i);
+
+                    // If current row has a different ignore value mapping than
+                    // previous one, we generate a new statement
+                    BitSet rowIgnoreMapping = getIgnoreMapping(values);
+                    if (ignoreMapping == null || !ignoreMapping.equals(rowIgnoreMapping))
+                    {
+                        // Execute and close previous statement
+                        if (statement != null)
+                        {
+                            statement.executeBatch();
+                            statement.clearBatch();
+                            statement.close();
+                            statement = null;
+                        }
+
+                        ignoreMapping = rowIgnoreMapping;
+                        OperationData operationData = _insertOperation.getOperationData(
+                                _metaData, ignoreMapping, _connection);
+                        statement = _factory.createPreparedBatchStatement(
+                                operationData.getSql(), _connection);
+                    }
 
-            Column[] primaryKeys = metaData.getPrimaryKeys();
+                    for (int j = 0; j < _columns.length; j++)
+                    {
+                        // Bind value only if not in ignore mapping
+                        if (!ignoreMapping.get(j))
+                        {
+                            statement.addValue(values[j], _columns[j].getDataType());
+                        }
+                    }
+                    statement.addBatch();
+                }
 
-            // cannot construct where clause if no primary key
-            if (primaryKeys.length == 0)
+                if (statement != null)
+                {
+                    statement.executeBatch();
+                    statement.clearBatch();
+                }
+            }
+            finally
             {
-                throw new NoPrimaryKeyException(metaData.getTableName());
+                if (statement != null)
+                {
+                    statement.close();
+                }
             }
+        }
 
-            // select count
-            StringBuffer sqlBuffer = new StringBuffer(128);
-            sqlBuffer.append("select COUNT(*) from ");
-            sqlBuffer.append(getQualifiedName(connection.getSchema(), metaData.getTableName(), connection));
+        private void executeUpdates(List rows) throws DataSetException, SQLException
+        {
+            logger.debug("executeUpdates(rows={}) - start", String.valueOf(rows.size()));
 
-            // where
-            sqlBuffer.append(" where ");
-            for (int i = 0; i < primaryKeys.length; i++)
+            if (rows.isEmpty())
             {
-                Column column = primaryKeys[i];
+                return;
+            }
 
-                if (i > 0)
+            if (_updateData == null)
+            {
+                _updateData = _updateOperation.getOperationData(_metaData, null, _connection);
+                Column[] updateColumns = _updateData.getColumns();
+                _updateIndexes = new int[updateColumns.length];
+                for (int i = 0; i < updateColumns.length; i++)
                 {
-                    sqlBuffer.append(" and ");
+                    _updateIndexes[i] = _metaData.getColumnIndex(updateColumns[i].getColumnName());
                 }
-                sqlBuffer.append(getQualifiedName(null, column.getColumnName(), connection));
-                sqlBuffer.append(" = ?");
             }
 
-            return new OperationData(sqlBuffer.toString(), primaryKeys);
+            Column[] updateColumns = _updateData.getColumns();
+            IPreparedBatchStatement statement = _factory.createPreparedBatchStatement(
+                    _updateData.getSql(), _connection);
+            try
+            {
+                for (int i = 0; i < rows.size(); i++)
+                {
+                    Object[] values = (Object[])rows.get(i);
+                    for (int j = 0; j < updateColumns.length; j++)
+                    {
+                        statement.addValue(values[_updateIndexes[j]],
+                                updateColumns[j].getDataType());
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                statement.clearBatch();
+            }
+            finally
+            {
+                statement.close();
+            }
         }
 
-        ////////////////////////////////////////////////////////////////////////
-        // RowOperation class
-
         /**
-         * Verify if the specified table row exists in the database.
-         * @return <code>true</code> if row exists.
+         * Returns the upsert SQL for each distinct ignore mapping of the given rows
+         * or <code>null</code> if the builder cannot handle one of them.
          */
-        public boolean execute(ITable table, int row)
-                throws DataSetException, SQLException
+        private Map getUpsertSqls(List rows)
         {
-            logger.debug("execute(table={}, row={}) - start", table, String.valueOf(row));
+            Map upsertSqls = new HashMap();
+            for (int i = 0; i < rows.size(); i++)
+            {
+                BitSet ignoreMapping = getUpsertIgnoreMapping((Object[])rows.get(i));
+                if (upsertSqls.containsKey(ignoreMapping))
+                {
+                    continue;
+                }
 
-            Column[] columns = _operationData.getColumns();
-            for (int i = 0; i < columns.length; i++)
+                List columnNames = new ArrayList();
+                List nullColumnNames = new ArrayList();
+                for (int j = 0; j < _columns.length; j++)
+                {
+                    String columnName = getQualifiedName(null, _columns[j].getColumnName(), _connection);
+                    if (ignoreMapping.get(j))
+                    {
+                        nullColumnNames.add(columnName);
+                    }
+                    else
+                    {
+                        columnNames.add(columnName);
+                    }
+                }
+                String[] primaryKeyNames = new String[_primaryKeys.length];
+                for (int j = 0; j < _primaryKeys.length; j++)
+                {
+                    primaryKeyNames[j] = getQualifiedName(null, _primaryKeys[j].getColumnName(), _connection);
+                }
+
+                String sql = _upsertSqlBuilder.buildUpsertSql(
+                        getQualifiedName(_connection.getSchema(), _metaData.getTableName(), _connection),
+                        (String[])columnNames.toArray(new String[0]),
+                        primaryKeyNames,
+                        (String[])nullColumnNames.toArray(new String[0]));
+                if (sql == null)
+                {
+                    logger.debug("No upsert statement for table '{}'. Existing rows are queried.",
+                            _metaData.getTableName());
+                    return null;
+                }
+                upsertSqls.put(ignoreMapping, sql);
+            }
+            return upsertSqls;
+        }
+
+        /**
+         * Returns the non primary key columns of the given row which have no value.
+         */
+        private BitSet getUpsertIgnoreMapping(Object[] values)
+        {
+            BitSet ignoreMapping = getIgnoreMapping(values);
+            for (int i = 0; i < _primaryKeyIndexes.length; i++)
             {
-                Object value = table.getValue(row, columns[i].getColumnName());
-                DataType dataType = columns[i].getDataType();
-                dataType.setSqlValue(value, i + 1, _countStatement);
+                ignoreMapping.clear(_primaryKeyIndexes[i]);
             }
+            return ignoreMapping;
+        }
 
-            ResultSet resultSet = _countStatement.executeQuery();
+        private void executeUpserts(List rows, Map upsertSqls) throws DataSetException, SQLException
+        {
+            logger.debug("executeUpserts(rows={}) - start", String.valueOf(rows.size()));
+
+            BitSet ignoreMapping = null;
+            IPreparedBatchStatement statement = null;
             try
             {
-                resultSet.next();
-                return resultSet.getInt(1) > 0;
+                for (int i = 0; i < rows.size(); i++)
+                {
+                    Object[] values = (Object[])rows.get(i);
+
+                    BitSet rowIgnoreMapping = getUpsertIgnoreMapping(values);
+                    if (ignoreMapping == null || !ignoreMapping.equals(rowIgnoreMapping))
+                    {
+                        if (statement != null)
+                        {
+                            statement.executeBatch();
+                            statement.clearBatch();
+                            statement.close();
+                            statement = null;
+                        }
+
+                        ignoreMapping = rowIgnoreMapping;
+                        statement = _factory.createPreparedBatchStatement(
+                                (String)upsertSqls.get(ignoreMapping), _connection);
+                    }
+
+                    for (int j = 0; j < _columns.length; j++)
+                    {
+                        if (!ignoreMapping.get(j))
+                        {
+                            statement.addValue(values[j], _columns[j].getDataType());
+                        }
+                    }
+                    statement.addBatch();
+                }
+
+                if (statement != null)
+                {
+                    statement.executeBatch();
+                    statement.clearBatch();
+                }
             }
             finally
             {
-                resultSet.close();
+                if (statement != null)
+                {
+                    statement.close();
+                }
             }
         }
-
-        public void close() throws SQLException
-        {
-            logger.debug("close() - start");
-
-            _countStatement.close();
-        }
     }
 
 }
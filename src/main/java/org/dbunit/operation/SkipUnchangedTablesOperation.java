@@ -0,0 +1,305 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.ForwardOnlyResultSetTable;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.search.TablesDependencyHelper;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.FilteredDataSet;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.TableFingerprint;
+import org.dbunit.dataset.filter.AbstractTableFilter;
+import org.dbunit.util.search.SearchException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies an operation, typically {@link DatabaseOperation#CLEAN_INSERT}, only to
+ * the tables whose database contents differ from the dataset.
+ * <p>
+ * The contents are compared using {@link TableFingerprint}s of the dataset columns,
+ * computed from the dataset and from the rows read from the database. The rows
+ * are only read if the row counts are equal. The tables depending on a changed
+ * table are processed as well, so that its rows can be deleted. Tables containing
+ * {@link ITable#NO_VALUE} values are always processed because the values set by
+ * the database for the missing columns are unknown.
+ * </p>
+ * <p>
+ * Columns of the database tables which are not part of the dataset are not
+ * compared.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ * @see DatabaseOperation#INCREMENTAL_CLEAN_INSERT
+ */
+public class SkipUnchangedTablesOperation extends AbstractOperation
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(SkipUnchangedTablesOperation.class);
+
+    private final DatabaseOperation _operation;
+
+    /**
+     * @param operation The operation applied to the changed tables
+     */
+    public SkipUnchangedTablesOperation(DatabaseOperation operation)
+    {
+        _operation = operation;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // DatabaseOperation class
+
+    public void execute(IDatabaseConnection connection, IDataSet dataSet)
+            throws DatabaseUnitException, SQLException
+    {
+        logger.debug("execute(connection={}, dataSet={}) - start", connection, dataSet);
+
+        // Fingerprints of the dataset by database table name
+        Map tables = new LinkedHashMap();
+        ITableIterator iterator = dataSet.iterator();
+        while (iterator.next())
+        {
+            ITable table = iterator.getTable();
+            ITableMetaData metaData = getOperationMetaData(connection, table.getTableMetaData());
+            String key = metaData.getTableName().toUpperCase();
+
+            TableState state = (TableState)tables.get(key);
+            if (state == null)
+            {
+                state = new TableState(metaData);
+                tables.put(key, state);
+            }
+            state.addTable(table, metaData);
+        }
+
+        Set changedTables = new HashSet();
+        for (Iterator it = tables.entrySet().iterator(); it.hasNext();)
+        {
+            Map.Entry entry = (Map.Entry)it.next();
+            TableState state = (TableState)entry.getValue();
+            if (state.isChanged(connection))
+            {
+                changedTables.add(entry.getKey());
+            }
+        }
+
+        if (changedTables.isEmpty())
+        {
+            logger.info("All {} tables are unchanged", String.valueOf(tables.size()));
+            return;
+        }
+
+        final Set dataSetTableNames = getDataSetTableNames(connection, tables, changedTables);
+        logger.info("Applying operation to {} of {} tables",
+                String.valueOf(dataSetTableNames.size()), String.valueOf(tables.size()));
+
+        IDataSet changedDataSet = new FilteredDataSet(new AbstractTableFilter()
+        {
+            public boolean isValidName(String tableName)
+            {
+                return dataSetTableNames.contains(tableName);
+            }
+        }, dataSet);
+        _operation.execute(connection, changedDataSet);
+    }
+
+    /**
+     * Returns the dataset names of the changed tables and of the tables which
+     * depend on them.
+     */
+    private Set getDataSetTableNames(IDatabaseConnection connection, Map tables,
+            Set changedTables)
+    {
+        Set processedTables = new HashSet(changedTables);
+        try
+        {
+            List rootTables = new ArrayList();
+            for (Iterator it = changedTables.iterator(); it.hasNext();)
+            {
+                TableState state = (TableState)tables.get(it.next());
+                rootTables.add(state.getMetaData().getTableName());
+            }
+            String[] dependentTables = TablesDependencyHelper.getDependsOnTables(connection,
+                    (String[])rootTables.toArray(new String[0]));
+            for (int i = 0; i < dependentTables.length; i++)
+            {
+                processedTables.add(dependentTables[i].toUpperCase());
+            }
+        }
+        catch (SearchException e)
+        {
+            logger.warn("Cannot determine the dependent tables, applying the operation"
+                    + " to all tables: " + e);
+            processedTables.addAll(tables.keySet());
+        }
+
+        Set dataSetTableNames = new HashSet();
+        for (Iterator it = processedTables.iterator(); it.hasNext();)
+        {
+            TableState state = (TableState)tables.get(it.next());
+            // Dependent tables which are not part of the dataset are ignored
+            if (state != null)
+            {
+                dataSetTableNames.addAll(state.getDataSetTableNames());
+            }
+        }
+        return dataSetTableNames;
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("_operation=").append(_operation);
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * The expected contents of one database table, which can be split into
+     * several tables of the dataset.
+     */
+    private static class TableState
+    {
+        private final ITableMetaData _metaData;
+        private final List _dataSetTableNames = new ArrayList();
+        private TableFingerprint _fingerprint = null;
+        private boolean _comparable = true;
+
+        public TableState(ITableMetaData metaData)
+        {
+            _metaData = metaData;
+        }
+
+        public ITableMetaData getMetaData()
+        {
+            return _metaData;
+        }
+
+        public List getDataSetTableNames()
+        {
+            return _dataSetTableNames;
+        }
+
+        public void addTable(ITable table, ITableMetaData metaData) throws DataSetException
+        {
+            _dataSetTableNames.add(table.getTableMetaData().getTableName());
+            if (!_comparable)
+            {
+                return;
+            }
+
+            if (!Arrays.equals(getColumnNames(_metaData), getColumnNames(metaData)))
+            {
+                // The parts of the table have different columns
+                _comparable = false;
+                return;
+            }
+
+            TableFingerprint fingerprint = TableFingerprint.create(table, metaData.getColumns());
+            if (fingerprint == null)
+            {
+                _comparable = false;
+            }
+            else if (_fingerprint == null)
+            {
+                _fingerprint = fingerprint;
+            }
+            else
+            {
+                _fingerprint = _fingerprint.add(fingerprint);
+            }
+        }
+
+        private static String[] getColumnNames(ITableMetaData metaData) throws DataSetException
+        {
+            Column[] columns = metaData.getColumns();
+            String[] names = new String[columns.length];
+            for (int i = 0; i < columns.length; i++)
+            {
+                names[i] = columns[i].getColumnName();
+            }
+            return names;
+        }
+
+        /**
+         * Returns <code>true</code> if the database table contents differ from the dataset.
+         */
+        public boolean isChanged(IDatabaseConnection connection)
+                throws DataSetException, SQLException
+        {
+            String tableName = _metaData.getTableName();
+            if (!_comparable)
+            {
+                logger.debug("Table '{}' cannot be compared", tableName);
+                return true;
+            }
+
+            if (connection.getRowCount(tableName) != _fingerprint.getRowCount())
+            {
+                logger.debug("Row count of table '{}' differs", tableName);
+                return true;
+            }
+
+            ForwardOnlyResultSetTable databaseTable = new ForwardOnlyResultSetTable(
+                    _metaData, connection);
+            TableFingerprint databaseFingerprint;
+            try
+            {
+                databaseFingerprint = TableFingerprint.create(databaseTable,
+                        _metaData.getColumns());
+            }
+            finally
+            {
+                databaseTable.close();
+            }
+
+            boolean changed = !_fingerprint.equals(databaseFingerprint);
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Table '{}' changed: {}", tableName, String.valueOf(changed));
+            }
+            return changed;
+        }
+    }
+}
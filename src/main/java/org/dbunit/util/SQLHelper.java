@@ -409,7 +409,35 @@ public class SQLHelper {
                         "Table=" + tableName + ", Column=" +columnName, e);
             // Ignore this one here
         }
-        
+
+        return createColumn(tableName, columnName, sqlType, sqlTypeName, nullable,
+                remarks, columnDefaultValue, isAutoIncrement, dataTypeFactory, datatypeWarning);
+    }
+
+    /**
+     * Creates a column from the values of a row returned by
+     * {@link DatabaseMetaData#getColumns(String, String, String, String)}.
+     * @param tableName The table name
+     * @param columnName The column name
+     * @param sqlType The JDBC type of the column, the source type for a <code>DISTINCT</code> type
+     * @param sqlTypeName The database specific type name
+     * @param nullable The nullability of the column as defined by {@link DatabaseMetaData}
+     * @param remarks The remarks of the column
+     * @param columnDefaultValue The default value of the column
+     * @param isAutoIncrement <code>YES</code> if the column is auto incremented
+     * @param dataTypeFactory The factory used to lookup the {@link DataType} for this column
+     * @param datatypeWarning Whether or not a warning should be printed if the column could not
+     * be created because of an unknown datatype.
+     * @return The column or <code>null</code> if it can't be created
+     * @throws DataTypeException
+     * @since 2.4.10
+     */
+    public static final Column createColumn(String tableName, String columnName,
+            int sqlType, String sqlTypeName, int nullable, String remarks,
+            String columnDefaultValue, String isAutoIncrement,
+            IDataTypeFactory dataTypeFactory, boolean datatypeWarning)
+    throws DataTypeException
+    {
         // Convert SQL type to DataType
         DataType dataType =
                 dataTypeFactory.createDataType(sqlType, sqlTypeName, tableName, columnName);
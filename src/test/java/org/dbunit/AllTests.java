@@ -44,6 +44,7 @@ public class AllTests extends TestSuite
         suite.addTest(org.dbunit.util.search.AllTests.suite());
         suite.addTest(new TestSuite(DatabaseUnitExceptionTest.class));
         suite.addTest(new TestSuite(DatabaseProfileTest.class));
+        suite.addTest(new TestSuite(DefaultDatabaseTesterTest.class));
         suite.addTest(new TestSuite(DatabaseTestCaseIT.class));
         suite.addTest(new TestSuite(DBTestCaseIT.class));
         return suite;
@@ -0,0 +1,206 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.operation.DatabaseOperation;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class DefaultDatabaseTesterTest extends TestCase
+{
+    /**
+     * Records the transaction related calls made on the connection
+     */
+    private final List _calls = new ArrayList();
+
+    private boolean _autoCommit = true;
+    private boolean _savepointReleased = false;
+
+    public DefaultDatabaseTesterTest(String s)
+    {
+        super(s);
+    }
+
+    private IDatabaseConnection createConnection() throws Exception
+    {
+        final DatabaseMetaData metaData = (DatabaseMetaData)Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class[] {DatabaseMetaData.class},
+                new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if (method.getName().equals("supportsSavepoints"))
+                {
+                    return Boolean.TRUE;
+                }
+                return null;
+            }
+        });
+        final Savepoint savepoint = (Savepoint)Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class[] {Savepoint.class},
+                new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                return null;
+            }
+        });
+
+        Connection connection = (Connection)Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[] {Connection.class}, new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args)
+                    throws SQLException
+            {
+                String name = method.getName();
+                if (name.equals("getMetaData"))
+                {
+                    return metaData;
+                }
+                if (name.equals("isClosed"))
+                {
+                    return Boolean.FALSE;
+                }
+                if (name.equals("getAutoCommit"))
+                {
+                    return Boolean.valueOf(_autoCommit);
+                }
+                if (name.equals("setAutoCommit"))
+                {
+                    _autoCommit = ((Boolean)args[0]).booleanValue();
+                    _calls.add(name + "(" + _autoCommit + ")");
+                    return null;
+                }
+                if (name.equals("setSavepoint"))
+                {
+                    _calls.add(name);
+                    return savepoint;
+                }
+                if (name.equals("rollback") && args != null && _savepointReleased)
+                {
+                    throw new SQLException("Savepoint does not exist");
+                }
+                if (name.equals("rollback") || name.equals("commit") || name.equals("close"))
+                {
+                    _calls.add(name + (args == null ? "" : "(savepoint)"));
+                }
+                return null;
+            }
+        });
+        return new DatabaseConnection(connection);
+    }
+
+    private DefaultDatabaseTester createTester() throws Exception
+    {
+        DefaultDatabaseTester tester = new DefaultDatabaseTester(createConnection());
+        tester.setDataSet(new DefaultDataSet());
+        tester.setRollbackIsolation(true);
+        tester.setSetUpOperation(new DatabaseOperation()
+        {
+            public void execute(IDatabaseConnection connection, IDataSet dataSet)
+            {
+                _calls.add("setUp");
+            }
+        });
+        tester.setTearDownOperation(new DatabaseOperation()
+        {
+            public void execute(IDatabaseConnection connection, IDataSet dataSet)
+            {
+                _calls.add("tearDown");
+            }
+        });
+        return tester;
+    }
+
+    public void testRollbackIsolation() throws Exception
+    {
+        DefaultDatabaseTester tester = createTester();
+
+        tester.onSetup();
+        assertNotNull(tester.getIsolatedConnection());
+        tester.onTearDown();
+        tester.onSetup();
+        tester.onTearDown();
+        tester.endIsolation();
+        assertNull(tester.getIsolatedConnection());
+
+        assertEquals(Arrays.asList(new String[] {
+                "setUp", "setAutoCommit(false)",
+                "setSavepoint", "rollback(savepoint)", "rollback",
+                "setSavepoint", "rollback(savepoint)", "rollback",
+                "rollback", "setAutoCommit(true)", "close"}), _calls);
+    }
+
+    public void testReseedAfterImplicitCommit() throws Exception
+    {
+        DefaultDatabaseTester tester = createTester();
+
+        tester.onSetup();
+        // A DDL statement of the test committed the transaction
+        _savepointReleased = true;
+        tester.onTearDown();
+        assertNull(tester.getIsolatedConnection());
+        _savepointReleased = false;
+
+        tester.onSetup();
+        tester.onTearDown();
+
+        assertEquals(Arrays.asList(new String[] {
+                "setUp", "setAutoCommit(false)", "setSavepoint",
+                "rollback", "rollback", "setAutoCommit(true)", "close",
+                "setUp", "setAutoCommit(false)", "setSavepoint",
+                "rollback(savepoint)", "rollback"}), _calls);
+    }
+
+    public void testReseedAfterAutoCommit() throws Exception
+    {
+        DefaultDatabaseTester tester = createTester();
+
+        tester.onSetup();
+        tester.getIsolatedConnection().getConnection().setAutoCommit(true);
+        tester.onTearDown();
+        assertNull(tester.getIsolatedConnection());
+
+        assertEquals(Arrays.asList(new String[] {
+                "setUp", "setAutoCommit(false)", "setSavepoint",
+                "setAutoCommit(true)", "setAutoCommit(true)", "close"}), _calls);
+    }
+}
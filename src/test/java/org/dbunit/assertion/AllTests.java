@@ -34,9 +34,16 @@ public class AllTests extends TestSuite
     public static Test suite() throws Exception
     {
         TestSuite suite = new TestSuite();
+        suite.addTest(new TestSuite(DatabaseTableDiffTest.class));
         suite.addTest(new TestSuite(DefaultFailureHandlerTest.class));
         suite.addTest(new TestSuite(DbUnitAssertIT.class));
+        suite.addTest(new TestSuite(DbUnitAssertDatabaseTest.class));
+        suite.addTest(new TestSuite(DbUnitAssertTest.class));
         suite.addTest(new TestSuite(DiffCollectingFailureHandlerTest.class));
+        suite.addTest(new TestSuite(ParallelDataSetComparatorTest.class));
+        suite.addTest(new TestSuite(RowSamplerTest.class));
+        suite.addTest(new TestSuite(SpillingFailureHandlerTest.class));
+        suite.addTest(new TestSuite(ValueComparatorTest.class));
         return suite;
     }
 
@@ -0,0 +1,184 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import org.dbunit.AbstractHSQLTestCase;
+import org.dbunit.HypersonicEnvironment;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.ext.hsqldb.HsqldbTableDiffSqlBuilder;
+
+/**
+ * Compares tables inside of a HSQLDB database.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class DatabaseTableDiffTest extends AbstractHSQLTestCase
+{
+    private static final Column[] COLUMNS_B = new Column[] {
+            new Column("PKB", DataType.CHAR),
+            new Column("FKC", DataType.CHAR)};
+
+    public DatabaseTableDiffTest(String testName)
+    {
+        super(testName, "hypersonic_simple_dataset.sql");
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        getConnection().getConfig().setProperty(
+                DatabaseConfig.PROPERTY_TABLE_DIFF_SQL_BUILDER,
+                new HsqldbTableDiffSqlBuilder());
+    }
+
+    private DatabaseTableDiff createDiff(String tableName) throws Exception
+    {
+        Column[] columns = getConnection().createDataSet()
+                .getTableMetaData(tableName).getColumns();
+        return new DatabaseTableDiff(getConnection(), tableName, columns);
+    }
+
+    public void testEquals() throws Exception
+    {
+        DefaultTable expectedTable = new DefaultTable("B", COLUMNS_B);
+        expectedTable.addRow(new Object[] {B1, C2});
+
+        DatabaseTableDiff diff = createDiff("B");
+        diff.execute(expectedTable);
+
+        assertEquals(1, diff.getExpectedRowCount());
+        assertFalse(diff.isFingerprintMatch());
+        assertEquals(0, diff.getMissingRows().getRowCount());
+        assertEquals(0, diff.getUnexpectedRows().getRowCount());
+
+        new DbUnitAssert().assertEqualsInDatabase(expectedTable, getConnection(), "B");
+    }
+
+    public void testMissingAndUnexpectedRows() throws Exception
+    {
+        DefaultTable expectedTable = new DefaultTable("B", COLUMNS_B);
+        expectedTable.addRow(new Object[] {B1, C1});
+
+        DatabaseTableDiff diff = createDiff("B");
+        diff.execute(expectedTable);
+
+        ITable missingRows = diff.getMissingRows();
+        assertEquals(1, missingRows.getRowCount());
+        assertEquals(B1, missingRows.getValue(0, "PKB"));
+        assertEquals(C1, missingRows.getValue(0, "FKC"));
+        ITable unexpectedRows = diff.getUnexpectedRows();
+        assertEquals(1, unexpectedRows.getRowCount());
+        assertEquals(B1, unexpectedRows.getValue(0, "PKB"));
+        assertEquals(C2, unexpectedRows.getValue(0, "FKC"));
+
+        try
+        {
+            new DbUnitAssert().assertEqualsInDatabase(expectedTable, getConnection(), "B");
+            fail("The assertion should not work");
+        }
+        catch (DbComparisonFailure expected)
+        {
+            assertEquals(C1, expected.getExpected());
+            assertEquals(C2, expected.getActual());
+        }
+    }
+
+    public void testTemporaryTableDropped() throws Exception
+    {
+        // Always returns the same name, hence the second comparison fails if
+        // the temporary table of the first one still exists
+        getConnection().getConfig().setProperty(
+                DatabaseConfig.PROPERTY_TABLE_DIFF_SQL_BUILDER,
+                new HsqldbTableDiffSqlBuilder()
+                {
+                    public String getTemporaryTableName(String tableName)
+                    {
+                        return TEMPORARY_TABLE_NAME;
+                    }
+                });
+
+        DefaultTable expectedTable = new DefaultTable("B", COLUMNS_B);
+        expectedTable.addRow(new Object[] {B1, C2});
+
+        createDiff("B").execute(expectedTable);
+        createDiff("B").execute(expectedTable);
+    }
+
+    public void testFailureNotHiddenByDrop() throws Exception
+    {
+        final RuntimeException failure = new RuntimeException("difference failed");
+        getConnection().getConfig().setProperty(
+                DatabaseConfig.PROPERTY_TABLE_DIFF_SQL_BUILDER,
+                new HsqldbTableDiffSqlBuilder()
+                {
+                    public String buildDifferenceSql(String tableName,
+                            String otherTableName, String[] columnNames)
+                    {
+                        throw failure;
+                    }
+
+                    public String[] buildDropTemporaryTableSql(String temporaryTableName)
+                    {
+                        return new String[] {"drop table NOT_EXISTING"};
+                    }
+                });
+
+        DefaultTable expectedTable = new DefaultTable("B", COLUMNS_B);
+        expectedTable.addRow(new Object[] {B1, C2});
+
+        try
+        {
+            createDiff("B").execute(expectedTable);
+            fail("Should have thrown the failure of the comparison");
+        }
+        catch (RuntimeException expected)
+        {
+            assertSame(failure, expected);
+        }
+    }
+
+    public void testIdentityColumn() throws Exception
+    {
+        HypersonicEnvironment.executeSql(getConnection().getConnection(),
+                "CREATE TABLE IDENTITY_TABLE (ID IDENTITY NOT NULL, NAME VARCHAR(32), "
+                + "PRIMARY KEY (ID))");
+        HypersonicEnvironment.executeSql(getConnection().getConnection(),
+                "INSERT INTO IDENTITY_TABLE (NAME) VALUES ('first')");
+        HypersonicEnvironment.executeSql(getConnection().getConnection(),
+                "INSERT INTO IDENTITY_TABLE (NAME) VALUES ('second')");
+
+        DefaultTable expectedTable = new DefaultTable("IDENTITY_TABLE", new Column[] {
+                new Column("ID", DataType.INTEGER),
+                new Column("NAME", DataType.VARCHAR)});
+        expectedTable.addRow(new Object[] {new Integer(0), "first"});
+        expectedTable.addRow(new Object[] {new Integer(1), "second"});
+
+        new DbUnitAssert().assertEqualsInDatabase(expectedTable, getConnection(),
+                "IDENTITY_TABLE");
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+import org.dbunit.AbstractHSQLTestCase;
+import org.dbunit.HypersonicEnvironment;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * Compares tables with the rows of a HSQLDB database read by
+ * {@link DbUnitAssert}.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class DbUnitAssertDatabaseTest extends AbstractHSQLTestCase
+{
+    private static final Column[] COLUMNS = new Column[] {
+            new Column("ID", DataType.VARCHAR),
+            new Column("NAME", DataType.VARCHAR)};
+
+    private static final Column[] SAMPLED_COLUMNS = new Column[] {
+            new Column("ID", DataType.INTEGER),
+            new Column("NAME", DataType.VARCHAR)};
+
+    private static final int SAMPLED_ROW_COUNT = 200;
+
+    public DbUnitAssertDatabaseTest(String testName)
+    {
+        super(testName, "hypersonic_simple_dataset.sql");
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        // The database orders 'a' before 'B' although Java does the opposite
+        HypersonicEnvironment.executeSql(getConnection().getConnection(),
+                "CREATE TABLE IGNORECASE_KEY (ID VARCHAR_IGNORECASE(8) NOT NULL, "
+                + "NAME VARCHAR(32), PRIMARY KEY (ID))");
+        HypersonicEnvironment.executeSql(getConnection().getConnection(),
+                "INSERT INTO IGNORECASE_KEY VALUES ('a', 'first')");
+        HypersonicEnvironment.executeSql(getConnection().getConnection(),
+                "INSERT INTO IGNORECASE_KEY VALUES ('B', 'second')");
+    }
+
+    public void testStreamingDatabaseOrder() throws Exception
+    {
+        DefaultTable expectedTable = new DefaultTable("IGNORECASE_KEY", COLUMNS);
+        expectedTable.addRow(new Object[] {"a", "first"});
+        expectedTable.addRow(new Object[] {"B", "second"});
+
+        new DbUnitAssert().assertEqualsStreaming(expectedTable, getConnection(),
+                "IGNORECASE_KEY", null);
+    }
+
+    public void testStreamingJavaOrder() throws Exception
+    {
+        DefaultTable expectedTable = new DefaultTable("IGNORECASE_KEY", COLUMNS);
+        expectedTable.addRow(new Object[] {"B", "second"});
+        expectedTable.addRow(new Object[] {"a", "first"});
+
+        new DbUnitAssert().assertEqualsStreaming(expectedTable, getConnection(),
+                "IGNORECASE_KEY", null);
+    }
+
+    public void testStreamingWithDifferences() throws Exception
+    {
+        DefaultTable expectedTable = new DefaultTable("IGNORECASE_KEY", COLUMNS);
+        expectedTable.addRow(new Object[] {"B", "changed"});
+        expectedTable.addRow(new Object[] {"c", "missing"});
+
+        DiffCollectingFailureHandler handler = new DiffCollectingFailureHandler();
+        new DbUnitAssert().assertEqualsStreaming(expectedTable, getConnection(),
+                "IGNORECASE_KEY", handler);
+
+        List diffList = handler.getDiffList();
+        assertEquals(5, diffList.size());
+        Difference diff = (Difference)diffList.get(0);
+        assertEquals("NAME", diff.getColumnName());
+        assertEquals("changed", diff.getExpectedValue());
+        assertEquals("second", diff.getActualValue());
+        // The missing expected row is reported before the unexpected actual row
+        diff = (Difference)diffList.get(1);
+        assertEquals("c", diff.getExpectedValue());
+        assertNull(diff.getActualValue());
+        diff = (Difference)diffList.get(3);
+        assertNull(diff.getExpectedValue());
+        assertEquals("a", diff.getActualValue());
+    }
+
+    /**
+     * Creates the database table SAMPLED and returns a table of the given
+     * names expected in it, the database holding the names "name0" to
+     * "name199".
+     */
+    private DefaultTable createSampledTable(String namePrefix) throws Exception
+    {
+        Connection jdbcConnection = getConnection().getConnection();
+        HypersonicEnvironment.executeSql(jdbcConnection,
+                "CREATE TABLE SAMPLED (ID INTEGER NOT NULL, NAME VARCHAR(32), "
+                + "PRIMARY KEY (ID))");
+        PreparedStatement statement = jdbcConnection.prepareStatement(
+                "INSERT INTO SAMPLED VALUES (?, ?)");
+        try
+        {
+            for (int i = 0; i < SAMPLED_ROW_COUNT; i++)
+            {
+                statement.setInt(1, i);
+                statement.setString(2, "name" + i);
+                statement.executeUpdate();
+            }
+        }
+        finally
+        {
+            statement.close();
+        }
+
+        DefaultTable expectedTable = new DefaultTable("SAMPLED", SAMPLED_COLUMNS);
+        for (int i = SAMPLED_ROW_COUNT - 1; i >= 0; i--)
+        {
+            expectedTable.addRow(new Object[] {new Integer(i), namePrefix + i});
+        }
+        return expectedTable;
+    }
+
+    public void testSampled() throws Exception
+    {
+        DefaultTable expectedTable = createSampledTable("name");
+
+        SampleResult result = new DbUnitAssert().assertEqualsSampled(expectedTable,
+                getConnection(), "SAMPLED", 0.25, 42, null);
+        assertEquals("SAMPLED", result.getTableName());
+        assertEquals(SAMPLED_ROW_COUNT, result.getRowCount());
+
+        // The same rows are sampled as when the whole table is read
+        ITable actualTable = getConnection().createTable("SAMPLED");
+        SampleResult tableResult = new DbUnitAssert().assertEqualsSampled(expectedTable,
+                actualTable, 0.25, 42, null);
+        assertEquals(tableResult.getSampleSize(), result.getSampleSize());
+        assertTrue(String.valueOf(result.getSampleSize()),
+                result.getSampleSize() > 25 && result.getSampleSize() < 75);
+    }
+
+    public void testSampledWithDifferences() throws Exception
+    {
+        DefaultTable expectedTable = createSampledTable("other");
+
+        DiffCollectingFailureHandler handler = new DiffCollectingFailureHandler();
+        SampleResult result = new DbUnitAssert().assertEqualsSampled(expectedTable,
+                getConnection(), "SAMPLED", 0.1, 7, handler);
+
+        List diffList = handler.getDiffList();
+        assertTrue(result.getSampleSize() > 0);
+        assertEquals(result.getSampleSize(), diffList.size());
+        for (int i = 0; i < diffList.size(); i++)
+        {
+            Difference diff = (Difference)diffList.get(i);
+            assertEquals("NAME", diff.getColumnName());
+            Object id = diff.getExpectedTable().getValue(diff.getRowIndex(), "ID");
+            assertEquals("other" + id, diff.getExpectedValue());
+            assertEquals("name" + id, diff.getActualValue());
+        }
+    }
+}
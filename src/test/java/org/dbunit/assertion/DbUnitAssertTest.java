@@ -0,0 +1,412 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import junit.framework.AssertionFailedError;
+import junit.framework.ComparisonFailure;
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ForwardOnlyTable;
+import org.dbunit.dataset.NoPrimaryKeyException;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * Tests the unordered, the streaming, the sampled and the limited comparison
+ * of {@link DbUnitAssert}.
+ * 
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class DbUnitAssertTest extends TestCase
+{
+    private static final Column[] COLUMNS = new Column[] {
+        new Column("ID", DataType.NUMERIC),
+        new Column("NAME", DataType.VARCHAR)
+    };
+
+    private DbUnitAssert assertion = new DbUnitAssert();
+
+    public DbUnitAssertTest(String s)
+    {
+        super(s);
+    }
+
+    private DefaultTable createTable(Object[][] rows, Column[] primaryKeys) throws Exception
+    {
+        DefaultTable table = new DefaultTable(
+                new DefaultTableMetaData("TEST_TABLE", COLUMNS, primaryKeys));
+        for (int i = 0; i < rows.length; i++)
+        {
+            table.addRow(rows[i]);
+        }
+        return table;
+    }
+
+    public void testAssertEqualsUnordered() throws Exception
+    {
+        DefaultTable expected = createTable(new Object[][] {
+                {new BigDecimal("1"), "a"},
+                {new BigDecimal("2"), "b"},
+                {new BigDecimal("3"), "c"}}, new Column[] {COLUMNS[0]});
+        DefaultTable actual = createTable(new Object[][] {
+                {new BigDecimal("3.00"), "c"},
+                {new BigDecimal("1"), "a"},
+                {new BigDecimal("2"), "b"}}, new Column[0]);
+
+        assertion.assertEqualsUnordered(expected, actual);
+        assertion.assertEqualsUnordered(actual, expected);
+    }
+
+    public void testAssertEqualsUnorderedWithDifferences() throws Exception
+    {
+        DefaultTable expected = createTable(new Object[][] {
+                {new BigDecimal("1"), "a"},
+                {new BigDecimal("2"), "b"},
+                {new BigDecimal("3"), "c"}}, null);
+        DefaultTable actual = createTable(new Object[][] {
+                {new BigDecimal("4"), "d"},
+                {new BigDecimal("2"), "x"},
+                {new BigDecimal("1"), "a"}}, null);
+
+        DiffCollectingFailureHandler handler = new DiffCollectingFailureHandler();
+        assertion.assertEqualsUnordered(expected, actual, new String[] {"id"}, handler);
+
+        List diffList = handler.getDiffList();
+        assertEquals(5, diffList.size());
+        assertDifference((Difference)diffList.get(0), 1, "NAME", "b", "x");
+        assertDifference((Difference)diffList.get(1), 2, "ID", new BigDecimal("3"), null);
+        assertDifference((Difference)diffList.get(2), 2, "NAME", "c", null);
+        assertDifference((Difference)diffList.get(3), 3, "ID", null, new BigDecimal("4"));
+        assertDifference((Difference)diffList.get(4), 3, "NAME", null, "d");
+    }
+
+    public void testAssertEqualsUnorderedAdditionalColumnInfo() throws Exception
+    {
+        DefaultTable expected = createTable(new Object[][] {
+                {new BigDecimal("1"), "a"},
+                {new BigDecimal("2"), "b"}}, null);
+        DefaultTable actual = createTable(new Object[][] {
+                {new BigDecimal("2"), "x"},
+                {new BigDecimal("1"), "a"}}, null);
+
+        try
+        {
+            assertion.assertEqualsUnordered(expected, actual, new String[] {"ID"},
+                    new DefaultFailureHandler(new String[] {"ID"}));
+            fail("Should throw a DbComparisonFailure");
+        }
+        catch (DbComparisonFailure expectedFailure)
+        {
+            assertEquals("value (table=TEST_TABLE, row=1, col=NAME, "
+                    + "Additional row info: ('ID': expected=<2>, actual=<2>))",
+                    expectedFailure.getReason());
+            assertEquals("b", expectedFailure.getExpected());
+            assertEquals("x", expectedFailure.getActual());
+        }
+    }
+
+    public void testAssertEqualsUnorderedDuplicateKey() throws Exception
+    {
+        DefaultTable expected = createTable(new Object[][] {
+                {new BigDecimal("1"), "a"},
+                {new BigDecimal("2"), "b"}}, null);
+        DefaultTable actual = createTable(new Object[][] {
+                {new BigDecimal("1"), "a"},
+                {new BigDecimal("1.0"), "b"}}, null);
+
+        try
+        {
+            assertion.assertEqualsUnordered(expected, actual, new String[] {"ID"});
+            fail("Should throw an AssertionFailedError");
+        }
+        catch (AssertionFailedError expectedFailure)
+        {
+            assertEquals("duplicate key (table=TEST_TABLE, actual row=1, key=[1])",
+                    expectedFailure.getMessage());
+        }
+    }
+
+    public void testAssertEqualsUnorderedWithoutPrimaryKey() throws Exception
+    {
+        DefaultTable expected = createTable(new Object[][] {{new BigDecimal("1"), "a"}}, null);
+        DefaultTable actual = createTable(new Object[][] {{new BigDecimal("1"), "a"}}, null);
+
+        try
+        {
+            assertion.assertEqualsUnordered(expected, actual);
+            fail("Should throw a NoPrimaryKeyException");
+        }
+        catch (NoPrimaryKeyException expectedException)
+        {
+        }
+    }
+
+    public void testAssertEqualsStreaming() throws Exception
+    {
+        DefaultTable expected = createTable(new Object[][] {
+                {new BigDecimal("1"), "a"},
+                {new BigDecimal("2"), "b"}}, null);
+        DefaultTable actual = createTable(new Object[][] {
+                {new BigDecimal("1.0"), "a"},
+                {new BigDecimal("2"), "b"}}, new Column[] {COLUMNS[0]});
+
+        assertion.assertEqualsStreaming(new ForwardOnlyTable(expected),
+                new ForwardOnlyTable(actual));
+    }
+
+    public void testAssertEqualsStreamingWithDifferences() throws Exception
+    {
+        DefaultTable expected = createTable(new Object[][] {
+                {new BigDecimal("1"), "a"},
+                {new BigDecimal("2"), "b"},
+                {new BigDecimal("4"), "d"}}, null);
+        DefaultTable actual = createTable(new Object[][] {
+                {new BigDecimal("1"), "x"},
+                {new BigDecimal("3"), "c"},
+                {new BigDecimal("4"), "d"},
+                {new BigDecimal("5"), "e"}}, null);
+
+        DiffCollectingFailureHandler handler = new DiffCollectingFailureHandler();
+        try
+        {
+            assertion.assertEqualsStreaming(new ForwardOnlyTable(expected),
+                    new ForwardOnlyTable(actual), new String[] {"ID"}, handler);
+            fail("Should throw an AssertionFailedError");
+        }
+        catch (DbComparisonFailure expectedFailure)
+        {
+            assertEquals("row count (table=TEST_TABLE)", expectedFailure.getReason());
+            assertEquals("3", expectedFailure.getExpected());
+            assertEquals("4", expectedFailure.getActual());
+        }
+
+        List diffList = handler.getDiffList();
+        assertEquals(7, diffList.size());
+        assertDifference((Difference)diffList.get(0), 0, "NAME", "a", "x");
+        assertDifference((Difference)diffList.get(1), 1, "ID", new BigDecimal("2"), null);
+        assertDifference((Difference)diffList.get(2), 1, "NAME", "b", null);
+        assertDifference((Difference)diffList.get(3), 1, "ID", null, new BigDecimal("3"));
+        assertDifference((Difference)diffList.get(4), 1, "NAME", null, "c");
+        assertDifference((Difference)diffList.get(5), 3, "ID", null, new BigDecimal("5"));
+        assertDifference((Difference)diffList.get(6), 3, "NAME", null, "e");
+    }
+
+    public void testAssertEqualsStreamingByPosition() throws Exception
+    {
+        DefaultTable expected = createTable(new Object[][] {
+                {new BigDecimal("2"), "b"},
+                {new BigDecimal("1"), "a"}}, null);
+        DefaultTable actual = createTable(new Object[][] {
+                {new BigDecimal("2"), "b"},
+                {new BigDecimal("1"), "x"}}, null);
+
+        DiffCollectingFailureHandler handler = new DiffCollectingFailureHandler();
+        assertion.assertEqualsStreaming(new ForwardOnlyTable(expected),
+                new ForwardOnlyTable(actual), null, handler);
+
+        List diffList = handler.getDiffList();
+        assertEquals(1, diffList.size());
+        assertDifference((Difference)diffList.get(0), 1, "NAME", "a", "x");
+    }
+
+    public void testAssertEqualsStreamingDifferentOrder() throws Exception
+    {
+        DefaultTable expected = createTable(new Object[][] {
+                {new BigDecimal("3"), "c"},
+                {new BigDecimal("2"), "b"},
+                {new BigDecimal("1"), "a"}}, null);
+        DefaultTable actual = createTable(new Object[][] {
+                {new BigDecimal("1"), "a"},
+                {new BigDecimal("2"), "x"},
+                {new BigDecimal("3"), "c"}}, null);
+
+        DiffCollectingFailureHandler handler = new DiffCollectingFailureHandler();
+        assertion.assertEqualsStreaming(new ForwardOnlyTable(expected),
+                new ForwardOnlyTable(actual), new String[] {"ID"}, handler);
+
+        List diffList = handler.getDiffList();
+        assertEquals(1, diffList.size());
+        assertDifference((Difference)diffList.get(0), 1, "NAME", "b", "x");
+    }
+
+    public void testAssertEqualsStreamingDuplicateKeys() throws Exception
+    {
+        DefaultTable expected = createTable(new Object[][] {
+                {new BigDecimal("1"), "a"},
+                {new BigDecimal("2"), "b"},
+                {new BigDecimal("1"), "a"}}, null);
+        DefaultTable actual = createTable(new Object[][] {
+                {new BigDecimal("2"), "b"},
+                {new BigDecimal("1"), "a"},
+                {new BigDecimal("1"), "a"}}, null);
+
+        assertion.assertEqualsStreaming(new ForwardOnlyTable(expected),
+                new ForwardOnlyTable(actual), new String[] {"ID"}, null);
+    }
+
+    public void testAssertEqualsStreamingEmpty() throws Exception
+    {
+        DefaultTable expected = new DefaultTable("TEST_TABLE");
+        DefaultTable actual = createTable(new Object[][] {
+                {new BigDecimal("1"), "a"},
+                {new BigDecimal("2"), "b"}}, null);
+
+        // The empty expected table does not have any column
+        assertion.assertEqualsStreaming(new DefaultTable("TEST_TABLE"),
+                new ForwardOnlyTable(createTable(new Object[0][], null)));
+        try
+        {
+            assertion.assertEqualsStreaming(expected, new ForwardOnlyTable(actual));
+            fail("Should throw a ComparisonFailure");
+        }
+        catch (ComparisonFailure expectedFailure)
+        {
+            assertEquals("0", expectedFailure.getExpected());
+            assertEquals("2", expectedFailure.getActual());
+        }
+    }
+
+    public void testAssertEqualsWithDifferenceLimit() throws Exception
+    {
+        DefaultTable expected = createTable(new Object[][] {
+                {new BigDecimal("1"), "a"},
+                {new BigDecimal("2"), "b"},
+                {new BigDecimal("3"), "c"},
+                {new BigDecimal("4"), "d"}}, null);
+        DefaultTable actual = createTable(new Object[][] {
+                {new BigDecimal("1"), "w"},
+                {new BigDecimal("2"), "x"},
+                {new BigDecimal("3"), "y"},
+                {new BigDecimal("4"), "z"}}, null);
+
+        DiffCollectingFailureHandler handler = new DiffCollectingFailureHandler(2);
+        assertion.assertEquals(expected, actual, handler);
+
+        assertTrue(handler.isLimitReached());
+        List diffList = handler.getDiffList();
+        assertEquals(2, diffList.size());
+        assertDifference((Difference)diffList.get(0), 0, "NAME", "a", "w");
+        assertDifference((Difference)diffList.get(1), 1, "NAME", "b", "x");
+    }
+
+    public void testAssertEqualsStreamingWithDifferenceLimit() throws Exception
+    {
+        DefaultTable expected = createTable(new Object[][] {
+                {new BigDecimal("1"), "a"},
+                {new BigDecimal("2"), "b"},
+                {new BigDecimal("3"), "c"}}, null);
+        DefaultTable actual = createTable(new Object[][] {
+                {new BigDecimal("1"), "x"},
+                {new BigDecimal("2"), "y"},
+                {new BigDecimal("3"), "c"},
+                {new BigDecimal("4"), "d"}}, null);
+
+        // The different row count is not reported since not all rows are read
+        DiffCollectingFailureHandler handler = new DiffCollectingFailureHandler(1);
+        assertion.assertEqualsStreaming(new ForwardOnlyTable(expected),
+                new ForwardOnlyTable(actual), new String[] {"ID"}, handler);
+
+        List diffList = handler.getDiffList();
+        assertEquals(1, diffList.size());
+        assertDifference((Difference)diffList.get(0), 0, "NAME", "a", "x");
+    }
+
+    public void testAssertEqualsSampled() throws Exception
+    {
+        Object[][] rows = new Object[200][];
+        Object[][] reversedRows = new Object[rows.length][];
+        for (int i = 0; i < rows.length; i++)
+        {
+            rows[i] = new Object[] {String.valueOf(i), "name" + i};
+            reversedRows[rows.length - 1 - i] = new Object[] {new BigDecimal(i), "name" + i};
+        }
+        DefaultTable expected = createTable(rows, new Column[] {COLUMNS[0]});
+        DefaultTable actual = createTable(reversedRows, null);
+
+        SampleResult result = assertion.assertEqualsSampled(expected, actual, 0.25, 42, null);
+        assertEquals("TEST_TABLE", result.getTableName());
+        assertEquals(200, result.getRowCount());
+        assertTrue(String.valueOf(result.getSampleSize()),
+                result.getSampleSize() > 25 && result.getSampleSize() < 75);
+        assertEquals(result.getSampleSize(), assertion.assertEqualsSampled(
+                expected, actual, 0.25, 42, null).getSampleSize());
+
+        result = assertion.assertEqualsSampled(expected, actual, 1, 42, null);
+        assertEquals(200, result.getSampleSize());
+        assertEquals(1, result.getConfidence(0.01), 0);
+        assertEquals(0, result.getMaxErrorRate(0.95), 0);
+    }
+
+    public void testAssertEqualsSampledWithDifferences() throws Exception
+    {
+        Object[][] expectedRows = new Object[100][];
+        Object[][] actualRows = new Object[expectedRows.length][];
+        for (int i = 0; i < expectedRows.length; i++)
+        {
+            expectedRows[i] = new Object[] {new BigDecimal(i), "name" + i};
+            actualRows[i] = new Object[] {new BigDecimal(i), "other" + i};
+        }
+        DefaultTable expected = createTable(expectedRows, new Column[] {COLUMNS[0]});
+        DefaultTable actual = createTable(actualRows, null);
+
+        DiffCollectingFailureHandler handler = new DiffCollectingFailureHandler();
+        SampleResult result = assertion.assertEqualsSampled(expected, actual,
+                0.1, 7, handler);
+
+        List diffList = handler.getDiffList();
+        assertTrue(result.getSampleSize() > 0);
+        assertEquals(result.getSampleSize(), diffList.size());
+        for (int i = 0; i < diffList.size(); i++)
+        {
+            Difference diff = (Difference)diffList.get(i);
+            assertEquals("NAME", diff.getColumnName());
+            assertEquals(diff.getExpectedTable().getValue(diff.getRowIndex(), "ID"),
+                    diff.getActualTable().getValue(diff.getRowIndex(), "ID"));
+        }
+    }
+
+    public void testSampleResultConfidence() throws Exception
+    {
+        SampleResult result = new SampleResult("TEST_TABLE", 10000, 300);
+        assertEquals(0.951, result.getConfidence(0.01), 0.001);
+        assertEquals(0.00994, result.getMaxErrorRate(0.95), 0.0001);
+        assertEquals(1, new SampleResult("TEST_TABLE", 10000, 0).getMaxErrorRate(0.95), 0);
+    }
+
+    private void assertDifference(Difference diff, int row, String columnName,
+            Object expectedValue, Object actualValue) throws Exception
+    {
+        assertEquals(row, diff.getRowIndex());
+        assertEquals(columnName, diff.getColumnName());
+        assertEquals(expectedValue, diff.getExpectedValue());
+        assertEquals(actualValue, diff.getActualValue());
+        assertEquals(expectedValue, diff.getExpectedTable().getValue(row, columnName));
+        assertEquals(actualValue, diff.getActualTable().getValue(row, columnName));
+    }
+
+}
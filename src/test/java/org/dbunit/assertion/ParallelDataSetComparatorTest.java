@@ -0,0 +1,276 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.AssertionFailedError;
+import junit.framework.TestCase;
+
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IDatabaseConnectionFactory;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class ParallelDataSetComparatorTest extends TestCase
+{
+    private static final Column[] COLUMNS = new Column[] {
+        new Column("ID", DataType.NUMERIC),
+        new Column("NAME", DataType.VARCHAR)
+    };
+
+    private DbUnitAssert assertion = new DbUnitAssert();
+
+    /**
+     * Records the connections that have been closed
+     */
+    private final List _closedConnections = Collections.synchronizedList(new ArrayList());
+
+    public ParallelDataSetComparatorTest(String s)
+    {
+        super(s);
+    }
+
+    private ITable createTable(String tableName, String[] names) throws Exception
+    {
+        DefaultTable table = new DefaultTable(tableName, COLUMNS);
+        for (int i = 0; i < names.length; i++)
+        {
+            table.addRow(new Object[] {new BigDecimal(i), names[i]});
+        }
+        return table;
+    }
+
+    /**
+     * Creates a table with primary key ID, containing the rows in reverse order
+     */
+    private ITable createReversedTable(String tableName, String[] names,
+            String[] primaryKeys) throws Exception
+    {
+        DefaultTable table = new DefaultTable(new DefaultTableMetaData(tableName,
+                COLUMNS, primaryKeys));
+        for (int i = names.length - 1; i >= 0; i--)
+        {
+            table.addRow(new Object[] {new BigDecimal(i), names[i]});
+        }
+        return table;
+    }
+
+    private IDataSet createDataSet(String[] tableNames, String[] names) throws Exception
+    {
+        DefaultDataSet dataSet = new DefaultDataSet();
+        for (int i = 0; i < tableNames.length; i++)
+        {
+            dataSet.addTable(createTable(tableNames[i], names));
+        }
+        return dataSet;
+    }
+
+    /**
+     * Creates a connection which returns the given dataset as database content
+     */
+    private IDatabaseConnection createConnection(final IDataSet dataSet,
+            final DatabaseConfig config)
+    {
+        return (IDatabaseConnection)Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[] {IDatabaseConnection.class}, new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if (method.getName().equals("createDataSet"))
+                {
+                    return dataSet;
+                }
+                if (method.getName().equals("getConfig"))
+                {
+                    return config;
+                }
+                if (method.getName().equals("close"))
+                {
+                    _closedConnections.add(proxy);
+                }
+                return null;
+            }
+        });
+    }
+
+    public void testAssertEqualsSerial() throws Exception
+    {
+        String[] tableNames = new String[] {"TABLE_A", "TABLE_B"};
+        IDataSet expected = createDataSet(tableNames, new String[] {"a", "b"});
+        IDataSet actual = createDataSet(tableNames, new String[] {"a", "b"});
+
+        assertion.assertEqualsParallel(expected,
+                createConnection(actual, new DatabaseConfig()));
+    }
+
+    public void testAssertEqualsRowOrderByPrimaryKey() throws Exception
+    {
+        IDataSet expected = new DefaultDataSet(createReversedTable("TABLE_A",
+                new String[] {"a", "b", "c"}, new String[] {"ID"}));
+        IDataSet actual = createDataSet(new String[] {"TABLE_A"},
+                new String[] {"a", "b", "c"});
+
+        assertion.assertEqualsParallel(expected,
+                createConnection(actual, new DatabaseConfig()));
+    }
+
+    public void testAssertEqualsRowOrderByPrimaryKeyNotEquals() throws Exception
+    {
+        IDataSet expected = new DefaultDataSet(createReversedTable("TABLE_A",
+                new String[] {"a", "b", "c"}, new String[] {"ID"}));
+        IDataSet actual = createDataSet(new String[] {"TABLE_A"},
+                new String[] {"a", "x", "c"});
+
+        try
+        {
+            assertion.assertEqualsParallel(expected,
+                    createConnection(actual, new DatabaseConfig()));
+            fail("Should throw an AssertionFailedError");
+        }
+        catch (AssertionFailedError expectedFailure)
+        {
+            String msg = expectedFailure.getMessage();
+            assertTrue(msg, msg.startsWith("1 of 1 tables differ"));
+            assertTrue(msg, msg.indexOf("col=NAME) expected:<b> but was:<x>") >= 0);
+            assertTrue(msg, msg.indexOf("expected:<a>") < 0);
+            assertTrue(msg, msg.indexOf("expected:<c>") < 0);
+        }
+    }
+
+    public void testAssertEqualsRowOrderWithoutPrimaryKey() throws Exception
+    {
+        IDataSet expected = new DefaultDataSet(createReversedTable("TABLE_A",
+                new String[] {"a", "b", "c"}, new String[0]));
+        IDataSet actual = createDataSet(new String[] {"TABLE_A"},
+                new String[] {"a", "b", "c"});
+
+        assertion.assertEqualsParallel(expected,
+                createConnection(actual, new DatabaseConfig()));
+    }
+
+    public void testAssertEqualsParallel() throws Exception
+    {
+        String[] tableNames = new String[] {"TABLE_A", "TABLE_B", "TABLE_C"};
+        IDataSet expected = createDataSet(tableNames, new String[] {"a", "b"});
+        final DefaultDataSet actual = new DefaultDataSet();
+        actual.addTable(createTable("TABLE_A", new String[] {"a", "b"}));
+        actual.addTable(createTable("TABLE_B", new String[] {"a", "x"}));
+        actual.addTable(createTable("TABLE_C", new String[] {"a"}));
+
+        final List connections = new ArrayList();
+        DatabaseConfig config = new DatabaseConfig();
+        config.setProperty(DatabaseConfig.PROPERTY_PARALLEL_CONNECTIONS, new Integer(2));
+        config.setProperty(DatabaseConfig.PROPERTY_CONNECTION_FACTORY,
+                new IDatabaseConnectionFactory()
+        {
+            public IDatabaseConnection createConnection()
+            {
+                IDatabaseConnection connection = ParallelDataSetComparatorTest.this
+                        .createConnection(actual, new DatabaseConfig());
+                connections.add(connection);
+                return connection;
+            }
+        });
+
+        try
+        {
+            assertion.assertEqualsParallel(expected, createConnection(actual, config));
+            fail("Should throw an AssertionFailedError");
+        }
+        catch (AssertionFailedError expectedFailure)
+        {
+            String msg = expectedFailure.getMessage();
+            assertTrue(msg, msg.startsWith("2 of 3 tables differ"));
+            assertTrue(msg, msg.indexOf("\nTABLE_B (") >= 0);
+            assertTrue(msg, msg.indexOf("value (table=TABLE_B, row=1, col=NAME) "
+                    + "expected:<b> but was:<x>") >= 0);
+            assertTrue(msg, msg.indexOf("\nTABLE_C (") >= 0);
+            assertTrue(msg, msg.indexOf("row count (table=TABLE_C)") >= 0);
+            assertTrue(msg, msg.indexOf("TABLE_A") < 0);
+        }
+
+        assertEquals(2, connections.size());
+        assertEquals(connections.size(), _closedConnections.size());
+    }
+
+    public void testAssertEqualsParallelWorkerError() throws Exception
+    {
+        String[] tableNames = new String[] {"TABLE_A", "TABLE_B"};
+        IDataSet expected = createDataSet(tableNames, new String[] {"a", "b"});
+        final Error error = new OutOfMemoryError("worker");
+
+        DatabaseConfig config = new DatabaseConfig();
+        config.setProperty(DatabaseConfig.PROPERTY_PARALLEL_CONNECTIONS, new Integer(2));
+        config.setProperty(DatabaseConfig.PROPERTY_CONNECTION_FACTORY,
+                new IDatabaseConnectionFactory()
+        {
+            public IDatabaseConnection createConnection()
+            {
+                return (IDatabaseConnection)Proxy.newProxyInstance(
+                        getClass().getClassLoader(),
+                        new Class[] {IDatabaseConnection.class}, new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args)
+                    {
+                        if (method.getName().equals("createDataSet"))
+                        {
+                            throw error;
+                        }
+                        if (method.getName().equals("getConfig"))
+                        {
+                            return new DatabaseConfig();
+                        }
+                        return null;
+                    }
+                });
+            }
+        });
+
+        try
+        {
+            assertion.assertEqualsParallel(expected, createConnection(expected, config));
+            fail("Should rethrow the error of the worker");
+        }
+        catch (OutOfMemoryError e)
+        {
+            assertSame(error, e);
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.math.BigDecimal;
+
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.RowKey;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class RowSamplerTest extends TestCase
+{
+    private static final int KEY_COUNT = 10000;
+
+    public RowSamplerTest(String s)
+    {
+        super(s);
+    }
+
+    private static RowKey createKey(Object value, DataType dataType) throws Exception
+    {
+        return RowKey.create(new Object[] {value}, new DataType[] {dataType});
+    }
+
+    private static boolean[] sample(RowSampler sampler) throws Exception
+    {
+        boolean[] sampled = new boolean[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++)
+        {
+            sampled[i] = sampler.isSampled(createKey(new BigDecimal(i), DataType.NUMERIC));
+        }
+        return sampled;
+    }
+
+    private static int count(boolean[] sampled)
+    {
+        int count = 0;
+        for (int i = 0; i < sampled.length; i++)
+        {
+            if (sampled[i])
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void testFixedSeed() throws Exception
+    {
+        boolean[] sampled = sample(new RowSampler(0.1, 42));
+        boolean[] sampledAgain = sample(new RowSampler(0.1, 42));
+        for (int i = 0; i < KEY_COUNT; i++)
+        {
+            assertEquals("key " + i, sampled[i], sampledAgain[i]);
+        }
+
+        // About 10% of the keys, the binomial deviation being 30
+        int count = count(sampled);
+        assertTrue(String.valueOf(count), count > 850 && count < 1150);
+    }
+
+    public void testDifferentSeed() throws Exception
+    {
+        boolean[] sampled = sample(new RowSampler(0.1, 42));
+        boolean[] otherSampled = sample(new RowSampler(0.1, 43));
+        int common = 0;
+        for (int i = 0; i < KEY_COUNT; i++)
+        {
+            if (sampled[i] && otherSampled[i])
+            {
+                common++;
+            }
+        }
+        // Independent samples share about 1% of the keys
+        assertTrue(String.valueOf(common), common < 200);
+    }
+
+    public void testNormalizedKey() throws Exception
+    {
+        RowSampler sampler = new RowSampler(0.5, 7);
+        for (int i = 0; i < 100; i++)
+        {
+            assertEquals("key " + i,
+                    sampler.isSampled(createKey(new BigDecimal(i), DataType.NUMERIC)),
+                    sampler.isSampled(createKey(String.valueOf(i) + ".00", DataType.NUMERIC)));
+            assertEquals("key " + i,
+                    sampler.isSampled(createKey("key" + i, DataType.CHAR)),
+                    sampler.isSampled(createKey("key" + i + "  ", DataType.CHAR)));
+        }
+    }
+
+    public void testFullRate() throws Exception
+    {
+        assertEquals(KEY_COUNT, count(sample(new RowSampler(1, 42))));
+    }
+
+    public void testInvalidRate() throws Exception
+    {
+        double[] rates = {0, -0.1, 1.1, Double.NaN};
+        for (int i = 0; i < rates.length; i++)
+        {
+            try
+            {
+                new RowSampler(rates[i], 42);
+                fail("Should not accept the sample rate " + rates[i]);
+            }
+            catch (IllegalArgumentException expected)
+            {
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.CachedDataSet;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class SpillingFailureHandlerTest extends TestCase
+{
+    private static final Column[] COLUMNS = new Column[] {
+        new Column("ID", DataType.NUMERIC),
+        new Column("NAME", DataType.VARCHAR)
+    };
+
+    private DbUnitAssert assertion = new DbUnitAssert();
+
+    public SpillingFailureHandlerTest(String s)
+    {
+        super(s);
+    }
+
+    private DefaultTable createTable(String suffix, int rowCount) throws Exception
+    {
+        DefaultTable table = new DefaultTable("TEST_TABLE", COLUMNS);
+        for (int i = 0; i < rowCount; i++)
+        {
+            table.addRow(new Object[] {new BigDecimal(i), "name" + i + suffix});
+        }
+        return table;
+    }
+
+    public void testSpillToConsumer() throws Exception
+    {
+        CachedDataSet consumer = new CachedDataSet();
+        SpillingFailureHandler handler = new SpillingFailureHandler(2, consumer);
+        assertion.assertEquals(createTable("", 3), createTable("x", 3), handler);
+        handler.close();
+        handler.close();
+
+        assertEquals(2, handler.getDiffList().size());
+        assertEquals(3, handler.getDifferenceCount());
+        assertEquals(1, handler.getSpilledCount());
+        assertEquals(3, handler.getDifferenceCount("TEST_TABLE", "NAME"));
+        assertEquals(0, handler.getDifferenceCount("TEST_TABLE", "ID"));
+        assertEquals("3 difference(s), 1 not kept in memory\n    TEST_TABLE.NAME: 3",
+                handler.getSummary());
+
+        ITable table = consumer.getTable("DIFFERENCES");
+        assertEquals(1, table.getRowCount());
+        assertEquals("TEST_TABLE", table.getValue(0, "TABLE_NAME"));
+        assertEquals(new Integer(2), table.getValue(0, "ROW_INDEX"));
+        assertEquals("NAME", table.getValue(0, "COLUMN_NAME"));
+        assertEquals("name2", table.getValue(0, "EXPECTED_VALUE"));
+        assertEquals("name2x", table.getValue(0, "ACTUAL_VALUE"));
+    }
+
+    public void testSpillToFile() throws Exception
+    {
+        File file = File.createTempFile("spillingFailureHandlerTest", ".xml");
+        file.deleteOnExit();
+
+        SpillingFailureHandler handler = new SpillingFailureHandler(0, file);
+        try
+        {
+            assertion.assertEquals(createTable("", 100), createTable("x", 100), handler);
+        }
+        finally
+        {
+            handler.close();
+        }
+
+        assertEquals(0, handler.getDiffList().size());
+        assertEquals(100, handler.getSpilledCount());
+        Map columnCounts = handler.getColumnCounts();
+        assertEquals(1, columnCounts.size());
+        assertEquals(new Integer(100), columnCounts.get("TEST_TABLE.NAME"));
+
+        ITable table = new FlatXmlDataSetBuilder().build(file).getTable("DIFFERENCES");
+        assertEquals(100, table.getRowCount());
+        assertEquals("TEST_TABLE", table.getValue(99, "TABLE_NAME"));
+        assertEquals("99", table.getValue(99, "ROW_INDEX"));
+        assertEquals("NAME", table.getValue(99, "COLUMN_NAME"));
+        assertEquals("name99", table.getValue(99, "EXPECTED_VALUE"));
+        assertEquals("name99x", table.getValue(99, "ACTUAL_VALUE"));
+    }
+
+    public void testNegativeMaxInMemoryDoesNotOpenFile() throws Exception
+    {
+        File file = new File(System.getProperty("java.io.tmpdir"),
+                "spillingFailureHandlerTest-" + System.currentTimeMillis() + ".xml");
+        file.deleteOnExit();
+
+        try
+        {
+            new SpillingFailureHandler(-1, file);
+            fail("Should have thrown an IllegalArgumentException");
+        }
+        catch (IllegalArgumentException expected)
+        {
+        }
+        assertFalse(file.exists());
+    }
+}
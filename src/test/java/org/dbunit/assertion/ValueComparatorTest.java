@@ -0,0 +1,121 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.DefaultDataTypeFactory;
+import org.dbunit.dataset.datatype.TypeCastException;
+import org.dbunit.dataset.datatype.ToleratedDeltaMap.ToleratedDelta;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class ValueComparatorTest extends TestCase
+{
+    public ValueComparatorTest(String s)
+    {
+        super(s);
+    }
+
+    /**
+     * Asserts that the comparator gives the same result as the data type
+     */
+    private void assertCompare(DataType dataType, Object value1, Object value2)
+            throws Exception
+    {
+        ValueComparator comparator = ValueComparator.create(dataType);
+        assertEquals(value1 + " <=> " + value2, dataType.compare(value1, value2),
+                comparator.compare(value1, value2));
+        assertEquals(value2 + " <=> " + value1, dataType.compare(value2, value1),
+                comparator.compare(value2, value1));
+    }
+
+    public void testCompareLikeDataType() throws Exception
+    {
+        Object[][] values = new Object[][] {
+                {DataType.VARCHAR, "abc", "abd"},
+                {DataType.VARCHAR, "abc", null},
+                {DataType.VARCHAR, "1", new Integer(1)},
+                {DataType.VARCHAR, ITable.NO_VALUE, null},
+                {DataType.NUMERIC, "1.00", new BigDecimal("1")},
+                {DataType.NUMERIC, new BigDecimal("2"), new Integer(1)},
+                {DataType.NUMERIC, "1", null},
+                {DataType.INTEGER, new Integer(2), "2"},
+                {DataType.INTEGER, new Integer(2), new Long(3)},
+                {DataType.BIGINT, "10", new Long(9)},
+                {DataType.DOUBLE, new Double(1.5), "1.5"},
+                {DataType.TIMESTAMP, "2008-01-01 10:00:00.0", new Timestamp(0)},
+                {DataType.BOOLEAN, Boolean.TRUE, "false"},
+                {DataType.BINARY, new byte[] {1, 2}, new byte[] {1, 2}},
+        };
+        for (int i = 0; i < values.length; i++)
+        {
+            assertCompare((DataType)values[i][0], values[i][1], values[i][2]);
+        }
+    }
+
+    public void testCompareWithToleratedDelta() throws Exception
+    {
+        DefaultDataTypeFactory factory = new DefaultDataTypeFactory();
+        factory.addToleratedDelta(new ToleratedDelta("TEST", "ABSOLUTE", 0.01));
+        factory.addToleratedDelta(new ToleratedDelta("TEST", "PERCENT",
+                new BigDecimal("10"), true));
+        DataType absolute = factory.createDataType(Types.NUMERIC, "NUMERIC", "TEST", "ABSOLUTE");
+        DataType percent = factory.createDataType(Types.NUMERIC, "NUMERIC", "TEST", "PERCENT");
+
+        ValueComparator comparator = ValueComparator.create(absolute);
+        assertEquals(0, comparator.compare("1.00", "1.01"));
+        assertEquals(-1, comparator.compare("1.00", "1.02"));
+        assertCompare(absolute, "1.00", "1.005");
+        assertCompare(absolute, "1.00", "0.98");
+
+        comparator = ValueComparator.create(percent);
+        assertEquals(0, comparator.compare("100", "109"));
+        assertEquals(1, comparator.compare("100", "89"));
+        assertCompare(percent, "100", "110");
+        assertCompare(percent, "100", "111");
+        assertCompare(percent, "-100", "-101");
+        assertEquals(0, comparator.compare("-100", "-109"));
+        assertCompare(percent, "-100", "-111");
+    }
+
+    public void testCompareInvalidValue() throws Exception
+    {
+        ValueComparator comparator = ValueComparator.create(DataType.NUMERIC);
+        try
+        {
+            comparator.compare("1", "abc");
+            fail("Should not be able to compare 'abc' as number");
+        }
+        catch (TypeCastException expected)
+        {
+        }
+    }
+}
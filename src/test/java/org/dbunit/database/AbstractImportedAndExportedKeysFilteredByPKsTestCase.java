@@ -5,6 +5,7 @@ import java.sql.SQLException;
 import org.dbunit.database.search.TablesDependencyHelper;
 import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.stream.IDataSetProducer;
 import org.dbunit.util.search.SearchException;
 
 
@@ -24,4 +25,9 @@ AbstractSearchCallbackFilteredByPKsTestCase
         return dataset;
     }
 
+    protected IDataSetProducer getDatasetProducer() throws SearchException
+    {
+        return TablesDependencyHelper.getAllDatasetProducer( getConnection(), getInput() );
+    }
+
 }
@@ -4,6 +4,7 @@ import java.sql.SQLException;
 
 import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.stream.IDataSetProducer;
 
 import org.dbunit.database.search.TablesDependencyHelper;
 import org.dbunit.util.search.SearchException;
@@ -21,4 +22,8 @@ public abstract class AbstractImportedKeysFilteredByPKsTestCase extends
     return dataset;
   }
 
+  protected IDataSetProducer getDatasetProducer() throws SearchException  {
+    return TablesDependencyHelper.getDatasetProducer( getConnection(), getInput() );
+  }
+
 }
@@ -9,10 +9,12 @@ import java.util.TreeSet;
 
 import org.dbunit.AbstractHSQLTestCase;
 import org.dbunit.database.PrimaryKeyFilter.PkTableMap;
+import org.dbunit.dataset.CachedDataSet;
 import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.ITable;
 import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.stream.IDataSetProducer;
 import org.dbunit.util.CollectionsHelper;
 import org.dbunit.util.search.SearchException;
 
@@ -49,6 +51,8 @@ public abstract class AbstractSearchCallbackFilteredByPKsTestCase extends Abstra
   
   protected abstract IDataSet getDataset() throws SQLException, SearchException, DataSetException; 
 
+  protected abstract IDataSetProducer getDatasetProducer() throws SearchException; 
+
   protected void doIt() throws SQLException, DataSetException, SearchException  {
     IDataSet dataset = getDataset();
     assertNotNull( dataset );
@@ -58,6 +62,13 @@ public abstract class AbstractSearchCallbackFilteredByPKsTestCase extends Abstra
     assertTablesSize( outputTables );
     assertTablesName( outputTables );
     assertRows( dataset );   
+
+    // then check if the streamed rows are the same
+    IDataSet streamedDataset = new CachedDataSet( getDatasetProducer() );
+    String[] streamedTables = streamedDataset.getTableNames();
+    assertTablesSize( streamedTables );
+    assertTablesName( streamedTables );
+    assertRows( streamedDataset );
   }
 
   protected void assertTablesSize(String[] actualTables) {
@@ -33,6 +33,9 @@ public class AllTests extends TestSuite
     public static Test suite() throws Exception
     {
         TestSuite suite = new TestSuite();
+        suite.addTest(org.dbunit.database.bulk.AllTests.suite());
+        suite.addTest(org.dbunit.database.clear.AllTests.suite());
+        suite.addTest(org.dbunit.database.diff.AllTests.suite());
         suite.addTest(org.dbunit.database.statement.AllTests.suite());
         suite.addTest(new TestSuite(CachedResultSetTableIT.class));
         suite.addTest(new TestSuite(DatabaseConfigTest.class));
@@ -42,6 +45,8 @@ public class AllTests extends TestSuite
         suite.addTest(new TestSuite(DatabaseTableIteratorTest.class));
         suite.addTest(new TestSuite(DatabaseTableMetaDataIT.class));
         suite.addTest(new TestSuite(ForwardOnlyResultSetTableIT.class));
+        suite.addTest(new TestSuite(KeyedRowSelectTest.class));
+        suite.addTest(new TestSuite(MetadataCacheIT.class));
         suite.addTest(new TestSuite(QueryDataSetIT.class));
         suite.addTest(new TestSuite(PrimaryKeyFilteredTableWrapperTest.class));  
         suite.addTest(new TestSuite(JdbcDatabaseTesterConnectionIT.class));
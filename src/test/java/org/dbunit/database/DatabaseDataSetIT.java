@@ -21,6 +21,10 @@
 
 package org.dbunit.database;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
 import org.dbunit.DatabaseEnvironment;
 import org.dbunit.dataset.AbstractDataSetTest;
 import org.dbunit.dataset.Column;
@@ -259,6 +263,46 @@ public class DatabaseDataSetIT extends AbstractDataSetTest
         }
     }
 
+    public void testGetTableMetaDataWithSchemaMetadataLoader() throws Exception
+    {
+        IDatabaseConnection connection = new DatabaseConnection(
+                _connection.getConnection(), _connection.getSchema());
+        connection.getConfig().setProperty(
+                DatabaseConfig.PROPERTY_SCHEMA_METADATA_LOADER,
+                new DefaultSchemaMetadataLoader() {
+                    public ResultSet getPrimaryKeys(IDatabaseConnection connection,
+                            String schemaName) throws SQLException
+                    {
+                        return connection.getConnection().getMetaData().getPrimaryKeys(
+                                null, schemaName, null);
+                    }
+                });
+
+        IDataSet expectedDataSet = _connection.createDataSet();
+        IDataSet dataSet = connection.createDataSet();
+        String[] tableNames = expectedDataSet.getTableNames();
+        assertEquals("table names", Arrays.asList(tableNames),
+                Arrays.asList(dataSet.getTableNames()));
+        for (int i = 0; i < tableNames.length; i++)
+        {
+            ITableMetaData expected = expectedDataSet.getTableMetaData(tableNames[i]);
+            ITableMetaData actual = dataSet.getTableMetaData(tableNames[i]);
+            assertEquals("columns of " + tableNames[i],
+                    Arrays.asList(expected.getColumns()), Arrays.asList(actual.getColumns()));
+            assertEquals("primary keys of " + tableNames[i],
+                    Arrays.asList(expected.getPrimaryKeys()), Arrays.asList(actual.getPrimaryKeys()));
+        }
+
+        String[] expectedKeys = {"PK0", "PK1", "PK2"};
+        Column[] primaryKeys = dataSet.getTableMetaData(convertString("PK_TABLE")).getPrimaryKeys();
+        assertEquals("column count", expectedKeys.length, primaryKeys.length);
+        for (int i = 0; i < primaryKeys.length; i++)
+        {
+            assertEquals("column name", convertString(expectedKeys[i]),
+                    primaryKeys[i].getColumnName());
+        }
+    }
+
 //    public void testGetTableNamesAndCaseSensitive() throws Exception
 //    {
 //        DatabaseMetaData metaData = _connection.getConnection().getMetaData();
@@ -106,11 +106,112 @@ public class DatabaseSequenceFilterTest extends TestCase
             fail("Should not be here!");
         }
         catch (CyclicTablesDependencyException expected)
+        {
+            Set expectedCycle = new HashSet(Arrays.asList(new String[]{"A", "C", "D", "E"}));
+            assertEquals(1, expected.getCycles().size());
+            assertEquals(expectedCycle, expected.getCycles().get(0));
+            assertEquals("1 cycle(s) between the tables: [A, C, D, E]", expected.getMessage());
+        }
+    }
+
+    public void testGetTableNamesCyclicDeferredConstraints() throws Exception
+    {
+        String[] expectedFiltered = {"B","A","C","D","E",};
+
+        HypersonicEnvironment.executeDdlFile(TestUtils.getFile("sql/hypersonic_cyclic.sql"),
+                _jdbcConnection);
+        IDatabaseConnection connection = new DatabaseConnection(_jdbcConnection);
+        connection.getConfig().setProperty(DatabaseConfig.PROPERTY_CYCLIC_TABLES_HANDLER,
+                new DeferredConstraintsCycleHandler());
+
+        IDataSet databaseDataset = connection.createDataSet();
+        ITableFilter filter = new DatabaseSequenceFilter(connection);
+        IDataSet filteredDataSet = new FilteredDataSet(filter, databaseDataset);
+        String[] actualFiltered = filteredDataSet.getTableNames();
+        assertEquals("filtered", Arrays.asList(expectedFiltered), Arrays.asList(actualFiltered));
+    }
+
+    public void testGetTableNamesCyclicNullableForeignKeys() throws Exception
+    {
+        String[] expectedFiltered = {"B","C","A","D","E",};
+
+        HypersonicEnvironment.executeDdlFile(TestUtils.getFile("sql/hypersonic_cyclic.sql"),
+                _jdbcConnection);
+        HypersonicEnvironment.executeSql(_jdbcConnection, "ALTER TABLE A ALTER COLUMN FKC SET NOT NULL");
+        IDatabaseConnection connection = new DatabaseConnection(_jdbcConnection);
+        connection.getConfig().setProperty(DatabaseConfig.PROPERTY_CYCLIC_TABLES_HANDLER,
+                new NullableForeignKeyOrderingHandler());
+
+        IDataSet databaseDataset = connection.createDataSet();
+        ITableFilter filter = new DatabaseSequenceFilter(connection);
+        IDataSet filteredDataSet = new FilteredDataSet(filter, databaseDataset);
+        String[] actualFiltered = filteredDataSet.getTableNames();
+        assertEquals("filtered", Arrays.asList(expectedFiltered), Arrays.asList(actualFiltered));
+    }
+
+    public void testGetTableNamesCyclicNotNullForeignKeys() throws Exception
+    {
+        HypersonicEnvironment.executeDdlFile(TestUtils.getFile("sql/hypersonic_cyclic.sql"),
+                _jdbcConnection);
+        HypersonicEnvironment.executeSql(_jdbcConnection, "ALTER TABLE A ALTER COLUMN FKC SET NOT NULL");
+        HypersonicEnvironment.executeSql(_jdbcConnection, "ALTER TABLE C ALTER COLUMN FKE SET NOT NULL");
+        HypersonicEnvironment.executeSql(_jdbcConnection, "ALTER TABLE E ALTER COLUMN FKA SET NOT NULL");
+        IDatabaseConnection connection = new DatabaseConnection(_jdbcConnection);
+        connection.getConfig().setProperty(DatabaseConfig.PROPERTY_CYCLIC_TABLES_HANDLER,
+                new NullableForeignKeyOrderingHandler());
+
+        try
+        {
+            new DatabaseSequenceFilter(connection);
+            fail("Should not be here!");
+        }
+        catch (CyclicTablesDependencyException expected)
         {
             Set expectedCycle = new HashSet(Arrays.asList(new String[]{"A", "C", "E"}));
-            String expectedMsg = new CyclicTablesDependencyException("D", expectedCycle).getMessage();
-            assertEquals(expectedMsg, expected.getMessage());
+            assertEquals(1, expected.getCycles().size());
+            assertEquals(expectedCycle, expected.getCycles().get(0));
+        }
+    }
+
+    public void testSortComponents() throws Exception
+    {
+        // 0 -> 1 -> 0 and 2 -> 3 -> 4 -> 2 are cycles, 5 references both
+        int[][] referencedTables = {{1}, {0}, {3}, {4}, {2}, {0, 4}, {}};
+        int[][] components = DatabaseSequenceFilter.sortComponents(referencedTables);
+
+        assertEquals(4, components.length);
+        assertEquals("[0, 1]", toString(components[0]));
+        assertEquals("[2, 3, 4]", toString(components[1]));
+        assertEquals("[5]", toString(components[2]));
+        assertEquals("[6]", toString(components[3]));
+    }
+
+    public void testSortComponentsKeepsOrder() throws Exception
+    {
+        // 0 references 3, 1 references 2 and 4
+        int[][] referencedTables = {{3}, {2, 4}, {}, {}, {}};
+        int[][] components = DatabaseSequenceFilter.sortComponents(referencedTables);
+
+        StringBuffer actual = new StringBuffer();
+        for (int i = 0; i < components.length; i++)
+        {
+            actual.append(toString(components[i]));
+        }
+        assertEquals("[3][0][2][4][1]", actual.toString());
+    }
+
+    private static String toString(int[] values)
+    {
+        StringBuffer sb = new StringBuffer("[");
+        for (int i = 0; i < values.length; i++)
+        {
+            if (i > 0)
+            {
+                sb.append(", ");
+            }
+            sb.append(values[i]);
         }
+        return sb.append("]").toString();
     }
 
     public void testCaseSensitiveTableNames() throws Exception
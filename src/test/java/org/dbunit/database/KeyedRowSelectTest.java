@@ -0,0 +1,200 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dbunit.AbstractHSQLTestCase;
+import org.dbunit.HypersonicEnvironment;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+
+/**
+ * Selects rows of a HSQLDB table by their keys, recording the statements
+ * prepared.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class KeyedRowSelectTest extends AbstractHSQLTestCase
+{
+    private static final int ROW_COUNT = KeyedRowSelect.MAX_KEYS_PER_QUERY + 1;
+
+    private final List _statements = new ArrayList();
+
+    public KeyedRowSelectTest(String testName)
+    {
+        super(testName, "hypersonic_simple_dataset.sql");
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        Connection jdbcConnection = getConnection().getConnection();
+        HypersonicEnvironment.executeSql(jdbcConnection,
+                "CREATE TABLE KEYED (ID1 INTEGER NOT NULL, ID2 INTEGER NOT NULL, "
+                + "NAME VARCHAR(32), PRIMARY KEY (ID1, ID2))");
+        PreparedStatement statement = jdbcConnection.prepareStatement(
+                "INSERT INTO KEYED VALUES (?, ?, ?)");
+        try
+        {
+            for (int i = 0; i < ROW_COUNT; i++)
+            {
+                statement.setInt(1, i);
+                statement.setInt(2, i % 2);
+                statement.setString(3, "name" + i);
+                statement.executeUpdate();
+            }
+        }
+        finally
+        {
+            statement.close();
+        }
+    }
+
+    /**
+     * Wraps the HSQLDB connection to record the prepared statements.
+     */
+    private IDatabaseConnection createConnection() throws Exception
+    {
+        final Connection jdbcConnection = getConnection().getConnection();
+        Connection connection = (Connection)Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class[] {Connection.class},
+                new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+            {
+                if (method.getName().equals("prepareStatement"))
+                {
+                    _statements.add(args[0]);
+                }
+                try
+                {
+                    return method.invoke(jdbcConnection, args);
+                }
+                catch (InvocationTargetException e)
+                {
+                    throw e.getTargetException();
+                }
+            }
+        });
+        return new DatabaseConnection(connection);
+    }
+
+    private KeyedRowSelect createSelect(IDatabaseConnection connection, boolean compoundKey)
+            throws Exception
+    {
+        ITableMetaData metaData = connection.createDataSet().getTableMetaData("KEYED");
+        Column[] columns = metaData.getColumns();
+        Column[] keyColumns = compoundKey ? metaData.getPrimaryKeys()
+                : new Column[] {columns[0]};
+        return new KeyedRowSelect(connection, "KEYED", columns, keyColumns);
+    }
+
+    private static List createKeys(int count, boolean compoundKey)
+    {
+        List keys = new ArrayList(count);
+        for (int i = 0; i < count; i++)
+        {
+            keys.add(compoundKey ? new Object[] {new Integer(i), new Integer(i % 2)}
+                    : new Object[] {new Integer(i)});
+        }
+        return keys;
+    }
+
+    public void testGetChunkSize() throws Exception
+    {
+        DatabaseConfig config = getConnection().getConfig();
+        config.setProperty(DatabaseConfig.PROPERTY_MAX_BIND_PARAMETERS, new Integer(5000));
+        assertEquals(1000, KeyedRowSelect.getChunkSize(getConnection(), 1));
+        assertEquals(1000, KeyedRowSelect.getChunkSize(getConnection(), 5));
+        assertEquals(833, KeyedRowSelect.getChunkSize(getConnection(), 6));
+
+        config.setProperty(DatabaseConfig.PROPERTY_MAX_BIND_PARAMETERS, new Integer(1));
+        assertEquals(1, KeyedRowSelect.getChunkSize(getConnection(), 2));
+    }
+
+    public void testSelectMaxKeysPerQuery() throws Exception
+    {
+        IDatabaseConnection connection = createConnection();
+        KeyedRowSelect select = createSelect(connection, false);
+        _statements.clear();
+
+        ITable table = select.select(createKeys(KeyedRowSelect.MAX_KEYS_PER_QUERY, false));
+        assertEquals(KeyedRowSelect.MAX_KEYS_PER_QUERY, table.getRowCount());
+        assertEquals(1, _statements.size());
+
+        _statements.clear();
+        table = select.select(createKeys(ROW_COUNT, false));
+        assertEquals(ROW_COUNT, table.getRowCount());
+        assertEquals(2, _statements.size());
+        assertEquals(select.buildSelect(KeyedRowSelect.MAX_KEYS_PER_QUERY), _statements.get(0));
+        assertEquals(select.buildSelect(1), _statements.get(1));
+        assertEquals("name1000", table.getValue(ROW_COUNT - 1, "NAME"));
+    }
+
+    public void testSelectBindParameterLimit() throws Exception
+    {
+        IDatabaseConnection connection = createConnection();
+        connection.getConfig().setProperty(DatabaseConfig.PROPERTY_MAX_BIND_PARAMETERS,
+                new Integer(7));
+        KeyedRowSelect select = createSelect(connection, true);
+        _statements.clear();
+
+        // 3 keys of 2 columns per query
+        ITable table = select.select(createKeys(7, true));
+        assertEquals(7, table.getRowCount());
+        assertEquals(3, _statements.size());
+    }
+
+    public void testBuildSelect() throws Exception
+    {
+        assertEquals("select ID1, ID2, NAME from KEYED where ID1 in (?, ?, ?) order by ID1",
+                createSelect(getConnection(), false).buildSelect(3));
+        assertEquals("select ID1, ID2, NAME from KEYED where (ID1 = ? and ID2 = ?)"
+                + " or (ID1 = ? and ID2 = ?) order by ID1, ID2",
+                createSelect(getConnection(), true).buildSelect(2));
+    }
+
+    public void testSelectCompoundKey() throws Exception
+    {
+        List keys = new ArrayList();
+        keys.add(new Object[] {new Integer(5), new Integer(1)});
+        // Exists with the other second key column value only
+        keys.add(new Object[] {new Integer(4), new Integer(1)});
+        keys.add(new Object[] {new Integer(2), new Integer(0)});
+
+        ITable table = createSelect(getConnection(), true).select(keys);
+        assertEquals(2, table.getRowCount());
+        assertEquals("name2", table.getValue(0, "NAME"));
+        assertEquals("name5", table.getValue(1, "NAME"));
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.io.File;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.dbunit.DatabaseEnvironment;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITableMetaData;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class MetadataCacheIT extends TestCase
+{
+    private IDatabaseConnection _connection;
+    private CountingMetadataLoader _metadataLoader;
+
+    public MetadataCacheIT(String s)
+    {
+        super(s);
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        _connection = DatabaseEnvironment.getInstance().getConnection();
+        _metadataLoader = new CountingMetadataLoader();
+    }
+
+    protected void tearDown() throws Exception
+    {
+        super.tearDown();
+
+        _connection = null;
+    }
+
+    private IDataSet createDataSet(MetadataCache metadataCache) throws Exception
+    {
+        IDatabaseConnection connection = new DatabaseConnection(
+                _connection.getConnection(), _connection.getSchema());
+        connection.getConfig().setProperty(
+                DatabaseConfig.PROPERTY_SCHEMA_METADATA_LOADER, _metadataLoader);
+        connection.getConfig().setProperty(
+                DatabaseConfig.PROPERTY_METADATA_CACHE, metadataCache);
+        return connection.createDataSet();
+    }
+
+    private void assertSameMetaData(IDataSet expectedDataSet, IDataSet actualDataSet)
+            throws Exception
+    {
+        String[] tableNames = expectedDataSet.getTableNames();
+        assertEquals("table names", Arrays.asList(tableNames),
+                Arrays.asList(actualDataSet.getTableNames()));
+        for (int i = 0; i < tableNames.length; i++)
+        {
+            ITableMetaData expected = expectedDataSet.getTableMetaData(tableNames[i]);
+            ITableMetaData actual = actualDataSet.getTableMetaData(tableNames[i]);
+            assertEquals("columns of " + tableNames[i],
+                    Arrays.asList(expected.getColumns()), Arrays.asList(actual.getColumns()));
+            assertEquals("primary keys of " + tableNames[i],
+                    Arrays.asList(expected.getPrimaryKeys()), Arrays.asList(actual.getPrimaryKeys()));
+        }
+    }
+
+    public void testSharedByConnections() throws Exception
+    {
+        MetadataCache metadataCache = new MetadataCache();
+        IDataSet dataSet1 = createDataSet(metadataCache);
+        IDataSet dataSet2 = createDataSet(metadataCache);
+
+        assertSameMetaData(_connection.createDataSet(), dataSet1);
+        assertSameMetaData(_connection.createDataSet(), dataSet2);
+        assertEquals("loads", 1, _metadataLoader.loadCount);
+        assertEquals("cached schemas", 1, metadataCache.size());
+    }
+
+    public void testSchemaVersionChanged() throws Exception
+    {
+        MetadataCache metadataCache = new MetadataCache();
+        createDataSet(metadataCache).getTableNames();
+        createDataSet(metadataCache).getTableNames();
+        assertEquals("loads", 1, _metadataLoader.loadCount);
+
+        _metadataLoader.version = "2";
+        createDataSet(metadataCache).getTableNames();
+        createDataSet(metadataCache).getTableNames();
+        assertEquals("loads", 2, _metadataLoader.loadCount);
+    }
+
+    public void testTimeToLive() throws Exception
+    {
+        MetadataCache metadataCache = new MetadataCache(1);
+        createDataSet(metadataCache).getTableNames();
+        Thread.sleep(10);
+        createDataSet(metadataCache).getTableNames();
+        assertEquals("loads", 2, _metadataLoader.loadCount);
+    }
+
+    public void testInvalidate() throws Exception
+    {
+        MetadataCache metadataCache = new MetadataCache();
+        createDataSet(metadataCache).getTableNames();
+
+        String url = _connection.getConnection().getMetaData().getURL();
+        metadataCache.invalidate(url, "OTHER_SCHEMA");
+        assertEquals("cached schemas", 1, metadataCache.size());
+        metadataCache.invalidate(url, _connection.getSchema());
+        assertEquals("cached schemas", 0, metadataCache.size());
+
+        createDataSet(metadataCache).getTableNames();
+        metadataCache.invalidateAll();
+        createDataSet(metadataCache).getTableNames();
+        assertEquals("loads", 3, _metadataLoader.loadCount);
+    }
+
+    public void testPersistentCache() throws Exception
+    {
+        File file = File.createTempFile("metadata", ".cache");
+        file.delete();
+        try
+        {
+            createDataSet(new MetadataCache(0, file)).getTableNames();
+            assertTrue("file written", file.exists());
+
+            // A new cache, for example in another process, reads the file
+            IDataSet dataSet = createDataSet(new MetadataCache(0, file));
+            assertSameMetaData(_connection.createDataSet(), dataSet);
+            assertEquals("loads", 1, _metadataLoader.loadCount);
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+
+    /**
+     * Counts the loads of the metadata and returns a fixed schema version
+     */
+    private static class CountingMetadataLoader extends DefaultSchemaMetadataLoader
+    {
+        private int loadCount;
+        private String version = "1";
+
+        public ResultSet getColumns(IDatabaseConnection connection, String schemaName)
+        throws SQLException
+        {
+            loadCount++;
+            return super.getColumns(connection, schemaName);
+        }
+
+        public String getSchemaVersion(IDatabaseConnection connection, String schemaName)
+        throws SQLException
+        {
+            return version;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.bulk;
+
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class CsvTableReaderTest extends TestCase
+{
+    public CsvTableReaderTest(String s)
+    {
+        super(s);
+    }
+
+    public void testReadLine() throws Exception
+    {
+        Column[] columns = new Column[] {
+            new Column("ID", DataType.INTEGER),
+            new Column("NAME", DataType.VARCHAR),
+            new Column("REMARK", DataType.VARCHAR),
+        };
+        DefaultTable table = new DefaultTable("TEST", columns);
+        table.addRow(new Object[] {"1", "say \"hi\", \nbye", ""});
+        table.addRow(new Object[] {"2", null, ITable.NO_VALUE});
+
+        CsvTableReader reader = new CsvTableReader(table, columns);
+        assertEquals("\"1\",\"say \"\"hi\"\", \nbye\",\"\"\n", reader.readLine());
+        assertEquals("\"2\",,\n", reader.readLine());
+        assertNull(reader.readLine());
+        assertEquals(2, reader.getRowCount());
+    }
+}
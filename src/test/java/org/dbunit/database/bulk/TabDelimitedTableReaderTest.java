@@ -0,0 +1,133 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.bulk;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Date;
+
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.ForwardOnlyTable;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class TabDelimitedTableReaderTest extends TestCase
+{
+    private static final Column[] COLUMNS = new Column[] {
+        new Column("ID", DataType.INTEGER),
+        new Column("NAME", DataType.VARCHAR),
+        new Column("AMOUNT", DataType.DECIMAL),
+        new Column("ACTIVE", DataType.BOOLEAN),
+        new Column("CREATED", DataType.DATE),
+    };
+
+    public TabDelimitedTableReaderTest(String s)
+    {
+        super(s);
+    }
+
+    private DefaultTable createTable() throws Exception
+    {
+        DefaultTable table = new DefaultTable("TEST", COLUMNS);
+        table.addRow(new Object[] {"1", "plain", new BigDecimal("1.50"), Boolean.TRUE,
+                "2009-06-30"});
+        table.addRow(new Object[] {new Integer(2), "a\tb\\c\nd", null, "false",
+                ITable.NO_VALUE});
+        return table;
+    }
+
+    private String readAll(Reader reader) throws Exception
+    {
+        StringBuffer sb = new StringBuffer();
+        char[] buffer = new char[7];
+        int count;
+        while ((count = reader.read(buffer, 0, buffer.length)) != -1)
+        {
+            sb.append(buffer, 0, count);
+        }
+        return sb.toString();
+    }
+
+    public void testRead() throws Exception
+    {
+        TabDelimitedTableReader reader = new TabDelimitedTableReader(createTable(), COLUMNS);
+
+        String expected = "1\tplain\t1.50\t1\t" + Date.valueOf("2009-06-30") + "\n"
+                + "2\ta\\tb\\\\c\\nd\t\\N\t0\t\\N\n";
+        assertEquals(expected, readAll(reader));
+        assertEquals(2, reader.getRowCount());
+        assertEquals(-1, reader.read(new char[1], 0, 1));
+    }
+
+    public void testReadColumnSubsetForwardOnly() throws Exception
+    {
+        ITable table = new ForwardOnlyTable(createTable());
+        Column[] columns = new Column[] {COLUMNS[1], COLUMNS[0]};
+        TabDelimitedTableReader reader = new TabDelimitedTableReader(table, columns);
+
+        assertEquals("plain\t1\n", reader.readLine());
+        assertEquals("a\\tb\\\\c\\nd\t2\n", reader.readLine());
+        assertNull(reader.readLine());
+    }
+
+    public void testInputStream() throws Exception
+    {
+        DefaultTable table = new DefaultTable("TEST", new Column[] {COLUMNS[1]});
+        table.addRow(new Object[] {"\u00e4"});
+        TabDelimitedTableReader reader = new TabDelimitedTableReader(table,
+                table.getTableMetaData().getColumns());
+
+        InputStream in = reader.toInputStream("UTF-8");
+        assertEquals(0xc3, in.read());
+        byte[] buffer = new byte[10];
+        assertEquals(2, in.read(buffer, 0, buffer.length));
+        assertEquals((byte)0xa4, buffer[0]);
+        assertEquals('\n', buffer[1]);
+        assertEquals(-1, in.read());
+    }
+
+    public void testReadInvalidValue() throws Exception
+    {
+        DefaultTable table = new DefaultTable("TEST", new Column[] {COLUMNS[0]});
+        table.addRow(new Object[] {"abc"});
+        TabDelimitedTableReader reader = new TabDelimitedTableReader(table,
+                table.getTableMetaData().getColumns());
+        try
+        {
+            readAll(reader);
+            fail("Should not be able to read an invalid integer");
+        }
+        catch (java.io.IOException expected)
+        {
+            assertTrue(reader.getException() instanceof TypeCastException);
+        }
+    }
+}
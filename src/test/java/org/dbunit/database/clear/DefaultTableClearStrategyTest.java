@@ -0,0 +1,173 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.clear;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.IDatabaseConnection;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class DefaultTableClearStrategyTest extends TestCase
+{
+    /**
+     * Records the executed statements
+     */
+    private final List _statements = new ArrayList();
+
+    public DefaultTableClearStrategyTest(String s)
+    {
+        super(s);
+    }
+
+    private Object createProxy(Class type, InvocationHandler handler)
+    {
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {type}, handler);
+    }
+
+    /**
+     * Creates a connection on which only the table PARENT is referenced by a foreign key
+     */
+    private IDatabaseConnection createConnection() throws Exception
+    {
+        final Statement statement = (Statement)createProxy(Statement.class, new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if (method.getName().equals("executeUpdate"))
+                {
+                    _statements.add(args[0]);
+                    return new Integer(3);
+                }
+                return null;
+            }
+        });
+
+        final DatabaseMetaData metaData = (DatabaseMetaData)createProxy(DatabaseMetaData.class,
+                new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if (method.getName().equals("getExportedKeys"))
+                {
+                    final boolean referenced = "PARENT".equals(args[2]);
+                    return createProxy(ResultSet.class, new InvocationHandler()
+                    {
+                        public Object invoke(Object proxy, Method method, Object[] args)
+                        {
+                            if (method.getName().equals("next"))
+                            {
+                                return Boolean.valueOf(referenced);
+                            }
+                            return null;
+                        }
+                    });
+                }
+                return null;
+            }
+        });
+
+        Connection connection = (Connection)createProxy(Connection.class, new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if (method.getName().equals("createStatement"))
+                {
+                    return statement;
+                }
+                if (method.getName().equals("getMetaData"))
+                {
+                    return metaData;
+                }
+                return null;
+            }
+        });
+        return new DatabaseConnection(connection);
+    }
+
+    public void testClearWithoutDisabledConstraints() throws Exception
+    {
+        IDatabaseConnection connection = createConnection();
+        String[] tableNames = new String[] {"CHILD", "PARENT"};
+
+        ITableClearer clearer = new DefaultTableClearStrategy().begin(connection, tableNames);
+        assertFalse(clearer.isOrderIndependent());
+        assertTrue(clearer.isConcurrent());
+        assertEquals(-1, clearer.clearTable(connection, "CHILD"));
+        assertEquals(3, clearer.clearTable(connection, "PARENT"));
+        clearer.finish();
+
+        assertEquals(Arrays.asList(new String[] {
+                "truncate table CHILD", "delete from PARENT"}), _statements);
+    }
+
+    public void testClearWithDisabledConstraints() throws Exception
+    {
+        IDatabaseConnection connection = createConnection();
+        String[] tableNames = new String[] {"CHILD", "PARENT"};
+
+        DefaultTableClearStrategy strategy = new DefaultTableClearStrategy()
+        {
+            protected boolean disableConstraints(IDatabaseConnection connection,
+                    String[] tableNames, List restoreStatements) throws java.sql.SQLException
+            {
+                for (int i = 0; i < tableNames.length; i++)
+                {
+                    execute(connection, "disable " + tableNames[i]);
+                    restoreStatements.add("enable " + tableNames[i]);
+                }
+                return true;
+            }
+
+            protected boolean isSessionScoped()
+            {
+                return true;
+            }
+        };
+
+        ITableClearer clearer = strategy.begin(connection, tableNames);
+        assertTrue(clearer.isOrderIndependent());
+        assertFalse(clearer.isConcurrent());
+        clearer.clearTable(connection, "PARENT");
+        clearer.clearTable(connection, "CHILD");
+        clearer.finish();
+
+        assertEquals(Arrays.asList(new String[] {
+                "disable CHILD", "disable PARENT",
+                "truncate table PARENT", "truncate table CHILD",
+                "enable PARENT", "enable CHILD"}), _statements);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.diff;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.ext.hsqldb.HsqldbTableDiffSqlBuilder;
+import org.dbunit.ext.mssql.MsSqlTableDiffSqlBuilder;
+import org.dbunit.ext.mysql.MySqlTableDiffSqlBuilder;
+import org.dbunit.ext.oracle.OracleTableDiffSqlBuilder;
+import org.dbunit.ext.postgresql.PostgresqlTableDiffSqlBuilder;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class DefaultTableDiffSqlBuilderTest extends TestCase
+{
+    private static final String[] COLUMNS = new String[] {"ID", "NAME"};
+
+    private static final Column[] COLUMN_TYPES = new Column[] {
+            new Column("ID", DataType.INTEGER),
+            new Column("NAME", DataType.VARCHAR)};
+
+    private static final Column[] LOB_COLUMN_TYPES = new Column[] {
+            new Column("ID", DataType.INTEGER),
+            new Column("NAME", DataType.CLOB)};
+
+    public DefaultTableDiffSqlBuilderTest(String s)
+    {
+        super(s);
+    }
+
+    public void testDefault() throws Exception
+    {
+        ITableDiffSqlBuilder builder = new DefaultTableDiffSqlBuilder();
+        String tempTable = "DBUNIT_DIFF";
+
+        assertEquals(Arrays.asList(new String[] {
+                "create temporary table DBUNIT_DIFF as select ID, NAME from S.TEST where 1 = 0"}),
+                Arrays.asList(builder.buildCreateTemporaryTableSql(tempTable, "S.TEST", COLUMNS)));
+        assertEquals("select ID, NAME from DBUNIT_DIFF except select ID, NAME from S.TEST",
+                builder.buildDifferenceSql(tempTable, "S.TEST", COLUMNS));
+        assertEquals(Arrays.asList(new String[] {"drop table DBUNIT_DIFF"}),
+                Arrays.asList(builder.buildDropTemporaryTableSql(tempTable)));
+        assertNull(builder.buildFingerprintSql(tempTable, COLUMNS, COLUMN_TYPES));
+    }
+
+    public void testTemporaryTableName() throws Exception
+    {
+        ITableDiffSqlBuilder builder = new DefaultTableDiffSqlBuilder();
+        String tempTable = builder.getTemporaryTableName("TEST");
+        assertTrue(tempTable, tempTable.startsWith("DBUNIT_DIFF_"));
+        assertTrue(tempTable, tempTable.length() <= 30);
+        assertFalse(tempTable.equals(builder.getTemporaryTableName("TEST")));
+    }
+
+    public void testHsqldb() throws Exception
+    {
+        ITableDiffSqlBuilder builder = new HsqldbTableDiffSqlBuilder();
+
+        assertEquals(Arrays.asList(new String[] {
+                "select ID, NAME into temp DBUNIT_DIFF from TEST where 1 = 0"}),
+                Arrays.asList(builder.buildCreateTemporaryTableSql("DBUNIT_DIFF", "TEST", COLUMNS)));
+        assertEquals("select ID, NAME from TEST except select ID, NAME from DBUNIT_DIFF",
+                builder.buildDifferenceSql("TEST", "DBUNIT_DIFF", COLUMNS));
+        assertNull(builder.buildFingerprintSql("TEST", COLUMNS, COLUMN_TYPES));
+    }
+
+    public void testOracle() throws Exception
+    {
+        ITableDiffSqlBuilder builder = new OracleTableDiffSqlBuilder();
+        String tempTable = "DBUNIT_DIFF";
+
+        assertEquals(Arrays.asList(new String[] {
+                "create global temporary table DBUNIT_DIFF on commit preserve rows"
+                + " as select ID, NAME from TEST where 1 = 0"}),
+                Arrays.asList(builder.buildCreateTemporaryTableSql(tempTable, "TEST", COLUMNS)));
+        assertEquals("select ID, NAME from TEST minus select ID, NAME from DBUNIT_DIFF",
+                builder.buildDifferenceSql("TEST", tempTable, COLUMNS));
+        assertEquals(Arrays.asList(new String[] {
+                "truncate table DBUNIT_DIFF", "drop table DBUNIT_DIFF"}),
+                Arrays.asList(builder.buildDropTemporaryTableSql(tempTable)));
+        assertEquals("select count(*), sum(to_number(substr(rawtohex(standard_hash("
+                + "nvl(rawtohex(standard_hash(ID, 'MD5')), 'N')"
+                + " || nvl(rawtohex(standard_hash(NAME, 'MD5')), 'N')"
+                + ", 'MD5')), 1, 15), 'XXXXXXXXXXXXXXX')) from TEST",
+                builder.buildFingerprintSql("TEST", COLUMNS, COLUMN_TYPES));
+        assertNull(builder.buildFingerprintSql("TEST", COLUMNS, LOB_COLUMN_TYPES));
+    }
+
+    public void testMsSql() throws Exception
+    {
+        ITableDiffSqlBuilder builder = new MsSqlTableDiffSqlBuilder();
+        assertTrue(builder.getTemporaryTableName("TEST").startsWith("#DBUNIT_DIFF_"));
+        String tempTable = "#DBUNIT_DIFF";
+
+        assertEquals(Arrays.asList(new String[] {
+                "select ID, NAME into #DBUNIT_DIFF from TEST where 1 = 0"
+                + " union all select ID, NAME from TEST where 1 = 0"}),
+                Arrays.asList(builder.buildCreateTemporaryTableSql(tempTable, "TEST", COLUMNS)));
+        assertEquals("select ID, NAME from TEST except select ID, NAME from #DBUNIT_DIFF",
+                builder.buildDifferenceSql("TEST", tempTable, COLUMNS));
+        assertEquals("select count(*), sum(cast(cast(substring(hashbytes('SHA2_256', "
+                + "isnull(convert(varchar(max), hashbytes('SHA2_256', convert(varbinary(max), ID)), 2), 'N')"
+                + " + isnull(convert(varchar(max), hashbytes('SHA2_256', convert(varbinary(max), NAME)), 2), 'N')"
+                + "), 1, 8) as bigint) as decimal(38, 0))) from TEST",
+                builder.buildFingerprintSql("TEST", COLUMNS, COLUMN_TYPES));
+        assertNull(builder.buildFingerprintSql("TEST", COLUMNS, LOB_COLUMN_TYPES));
+    }
+
+    public void testMySql() throws Exception
+    {
+        ITableDiffSqlBuilder builder = new MySqlTableDiffSqlBuilder();
+        String tempTable = "DBUNIT_DIFF";
+
+        assertEquals("select distinct a.ID, a.NAME from TEST a where not exists"
+                + " (select 1 from DBUNIT_DIFF b where a.ID <=> b.ID and a.NAME <=> b.NAME)",
+                builder.buildDifferenceSql("TEST", tempTable, COLUMNS));
+        assertEquals(Arrays.asList(new String[] {"drop temporary table DBUNIT_DIFF"}),
+                Arrays.asList(builder.buildDropTemporaryTableSql(tempTable)));
+        assertEquals("select count(*), sum(cast(conv(substr(md5(concat("
+                + "ifnull(md5(ID), 'N'), ifnull(md5(NAME), 'N'))), 1, 15), 16, 10)"
+                + " as unsigned)) from TEST",
+                builder.buildFingerprintSql("TEST", COLUMNS, COLUMN_TYPES));
+        assertNull(builder.buildFingerprintSql("TEST", COLUMNS, LOB_COLUMN_TYPES));
+    }
+
+    public void testPostgresql() throws Exception
+    {
+        ITableDiffSqlBuilder builder = new PostgresqlTableDiffSqlBuilder();
+
+        assertEquals("select ID, NAME from TEST except select ID, NAME from DBUNIT_DIFF",
+                builder.buildDifferenceSql("TEST", "DBUNIT_DIFF", COLUMNS));
+        assertEquals("select count(*), sum(('x' || substr(md5(row(ID, NAME)::text),"
+                + " 1, 15))::bit(60)::bigint) from TEST",
+                builder.buildFingerprintSql("TEST", COLUMNS, COLUMN_TYPES));
+    }
+}
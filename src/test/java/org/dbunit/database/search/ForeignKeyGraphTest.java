@@ -0,0 +1,133 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2005, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.search;
+
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.dbunit.HypersonicEnvironment;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.NoSuchTableException;
+import org.dbunit.testutil.TestUtils;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class ForeignKeyGraphTest extends TestCase {
+
+    private Connection jdbcConnection;
+
+    private IDatabaseConnection connection;
+
+    protected void setUp( String sqlFile ) throws Exception {
+        this.jdbcConnection = HypersonicEnvironment.createJdbcConnection("mem:tempdb");
+        HypersonicEnvironment.executeDdlFile(TestUtils.getFile("sql/" + sqlFile), this.jdbcConnection);
+        this.connection = new DatabaseConnection(jdbcConnection);
+    }
+
+    protected void tearDown() throws Exception {
+        HypersonicEnvironment.shutdown(this.jdbcConnection);
+        this.jdbcConnection.close();
+    }
+
+    public void testIndexOf() throws Exception {
+        setUp("hypersonic_fk.sql");
+        ForeignKeyGraph graph = ForeignKeyGraph.create(this.connection);
+
+        assertEquals(8, graph.getTableCount());
+        int table = graph.indexOf("A");
+        assertEquals("A", graph.getTableName(table));
+        assertEquals(table, graph.indexOf("a"));
+        assertEquals(-1, graph.indexOf("XXXXXX_TABLE_NON_EXISTING"));
+        try {
+            graph.getTableIndex("XXXXXX_TABLE_NON_EXISTING");
+            fail("Should not find a non existing table");
+        } catch (NoSuchTableException expected) {
+            assertEquals("The table 'XXXXXX_TABLE_NON_EXISTING' does not exist in schema 'null'",
+                    expected.getMessage());
+        }
+    }
+
+    public void testDirectRelationships() throws Exception {
+        setUp("hypersonic_fk.sql");
+        ForeignKeyGraph graph = ForeignKeyGraph.create(this.connection);
+
+        assertEquals(toSet(new String[] {"C", "E", "H"}),
+                toTableNames(graph, graph.getImportedTables(graph.indexOf("B"))));
+        assertEquals(toSet(new String[] {"C", "E"}),
+                toTableNames(graph, graph.getExportedTables(graph.indexOf("A"))));
+        assertEquals(0, graph.getImportedTables(graph.indexOf("D")).length);
+        assertEquals(0, graph.getExportedTables(graph.indexOf("B")).length);
+    }
+
+    public void testTransitiveRelationships() throws Exception {
+        setUp("hypersonic_fk.sql");
+        ForeignKeyGraph graph = ForeignKeyGraph.create(this.connection);
+
+        assertEquals(toSet(new String[] {"A", "C", "D", "E", "F", "G", "H"}),
+                toTableNames(graph, graph.getAllImportedTables(graph.indexOf("B"))));
+        assertEquals(toSet(new String[] {"A", "B", "C", "E", "F"}),
+                toTableNames(graph, graph.getAllExportedTables(graph.indexOf("D"))));
+        // Cached closures must not be modifiable
+        graph.getAllImportedTables(graph.indexOf("B")).clear();
+        assertEquals(7, graph.getAllImportedTables(graph.indexOf("B")).cardinality());
+    }
+
+    public void testCyclicRelationships() throws Exception {
+        setUp("hypersonic_cyclic.sql");
+        ForeignKeyGraph graph = ForeignKeyGraph.create(this.connection);
+
+        int a = graph.indexOf("A");
+        int b = graph.indexOf("B");
+        assertTrue(graph.getAllImportedTables(a).get(a));
+        assertTrue(graph.getAllExportedTables(a).get(a));
+        assertFalse(graph.getAllImportedTables(b).get(b));
+    }
+
+    private static Set toSet(String[] tableNames) {
+        return new HashSet(Arrays.asList(tableNames));
+    }
+
+    private static Set toTableNames(ForeignKeyGraph graph, int[] tables) {
+        Set tableNames = new HashSet();
+        for (int i = 0; i < tables.length; i++) {
+            tableNames.add(graph.getTableName(tables[i]));
+        }
+        return tableNames;
+    }
+
+    private static Set toTableNames(ForeignKeyGraph graph, BitSet tables) {
+        Set tableNames = new HashSet();
+        for (int i = tables.nextSetBit(0); i >= 0; i = tables.nextSetBit(i + 1)) {
+            tableNames.add(graph.getTableName(i));
+        }
+        return tableNames;
+    }
+
+}
@@ -22,13 +22,18 @@ package org.dbunit.database.search;
 
 import java.io.File;
 import java.sql.Connection;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.TreeSet;
 
 import junit.framework.TestCase;
 import junitx.framework.ArrayAssert;
 
 import org.dbunit.HypersonicEnvironment;
+import org.dbunit.database.CyclicTablesDependencyException;
 import org.dbunit.database.DatabaseConnection;
 import org.dbunit.database.IDatabaseConnection;
 import org.dbunit.database.PrimaryKeyFilter.PkTableMap;
@@ -64,6 +69,10 @@ public class TablesDependencyHelperTest extends TestCase {
     }
 
     protected void tearDown() throws Exception {
+        if (this.jdbcConnection == null) {
+            // test without database
+            return;
+        }
         HypersonicEnvironment.shutdown(this.jdbcConnection);
         this.jdbcConnection.close();
 //      HypersonicEnvironment.deleteFiles( "tempdb" );
@@ -188,6 +197,55 @@ public class TablesDependencyHelperTest extends TestCase {
         }           
     }
 
+    public void testGetDirectDependsOnTables() throws Exception
+    {
+        setUp("hypersonic_fk.sql");
+        Set actual = TablesDependencyHelper.getDirectDependsOnTables(this.connection, "A");
+        assertEquals(new HashSet(Arrays.asList(new String[] {"A", "C", "E"})), actual);
+        actual = TablesDependencyHelper.getDirectDependentTables(this.connection, "B");
+        assertEquals(new HashSet(Arrays.asList(new String[] {"B", "C", "E", "H"})), actual);
+    }
+
+    public void testGetDependencyLevels() throws Exception
+    {
+        setUp("hypersonic_fk.sql");
+        String[] tableNames = {"A","B","C","D","E","F","G","H"};
+        String[][] actual = TablesDependencyHelper.getDependencyLevels(this.connection, tableNames);
+        assertEquals(4, actual.length);
+        ArrayAssert.assertEquals(new String[] {"D","G","H"}, actual[0]);
+        ArrayAssert.assertEquals(new String[] {"A","F"}, actual[1]);
+        ArrayAssert.assertEquals(new String[] {"C","E"}, actual[2]);
+        ArrayAssert.assertEquals(new String[] {"B"}, actual[3]);
+    }
+
+    public void testGetDependencyLevelsIgnoresUnknownAndSelfReferences() throws Exception
+    {
+        Map dependsOn = new HashMap();
+        dependsOn.put("a", new HashSet(Arrays.asList(new String[] {"A", "X"})));
+        dependsOn.put("b", new HashSet(Arrays.asList(new String[] {"A"})));
+        String[][] actual = TablesDependencyHelper.getDependencyLevels(
+                new String[] {"b", "a"}, dependsOn, false);
+        assertEquals(2, actual.length);
+        ArrayAssert.assertEquals(new String[] {"a"}, actual[0]);
+        ArrayAssert.assertEquals(new String[] {"b"}, actual[1]);
+    }
+
+    public void testGetDependencyLevelsCyclic() throws Exception
+    {
+        Map dependsOn = new HashMap();
+        dependsOn.put("A", new HashSet(Arrays.asList(new String[] {"B"})));
+        dependsOn.put("B", new HashSet(Arrays.asList(new String[] {"A"})));
+        dependsOn.put("C", new HashSet());
+        try
+        {
+            TablesDependencyHelper.getDependencyLevels(new String[] {"A", "B", "C"}, dependsOn, true);
+            fail("Should not be able to group cyclic tables");
+        }
+        catch (CyclicTablesDependencyException expected)
+        {
+            assertTrue(expected.getMessage(), expected.getMessage().indexOf("B") != -1);
+        }
+    }
 
     // TODO ImportAndExportKeysSearchCallbackOwnFileTest
 
@@ -33,7 +33,10 @@ public class AllTests extends TestSuite
     public static Test suite()
     {
         TestSuite suite = new TestSuite();
+        suite.addTest(new TestSuite(AutomaticPreparedBatchStatementTest.class));
         suite.addTest(new TestSuite(BatchStatementDecoratorTest.class));
+        suite.addTest(new TestSuite(MultiRowInsertStatementTest.class));
+        suite.addTest(new TestSuite(PreparedStatementCacheTest.class));
 
         return suite;
     }
@@ -0,0 +1,173 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.statement;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class AutomaticPreparedBatchStatementTest extends TestCase
+{
+    public AutomaticPreparedBatchStatementTest(String s)
+    {
+        super(s);
+    }
+
+    private void addRows(IPreparedBatchStatement statement, int count, Object value)
+            throws Exception
+    {
+        for (int i = 0; i < count; i++)
+        {
+            statement.addValue(value, DataType.VARCHAR);
+            statement.addBatch();
+        }
+    }
+
+    public void testFixedThreshold() throws Exception
+    {
+        CountingStatement counting = new CountingStatement();
+        AutomaticPreparedBatchStatement statement =
+                new AutomaticPreparedBatchStatement(counting, 10);
+
+        addRows(statement, 25, "x");
+        assertEquals(25, statement.executeBatch());
+        statement.close();
+
+        assertEquals("[10, 10, 5]", counting.getBatchSizes().toString());
+    }
+
+    public void testAdaptiveThresholdWithinBounds() throws Exception
+    {
+        CountingStatement counting = new CountingStatement();
+        AutomaticPreparedBatchStatement statement = new AutomaticPreparedBatchStatement(
+                counting, "sql", 10, 5, 40, Integer.MAX_VALUE, null);
+
+        addRows(statement, 500, "x");
+        statement.executeBatch();
+        statement.close();
+
+        assertTrue(statement.getThreshold() >= 5);
+        assertTrue(statement.getThreshold() <= 40);
+        assertEquals(500, counting.getRowCount());
+        assertEquals(10, ((Integer)counting.getBatchSizes().get(0)).intValue());
+    }
+
+    public void testAdaptiveThresholdByteLimit() throws Exception
+    {
+        CountingStatement counting = new CountingStatement();
+        AutomaticPreparedBatchStatement statement = new AutomaticPreparedBatchStatement(
+                counting, "sql", 10, 1, 100, 100, null);
+
+        // 50 bytes per row, at most two rows per batch
+        addRows(statement, 6, "01234567890123456789012345678901234567890123456789");
+        statement.executeBatch();
+        statement.close();
+
+        assertEquals("[2, 2, 2, 0]", counting.getBatchSizes().toString());
+        assertTrue(statement.getThreshold() <= 2);
+    }
+
+    public void testAdaptiveListener() throws Exception
+    {
+        final List reported = new ArrayList();
+        IBatchSizeListener listener = new IBatchSizeListener()
+        {
+            public void batchSizeChosen(String sql, int batchSize, int rowCount,
+                    int bytesPerRow, long executionMillis)
+            {
+                reported.add(sql);
+                reported.add(new Integer(batchSize));
+                reported.add(new Integer(rowCount));
+                reported.add(new Integer(bytesPerRow));
+            }
+        };
+
+        AutomaticPreparedBatchStatement statement = new AutomaticPreparedBatchStatement(
+                new CountingStatement(), "insert", 20, 10, 20, Integer.MAX_VALUE, listener);
+        addRows(statement, 3, "abcd");
+        statement.executeBatch();
+        statement.close();
+
+        assertEquals(4, reported.size());
+        assertEquals("insert", reported.get(0));
+        assertEquals(new Integer(20), reported.get(1));
+        assertEquals(new Integer(3), reported.get(2));
+        assertEquals(new Integer(4), reported.get(3));
+    }
+
+    /**
+     * Records the number of rows of each executed batch.
+     */
+    private static class CountingStatement implements IPreparedBatchStatement
+    {
+        private final List _batchSizes = new ArrayList();
+        private int _pending = 0;
+        private int _rowCount = 0;
+
+        public void addValue(Object value, DataType dataType) throws TypeCastException,
+                SQLException
+        {
+        }
+
+        public void addBatch() throws SQLException
+        {
+            _pending++;
+            _rowCount++;
+        }
+
+        public int executeBatch() throws SQLException
+        {
+            _batchSizes.add(new Integer(_pending));
+            int result = _pending;
+            _pending = 0;
+            return result;
+        }
+
+        public void clearBatch() throws SQLException
+        {
+            _pending = 0;
+        }
+
+        public void close() throws SQLException
+        {
+        }
+
+        public List getBatchSizes()
+        {
+            return _batchSizes;
+        }
+
+        public int getRowCount()
+        {
+            return _rowCount;
+        }
+    }
+}
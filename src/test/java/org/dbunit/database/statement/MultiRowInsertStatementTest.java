@@ -0,0 +1,174 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.statement;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class MultiRowInsertStatementTest extends TestCase
+{
+    /**
+     * Records the calls made on the connection and its prepared statements
+     */
+    private final List _calls = new ArrayList();
+
+    public MultiRowInsertStatementTest(String s)
+    {
+        super(s);
+    }
+
+    private Connection createConnection()
+    {
+        final InvocationHandler statementHandler = new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                String name = method.getName();
+                if (name.equals("executeUpdate"))
+                {
+                    _calls.add("executeUpdate");
+                    return new Integer(1);
+                }
+                if (name.equals("setNull") || name.equals("setObject") || name.equals("setString")
+                        || name.equals("setInt") || name.equals("setBigDecimal"))
+                {
+                    _calls.add(name + "(" + args[0] + ")");
+                }
+                else if (name.equals("close"))
+                {
+                    _calls.add("close");
+                }
+                return null;
+            }
+        };
+
+        return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[] {Connection.class}, new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if (method.getName().equals("prepareStatement"))
+                {
+                    _calls.add("prepare: " + args[0]);
+                    return Proxy.newProxyInstance(getClass().getClassLoader(),
+                            new Class[] {PreparedStatement.class}, statementHandler);
+                }
+                return null;
+            }
+        });
+    }
+
+    private void addRow(IPreparedBatchStatement statement, String value) throws Exception
+    {
+        statement.addValue(value, DataType.VARCHAR);
+        statement.addValue(value == null ? ITable.NO_VALUE : value, DataType.VARCHAR);
+        statement.addBatch();
+    }
+
+    public void testGetSql() throws Exception
+    {
+        MultiRowInsertStatement statement = new MultiRowInsertStatement(
+                "insert into T (A, B) values ", "(?, ?)", 2, 3, createConnection());
+
+        assertEquals("insert into T (A, B) values (?, ?)", statement.getSql(1));
+        assertEquals("insert into T (A, B) values (?, ?), (?, ?), (?, ?)", statement.getSql(3));
+    }
+
+    public void testExecute() throws Exception
+    {
+        MultiRowInsertStatement statement = new MultiRowInsertStatement(
+                "insert into T (A, B) values ", "(?, ?)", 2, 2, createConnection());
+
+        for (int i = 0; i < 5; i++)
+        {
+            addRow(statement, "v" + i);
+        }
+        // The mock reports one inserted row per statement
+        assertEquals(3, statement.executeBatch());
+        statement.clearBatch();
+
+        // Full and remainder statements are prepared once each
+        addRow(statement, "v");
+        addRow(statement, null);
+        addRow(statement, "w");
+        statement.executeBatch();
+        statement.close();
+
+        List expected = new ArrayList();
+        expected.add("prepare: insert into T (A, B) values (?, ?), (?, ?)");
+        for (int i = 0; i < 2; i++)
+        {
+            expected.add("setString(1)");
+            expected.add("setString(2)");
+            expected.add("setString(3)");
+            expected.add("setString(4)");
+            expected.add("executeUpdate");
+        }
+        expected.add("prepare: insert into T (A, B) values (?, ?)");
+        expected.add("setString(1)");
+        expected.add("setString(2)");
+        expected.add("executeUpdate");
+
+        expected.add("setString(1)");
+        expected.add("setString(2)");
+        expected.add("setNull(3)");
+        expected.add("setNull(4)");
+        expected.add("executeUpdate");
+        expected.add("setString(1)");
+        expected.add("setString(2)");
+        expected.add("executeUpdate");
+        expected.add("close");
+        expected.add("close");
+
+        assertEquals(expected, _calls);
+    }
+
+    public void testAddBatchWrongValueCount() throws Exception
+    {
+        MultiRowInsertStatement statement = new MultiRowInsertStatement(
+                "insert into T (A, B) values ", "(?, ?)", 2, 2, createConnection());
+
+        statement.addValue("a", DataType.VARCHAR);
+        try
+        {
+            statement.addBatch();
+            fail("Should not be able to add a row with missing values");
+        }
+        catch (java.sql.SQLException expected)
+        {
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.statement;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class PreparedStatementCacheTest extends TestCase
+{
+    /**
+     * Records the calls made on the connection and its prepared statements
+     */
+    private final List _calls = new ArrayList();
+
+    public PreparedStatementCacheTest(String s)
+    {
+        super(s);
+    }
+
+    private Connection createConnection()
+    {
+        return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[] {Connection.class}, new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if (method.getName().equals("prepareStatement"))
+                {
+                    final String sql = (String)args[0];
+                    _calls.add("prepare: " + sql);
+                    return Proxy.newProxyInstance(getClass().getClassLoader(),
+                            new Class[] {PreparedStatement.class}, new InvocationHandler()
+                    {
+                        public Object invoke(Object proxy, Method method, Object[] args)
+                        {
+                            String name = method.getName();
+                            if (name.equals("close") || name.equals("clearBatch"))
+                            {
+                                _calls.add(name + ": " + sql);
+                            }
+                            else if (name.equals("executeBatch"))
+                            {
+                                return new int[0];
+                            }
+                            return null;
+                        }
+                    });
+                }
+                return null;
+            }
+        });
+    }
+
+    public void testBorrowAndReturn() throws Exception
+    {
+        Connection connection = createConnection();
+        PreparedStatementCache cache = new PreparedStatementCache(2);
+
+        PreparedStatement statement = cache.borrowStatement("A", connection);
+        cache.returnStatement("A", connection, statement);
+        assertEquals(1, cache.size());
+        assertSame(statement, cache.borrowStatement("A", connection));
+
+        // Borrowed statements are not shared
+        PreparedStatement other = cache.borrowStatement("A", connection);
+        assertNotSame(statement, other);
+        cache.returnStatement("A", connection, statement);
+        cache.returnStatement("A", connection, other);
+        assertEquals(1, cache.size());
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.getEvictionCount());
+
+        List expected = new ArrayList();
+        expected.add("prepare: A");
+        expected.add("prepare: A");
+        expected.add("close: A");
+        assertEquals(expected, _calls);
+    }
+
+    public void testEvictLeastRecentlyUsed() throws Exception
+    {
+        Connection connection = createConnection();
+        PreparedStatementCache cache = new PreparedStatementCache(2);
+
+        cache.returnStatement("A", connection, cache.borrowStatement("A", connection));
+        cache.returnStatement("B", connection, cache.borrowStatement("B", connection));
+        cache.returnStatement("A", connection, cache.borrowStatement("A", connection));
+        cache.returnStatement("C", connection, cache.borrowStatement("C", connection));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals("close: B", _calls.get(_calls.size() - 1));
+
+        cache.setMaxSize(1);
+        assertEquals(2, cache.getEvictionCount());
+        assertEquals("close: A", _calls.get(_calls.size() - 1));
+        cache.borrowStatement("C", connection);
+        assertEquals(2, cache.getHitCount());
+    }
+
+    public void testOtherConnection() throws Exception
+    {
+        Connection connection = createConnection();
+        PreparedStatementCache cache = new PreparedStatementCache(2);
+        cache.returnStatement("A", connection, cache.borrowStatement("A", connection));
+
+        cache.borrowStatement("A", createConnection());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        List expected = new ArrayList();
+        expected.add("prepare: A");
+        expected.add("close: A");
+        expected.add("prepare: A");
+        assertEquals(expected, _calls);
+    }
+
+    public void testClear() throws Exception
+    {
+        Connection connection = createConnection();
+        PreparedStatementCache cache = new PreparedStatementCache(2);
+        cache.returnStatement("A", connection, cache.borrowStatement("A", connection));
+        cache.returnStatement("B", connection, cache.borrowStatement("B", connection));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertTrue(_calls.contains("close: A"));
+        assertTrue(_calls.contains("close: B"));
+    }
+
+    public void testBatchStatementReturnedOnClose() throws Exception
+    {
+        Connection connection = createConnection();
+        PreparedStatementCache cache = new PreparedStatementCache(2);
+
+        PreparedBatchStatement statement = new PreparedBatchStatement("A", connection, cache);
+        statement.addValue("x", DataType.VARCHAR);
+        statement.addBatch();
+        statement.close();
+        new PreparedBatchStatement("A", connection, cache).close();
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.size());
+
+        List expected = new ArrayList();
+        expected.add("prepare: A");
+        expected.add("clearBatch: A");
+        expected.add("clearBatch: A");
+        assertEquals(expected, _calls);
+    }
+}
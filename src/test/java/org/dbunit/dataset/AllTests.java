@@ -43,6 +43,7 @@ public class AllTests extends TestSuite
         suite.addTest(org.dbunit.dataset.csv.AllTests.suite());
         suite.addTest(new TestSuite(CaseInsensitiveDataSetTest.class));
         suite.addTest(new TestSuite(CaseInsensitiveTableTest.class));
+        suite.addTest(new TestSuite(ColumnIndexMappingTest.class));
         suite.addTest(new TestSuite(ColumnTest.class));
         suite.addTest(new TestSuite(ColumnsTest.class));
         suite.addTest(new TestSuite(CompositeDataSetTest.class));
@@ -62,8 +63,11 @@ public class AllTests extends TestSuite
         suite.addTest(new TestSuite(LowerCaseTableMetaDataTest.class));
         suite.addTest(new TestSuite(ReplacementDataSetTest.class));
         suite.addTest(new TestSuite(ReplacementTableTest.class));
+        suite.addTest(new TestSuite(RowIndexSorterTest.class));
+        suite.addTest(new TestSuite(RowKeyTest.class));
         suite.addTest(new TestSuite(SortedDataSetTest.class));
         suite.addTest(new TestSuite(SortedTableTest.class));
+        suite.addTest(new TestSuite(TableFingerprintTest.class));
 
         return suite;
     }
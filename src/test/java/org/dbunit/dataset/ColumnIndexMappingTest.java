@@ -0,0 +1,115 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset;
+
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class ColumnIndexMappingTest extends TestCase
+{
+    private static final Column COLUMN0 = new Column("C0", DataType.VARCHAR);
+    private static final Column COLUMN1 = new Column("C1", DataType.VARCHAR);
+    private static final Column COLUMN2 = new Column("C2", DataType.VARCHAR);
+
+    public ColumnIndexMappingTest(String s)
+    {
+        super(s);
+    }
+
+    private DefaultTable createTable() throws Exception
+    {
+        DefaultTable table = new DefaultTable("TEST",
+                new Column[] {COLUMN0, COLUMN1, COLUMN2});
+        table.addRow(new Object[] {"a0", "a1", "a2"});
+        table.addRow(new Object[] {"b0", "b1", "b2"});
+        return table;
+    }
+
+    public void testGetValueIndexedTable() throws Exception
+    {
+        ITable table = createTable();
+        // Column order and case differ from the table metadata
+        Column[] columns = new Column[] {new Column("c2", DataType.VARCHAR), COLUMN0};
+        ColumnIndexMapping mapping = new ColumnIndexMapping(table, columns);
+
+        assertSame(columns, mapping.getColumns());
+        assertEquals("a2", mapping.getValue(0, 0));
+        assertEquals("a0", mapping.getValue(0, 1));
+        assertEquals("b2", mapping.getValue(1, 0));
+        assertEquals("b0", mapping.getValue(1, 1));
+    }
+
+    public void testGetValueNameBasedTable() throws Exception
+    {
+        ITable table = new ForwardOnlyTable(createTable());
+        assertFalse(table instanceof IColumnIndexedTable);
+
+        ColumnIndexMapping mapping = new ColumnIndexMapping(table,
+                new Column[] {COLUMN2, COLUMN1});
+
+        assertEquals("a2", mapping.getValue(0, 0));
+        assertEquals("a1", mapping.getValue(0, 1));
+        assertEquals("b2", mapping.getValue(1, 0));
+    }
+
+    public void testGetValueRowOutOfBounds() throws Exception
+    {
+        ColumnIndexMapping mapping = new ColumnIndexMapping(createTable(),
+                new Column[] {COLUMN1});
+        try
+        {
+            mapping.getValue(2, 0);
+            fail("Should not be able to read a row after the end of the table");
+        }
+        catch (RowOutOfBoundsException expected)
+        {
+        }
+    }
+
+    public void testUnknownColumn() throws Exception
+    {
+        try
+        {
+            new ColumnIndexMapping(createTable(),
+                    new Column[] {new Column("UNKNOWN", DataType.VARCHAR)});
+            fail("Should not be able to map an unknown column");
+        }
+        catch (NoSuchColumnException expected)
+        {
+        }
+    }
+
+    public void testGetValueSortedTable() throws Exception
+    {
+        ITable table = new SortedTable(createTable(), new String[] {"C0"});
+        ((SortedTable)table).setUseComparable(true);
+        ColumnIndexMapping mapping = new ColumnIndexMapping(table, new Column[] {COLUMN1});
+
+        assertEquals("a1", mapping.getValue(0, 0));
+        assertEquals("b1", mapping.getValue(1, 0));
+    }
+}
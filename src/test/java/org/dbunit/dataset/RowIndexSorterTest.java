@@ -0,0 +1,132 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class RowIndexSorterTest extends TestCase
+{
+    private static final Column[] COLUMNS = new Column[] {
+        new Column("COLUMN0", DataType.NUMERIC),
+        new Column("COLUMN1", DataType.VARCHAR)
+    };
+
+    public RowIndexSorterTest(String s)
+    {
+        super(s);
+    }
+
+    private DefaultTable createTable(int rowCount) throws Exception
+    {
+        DefaultTable table = new DefaultTable("TEST_TABLE", COLUMNS);
+        Random random = new Random(42);
+        for (int i = 0; i < rowCount; i++)
+        {
+            // Few distinct values and some nulls to verify that the sort is stable
+            int value = random.nextInt(50);
+            table.addRow(new Object[] {
+                    value == 0 ? null : new Integer(value),
+                    "row " + random.nextInt(5)});
+        }
+        return table;
+    }
+
+    private int[] sortBoxed(int rowCount, Comparator comparator)
+    {
+        Integer[] indexes = new Integer[rowCount];
+        for (int i = 0; i < rowCount; i++)
+        {
+            indexes[i] = new Integer(i);
+        }
+        Arrays.sort(indexes, comparator);
+
+        int[] result = new int[rowCount];
+        for (int i = 0; i < rowCount; i++)
+        {
+            result[i] = indexes[i].intValue();
+        }
+        return result;
+    }
+
+    private void assertSortEquals(int[] expected, int[] actual)
+    {
+        assertEquals("row count", expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++)
+        {
+            assertEquals("row " + i, expected[i], actual[i]);
+        }
+    }
+
+    public void testSortComparable() throws Exception
+    {
+        DefaultTable table = createTable(1000);
+        RowIndexSorter sorter = new RowIndexSorter(new RowIndexSorter.SortKey[] {
+                RowIndexSorter.createComparableKey(table, COLUMNS[0]),
+                RowIndexSorter.createComparableKey(table, COLUMNS[1])});
+
+        int[] expected = sortBoxed(1000, new SortedTable.RowComparator(table, COLUMNS));
+        assertSortEquals(expected, sorter.sort(1000, 1));
+    }
+
+    public void testSortByString() throws Exception
+    {
+        DefaultTable table = createTable(1000);
+        RowIndexSorter sorter = new RowIndexSorter(new RowIndexSorter.SortKey[] {
+                RowIndexSorter.createStringKey(table, COLUMNS[0])});
+
+        int[] expected = sortBoxed(1000, new SortedTable.RowComparatorByString(
+                table, new Column[] {COLUMNS[0]}));
+        assertSortEquals(expected, sorter.sort(1000, 1));
+    }
+
+    public void testSortParallel() throws Exception
+    {
+        DefaultTable table = createTable(1000);
+        RowIndexSorter sorter = new RowIndexSorter(new RowIndexSorter.SortKey[] {
+                RowIndexSorter.createComparableKey(table, COLUMNS[0])});
+
+        int[] expected = sorter.sort(1000, 1);
+        // An odd thread count leaves a part without partner in the merge passes
+        assertSortEquals(expected, sorter.sort(1000, 3));
+        assertSortEquals(expected, sorter.sort(1000, 4));
+    }
+
+    public void testSortEmpty() throws Exception
+    {
+        DefaultTable table = createTable(0);
+        RowIndexSorter sorter = new RowIndexSorter(new RowIndexSorter.SortKey[] {
+                RowIndexSorter.createStringKey(table, COLUMNS[0])});
+
+        assertEquals(0, sorter.sort(0, 4).length);
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset;
+
+import java.math.BigDecimal;
+
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class RowKeyTest extends TestCase
+{
+    public RowKeyTest(String s)
+    {
+        super(s);
+    }
+
+    public void testEqualsNumericValue() throws Exception
+    {
+        DataType[] dataTypes = new DataType[] {DataType.NUMERIC};
+        RowKey key1 = RowKey.create(new Object[] {new BigDecimal("1.00")}, dataTypes);
+        RowKey key2 = RowKey.create(new Object[] {new Integer(1)}, dataTypes);
+        RowKey key3 = RowKey.create(new Object[] {"1"}, dataTypes);
+
+        assertEquals(key1, key2);
+        assertEquals(key1.hashCode(), key2.hashCode());
+        assertEquals(key1, key3);
+        assertFalse(key1.equals(RowKey.create(new Object[] {new Integer(10)}, dataTypes)));
+    }
+
+    public void testEqualsIntegerAndBigInteger() throws Exception
+    {
+        RowKey key1 = RowKey.create(new Object[] {new Long(100)}, new DataType[] {DataType.BIGINT});
+        RowKey key2 = RowKey.create(new Object[] {new BigDecimal("1E+2")}, new DataType[] {DataType.NUMERIC});
+
+        assertEquals(key1, key2);
+    }
+
+    public void testEqualsIgnoresTrailingBlanks() throws Exception
+    {
+        DataType[] dataTypes = new DataType[] {DataType.CHAR};
+        RowKey key1 = RowKey.create(new Object[] {"abc  "}, dataTypes);
+        RowKey key2 = RowKey.create(new Object[] {"abc"}, dataTypes);
+
+        assertEquals(key1, key2);
+        assertFalse(key1.equals(RowKey.create(new Object[] {" abc"}, dataTypes)));
+    }
+
+    public void testEqualsBytes() throws Exception
+    {
+        DataType[] dataTypes = new DataType[] {DataType.BINARY};
+        RowKey key1 = RowKey.create(new Object[] {new byte[] {1, 2, 3}}, dataTypes);
+        RowKey key2 = RowKey.create(new Object[] {new byte[] {1, 2, 3}}, dataTypes);
+
+        assertEquals(key1, key2);
+        assertEquals(key1.hashCode(), key2.hashCode());
+    }
+
+    public void testEqualsComposite() throws Exception
+    {
+        DataType[] dataTypes = new DataType[] {DataType.VARCHAR, DataType.INTEGER};
+        RowKey key1 = RowKey.create(new Object[] {"a", new Integer(1)}, dataTypes);
+        RowKey key2 = RowKey.create(new Object[] {"a", "1"}, dataTypes);
+        RowKey key3 = RowKey.create(new Object[] {"a", null}, dataTypes);
+
+        assertEquals(key1, key2);
+        assertFalse(key1.equals(key3));
+        assertEquals(key3, RowKey.create(new Object[] {"a", ITable.NO_VALUE}, dataTypes));
+        assertEquals("[a, 1]", key1.toString());
+    }
+
+    public void testCreateWithWrongValueCount() throws Exception
+    {
+        try
+        {
+            RowKey.create(new Object[] {"a"}, new DataType[0]);
+            fail("Should not be able to create a key with a wrong number of values");
+        }
+        catch (IllegalArgumentException expected)
+        {
+        }
+    }
+
+}
@@ -25,6 +25,7 @@ import java.io.File;
 import java.io.IOException;
 
 import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
 import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
 import org.dbunit.testutil.TestUtils;
 
@@ -139,6 +140,44 @@ public class SortedTableTest extends AbstractTableTest
         }
     }
 
+
+    public void testSetParallelSortTooLate() throws Exception
+    {
+    	ITable table = createTable();
+    	SortedTable sortedTable = new SortedTable(table);
+    	sortedTable.getValue(0, "COLUMN0");
+    	try
+    	{
+        	sortedTable.setParallelSort(true);
+        	fail("Should not be able to set 'parallelSort' after table has already been in use");
+    	}
+    	catch(IllegalStateException expected)
+    	{
+    	}
+    }
+
+    public void testSortWithCustomComparator() throws Exception
+    {
+        String columnName = "COLUMN0";
+
+        ITable table = createNumericTable();
+        SortedTable sortedTable = new SortedTable(table, new String[]{columnName});
+        // Descending order
+        sortedTable.setRowComparator(new SortedTable.RowComparator(table, 
+        		new Column[] {table.getTableMetaData().getColumns()[0]}) {
+        	protected int compare(Column column, Object value1, Object value2)
+        	throws TypeCastException {
+        		return -super.compare(column, value1, value2);
+        	}
+        });
+
+        Object[] expected = {new Integer(11), new Integer(10), new Integer(9)};
+        for (int i = 0; i < sortedTable.getRowCount(); i++)
+        {
+            assertEquals("value row " + i, expected[i],
+            		sortedTable.getValue(i, columnName));
+        }
+    }
     
 	public void testGetMissingValue() throws Exception
     {
@@ -0,0 +1,108 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset;
+
+import java.math.BigDecimal;
+
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class TableFingerprintTest extends TestCase
+{
+    private static final Column[] COLUMNS = new Column[] {
+        new Column("ID", DataType.NUMERIC),
+        new Column("NAME", DataType.VARCHAR),
+    };
+
+    public TableFingerprintTest(String s)
+    {
+        super(s);
+    }
+
+    private DefaultTable createTable(Object[][] rows) throws Exception
+    {
+        DefaultTable table = new DefaultTable("TEST", COLUMNS);
+        for (int i = 0; i < rows.length; i++)
+        {
+            table.addRow(rows[i]);
+        }
+        return table;
+    }
+
+    public void testEqualsIgnoresRowOrder() throws Exception
+    {
+        TableFingerprint fingerprint1 = TableFingerprint.create(createTable(new Object[][] {
+                {new Integer(1), "a"}, {new Integer(2), null}}), COLUMNS);
+        TableFingerprint fingerprint2 = TableFingerprint.create(createTable(new Object[][] {
+                {"2", null}, {new BigDecimal("1.0"), "a"}}), COLUMNS);
+
+        assertEquals(2, fingerprint1.getRowCount());
+        assertEquals(fingerprint1, fingerprint2);
+        assertEquals(fingerprint1.hashCode(), fingerprint2.hashCode());
+    }
+
+    public void testNotEquals() throws Exception
+    {
+        TableFingerprint fingerprint = TableFingerprint.create(createTable(new Object[][] {
+                {new Integer(1), "a"}, {new Integer(2), "b"}}), COLUMNS);
+
+        assertFalse(fingerprint.equals(TableFingerprint.create(createTable(new Object[][] {
+                {new Integer(1), "a"}, {new Integer(2), "c"}}), COLUMNS)));
+        // Values must not be shifted between columns
+        assertFalse(fingerprint.equals(TableFingerprint.create(createTable(new Object[][] {
+                {new Integer(1), "a"}, {new Integer(2), null}}), COLUMNS)));
+        // Duplicate rows count
+        assertFalse(fingerprint.equals(TableFingerprint.create(createTable(new Object[][] {
+                {new Integer(1), "a"}, {new Integer(1), "a"}}), COLUMNS)));
+    }
+
+    public void testAdd() throws Exception
+    {
+        TableFingerprint fingerprint = TableFingerprint.create(createTable(new Object[][] {
+                {new Integer(1), "a"}, {new Integer(2), "b"}}), COLUMNS);
+        TableFingerprint part1 = TableFingerprint.create(createTable(new Object[][] {
+                {new Integer(2), "b"}}), COLUMNS);
+        TableFingerprint part2 = TableFingerprint.create(createTable(new Object[][] {
+                {new Integer(1), "a"}}), COLUMNS);
+
+        assertEquals(fingerprint, part1.add(part2));
+    }
+
+    public void testNoValue() throws Exception
+    {
+        assertNull(TableFingerprint.create(createTable(new Object[][] {
+                {new Integer(1), ITable.NO_VALUE}}), COLUMNS));
+    }
+
+    public void testEmptyTable() throws Exception
+    {
+        TableFingerprint fingerprint = TableFingerprint.create(createTable(new Object[0][]), COLUMNS);
+
+        assertEquals(0, fingerprint.getRowCount());
+        assertEquals(0, fingerprint.getHash());
+    }
+}
@@ -63,6 +63,61 @@ public class NumberTolerantDataTypeTest extends AbstractDataTypeTest
         assertEquals(-1, result);
     }
 
+    public void testCompareToWithDeltaPercentage_Boundary() throws Exception
+    {
+        assertEquals(0, THIS_TYPE_PERCENTAGE.compare(new BigDecimal("1000"), new BigDecimal("990.00")));
+        assertEquals(1, THIS_TYPE_PERCENTAGE.compare(new BigDecimal("1000"), new BigDecimal("989.99")));
+        assertEquals(0, THIS_TYPE_PERCENTAGE.compare(new BigDecimal("1000"), new BigDecimal("1010.00")));
+        assertEquals(-1, THIS_TYPE_PERCENTAGE.compare(new BigDecimal("1000"), new BigDecimal("1010.01")));
+    }
+
+    public void testCompareToWithDeltaPercentage_FractionalPercentage() throws Exception
+    {
+        NumberTolerantDataType type = new NumberTolerantDataType("NUMERIC", Types.NUMERIC,
+                new ToleratedDeltaMap.Precision(new BigDecimal("0.5"), true));
+        assertEquals(0, type.compare(new BigDecimal("200"), new BigDecimal("201")));
+        assertEquals(-1, type.compare(new BigDecimal("200"), new BigDecimal("201.01")));
+    }
+
+    public void testCompareToWithDelta_Zero() throws Exception
+    {
+        assertEquals(0, THIS_TYPE.compare(new BigDecimal("0"), new BigDecimal("0.00")));
+        assertEquals(0, THIS_TYPE.compare(new BigDecimal("0"), new BigDecimal("0.00001")));
+        assertEquals(-1, THIS_TYPE.compare(new BigDecimal("0"), new BigDecimal("0.00002")));
+    }
+
+    public void testCompareToWithDeltaPercentage_Zero() throws Exception
+    {
+        assertEquals(0, THIS_TYPE_PERCENTAGE.compare(new BigDecimal("0"), new BigDecimal("0.00")));
+        // A percentage of zero does not tolerate any difference
+        assertEquals(-1, THIS_TYPE_PERCENTAGE.compare(new BigDecimal("0"), new BigDecimal("0.001")));
+        assertEquals(1, THIS_TYPE_PERCENTAGE.compare(new BigDecimal("0.001"), new BigDecimal("0")));
+    }
+
+    public void testCompareToWithDelta_Negative() throws Exception
+    {
+        assertEquals(0, THIS_TYPE.compare(new BigDecimal("-0.12345"), new BigDecimal("-0.12346")));
+        assertEquals(1, THIS_TYPE.compare(new BigDecimal("-0.12345"), new BigDecimal("-0.12347")));
+    }
+
+    public void testCompareToWithDeltaPercentage_Negative() throws Exception
+    {
+        assertEquals(0, THIS_TYPE_PERCENTAGE.compare(new BigDecimal("-1000"), new BigDecimal("-1010")));
+        assertEquals(0, THIS_TYPE_PERCENTAGE.compare(new BigDecimal("-1000"), new BigDecimal("-990")));
+        assertEquals(1, THIS_TYPE_PERCENTAGE.compare(new BigDecimal("-1000"), new BigDecimal("-1010.01")));
+        assertEquals(-1, THIS_TYPE_PERCENTAGE.compare(new BigDecimal("-1000"), new BigDecimal("-989.99")));
+    }
+
+    public void testCompareToWithDelta_Null() throws Exception
+    {
+        assertEquals(0, THIS_TYPE.compare(null, null));
+        assertTrue(THIS_TYPE.compare(null, new BigDecimal("0")) < 0);
+        assertTrue(THIS_TYPE.compare(new BigDecimal("0"), null) > 0);
+        assertEquals(0, THIS_TYPE_PERCENTAGE.compare(null, null));
+        assertTrue(THIS_TYPE_PERCENTAGE.compare(null, new BigDecimal("0")) < 0);
+        assertTrue(THIS_TYPE_PERCENTAGE.compare(new BigDecimal("0"), null) > 0);
+    }
+
     /**
      *
      */
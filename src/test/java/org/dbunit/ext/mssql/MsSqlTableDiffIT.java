@@ -0,0 +1,101 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.mssql;
+
+import junit.framework.AssertionFailedError;
+
+import org.dbunit.AbstractDatabaseIT;
+import org.dbunit.TestFeature;
+import org.dbunit.assertion.DbUnitAssert;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.dbunit.testutil.TestUtils;
+
+/**
+ * Compares a table having an <code>IDENTITY</code> column inside of the
+ * database.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class MsSqlTableDiffIT extends AbstractDatabaseIT
+{
+    public MsSqlTableDiffIT(String s)
+    {
+        super(s);
+    }
+
+    protected boolean runTest(String testName) {
+      return environmentHasFeature(TestFeature.INSERT_IDENTITY);
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        _connection.getConfig().setProperty(
+                DatabaseConfig.PROPERTY_TABLE_DIFF_SQL_BUILDER,
+                new MsSqlTableDiffSqlBuilder());
+    }
+
+    private ITable getIdentityTable() throws Exception
+    {
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(
+                TestUtils.getFileReader("xml/insertIdentityOperationTestFlat.xml"));
+        return dataSet.getTable("IDENTITY_TABLE");
+    }
+
+    public void testIdentityColumnEquals() throws Exception
+    {
+        ITable expectedTable = getIdentityTable();
+        InsertIdentityOperation.CLEAN_INSERT.execute(_connection,
+                new DefaultDataSet(expectedTable));
+
+        new DbUnitAssert().assertEqualsInDatabase(expectedTable, _connection,
+                "IDENTITY_TABLE");
+    }
+
+    public void testIdentityColumnNotEquals() throws Exception
+    {
+        ITable table = getIdentityTable();
+        InsertIdentityOperation.CLEAN_INSERT.execute(_connection,
+                new DefaultDataSet(table));
+
+        DefaultTable expectedTable = new DefaultTable(table.getTableMetaData());
+        expectedTable.addTableRows(table);
+        expectedTable.setValue(0, "COLUMN1", "wrong value");
+
+        try
+        {
+            new DbUnitAssert().assertEqualsInDatabase(expectedTable, _connection,
+                    "IDENTITY_TABLE");
+            fail("The assertion should not work");
+        }
+        catch (AssertionFailedError expected)
+        {
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.oracle;
+
+import junit.framework.TestCase;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class OracleUpsertSqlBuilderTest extends TestCase
+{
+    public OracleUpsertSqlBuilderTest(String s)
+    {
+        super(s);
+    }
+
+    public void testBuildUpsertSql() throws Exception
+    {
+        String sql = new OracleUpsertSqlBuilder().buildUpsertSql("S.T",
+                new String[] {"PK", "C1"}, new String[] {"PK"}, new String[] {"C2"});
+
+        assertEquals("merge into S.T t using (select ? PK, ? C1 from dual) s on (t.PK = s.PK)"
+                + " when matched then update set t.C1 = s.C1, t.C2 = null"
+                + " when not matched then insert (PK, C1) values (s.PK, s.C1)", sql);
+    }
+}
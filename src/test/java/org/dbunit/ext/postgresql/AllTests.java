@@ -34,6 +34,7 @@ public class AllTests extends TestSuite
     {
         TestSuite suite = new TestSuite();
         suite.addTest(new TestSuite(PostgresqlDataTypeFactoryTest.class));
+        suite.addTest(new TestSuite(PostgresqlUpsertSqlBuilderTest.class));
         suite.addTest(new TestSuite(SQLHelperDomainPostgreSQLIT.class));
         return suite;
     }
@@ -0,0 +1,54 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.postgresql;
+
+import junit.framework.TestCase;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class PostgresqlUpsertSqlBuilderTest extends TestCase
+{
+    public PostgresqlUpsertSqlBuilderTest(String s)
+    {
+        super(s);
+    }
+
+    public void testBuildUpsertSql() throws Exception
+    {
+        String sql = new PostgresqlUpsertSqlBuilder().buildUpsertSql("T",
+                new String[] {"PK", "C1"}, new String[] {"PK"}, new String[] {"C2"});
+
+        assertEquals("insert into T (PK, C1) values (?, ?) on conflict (PK) "
+                + "do update set C1 = excluded.C1, C2 = null", sql);
+    }
+
+    public void testBuildUpsertSqlPrimaryKeysOnly() throws Exception
+    {
+        String sql = new PostgresqlUpsertSqlBuilder().buildUpsertSql("T",
+                new String[] {"PK1", "PK2"}, new String[] {"PK1", "PK2"}, new String[0]);
+
+        assertEquals("insert into T (PK1, PK2) values (?, ?) on conflict (PK1, PK2) "
+                + "do nothing", sql);
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dbunit.AbstractHSQLTestCase;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.ext.h2.H2CsvBulkLoader;
+
+/**
+ * Inserts rows into a HSQLDB database with a bulk loader configured.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class BulkInsertOperationTest extends AbstractHSQLTestCase
+{
+    /**
+     * The statements executed by the bulk loader, each followed by the
+     * content of the file it loaded
+     */
+    private final List _loads = new ArrayList();
+
+    public BulkInsertOperationTest(String testName)
+    {
+        super(testName, "hypersonic_simple_dataset.sql");
+    }
+
+    private Object createProxy(Class type, InvocationHandler handler)
+    {
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable
+    {
+        try
+        {
+            return method.invoke(target, args);
+        }
+        catch (InvocationTargetException e)
+        {
+            throw e.getTargetException();
+        }
+    }
+
+    private static String readFile(String path) throws Exception
+    {
+        StringBuffer sb = new StringBuffer();
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(path), "UTF-8"));
+        try
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                sb.append(line).append('\n');
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Wraps the HSQLDB connection so that it looks like a H2 connection and
+     * records the statements executed instead of running them.
+     */
+    private IDatabaseConnection createH2Connection() throws Exception
+    {
+        final Connection jdbcConnection = getConnection().getConnection();
+        final DatabaseMetaData jdbcMetaData = jdbcConnection.getMetaData();
+
+        final DatabaseMetaData metaData = (DatabaseMetaData)createProxy(DatabaseMetaData.class,
+                new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+            {
+                if (method.getName().equals("getDatabaseProductName"))
+                {
+                    return "H2";
+                }
+                return BulkInsertOperationTest.invoke(jdbcMetaData, method, args);
+            }
+        });
+
+        final Statement statement = (Statement)createProxy(Statement.class, new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+            {
+                if (method.getName().equals("executeUpdate"))
+                {
+                    // The file is deleted once the statement has been executed
+                    String sql = (String)args[0];
+                    int start = sql.indexOf("CSVREAD('") + "CSVREAD('".length();
+                    _loads.add(sql);
+                    _loads.add(readFile(sql.substring(start, sql.indexOf('\'', start))));
+                    return new Integer(0);
+                }
+                return null;
+            }
+        });
+
+        Connection connection = (Connection)createProxy(Connection.class, new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+            {
+                if (method.getName().equals("getMetaData"))
+                {
+                    return metaData;
+                }
+                if (method.getName().equals("createStatement")
+                        && (args == null || args.length == 0))
+                {
+                    return statement;
+                }
+                return BulkInsertOperationTest.invoke(jdbcConnection, method, args);
+            }
+        });
+
+        IDatabaseConnection databaseConnection = new DatabaseConnection(connection);
+        databaseConnection.getConfig().setProperty(DatabaseConfig.PROPERTY_BULK_LOADER,
+                new H2CsvBulkLoader());
+        return databaseConnection;
+    }
+
+    private ITable createTableC()
+    {
+        DefaultTable table = new DefaultTable("C", new Column[] {
+                new Column("PKC", DataType.CHAR)});
+        table.addRow(new Object[] {C3});
+        table.addRow(new Object[] {C4});
+        return table;
+    }
+
+    public void testUnsupportedLoader() throws Exception
+    {
+        // The H2 loader does not support HSQLDB, the rows are inserted normally
+        getConnection().getConfig().setProperty(DatabaseConfig.PROPERTY_BULK_LOADER,
+                new H2CsvBulkLoader());
+
+        DatabaseOperation.BULK_INSERT.execute(getConnection(),
+                new DefaultDataSet(createTableC()));
+
+        ITable actual = getConnection().createQueryTable("C",
+                "select * from C order by PKC");
+        assertEquals(4, actual.getRowCount());
+        assertEquals(C3, actual.getValue(2, "PKC"));
+        assertEquals(C4, actual.getValue(3, "PKC"));
+    }
+
+    public void testLoad() throws Exception
+    {
+        DatabaseOperation.BULK_INSERT.execute(createH2Connection(),
+                new DefaultDataSet(createTableC()));
+
+        assertEquals(2, _loads.size());
+        String sql = (String)_loads.get(0);
+        assertTrue(sql, sql.startsWith("INSERT INTO C (PKC) SELECT * FROM CSVREAD('"));
+        assertTrue(sql, sql.endsWith("', 'C0', 'UTF-8')"));
+        assertEquals("\"C3\"\n\"C4\"\n", _loads.get(1));
+
+        // Nothing has been inserted by the regular insert
+        assertEquals(2, getConnection().getRowCount("C"));
+    }
+
+    public void testEmptyTable() throws Exception
+    {
+        DefaultTable table = new DefaultTable("C", new Column[] {
+                new Column("PKC", DataType.CHAR)});
+
+        DatabaseOperation.BULK_INSERT.execute(createH2Connection(),
+                new DefaultDataSet(table));
+
+        assertEquals(0, _loads.size());
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IDatabaseConnectionFactory;
+import org.dbunit.database.MockDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.stream.DataSetProducerAdapter;
+import org.dbunit.dataset.stream.StreamingIterator;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class ParallelTableExecutorTest extends TestCase
+{
+    private static final String[][] LEVELS = {{"A", "B"}, {"C"}};
+
+    /** Tables, commits and rollbacks in the order they happened */
+    private final List _events = Collections.synchronizedList(new ArrayList());
+
+    private final List _workers = new ArrayList();
+
+    /** The number of commits succeeding before a commit fails, -1 for none */
+    private int _commitsBeforeFailure = -1;
+
+    private MockDatabaseConnection _connection;
+
+    protected void setUp() throws Exception
+    {
+        _connection = new MockDatabaseConnection();
+        _connection.setupConnection(createConnection(true));
+        DatabaseConfig config = _connection.getConfig();
+        config.setProperty(DatabaseConfig.PROPERTY_PARALLEL_CONNECTIONS, new Integer(2));
+        config.setProperty(DatabaseConfig.PROPERTY_CONNECTION_FACTORY,
+                new IDatabaseConnectionFactory()
+        {
+            public IDatabaseConnection createConnection() throws DatabaseUnitException, SQLException
+            {
+                MockDatabaseConnection worker = new MockDatabaseConnection();
+                worker.setupConnection(ParallelTableExecutorTest.this.createConnection(true));
+                worker.setExpectedCloseCalls(1);
+                _workers.add(worker);
+                return worker;
+            }
+        });
+    }
+
+    public void testExecuteLevelByLevel() throws Exception
+    {
+        new ParallelTableExecutor(_connection).execute(LEVELS, new RecordingHandler(null, null));
+
+        assertEquals(2, _workers.size());
+        verifyWorkers();
+        assertEquals(6, _events.size());
+        // Both tables of the first level are committed before the second level starts
+        assertTrue(_events.subList(0, 2).contains("A"));
+        assertTrue(_events.subList(0, 2).contains("B"));
+        assertEquals("commit", _events.get(2));
+        assertEquals("commit", _events.get(3));
+        assertEquals("C", _events.get(4));
+        assertEquals("commit", _events.get(5));
+    }
+
+    public void testExecuteRethrowsSQLException() throws Exception
+    {
+        SQLException failure = new SQLException("B failed");
+        try
+        {
+            new ParallelTableExecutor(_connection).execute(LEVELS,
+                    new RecordingHandler("B", failure));
+            fail("Should have thrown the exception of the worker");
+        }
+        catch (SQLException expected)
+        {
+            assertSame(failure, expected);
+        }
+        assertRolledBack();
+    }
+
+    public void testExecuteRethrowsError() throws Exception
+    {
+        Error failure = new Error("B failed");
+        try
+        {
+            new ParallelTableExecutor(_connection).execute(LEVELS,
+                    new RecordingHandler("B", failure));
+            fail("Should have thrown the error of the worker");
+        }
+        catch (Error expected)
+        {
+            assertSame(failure, expected);
+        }
+        assertRolledBack();
+    }
+
+    public void testExecuteCommitFailure() throws Exception
+    {
+        _commitsBeforeFailure = 1;
+        try
+        {
+            new ParallelTableExecutor(_connection).execute(LEVELS, new RecordingHandler(null, null));
+            fail("Should have thrown the exception of the commit");
+        }
+        catch (SQLException expected)
+        {
+        }
+
+        // The first worker stays committed, the failing one is rolled back
+        verifyWorkers();
+        assertFalse(_events.contains("C"));
+        assertEquals(1, countEvents("commit"));
+        assertEquals(1, countEvents("failed commit"));
+        assertEquals(1, countEvents("rollback"));
+    }
+
+    public void testExecuteStreamedSerially() throws Exception
+    {
+        Column[] columns = new Column[] {new Column("ID", DataType.INTEGER)};
+        DefaultTable tableA = new DefaultTable("A", columns);
+        tableA.addRow(new Object[] {new Integer(1)});
+        DefaultTable tableB = new DefaultTable("B", columns);
+        tableB.addRow(new Object[] {new Integer(2)});
+        StreamingIterator iterator = new StreamingIterator(
+                new DataSetProducerAdapter(new DefaultDataSet(tableA, tableB)));
+
+        new ParallelTableExecutor(_connection).execute(new InsertOperation()
+        {
+            int executeTable(IDatabaseConnection connection, ITable table)
+                    throws DatabaseUnitException, SQLException
+            {
+                assertSame(_connection, connection);
+                _events.add(table.getTableMetaData().getTableName());
+                return 1;
+            }
+        }, iterator);
+
+        assertEquals(0, _workers.size());
+        assertEquals(Arrays.asList(new String[] {"A", "B"}), _events);
+    }
+
+    public void testGetLevelsWithoutAutoCommit() throws Exception
+    {
+        _connection.setupConnection(createConnection(false));
+        ParallelTableExecutor executor = new ParallelTableExecutor(_connection);
+        assertNull(executor.getLevels(new String[] {"A", "B"}, false));
+        assertNull(executor.getIndependentLevels(new String[] {"A", "B"}));
+    }
+
+    public void testGetIndependentLevels() throws Exception
+    {
+        ParallelTableExecutor executor = new ParallelTableExecutor(_connection);
+        assertNull(executor.getIndependentLevels(new String[] {"A"}));
+        String[][] levels = executor.getIndependentLevels(new String[] {"A", "B"});
+        assertEquals(1, levels.length);
+        assertEquals(2, levels[0].length);
+    }
+
+    private void assertRolledBack()
+    {
+        verifyWorkers();
+        // The failing level is rolled back and the next level is not started
+        assertFalse(_events.contains("C"));
+        assertFalse(_events.contains("commit"));
+        assertEquals(2, countEvents("rollback"));
+    }
+
+    private int countEvents(String event)
+    {
+        int count = 0;
+        for (int i = 0; i < _events.size(); i++)
+        {
+            if (event.equals(_events.get(i)))
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void verifyWorkers()
+    {
+        for (int i = 0; i < _workers.size(); i++)
+        {
+            ((MockDatabaseConnection)_workers.get(i)).verify();
+        }
+    }
+
+    /**
+     * Returns a JDBC connection recording commits and rollbacks.
+     */
+    private Connection createConnection(final boolean autoCommit)
+    {
+        return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[] {Connection.class}, new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args)
+                    throws SQLException
+            {
+                String name = method.getName();
+                if (name.equals("getAutoCommit"))
+                {
+                    return Boolean.valueOf(autoCommit);
+                }
+                if (name.equals("commit") && _commitsBeforeFailure >= 0
+                        && _commitsBeforeFailure-- == 0)
+                {
+                    _events.add("failed commit");
+                    throw new SQLException("commit failed");
+                }
+                if (name.equals("commit") || name.equals("rollback"))
+                {
+                    _events.add(name);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Records the processed tables and fails on a given table.
+     */
+    private class RecordingHandler implements ParallelTableExecutor.TableHandler
+    {
+        private final String _failingTable;
+        private final Throwable _failure;
+
+        public RecordingHandler(String failingTable, Throwable failure)
+        {
+            _failingTable = failingTable;
+            _failure = failure;
+        }
+
+        public int executeTable(IDatabaseConnection connection, String tableName)
+                throws DatabaseUnitException, SQLException
+        {
+            if (tableName.equals(_failingTable))
+            {
+                if (_failure instanceof SQLException)
+                {
+                    throw (SQLException)_failure;
+                }
+                throw (Error)_failure;
+            }
+            _events.add(tableName);
+            return 1;
+        }
+    }
+}
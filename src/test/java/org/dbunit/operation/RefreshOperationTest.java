@@ -0,0 +1,139 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import org.dbunit.AbstractHSQLTestCase;
+import org.dbunit.HypersonicEnvironment;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * Refreshes rows of a HSQLDB database, verifying which rows are inserted and
+ * which are updated.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class RefreshOperationTest extends AbstractHSQLTestCase
+{
+    private static final Column[] COLUMNS_B = new Column[] {
+            new Column("PKB", DataType.CHAR),
+            new Column("FKC", DataType.CHAR)};
+
+    public RefreshOperationTest(String testName)
+    {
+        super(testName, "hypersonic_simple_dataset.sql");
+    }
+
+    private ITable getTable(String tableName, String orderBy) throws Exception
+    {
+        return getConnection().createQueryTable(tableName,
+                "select * from " + tableName + " order by " + orderBy);
+    }
+
+    public void testInsertAndUpdate() throws Exception
+    {
+        DefaultTable tableC = new DefaultTable("C", new Column[] {
+                new Column("PKC", DataType.CHAR)});
+        tableC.addRow(new Object[] {C1});
+        tableC.addRow(new Object[] {C3});
+        DefaultTable tableB = new DefaultTable("B", COLUMNS_B);
+        tableB.addRow(new Object[] {B1, C1});
+        tableB.addRow(new Object[] {B2, C3});
+
+        DatabaseOperation.REFRESH.execute(getConnection(),
+                new DefaultDataSet(new ITable[] {tableC, tableB}));
+
+        ITable actualC = getTable("C", "PKC");
+        assertEquals(3, actualC.getRowCount());
+        assertEquals(C1, actualC.getValue(0, "PKC"));
+        assertEquals(C2, actualC.getValue(1, "PKC"));
+        assertEquals(C3, actualC.getValue(2, "PKC"));
+
+        ITable actualB = getTable("B", "PKB");
+        assertEquals(2, actualB.getRowCount());
+        assertEquals(B1, actualB.getValue(0, "PKB"));
+        assertEquals(C1, actualB.getValue(0, "FKC"));
+        assertEquals(B2, actualB.getValue(1, "PKB"));
+        assertEquals(C3, actualB.getValue(1, "FKC"));
+    }
+
+    public void testDuplicateKeyInChunk() throws Exception
+    {
+        DefaultTable tableB = new DefaultTable("B", COLUMNS_B);
+        tableB.addRow(new Object[] {B2, C1});
+        tableB.addRow(new Object[] {B2, C2});
+
+        DatabaseOperation.REFRESH.execute(getConnection(), new DefaultDataSet(tableB));
+
+        ITable actualB = getTable("B", "PKB");
+        assertEquals(2, actualB.getRowCount());
+        assertEquals(B2, actualB.getValue(1, "PKB"));
+        assertEquals(C2, actualB.getValue(1, "FKC"));
+    }
+
+    public void testPaddedCharKey() throws Exception
+    {
+        HypersonicEnvironment.executeSql(getConnection().getConnection(),
+                "CREATE TABLE CHAR_KEY (ID CHAR(5) NOT NULL, NAME VARCHAR(32), "
+                + "PRIMARY KEY (ID))");
+        HypersonicEnvironment.executeSql(getConnection().getConnection(),
+                "INSERT INTO CHAR_KEY VALUES ('K1', 'old')");
+
+        DefaultTable table = new DefaultTable("CHAR_KEY", new Column[] {
+                new Column("ID", DataType.CHAR),
+                new Column("NAME", DataType.VARCHAR)});
+        table.addRow(new Object[] {"K1", "new"});
+
+        DatabaseOperation.REFRESH.execute(getConnection(), new DefaultDataSet(table));
+
+        ITable actual = getTable("CHAR_KEY", "ID");
+        assertEquals(1, actual.getRowCount());
+        assertEquals("new", actual.getValue(0, "NAME"));
+    }
+
+    public void testCaseInsensitiveKey() throws Exception
+    {
+        // The database considers the keys equal although they differ in Java
+        HypersonicEnvironment.executeSql(getConnection().getConnection(),
+                "CREATE TABLE IGNORECASE_KEY (ID VARCHAR_IGNORECASE(8) NOT NULL, "
+                + "NAME VARCHAR(32), PRIMARY KEY (ID))");
+        HypersonicEnvironment.executeSql(getConnection().getConnection(),
+                "INSERT INTO IGNORECASE_KEY VALUES ('key', 'old')");
+
+        DefaultTable table = new DefaultTable("IGNORECASE_KEY", new Column[] {
+                new Column("ID", DataType.VARCHAR),
+                new Column("NAME", DataType.VARCHAR)});
+        table.addRow(new Object[] {"KEY", "new"});
+        table.addRow(new Object[] {"other", "inserted"});
+
+        DatabaseOperation.REFRESH.execute(getConnection(), new DefaultDataSet(table));
+
+        ITable actual = getTable("IGNORECASE_KEY", "NAME");
+        assertEquals(2, actual.getRowCount());
+        assertEquals("inserted", actual.getValue(0, "NAME"));
+        assertEquals("new", actual.getValue(1, "NAME"));
+    }
+}
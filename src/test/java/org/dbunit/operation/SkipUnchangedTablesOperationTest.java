@@ -0,0 +1,157 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.dbunit.AbstractHSQLTestCase;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * Applies an operation to the changed tables of a HSQLDB database, the
+ * operation recording the tables it got.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.4.10
+ */
+public class SkipUnchangedTablesOperationTest extends AbstractHSQLTestCase
+{
+    private final List _executedTables = new ArrayList();
+    private int _executeCount = 0;
+
+    private final DatabaseOperation _recordingOperation = new DatabaseOperation()
+    {
+        public void execute(IDatabaseConnection connection, IDataSet dataSet)
+                throws DatabaseUnitException, SQLException
+        {
+            _executeCount++;
+            ITableIterator iterator = dataSet.iterator();
+            while (iterator.next())
+            {
+                _executedTables.add(iterator.getTableMetaData().getTableName());
+            }
+        }
+    };
+
+    public SkipUnchangedTablesOperationTest(String testName)
+    {
+        super(testName, "hypersonic_simple_dataset.sql");
+    }
+
+    /**
+     * Creates the dataset of the tables C, B and A having the contents
+     * of the database, except for the given value of A.FKC.
+     */
+    private IDataSet createDataSet(String fkcOfA)
+    {
+        DefaultTable tableC = new DefaultTable("C", new Column[] {
+                new Column("PKC", DataType.CHAR)});
+        tableC.addRow(new Object[] {C1});
+        tableC.addRow(new Object[] {C2});
+        DefaultTable tableB = new DefaultTable("B", new Column[] {
+                new Column("PKB", DataType.CHAR),
+                new Column("FKC", DataType.CHAR)});
+        tableB.addRow(new Object[] {B1, C2});
+        DefaultTable tableA = new DefaultTable("A", new Column[] {
+                new Column("PKA", DataType.CHAR),
+                new Column("FKB", DataType.CHAR),
+                new Column("FKC", DataType.CHAR)});
+        tableA.addRow(new Object[] {A1, B1, fkcOfA});
+        return new DefaultDataSet(new ITable[] {tableC, tableB, tableA});
+    }
+
+    private List getSortedExecutedTables()
+    {
+        List tables = new ArrayList(_executedTables);
+        Collections.sort(tables);
+        return tables;
+    }
+
+    public void testUnchangedTablesSkipped() throws Exception
+    {
+        new SkipUnchangedTablesOperation(_recordingOperation).execute(
+                getConnection(), createDataSet(C1));
+
+        assertEquals(0, _executeCount);
+    }
+
+    public void testChangedTableReloaded() throws Exception
+    {
+        // No other table depends on A
+        new SkipUnchangedTablesOperation(_recordingOperation).execute(
+                getConnection(), createDataSet(C2));
+
+        assertEquals(1, _executeCount);
+        assertEquals(Collections.singletonList("A"), _executedTables);
+    }
+
+    public void testDependentTablesReloaded() throws Exception
+    {
+        IDataSet dataSet = createDataSet(C1);
+        DefaultTable tableC = (DefaultTable)dataSet.getTable("C");
+        tableC.addRow(new Object[] {C3});
+
+        new SkipUnchangedTablesOperation(_recordingOperation).execute(
+                getConnection(), dataSet);
+
+        // The rows of C can only be deleted together with the rows referencing them
+        assertEquals(1, _executeCount);
+        List expected = new ArrayList();
+        expected.add("A");
+        expected.add("B");
+        expected.add("C");
+        assertEquals(expected, getSortedExecutedTables());
+    }
+
+    public void testIncrementalCleanInsert() throws Exception
+    {
+        assertTrue(DatabaseOperation.INCREMENTAL_CLEAN_INSERT
+                instanceof SkipUnchangedTablesOperation);
+        assertTrue(DatabaseOperation.INCREMENTAL_CLEAN_INSERT.toString(),
+                DatabaseOperation.INCREMENTAL_CLEAN_INSERT.toString().indexOf(
+                        DatabaseOperation.CLEAN_INSERT.toString()) >= 0);
+
+        DatabaseOperation.INCREMENTAL_CLEAN_INSERT.execute(getConnection(),
+                createDataSet(C2));
+
+        ITable tableA = getConnection().createTable("A");
+        assertEquals(1, tableA.getRowCount());
+        assertEquals(C2, tableA.getValue(0, "FKC"));
+        assertEquals(2, getConnection().getRowCount("C"));
+
+        // The tables are unchanged now, applying the dataset again does nothing
+        DatabaseOperation.INCREMENTAL_CLEAN_INSERT.execute(getConnection(),
+                createDataSet(C2));
+        assertEquals(C2, getConnection().createTable("A").getValue(0, "FKC"));
+    }
+}